@@ -72,6 +72,8 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
     private static final String EXCLUDE_TASK = "x";
     private static final String HELP = "h";
     private static final String GUI = "gui";
+    private static final String PARALLEL_THREADS = "parallel-threads";
+    private static final String OFFLINE = "offline";
 
     OptionParser parser = new OptionParser() {
         {
@@ -105,6 +107,8 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
             acceptsAll(WrapUtil.toList(NO_PROJECT_DEPENDENCY_REBUILD, "no-rebuild"), "Do not rebuild project dependencies.");
             acceptsAll(WrapUtil.toList(NO_OPT, "no-opt"), "Ignore any task optimization.");
             acceptsAll(WrapUtil.toList(EXCLUDE_TASK, "exclude-task"), "Specify a task to be excluded from execution.").withRequiredArg().ofType(String.class);
+            acceptsAll(WrapUtil.toList(PARALLEL_THREADS), "Specify the number of worker threads used to execute independent tasks in parallel.").withRequiredArg().ofType(Integer.class);
+            acceptsAll(WrapUtil.toList(OFFLINE), "Resolve dependencies from the local dependency cache only, without accessing any repository.");
             acceptsAll(WrapUtil.toList(HELP, "?", "help"), "Shows this help message");
         }
     };
@@ -281,6 +285,19 @@ public class DefaultCommandLine2StartParameterConverter implements CommandLine2S
             startParameter.setExcludedTaskNames(options.valuesOf(EXCLUDE_TASK));
         }
 
+        if (options.has(PARALLEL_THREADS)) {
+            int threadCount = (Integer) options.valueOf(PARALLEL_THREADS);
+            if (threadCount < 1) {
+                throw new CommandLineArgumentException(String.format(
+                        "Error: The --%s option requires a positive number of threads.", PARALLEL_THREADS));
+            }
+            startParameter.setParallelThreadCount(threadCount);
+        }
+
+        if (options.has(OFFLINE)) {
+            startParameter.setOffline(true);
+        }
+
         startParameter.setLogLevel(getLogLevel(options));
     }
 
@@ -15,14 +15,19 @@
  */
 package org.gradle;
 
+import org.gradle.api.artifacts.ResolverContainer;
 import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.internal.AsmBackedClassGenerator;
 import org.gradle.api.internal.artifacts.ConfigurationContainerFactory;
+import org.gradle.api.internal.artifacts.ConfigurationResolutionScheduler;
 import org.gradle.api.internal.artifacts.DefaultConfigurationContainerFactory;
 import org.gradle.api.internal.artifacts.dsl.DefaultPublishArtifactFactory;
 import org.gradle.api.internal.artifacts.dsl.DefaultRepositoryHandlerFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.*;
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactDownloader;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultResolverFactory;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleDescriptorCache;
+import org.gradle.api.internal.artifacts.ivyservice.ResolverLock;
 import org.gradle.api.internal.artifacts.ivyservice.ResolverFactory;
 import org.gradle.api.internal.artifacts.repositories.DefaultInternalRepository;
 import org.gradle.api.internal.project.*;
@@ -32,6 +37,8 @@ import org.gradle.initialization.*;
 import org.gradle.invocation.DefaultGradle;
 import org.gradle.util.WrapUtil;
 
+import java.io.File;
+
 /**
  * @author Hans Dockter
 */
@@ -69,15 +76,20 @@ public class DefaultGradleFactory implements GradleFactory {
                         new MasterDirSettingsFinderStrategy(),
                         new ParentDirSettingsFinderStrategy()))
         );
+        ArtifactDownloader artifactDownloader = new ArtifactDownloader();
+        ResolverFactory resolverFactory = new DefaultResolverFactory(artifactDownloader);
+        ModuleDescriptorCache descriptorCache = new ModuleDescriptorCache();
         ConfigurationContainerFactory configurationContainerFactory = new DefaultConfigurationContainerFactory(
-                startParameter.getProjectDependenciesBuildInstruction());
+                startParameter.getProjectDependenciesBuildInstruction(),
+                startParameter.isOffline() ? resolverFactory.createOfflineResolver(new File(
+                        startParameter.getGradleUserHomeDir(), ResolverContainer.DEFAULT_CACHE_DIR_NAME)) : null,
+                descriptorCache, new ResolverLock());
         DefaultInternalRepository internalRepository = new DefaultInternalRepository();
         DependencyFactory dependencyFactory = new DefaultDependencyFactory(
                 WrapUtil.<IDependencyImplementationFactory>toSet(new ModuleDependencyFactory(),
                         new SelfResolvingDependencyFactory()),
                 new DefaultClientModuleFactory(),
                 new DefaultProjectDependencyFactory());
-        ResolverFactory resolverFactory = new DefaultResolverFactory();
         ScriptCompilerFactory scriptCompilerFactory = new DefaultScriptCompilerFactory(
                 new DefaultScriptCompilationHandler(
                         new DefaultCachePropertiesHandler()),
@@ -105,6 +117,13 @@ public class DefaultGradleFactory implements GradleFactory {
                 serviceRegistryFactory,
                 new DefaultStandardOutputRedirector());
         gradle.addBuildListener(internalRepository);
+        gradle.addBuildListener(artifactDownloader);
+        gradle.addBuildListener(gradle.getTaskHistoryStores());
+        gradle.addBuildListener(gradle.getFileFingerprinter());
+        gradle.addBuildListener(new BuildScriptPrecompiler(importsReader, scriptCompilerFactory,
+                Runtime.getRuntime().availableProcessors()));
+        gradle.addBuildListener(new ConfigurationResolutionScheduler(startParameter.getParallelThreadCount(),
+                descriptorCache));
         return new GradleLauncher(
                 gradle,
                 initScriptHandler,
@@ -78,6 +78,8 @@ public class StartParameter {
     private boolean launchGUI = false;
     private boolean dryRun = false;
     private boolean noOpt = false;
+    private int parallelThreadCount;
+    private boolean offline = false;
 
     /**
      * Creates a {@code StartParameter} with default values. This is roughly equivalent to running Gradle on the
@@ -117,6 +119,8 @@ public class StartParameter {
         startParameter.showVersion = showVersion;
         startParameter.dryRun = dryRun;
         startParameter.noOpt = noOpt;
+        startParameter.parallelThreadCount = parallelThreadCount;
+        startParameter.offline = offline;
         return startParameter;
     }
 
@@ -134,6 +138,7 @@ public class StartParameter {
         startParameter.pluginPropertiesFile = pluginPropertiesFile;
         startParameter.defaultImportsFile = defaultImportsFile;
         startParameter.cacheUsage = cacheUsage;
+        startParameter.offline = offline;
         return startParameter;
     }
 
@@ -419,6 +424,46 @@ public class StartParameter {
         this.noOpt = noOpt;
     }
 
+    /**
+     * Returns the number of worker threads to use to execute tasks. A value of 0 or 1 means tasks are executed
+     * sequentially on the build thread.
+     *
+     * @return The number of worker threads.
+     */
+    public int getParallelThreadCount() {
+        return parallelThreadCount;
+    }
+
+    /**
+     * Sets the number of worker threads to use to execute tasks. When greater than 1, tasks whose dependencies have
+     * completed are executed concurrently.
+     *
+     * @param parallelThreadCount The number of worker threads. Use 0 to execute tasks sequentially.
+     */
+    public void setParallelThreadCount(int parallelThreadCount) {
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
+    /**
+     * Returns true if dependencies should be resolved from the local dependency cache only, without accessing any
+     * repository.
+     *
+     * @return true if the build runs offline.
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Specifies whether dependencies should be resolved from the local dependency cache only. When true, a dependency
+     * which is not in the cache fails the resolve immediately.
+     *
+     * @param offline true to run the build offline.
+     */
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
     /**
      * Sets the settings file to use for the build. Use null to use the default settings file.
      *
@@ -15,6 +15,7 @@
  */
 package org.gradle.api;
 
+import org.gradle.groovy.scripts.ContentAddressedScriptSource;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.api.internal.Contextual;
 import org.apache.commons.lang.StringUtils;
@@ -84,8 +85,16 @@ public class GradleScriptException extends GradleException {
             return lineNumber;
 
         // wasn't explicitly set, so search for the line number
+        Integer foundLineNumber = findLineNumber(scriptSource.getFileName());
+        if (foundLineNumber == null) {
+            // the script may have been compiled to a class shared by all scripts with the same content
+            foundLineNumber = findLineNumber(ContentAddressedScriptSource.getClassName(scriptSource));
+        }
+        return foundLineNumber;
+    }
+
+    private Integer findLineNumber(String scriptFileName) {
         Integer foundLineNumber = null;
-        String scriptFileName = scriptSource.getFileName();
         for (Throwable currentException = this; currentException != null; currentException = currentException.getCause()) {
             for (StackTraceElement element : currentException.getStackTrace()) {
                 if (scriptFileName.equals(element.getFileName()) && element.getLineNumber() >= 0) {
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.digest;
+
+import java.io.File;
+import java.security.MessageDigest;
+
+/**
+ * A DigesterUtilStrategy implementation that only includes the byte content of a file, so that the digest of a file
+ * does not change when the file is moved or touched.
+ *
+ * @author Tom Eyckmans
+ */
+class ContentDigesterUtilStrategy implements DigesterUtilStrategy {
+    private final FileContentDigester contentDigester = new FileContentDigester();
+
+    /**
+     * Calls update on the digester with the byte content of the file.
+     *
+     * @param digester The digester to update.
+     * @param file The file that needs it's digest calculated.
+     */
+    public void digestFile(MessageDigest digester, File file) {
+        contentDigester.digestContent(digester, file);
+    }
+
+    /**
+     * Calls update on the digester with the provided directory size.
+     *
+     * @param digester The digester to update.
+     * @param directory The directory that needs it's digest calculated.
+     * @param directorySize The directory size that needs to be used during digest calculation.
+     */
+    public void digestDirectory(MessageDigest digester, File directory, long directorySize) {
+        digester.update(((Long)directorySize).byteValue());
+    }
+}
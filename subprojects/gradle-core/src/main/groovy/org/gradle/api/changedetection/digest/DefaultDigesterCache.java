@@ -19,27 +19,35 @@ package org.gradle.api.changedetection.digest;
 import org.apache.commons.lang.StringUtils;
 
 import java.security.MessageDigest;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * Keeps the digesters per thread, so a digester is never shared between threads and the same cacheId can be used
+ * by all threads.
+ *
  * @author Tom Eyckmans
  */
 class DefaultDigesterCache implements DigesterCache{
 
-    private final Map<String, MessageDigest> cache;
+    private final ThreadLocal<Map<String, MessageDigest>> cache;
     private final DigesterFactory digesterFactory;
 
     DefaultDigesterCache(DigesterFactory digesterFactory) {
         if ( digesterFactory == null ) throw new IllegalArgumentException("digesterFactory is null!");
 
-        this.cache = new ConcurrentHashMap<String, MessageDigest>();
+        this.cache = new ThreadLocal<Map<String, MessageDigest>>() {
+            protected Map<String, MessageDigest> initialValue() {
+                return new HashMap<String, MessageDigest>();
+            }
+        };
         this.digesterFactory = digesterFactory;
     }
 
     public MessageDigest getDigester(String cacheId) {
         if ( StringUtils.isEmpty(cacheId) ) throw new IllegalArgumentException("cacheId is empty!");
 
+        final Map<String, MessageDigest> cache = this.cache.get();
         MessageDigest digester = cache.get(cacheId);
         if ( digester == null ) {
             digester = digesterFactory.createDigester();
@@ -24,6 +24,7 @@ import java.io.File;
  */
 class DefaultDigesterUtil implements DigesterUtil {
     private final DigesterUtilStrategy strategy;
+    private final FileContentDigester contentDigester = new FileContentDigester();
 
     DefaultDigesterUtil(DigesterUtilStrategy strategy) {
         if ( strategy == null ) throw new IllegalArgumentException("strategy is null!");
@@ -54,6 +55,27 @@ class DefaultDigesterUtil implements DigesterUtil {
         strategy.digestFile(digester, file);
     }
 
+    /**
+     * Updates the digester with the content of the file.
+     *
+     * This method throws an IllegalArgumentException when:
+     * - digester is null
+     * - file is null
+     * - file doesn't exists
+     * - file is not a file
+     *
+     * @param digester The digester to update.
+     * @param file The file that needs its content digested.
+     */
+    public void digestFileContent(final MessageDigest digester, final File file) {
+        if ( digester == null ) throw new IllegalArgumentException("digester is null!");
+        if ( file == null ) throw new IllegalArgumentException("file is null!");
+        if ( !file.exists() ) throw new IllegalArgumentException("file ("+file.getAbsolutePath()+") doesn't exist!");
+        if ( !file.isFile() ) throw new IllegalArgumentException("file ("+file.getAbsolutePath()+") is not a file!");
+
+        contentDigester.digestContent(digester, file);
+    }
+
     /**
      * Calls digestDirectory on the selected stategy.
      *
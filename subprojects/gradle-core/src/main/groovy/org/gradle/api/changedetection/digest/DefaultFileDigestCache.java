@@ -0,0 +1,183 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.digest;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded {@link FileDigestCache} that is loaded from and saved to a binary file. The least recently used entries
+ * are discarded when the cache is full.
+ *
+ * Cache File Format:
+ *
+ * magic (int) version (int) entry count (int)
+ * ( path (modified UTF-8) length (long) last modified (long)
+ *   digest length (unsigned byte) digest (raw bytes) )*
+ *
+ * @author Tom Eyckmans
+ */
+class DefaultFileDigestCache implements FileDigestCache {
+    private static final Logger logger = Logging.getLogger(DefaultFileDigestCache.class);
+    private static final int MAGIC = 0x47464443;
+    private static final int VERSION = 1;
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    DefaultFileDigestCache(File cacheFile, final int maxEntries) {
+        if ( maxEntries <= 0 ) throw new IllegalArgumentException("maxEntries <= 0!");
+
+        this.cacheFile = cacheFile;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        if ( cacheFile != null && cacheFile.isFile() ) {
+            load();
+        }
+    }
+
+    public byte[] getDigest(File file) {
+        final Entry entry;
+        synchronized (entries) {
+            entry = entries.get(file.getAbsolutePath());
+        }
+        if ( entry != null && entry.length == file.length() && entry.lastModified == file.lastModified() ) {
+            hitCount.incrementAndGet();
+            return entry.digest;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    public void putDigest(File file, byte[] digest) {
+        final long lastModified = file.lastModified();
+        if ( lastModified == 0 || lastModified >= System.currentTimeMillis() - TIMESTAMP_RESOLUTION ) {
+            return;
+        }
+        final Entry entry = new Entry(file.length(), lastModified, digest);
+        synchronized (entries) {
+            entries.put(file.getAbsolutePath(), entry);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public void save() {
+        if ( cacheFile == null ) {
+            return;
+        }
+
+        final File tmpFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        DataOutputStream outputStream = null;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            synchronized (entries) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(entries.size());
+                // eldest first, so loading restores the access order
+                for ( final Map.Entry<String, Entry> mapEntry : entries.entrySet() ) {
+                    final Entry entry = mapEntry.getValue();
+                    outputStream.writeUTF(mapEntry.getKey());
+                    outputStream.writeLong(entry.length);
+                    outputStream.writeLong(entry.lastModified);
+                    outputStream.writeByte(entry.digest.length);
+                    outputStream.write(entry.digest);
+                }
+            }
+        }
+        catch ( IOException e ) {
+            IOUtils.closeQuietly(outputStream);
+            tmpFile.delete();
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            IOUtils.closeQuietly(outputStream);
+        }
+
+        if ( (cacheFile.exists() && !cacheFile.delete()) || !tmpFile.renameTo(cacheFile) ) {
+            logger.warn("Could not save file digest cache {}.", cacheFile);
+            tmpFile.delete();
+        }
+    }
+
+    private void load() {
+        DataInputStream inputStream = null;
+        try {
+            inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            if ( inputStream.readInt() != MAGIC || inputStream.readInt() != VERSION ) {
+                logger.debug("Ignoring file digest cache {} as it has an unknown format.", cacheFile);
+                return;
+            }
+            final int count = inputStream.readInt();
+            for ( int i = 0; i < count; i++ ) {
+                final String path = inputStream.readUTF();
+                final long length = inputStream.readLong();
+                final long lastModified = inputStream.readLong();
+                final byte[] digest = new byte[inputStream.readUnsignedByte()];
+                inputStream.readFully(digest);
+                entries.put(path, new Entry(length, lastModified, digest));
+            }
+        }
+        catch ( IOException e ) {
+            // A damaged cache only costs a rescan
+            logger.debug("Discarding file digest cache {} as it could not be read.", cacheFile);
+            entries.clear();
+        }
+        finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final byte[] digest;
+
+        private Entry(long length, long lastModified, byte[] digest) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.gradle.api.changedetection.digest;
 
+import java.io.File;
+
 /**
  * @author Tom Eyckmans
  */
@@ -40,6 +42,18 @@ public class DigestObjectFactory {
         return createDigesterUtil(new MetaContentDigesterUtilStrategy());
     }
 
+    public static DigesterUtil createMetaContentDigesterUtil(final FileDigestCache fileDigestCache) {
+        return createDigesterUtil(new MetaContentDigesterUtilStrategy(fileDigestCache, createShaDigesterFactory()));
+    }
+
+    public static FileDigestCache createFileDigestCache(final File cacheFile, final int maxEntries) {
+        return new DefaultFileDigestCache(cacheFile, maxEntries);
+    }
+
+    public static DigesterUtil createContentDigesterUtil() {
+        return createDigesterUtil(new ContentDigesterUtilStrategy());
+    }
+
     public static DigesterFactory createShaDigesterFactory() {
         return new ShaDigesterFactory();
     }
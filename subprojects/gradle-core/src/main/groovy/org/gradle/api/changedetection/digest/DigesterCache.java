@@ -23,6 +23,12 @@ import java.security.MessageDigest;
  * @author Tom Eyckmans
  */
 public interface DigesterCache {
+    /**
+     * Returns a reset digester for the calling thread. Each thread gets its own digester for a digesterId.
+     *
+     * @param digesterId The id of the digester.
+     * @return The digester.
+     */
     MessageDigest getDigester(String digesterId);
 
     DigesterFactory getDigesterFactory();
@@ -33,6 +33,15 @@ public interface DigesterUtil {
      */
     void digestFile(MessageDigest digester, File file);
 
+    /**
+     * Updates the digester with the byte content of a file only, regardless of the requested strategy. The content is
+     * read through a FileChannel into a direct buffer that is reused by the calling thread.
+     *
+     * @param digester The digester to update.
+     * @param file The file that needs its content digested.
+     */
+    void digestFileContent(MessageDigest digester, File file);
+
     /**
      * Updated the digester for a directory based on the requested strategy.
      *  
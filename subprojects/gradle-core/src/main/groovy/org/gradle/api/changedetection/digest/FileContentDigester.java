@@ -0,0 +1,80 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.digest;
+
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.GradleException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+
+/**
+ * Updates digesters with the content of files. The content is read through a FileChannel into a direct buffer that
+ * each thread reuses, so no buffer is allocated per file.
+ *
+ * @author Tom Eyckmans
+ */
+class FileContentDigester {
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final ThreadLocal<ByteBuffer> buffer;
+
+    FileContentDigester() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    FileContentDigester(final int bufferSize) {
+        if ( bufferSize <= 0 ) throw new IllegalArgumentException("bufferSize <= 0!");
+
+        this.buffer = new ThreadLocal<ByteBuffer>() {
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocateDirect(bufferSize);
+            }
+        };
+    }
+
+    /**
+     * Calls update on the digester with the byte content of the file.
+     *
+     * @param digester The digester to update.
+     * @param file The file to read.
+     */
+    public void digestContent(MessageDigest digester, File file) {
+        final ByteBuffer contentBuffer = buffer.get();
+        FileInputStream fileStream = null;
+        try {
+            fileStream = new FileInputStream(file);
+            final FileChannel channel = fileStream.getChannel();
+            contentBuffer.clear();
+            while ( channel.read(contentBuffer) != -1 ) {
+                contentBuffer.flip();
+                digester.update(contentBuffer);
+                contentBuffer.clear();
+            }
+        }
+        catch (IOException e) {
+            throw new GradleException("failed to add content to file digest", e);
+        }
+        finally {
+            IOUtils.closeQuietly(fileStream);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.digest;
+
+import java.io.File;
+
+/**
+ * Caches the content digests of files, so unchanged files don't need to be read again. A cached digest is only used
+ * while the length and the last modified time of the file are the same as when the digest was added.
+ *
+ * @author Tom Eyckmans
+ */
+public interface FileDigestCache {
+    /**
+     * The resolution of file system timestamps, in milliseconds. Digests of files modified this recently are not
+     * cached, as a later change to the file within the same timestamp would go unnoticed.
+     */
+    long TIMESTAMP_RESOLUTION = 2000L;
+
+    /**
+     * Returns the cached content digest of the file, or null when the file is not cached or has changed.
+     *
+     * @param file The file to look up.
+     * @return The cached digest or null.
+     */
+    byte[] getDigest(File file);
+
+    /**
+     * Adds the content digest of a file to the cache.
+     *
+     * @param file The file.
+     * @param digest The digest of the content of the file.
+     */
+    void putDigest(File file, byte[] digest);
+
+    /**
+     * @return The number of lookups that returned a cached digest.
+     */
+    long getHitCount();
+
+    /**
+     * @return The number of lookups that did not return a cached digest.
+     */
+    long getMissCount();
+
+    /**
+     * Writes the cache to its backing file, so it can be used by later builds.
+     */
+    void save();
+}
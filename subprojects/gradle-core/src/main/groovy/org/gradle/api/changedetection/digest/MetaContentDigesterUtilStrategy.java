@@ -16,14 +16,8 @@
 
 package org.gradle.api.changedetection.digest;
 
-import org.gradle.api.GradleException;
-import org.apache.commons.io.IOUtils;
-
 import java.security.MessageDigest;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The DigesterUtilStrategyNames.META_CONTENT DigesterUtilStrategy implementation.
@@ -35,16 +29,37 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 class MetaContentDigesterUtilStrategy extends MetaDigesterUtilStrategy {
     /**
-     * The byte array buffer size used to update the digester with the file content.
+     * Reads the file content, using a buffer of fileContentBufferSize bytes per thread.
      *
-     * Defaults to 1024.
+     * The buffer size defaults to 8192.
+     */
+    private volatile FileContentDigester contentDigester = new FileContentDigester();
+
+    /**
+     * The cache of content digests, or null when the content is always read.
      */
-    private final AtomicInteger fileContentBufferSize = new AtomicInteger(1024);
+    private final FileDigestCache fileDigestCache;
+    private final DigesterFactory contentDigesterFactory;
 
     /**
      * Creates an instance with the default fileContentBufferSize.
      */
     MetaContentDigesterUtilStrategy() {
+        this(null, null);
+    }
+
+    /**
+     * Creates an instance that includes the digest of the file content instead of the content itself, and looks the
+     * content digest up in the cache before reading the file.
+     *
+     * @param fileDigestCache The cache of content digests.
+     * @param contentDigesterFactory The factory of the digesters used to calculate content digests.
+     */
+    MetaContentDigesterUtilStrategy(FileDigestCache fileDigestCache, DigesterFactory contentDigesterFactory) {
+        if ( fileDigestCache != null && contentDigesterFactory == null ) throw new IllegalArgumentException("contentDigesterFactory is null!");
+
+        this.fileDigestCache = fileDigestCache;
+        this.contentDigesterFactory = contentDigesterFactory;
     }
 
     /**
@@ -54,6 +69,7 @@ class MetaContentDigesterUtilStrategy extends MetaDigesterUtilStrategy {
      * @exception IllegalArgumentException When the fileContentBuffer size provided <= 0.
      */
     public MetaContentDigesterUtilStrategy(int fileContentBufferSize) {
+        this();
         setFileContentBufferSize(fileContentBufferSize);
     }
 
@@ -61,8 +77,9 @@ class MetaContentDigesterUtilStrategy extends MetaDigesterUtilStrategy {
      * Calls {@see MetaDigesterUtilStrategy.digestFile} and in addition to the DigesterUtilStrategyNames.META
      * this method also include the byte content of the file in the digest calculation.
      *
-     * This method uses a byte array to buffer the file content. The size of this buffer can be controlled by the
-     * fileContentBufferSize attribute. 
+     * This method uses a direct buffer per thread to read the file content. The size of this buffer can be controlled
+     * by the fileContentBufferSize attribute. When a FileDigestCache is used, the digest of the content is included instead,
+     * and the file is only read when its content digest is not cached.
      *
      * @param digester The digester to update.
      * @param file The file that needs it's digest calculated.
@@ -70,21 +87,19 @@ class MetaContentDigesterUtilStrategy extends MetaDigesterUtilStrategy {
     public void digestFile(MessageDigest digester, File file) {
         super.digestFile(digester, file);
 
-        FileInputStream fileStream = null;
-        try {
-            fileStream = new FileInputStream(file);
-
-            final byte[] fileContentBuffer = new byte[fileContentBufferSize.get()];
-            while ( fileStream.read(fileContentBuffer) != -1 ) {
-                digester.update(fileContentBuffer);
-            }
-        }
-        catch (IOException e) {
-            throw new GradleException("failed to add content to file digest", e);
+        if ( fileDigestCache == null ) {
+            contentDigester.digestContent(digester, file);
+            return;
         }
-        finally {
-            IOUtils.closeQuietly(fileStream);
+
+        byte[] contentDigest = fileDigestCache.getDigest(file);
+        if ( contentDigest == null ) {
+            final MessageDigest fileContentDigester = contentDigesterFactory.createDigester();
+            contentDigester.digestContent(fileContentDigester, file);
+            contentDigest = fileContentDigester.digest();
+            fileDigestCache.putDigest(file, contentDigest);
         }
+        digester.update(contentDigest);
     }
 
     /**
@@ -95,6 +110,6 @@ class MetaContentDigesterUtilStrategy extends MetaDigesterUtilStrategy {
      */
     public void setFileContentBufferSize(int fileContentBufferSize) {
         if ( fileContentBufferSize <= 0 ) throw new IllegalArgumentException("fileContentBufferSize <= 0!");
-        this.fileContentBufferSize.set(fileContentBufferSize);
+        this.contentDigester = new FileContentDigester(fileContentBufferSize);
     }
 }
@@ -20,16 +20,15 @@ import org.gradle.api.changedetection.digest.*;
 import org.gradle.api.changedetection.ChangeProcessor;
 import org.gradle.api.GradleException;
 import org.gradle.api.io.IoFactory;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.util.ThreadUtils;
 import org.gradle.util.Clock;
 import org.gradle.util.queues.BlockingQueueItemProducer;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.util.*;
 import java.util.concurrent.*;
 
@@ -37,13 +36,14 @@ import java.util.concurrent.*;
  * @author Tom Eyckmans
  */
 class DefaultDirectoryStateChangeDetecter implements DirectoryStateChangeDetecter {
+    private static final Logger logger = Logging.getLogger(DefaultDirectoryStateChangeDetecter.class);
 
     private final File directoryToProcess;
     private final IoFactory ioFactory;
     private final DirectoryStateBuilder directoryStateBuilder;
     private final DigesterCache digesterCache;
     private final DigesterUtil digesterUtil;
-    private final DirectoryListFileCreator directoryListFileCreator;
+    private final FileDigestCache fileDigestCache;
     private final StateFileUtil stateFileUtil;
     private final BlockingQueue<StateChangeEvent> stateChangeEventQueue;
     private final BlockingQueueItemProducer<StateChangeEvent> changeProcessorEventProducer;
@@ -53,7 +53,7 @@ class DefaultDirectoryStateChangeDetecter implements DirectoryStateChangeDetecte
     private final StateComparator stateComparator;
 
     DefaultDirectoryStateChangeDetecter(
-            final File directoryToProcess, IoFactory ioFactory, DirectoryStateBuilder directoryStateBuilder, DigesterCache digesterCache, DigesterUtil digesterUtil, DirectoryListFileCreator directoryListFileCreator, StateFileUtil stateFileUtil, BlockingQueue<StateChangeEvent> stateChangeEventQueue, BlockingQueueItemProducer<StateChangeEvent> changeProcessorEventProducer, List<DirectoryStateDigestComparator> directoryStateDigestComparators, StateFileChangeListenerUtil stateFileChangeListenerUtil, StateComparator stateComparator) {
+            final File directoryToProcess, IoFactory ioFactory, DirectoryStateBuilder directoryStateBuilder, DigesterCache digesterCache, DigesterUtil digesterUtil, FileDigestCache fileDigestCache, StateFileUtil stateFileUtil, BlockingQueue<StateChangeEvent> stateChangeEventQueue, BlockingQueueItemProducer<StateChangeEvent> changeProcessorEventProducer, List<DirectoryStateDigestComparator> directoryStateDigestComparators, StateFileChangeListenerUtil stateFileChangeListenerUtil, StateComparator stateComparator) {
         if ( directoryToProcess == null ) throw new IllegalArgumentException("directoryToProcess is null!");
         if ( !directoryToProcess.exists() ) throw new IllegalArgumentException("directoryToProcess does not exists!");
         if ( !directoryToProcess.isDirectory() ) throw new IllegalArgumentException("directoryToProcess is not a directory!");
@@ -63,7 +63,7 @@ class DefaultDirectoryStateChangeDetecter implements DirectoryStateChangeDetecte
         this.directoryStateBuilder = directoryStateBuilder;
         this.digesterCache = digesterCache;
         this.digesterUtil = digesterUtil;
-        this.directoryListFileCreator = directoryListFileCreator;
+        this.fileDigestCache = fileDigestCache;
         this.stateFileUtil = stateFileUtil;
         this.stateChangeEventQueue = stateChangeEventQueue;
         this.changeProcessorEventProducer = changeProcessorEventProducer;
@@ -79,72 +79,21 @@ class DefaultDirectoryStateChangeDetecter implements DirectoryStateChangeDetecte
     public void detectChanges(ChangeProcessor changeProcessor) {
         Clock c = new Clock();
         try {
-            int lowestLevel = 0;
+            // Calculate the digests of files and directories
+            final List<DirectoryState> directoryStates;
+            threadPool = ThreadUtils.newFixedThreadPool(4);
             try {
-                lowestLevel = directoryListFileCreator.createDirectoryListFiles(directoryToProcess);
+                directoryStates = new DirectoryTreeStateCalculator(directoryStateBuilder, stateFileUtil, digesterCache, digesterUtil, ioFactory).calculate(directoryToProcess, threadPool);
             }
-            catch ( IOException e ) {
-                throw new GradleException("failed to create directory list files", e);
+            finally {
+                ThreadUtils.shutdown(threadPool);
             }
 
-            // Calculate the digests of files and directories
-            Map<String, DirectoryState> previousLevelDirectoryStates = Collections.unmodifiableMap(new HashMap<String, DirectoryState>());
-            Map<String, DirectoryState> currentLevelDirectoryStates = new ConcurrentHashMap<String, DirectoryState>();
-            for ( int levelIndex = lowestLevel ; levelIndex >= 0 ; levelIndex-- ) {
-                final File directoryLevelListFile = stateFileUtil.getDirsListFile(levelIndex);
-                threadPool = ThreadUtils.newFixedThreadPool(4);
-
-                if ( directoryLevelListFile.exists() ) {
-                    final File stateFile = stateFileUtil.getNewDirsStateFile(stateFileUtil.getDirsStateFilename(levelIndex));
-                    final StateFileWriter newDirectoriesStateFileWriter = new StateFileWriter(ioFactory, stateFile);
-
-                    BufferedReader directoryListFileReader = null;
-
-                    try {
-                        directoryListFileReader = new BufferedReader(new FileReader(directoryLevelListFile));
-
-                        String absoluteDirectoryPath = null;
-                        while ( (absoluteDirectoryPath = directoryListFileReader.readLine() ) != null ) {
-                            final DirectoryState directoryState = directoryStateBuilder.
-                                    directory(new File(absoluteDirectoryPath)).
-                                    getDirectoryState();
+            final int lowestLevel = writeDirectoriesStateFiles(directoryStates);
 
-                            final DirectoryStateDigestCalculator digestCalculator = new DirectoryStateDigestCalculator(directoryState, digesterCache, digesterUtil, this, currentLevelDirectoryStates, previousLevelDirectoryStates, ioFactory);
-
-                            threadPool.submit(digestCalculator);
-                        }
-
-                        // each directory level has to be processed before continueing with the next(higher) level
-                        ThreadUtils.shutdown(threadPool);
-
-                        final List<DirectoryState> currentLevelDirectoryStatesList = new ArrayList<DirectoryState>(currentLevelDirectoryStates.values());
-
-                        Collections.sort(currentLevelDirectoryStatesList);
-                        // if one of the directory state processors failed -> change detection fails
-                        // This is a simple not so efficient way, we could fail earlier but that will make everything more complicated
-                        
-                        for ( final DirectoryState directoryState : currentLevelDirectoryStatesList ) {
-                            final Throwable failureCause = directoryState.getFailureCause();
-                            if ( failureCause != null )
-                                throw new GradleException("Failed to detect changes", failureCause);
-                            else {
-                                newDirectoriesStateFileWriter.addDigest(directoryState.getRelativePath(), directoryState.getDigest());
-                            }
-                        }
-
-                    }
-                    catch ( IOException e ) {
-                        throw new GradleException("failed to detect changes (dirs."+newDirectoriesStateFileWriter.getStateFile().getAbsolutePath()+".state write failed)", e);
-                    }
-                    finally {
-                        IOUtils.closeQuietly(directoryListFileReader);
-                        FileUtils.deleteQuietly(directoryLevelListFile);
-                        newDirectoriesStateFileWriter.close();
-                    }
-                }
-
-                previousLevelDirectoryStates = Collections.unmodifiableMap(new HashMap<String, DirectoryState>(currentLevelDirectoryStates));
-                currentLevelDirectoryStates = new ConcurrentHashMap<String, DirectoryState>();
+            if ( fileDigestCache != null ) {
+                logger.debug("File digest cache: {} hits, {} misses.", fileDigestCache.getHitCount(), fileDigestCache.getMissCount());
+                fileDigestCache.save();
             }
 
             // Compare new and old directory state + notify DirectoryStateChangeDetecterListener
@@ -203,6 +152,43 @@ class DefaultDirectoryStateChangeDetecter implements DirectoryStateChangeDetecte
         }
     }
 
+    /**
+     * Writes the directory states to one state file per level, sorted by relative path within each level.
+     *
+     * @return The lowest level of the directory tree.
+     */
+    private int writeDirectoriesStateFiles(List<DirectoryState> directoryStates) {
+        final List<DirectoryState> sortedDirectoryStates = new ArrayList<DirectoryState>(directoryStates);
+        // sorts from the lowest level up, and by relative path within a level
+        Collections.sort(sortedDirectoryStates);
+
+        final int lowestLevel = sortedDirectoryStates.isEmpty() ? 0 : sortedDirectoryStates.get(0).getLevel();
+        int currentLevel = -1;
+        StateFileWriter newDirectoriesStateFileWriter = null;
+        try {
+            for ( final DirectoryState directoryState : sortedDirectoryStates ) {
+                if ( directoryState.getLevel() != currentLevel ) {
+                    if ( newDirectoriesStateFileWriter != null ) {
+                        newDirectoriesStateFileWriter.close();
+                    }
+                    currentLevel = directoryState.getLevel();
+                    newDirectoriesStateFileWriter = new StateFileWriter(ioFactory, stateFileUtil.getNewDirsStateFile(stateFileUtil.getDirsStateFilename(currentLevel)));
+                }
+                newDirectoriesStateFileWriter.addDigest(directoryState.getRelativePath(), directoryState.getDigest());
+            }
+        }
+        catch ( IOException e ) {
+            throw new GradleException("failed to detect changes (dirs."+newDirectoriesStateFileWriter.getStateFile().getAbsolutePath()+".state write failed)", e);
+        }
+        finally {
+            if ( newDirectoriesStateFileWriter != null ) {
+                newDirectoriesStateFileWriter.close();
+            }
+        }
+
+        return lowestLevel;
+    }
+
     void submitDirectoryStateDigestComparator(final DirectoryStateDigestComparator directoryStateDigestComparator) {
         threadPool.submit(directoryStateDigestComparator);
         directoryStateDigestComparators.add(directoryStateDigestComparator);
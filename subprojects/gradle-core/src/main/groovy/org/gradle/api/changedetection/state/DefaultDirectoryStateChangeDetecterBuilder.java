@@ -21,6 +21,7 @@ import org.gradle.api.io.IoFactory;
 import org.gradle.api.changedetection.digest.DigestObjectFactory;
 import org.gradle.api.changedetection.digest.DigesterCache;
 import org.gradle.api.changedetection.digest.DigesterUtil;
+import org.gradle.api.changedetection.digest.FileDigestCache;
 import org.gradle.util.queues.BlockingQueueItemProducer;
 
 import java.io.File;
@@ -34,12 +35,15 @@ import java.util.List;
  * @author Tom Eyckmans
  */
 public class DefaultDirectoryStateChangeDetecterBuilder {
+    private static final String FILE_DIGEST_CACHE_FILENAME = "file-digests.bin";
+
     private File rootProjectDirectory;
     private File directoryToProcess;
     private File dotGradleStatesDirectory;
     private int stateChangeEventQueueSize = 50;
     private long stateChangeEventQueuePollTimeout = 100L;
-    private DigesterUtil digesterUtil;
+    private boolean contentHashing;
+    private int fileDigestCacheSize = 100000;
     private StateComparator stateComparator;
 
     public DefaultDirectoryStateChangeDetecterBuilder() {
@@ -105,12 +109,26 @@ public class DefaultDirectoryStateChangeDetecterBuilder {
     }
 
     public DefaultDirectoryStateChangeDetecterBuilder fileMetaDataOnlyHashing() {
-        digesterUtil = DigestObjectFactory.createMetaDigesterUtil();
+        contentHashing = false;
         return this;
     }
 
     public DefaultDirectoryStateChangeDetecterBuilder fileMetaDataAndContentHashing() {
-        digesterUtil = DigestObjectFactory.createMetaContentDigesterUtil();
+        contentHashing = true;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of content digests kept in the file digest cache, which is used when the file content
+     * is included in the digests.
+     */
+    public void setFileDigestCacheSize(int fileDigestCacheSize) {
+        if ( fileDigestCacheSize < 1 ) throw new IllegalArgumentException("fileDigestCacheSize < 1!");
+        this.fileDigestCacheSize = fileDigestCacheSize;
+    }
+
+    public DefaultDirectoryStateChangeDetecterBuilder fileDigestCacheSize(int fileDigestCacheSize) {
+        setFileDigestCacheSize(fileDigestCacheSize);
         return this;
     }
 
@@ -137,7 +155,16 @@ public class DefaultDirectoryStateChangeDetecterBuilder {
         final DigesterCache digesterCache = DigestObjectFactory.createShaDigesterCache();
         final StateFileUtil stateFileUtil = new StateFileUtil(rootProjectDirectory, directoryToProcess, dotGradleStatesDirectory, digesterCache.getDigesterFactory(), ioFactory);
         final DirectoryStateBuilder directoryStateBuilder = new DirectoryStateBuilder(stateFileUtil);
-        final DirectoryListFileCreator directoryListFileCreator = new DirectoryListFileCreator(stateFileUtil);
+        final FileDigestCache fileDigestCache;
+        final DigesterUtil digesterUtil;
+        if ( contentHashing ) {
+            fileDigestCache = DigestObjectFactory.createFileDigestCache(new File(stateFileUtil.getDirectoryStateDir(), FILE_DIGEST_CACHE_FILENAME), fileDigestCacheSize);
+            digesterUtil = DigestObjectFactory.createMetaContentDigesterUtil(fileDigestCache);
+        }
+        else {
+            fileDigestCache = null;
+            digesterUtil = DigestObjectFactory.createMetaDigesterUtil();
+        }
         final BlockingQueue<StateChangeEvent> stateChangeEventQueue = new ArrayBlockingQueue<StateChangeEvent>(stateChangeEventQueueSize);
         final BlockingQueueItemProducer<StateChangeEvent> changeProcessorEventProducer = new BlockingQueueItemProducer<StateChangeEvent>(stateChangeEventQueue, stateChangeEventQueuePollTimeout, TimeUnit.MILLISECONDS);
         final List<DirectoryStateDigestComparator> directoryStateDigestComparators = new ArrayList<DirectoryStateDigestComparator>();
@@ -150,7 +177,7 @@ public class DefaultDirectoryStateChangeDetecterBuilder {
                 directoryStateBuilder,
                 digesterCache,
                 digesterUtil,
-                directoryListFileCreator,
+                fileDigestCache,
                 stateFileUtil,
                 stateChangeEventQueue,
                 changeProcessorEventProducer,
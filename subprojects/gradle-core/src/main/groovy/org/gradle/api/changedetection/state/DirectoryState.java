@@ -21,11 +21,14 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.CompareToBuilder;
 import org.apache.commons.io.FileUtils;
+import org.gradle.api.changedetection.digest.DigestStringUtil;
 
 import java.io.File;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Collections;
+import java.util.List;
+import java.util.ArrayList;
 
 /**
  * @author Tom Eyckmans
@@ -36,7 +39,9 @@ class DirectoryState implements Comparable {
     private final String relativePathDigest;
     private final int level;
     private final Map<String, String> fileDigests;
-    private String digest;
+    private final List<DirectoryState> subDirectoryStates;
+    private DirectoryState parentDirectoryState;
+    private byte[] digest;
     private long size;
     private Throwable failureCause;
 
@@ -51,6 +56,7 @@ class DirectoryState implements Comparable {
         this.relativePathDigest = relativePathDigest;
         this.level = level;
         this.fileDigests = new HashMap<String, String>();
+        this.subDirectoryStates = new ArrayList<DirectoryState>();
     }
 
     public File getDirectory() {
@@ -85,7 +91,7 @@ class DirectoryState implements Comparable {
         final CompareToBuilder builder = new CompareToBuilder();
 
         builder.append(other.level, level);
-        builder.append(relativePath, other.relativePath);
+        builder.append(relativePath, other.relativePath, StateFileWriter.KEY_ORDER);
 
         return builder.toComparison();
     }
@@ -98,7 +104,7 @@ class DirectoryState implements Comparable {
         strBuilder.append("] ");
         strBuilder.append(relativePath);
         strBuilder.append(" : ");
-        strBuilder.append(digest);
+        strBuilder.append(digest == null ? null : DigestStringUtil.digestToHexString(digest));
         strBuilder.append(" : ");
         strBuilder.append(FileUtils.byteCountToDisplaySize(size));
 
@@ -121,11 +127,29 @@ class DirectoryState implements Comparable {
         fileDigests.put(filename, digest);
     }
 
-    public String getDigest() {
+    public DirectoryState getParentDirectoryState() {
+        return parentDirectoryState;
+    }
+
+    /**
+     * Returns the states of the direct sub directories, in the order they were added.
+     */
+    public List<DirectoryState> getSubDirectoryStates() {
+        return Collections.unmodifiableList(subDirectoryStates);
+    }
+
+    public void addSubDirectoryState(DirectoryState subDirectoryState) {
+        if ( subDirectoryState == null ) throw new IllegalArgumentException("subDirectoryState is null!");
+
+        subDirectoryState.parentDirectoryState = this;
+        subDirectoryStates.add(subDirectoryState);
+    }
+
+    public byte[] getDigest() {
         return digest;
     }
 
-    public void setDigest(String digest) {
+    public void setDigest(byte[] digest) {
         this.digest = digest;
     }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.state;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.changedetection.digest.DigesterCache;
+import org.gradle.api.changedetection.digest.DigesterUtil;
+import org.gradle.api.io.IoFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Calculates the directory states of a directory tree bottom-up. The tree is walked once, and the digest of each
+ * directory is calculated as soon as the digests of all its sub directories are known, so directories of different
+ * levels are processed concurrently on the same executor.
+ *
+ * @author Tom Eyckmans
+ */
+class DirectoryTreeStateCalculator {
+
+    private final DirectoryStateBuilder directoryStateBuilder;
+    private final StateFileUtil stateFileUtil;
+    private final DigesterCache digesterCache;
+    private final DigesterUtil digesterUtil;
+    private final IoFactory ioFactory;
+
+    private final Object lock = new Object();
+    private final List<DirectoryState> directoryStates = new ArrayList<DirectoryState>();
+    private final Map<DirectoryState, Integer> pendingSubDirectoryCounts = new HashMap<DirectoryState, Integer>();
+    private Executor executor;
+    private int runningCount;
+    private Throwable failure;
+
+    DirectoryTreeStateCalculator(DirectoryStateBuilder directoryStateBuilder, StateFileUtil stateFileUtil, DigesterCache digesterCache, DigesterUtil digesterUtil, IoFactory ioFactory) {
+        this.directoryStateBuilder = directoryStateBuilder;
+        this.stateFileUtil = stateFileUtil;
+        this.digesterCache = digesterCache;
+        this.digesterUtil = digesterUtil;
+        this.ioFactory = ioFactory;
+    }
+
+    /**
+     * Calculates the states of the given directory and all its sub directories.
+     *
+     * @param rootDirectory The directory to process.
+     * @param executor The executor used to calculate the directory digests.
+     * @return The states of all the directories in the tree, with the state of the root directory first.
+     */
+    public List<DirectoryState> calculate(File rootDirectory, Executor executor) {
+        this.executor = executor;
+        try {
+            walk(rootDirectory, null);
+        }
+        finally {
+            awaitCompletion();
+        }
+
+        if ( failure != null ) {
+            throw new GradleException("Failed to detect changes", failure);
+        }
+        return directoryStates;
+    }
+
+    private void walk(File directory, DirectoryState parentDirectoryState) {
+        final DirectoryState directoryState = directoryStateBuilder.directory(directory).getDirectoryState();
+        if ( parentDirectoryState != null ) {
+            parentDirectoryState.addSubDirectoryState(directoryState);
+        }
+
+        final List<File> subDirectories = new ArrayList<File>();
+        final File[] subFiles = directory.listFiles();
+        if ( subFiles != null ) {
+            for ( final File subFile : subFiles ) {
+                if ( subFile.isDirectory() ) {
+                    subDirectories.add(subFile);
+                }
+                // ignore files
+            }
+        }
+
+        synchronized (lock) {
+            if ( failure != null ) {
+                return;
+            }
+            directoryStates.add(directoryState);
+            if ( subDirectories.isEmpty() ) {
+                submit(directoryState);
+            }
+            else {
+                pendingSubDirectoryCounts.put(directoryState, subDirectories.size());
+            }
+        }
+
+        Collections.sort(subDirectories, new Comparator<File>() {
+            public int compare(final File firstDirectory, final File secondDirectory) {
+                return firstDirectory.getName().compareTo(secondDirectory.getName());
+            }
+        });
+
+        for ( final File subDirectory : subDirectories ) {
+            walk(subDirectory, directoryState);
+        }
+    }
+
+    void directoryStateCalculated(DirectoryState directoryState) {
+        synchronized (lock) {
+            runningCount--;
+            if ( directoryState.getFailureCause() != null ) {
+                if ( failure == null ) {
+                    failure = directoryState.getFailureCause();
+                }
+            }
+            else if ( failure == null ) {
+                final DirectoryState parentDirectoryState = directoryState.getParentDirectoryState();
+                if ( parentDirectoryState != null ) {
+                    final int pendingCount = pendingSubDirectoryCounts.get(parentDirectoryState) - 1;
+                    if ( pendingCount == 0 ) {
+                        pendingSubDirectoryCounts.remove(parentDirectoryState);
+                        submit(parentDirectoryState);
+                    }
+                    else {
+                        pendingSubDirectoryCounts.put(parentDirectoryState, pendingCount);
+                    }
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void submit(DirectoryState directoryState) {
+        // The calculator reports back while holding the lock, so it is safe to count it after it has been accepted
+        executor.execute(new DirectoryStateDigestCalculator(directoryState, digesterCache, digesterUtil, stateFileUtil, this, ioFactory));
+        runningCount++;
+    }
+
+    private void awaitCompletion() {
+        synchronized (lock) {
+            while ( runningCount > 0 ) {
+                try {
+                    lock.wait();
+                }
+                catch ( InterruptedException e ) {
+                    if ( failure == null ) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+    }
+}
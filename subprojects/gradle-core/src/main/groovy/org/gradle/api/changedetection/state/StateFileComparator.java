@@ -38,103 +38,64 @@ class StateFileComparator {
         this.newStateFile = stateFileUtil.getNewDirsStateFile(stateFilename);
     }
 
+    /**
+     * Merges the sorted items of the old and the new state file, and notifies the listener about the differences.
+     * Items are only created for keys that were created, deleted or changed.
+     *
+     * @return true when the state files differ.
+     */
     public boolean compareStateFiles(StateFileChangeListener stateFileChangeListener) throws IOException {
         boolean stateFileChanged = false;
 
-        StateFileReader oldDirectoriesLevelStateReader = null;
-        StateFileReader newDirectoriesLevelStateReader = null;
-        boolean readNextOldItem = true;
-        StateFileItem oldItem = null;
-        boolean readNextNewItem = true;
-        StateFileItem newItem = null;
+        final StateFileReader oldStateReader = stateFileUtil.getStateFileReader(oldStateFile);
+        final StateFileReader newStateReader = stateFileUtil.getStateFileReader(newStateFile);
         try {
-            oldDirectoriesLevelStateReader = stateFileUtil.getStateFileReader(oldStateFile);
-            newDirectoriesLevelStateReader = stateFileUtil.getStateFileReader(newStateFile);
+            boolean hasOldItem = oldStateReader.next();
+            boolean hasNewItem = newStateReader.next();
 
-            while ( readNextNewItem || readNextOldItem ) { // in general there is higher likelyhood in projects for more new items then old ones
+            while ( hasOldItem || hasNewItem ) {
+                final int keyComparisonResult;
+                if ( !hasOldItem ) { // no more old items
+                    keyComparisonResult = 1;
+                }
+                else if ( !hasNewItem ) { // no more new items
+                    keyComparisonResult = -1;
+                }
+                else {
+                    keyComparisonResult = oldStateReader.compareKeyTo(newStateReader);
+                }
 
-                if ( readNextOldItem )
-                    oldItem = oldDirectoriesLevelStateReader.readStateFileItem();
-                if ( readNextNewItem )
-                    newItem = newDirectoriesLevelStateReader.readStateFileItem();
+                if ( keyComparisonResult == 0 ) { // same item
+                    if ( !oldStateReader.digestEquals(newStateReader) ) { // item changed
+                        stateFileChanged = true;
 
-                if ( oldItem == null ) { // no more old items
-                    if ( newItem == null ) { // no more new items
-                        // current directory state file comparison is done
-                        readNextOldItem = false;
-                        readNextNewItem = false;
+                        stateFileChangeListener.itemChanged(oldStateReader.getStateFileItem(), newStateReader.getStateFileItem());
                     }
-                    else { // there are new items
-                        stateFileChanged = true;
 
-                        // item was created
-                        stateFileChangeListener.itemCreated(newItem);
+                    hasOldItem = oldStateReader.next();
+                    hasNewItem = newStateReader.next();
+                }
+                else if ( keyComparisonResult < 0 ) { // old key is before the new key, old item was deleted
+                    stateFileChanged = true;
 
-                        readNextOldItem = false;
-                        readNextNewItem = true;
-                    }
+                    stateFileChangeListener.itemDeleted(oldStateReader.getStateFileItem());
+
+                    hasOldItem = oldStateReader.next();
                 }
-                else { // there are old items
-                    if ( newItem == null ) { // no more new items
-                        stateFileChanged = true;
+                else { // old key is after the new key, new item has been created
+                    stateFileChanged = true;
 
-                        // item was deleted
-                        stateFileChangeListener.itemDeleted(oldItem);
+                    stateFileChangeListener.itemCreated(newStateReader.getStateFileItem());
 
-                        readNextOldItem = true;
-                        readNextNewItem = false;
-                    }
-                    else { // there is a new item
-                        final String oldItemKey = oldItem.getKey();
-                        final String newItemKey = newItem.getKey();
-                        final int keyComparisonResult = oldItemKey.compareTo(newItemKey);
-
-                        if ( keyComparisonResult == 0 ) { // same item?
-                            final String oldItemDigest = oldItem.getDigest();
-                            final String newItemDigest = newItem.getDigest();
-
-                            if ( !oldItemDigest.equals(newItemDigest) ) { // item changed?
-                                stateFileChanged = true;
-
-                                // item has changed
-                                stateFileChangeListener.itemChanged(oldItem, newItem);
-                            }
-                            // else item has not changed
-
-                            readNextOldItem = true;
-                            readNextNewItem = true;
-                        }
-                        else if ( keyComparisonResult < 0 ) { // old key is before the new key (alphabetically)
-                            stateFileChanged = true;
-
-                            // old item was deleted
-                            stateFileChangeListener.itemDeleted(oldItem);
-
-                            readNextOldItem = true;
-                            readNextNewItem = false;
-                        }
-                        else if ( keyComparisonResult > 0 ) { // old key is after the new key (alphabetically)
-                            stateFileChanged = true;
-
-                            // new item has been created
-                            stateFileChangeListener.itemCreated(newItem);
-
-                            readNextOldItem = false;
-                            readNextNewItem = true;
-                        }
-                    }
+                    hasNewItem = newStateReader.next();
                 }
             }
         }
         finally {
-            if ( oldDirectoriesLevelStateReader != null )
-                oldDirectoriesLevelStateReader.lastStateFileItemRead();
-            if ( newDirectoriesLevelStateReader != null )
-                newDirectoriesLevelStateReader.lastStateFileItemRead();
+            oldStateReader.lastStateFileItemRead();
+            newStateReader.lastStateFileItemRead();
         }
 
         return stateFileChanged;
     }
-
-
 }
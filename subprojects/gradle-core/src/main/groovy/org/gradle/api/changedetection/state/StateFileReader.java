@@ -16,22 +16,38 @@
 
 package org.gradle.api.changedetection.state;
 
-import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
+import org.gradle.api.changedetection.digest.DigestStringUtil;
 import org.gradle.api.io.IoFactory;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 
 import java.io.File;
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
+ * Reads the items of a state file written by {@link StateFileWriter}. The file is read into memory in one go and closed
+ * again, and the reader moves a cursor over the items so keys and digests can be compared without creating a
+ * {@link StateFileItem} per item. The file is not memory-mapped, as a mapping keeps the file open until it is garbage
+ * collected, which stops the state directory from being deleted or moved on some platforms.
+ *
  * @author Tom Eyckmans
  */
 class StateFileReader {
+    private static final Logger logger = Logging.getLogger(StateFileReader.class);
+
     private final IoFactory ioFactory;
     private final File stateFile;
 
-    private BufferedReader stateFileReader;
+    private ByteBuffer buffer;
+    private boolean opened;
+    private int keyOffset;
+    private int keyLength;
+    private int digestOffset;
+    private int digestLength;
 
     StateFileReader(IoFactory ioFactory, File stateFile) {
         if ( ioFactory == null ) throw new IllegalArgumentException("ioFactory is null!");
@@ -41,26 +57,120 @@ class StateFileReader {
         this.stateFile = stateFile;
     }
 
-    public StateFileItem readStateFileItem() throws IOException {
-        if ( stateFile.exists() ) {
-            if ( stateFileReader == null )
-                stateFileReader = ioFactory.createBufferedReader(stateFile);
-
-            final String key = stateFileReader.readLine();
-            if ( key == null )
-                return null;
-
-            final String digest = stateFileReader.readLine();
-            if ( digest == null )
-                throw new GradleException("state file invalid key ("+key+") did not have a digest value!");
-            else
-                return new StateFileItem(key, digest);
+    /**
+     * Moves to the next item of the state file.
+     *
+     * @return false when there are no more items.
+     */
+    public boolean next() throws IOException {
+        if ( !opened ) {
+            open();
+        }
+        if ( buffer == null || !buffer.hasRemaining() ) {
+            return false;
         }
+
+        try {
+            keyLength = buffer.getShort() & 0xffff;
+            keyOffset = buffer.position();
+            buffer.position(keyOffset + keyLength);
+            digestLength = buffer.get() & 0xff;
+            digestOffset = buffer.position();
+            buffer.position(digestOffset + digestLength);
+        }
+        catch ( RuntimeException e ) {
+            // BufferUnderflowException or IllegalArgumentException for a position past the end of the file
+            throw new GradleException("state file " + stateFile.getAbsolutePath() + " is truncated!", e);
+        }
+        return true;
+    }
+
+    /**
+     * Compares the key of the current item with the key of the current item of another reader, using the unsigned
+     * byte order of their UTF-8 encoding.
+     */
+    public int compareKeyTo(StateFileReader other) {
+        final int length = Math.min(keyLength, other.keyLength);
+        for ( int i = 0; i < length; i++ ) {
+            final int result = (buffer.get(keyOffset + i) & 0xff) - (other.buffer.get(other.keyOffset + i) & 0xff);
+            if ( result != 0 ) {
+                return result;
+            }
+        }
+        return keyLength - other.keyLength;
+    }
+
+    /**
+     * Returns true when the digest of the current item equals the digest of the current item of another reader.
+     */
+    public boolean digestEquals(StateFileReader other) {
+        if ( digestLength != other.digestLength ) {
+            return false;
+        }
+        for ( int i = 0; i < digestLength; i++ ) {
+            if ( buffer.get(digestOffset + i) != other.buffer.get(other.digestOffset + i) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a {@link StateFileItem} for the current item.
+     */
+    public StateFileItem getStateFileItem() throws IOException {
+        final byte[] key = new byte[keyLength];
+        final byte[] digest = new byte[digestLength];
+        for ( int i = 0; i < keyLength; i++ ) {
+            key[i] = buffer.get(keyOffset + i);
+        }
+        for ( int i = 0; i < digestLength; i++ ) {
+            digest[i] = buffer.get(digestOffset + i);
+        }
+        return new StateFileItem(new String(key, "UTF-8"), DigestStringUtil.digestToHexString(digest));
+    }
+
+    public StateFileItem readStateFileItem() throws IOException {
+        if ( next() )
+            return getStateFileItem();
         else
             return null;
     }
 
     public void lastStateFileItemRead() {
-        IOUtils.closeQuietly(stateFileReader);
+        buffer = null;
+    }
+
+    private void open() throws IOException {
+        opened = true;
+        if ( !stateFile.exists() ) {
+            return;
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(stateFile, "r");
+        try {
+            final FileChannel channel = file.getChannel();
+            final long size = channel.size();
+            if ( size > Integer.MAX_VALUE ) throw new GradleException("state file " + stateFile.getAbsolutePath() + " is too large!");
+            if ( size < StateFileWriter.HEADER_SIZE ) {
+                return;
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while ( buffer.hasRemaining() ) {
+                if ( channel.read(buffer) < 0 ) {
+                    throw new GradleException("state file " + stateFile.getAbsolutePath() + " is truncated!");
+                }
+            }
+            buffer.flip();
+        }
+        finally {
+            file.close();
+        }
+
+        if ( buffer.getInt() != StateFileWriter.MAGIC || buffer.getInt() != StateFileWriter.VERSION ) {
+            // State written by another version, treat it as if there was no previous state
+            logger.debug("Ignoring state file {} as it has an unknown format.", stateFile);
+            buffer = null;
+        }
     }
 }
@@ -114,14 +114,6 @@ class StateFileUtil {
         return DigestStringUtil.digestToHexString(digester.digest());
     }
 
-    public File getDirsListFile(final int levelIndex) {
-        return new File(newDirectoryStateDir, getDirsListFilename(levelIndex));
-    }
-
-    public String getDirsListFilename(final int levelIndex) {
-        return new StrBuilder().append("dirs.").append(levelIndex).append(".list").toString();
-    }
-
     public File getOldDirsStateFile(final String stateFilename) {
         return new File(oldDirectoryStateDir, stateFilename);
     }
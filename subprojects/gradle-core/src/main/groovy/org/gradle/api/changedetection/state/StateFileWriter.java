@@ -17,26 +17,61 @@
 package org.gradle.api.changedetection.state;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringUtils;
 import org.gradle.api.io.IoFactory;
 
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.Comparator;
 
 /**
  * State File Format:
  *
- * ( filename ${newLine}
- *   digest ${newLine} )*
+ * magic (int) version (int)
+ * ( key length (unsigned short) key (UTF-8 bytes)
+ *   digest length (unsigned byte) digest (raw bytes) )*
+ *
+ * Items need to be added sorted by key in {@link #KEY_ORDER}, {@link StateFileComparator} relies on this.
  *
  * @author Tom Eyckmans
  */
 class StateFileWriter {
+    static final int MAGIC = 0x47534654;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int MAX_KEY_LENGTH = 0xffff;
+    static final int MAX_DIGEST_LENGTH = 0xff;
+
+    /**
+     * The order of the keys of a state file. Keys are ordered by unicode code point, which is the same as the unsigned
+     * byte order of their UTF-8 encoding that {@link StateFileReader#compareKeyTo(StateFileReader)} uses. This differs
+     * from {@link String#compareTo(String)} for characters outside the basic multilingual plane.
+     */
+    static final Comparator<String> KEY_ORDER = new Comparator<String>() {
+        public int compare(String first, String second) {
+            int firstIndex = 0;
+            int secondIndex = 0;
+            while ( firstIndex < first.length() && secondIndex < second.length() ) {
+                final int firstCodePoint = first.codePointAt(firstIndex);
+                final int secondCodePoint = second.codePointAt(secondIndex);
+                if ( firstCodePoint != secondCodePoint ) {
+                    return firstCodePoint < secondCodePoint ? -1 : 1;
+                }
+                firstIndex += Character.charCount(firstCodePoint);
+                secondIndex += Character.charCount(secondCodePoint);
+            }
+            if ( firstIndex < first.length() ) {
+                return 1;
+            }
+            return secondIndex < second.length() ? -1 : 0;
+        }
+    };
+
     private final IoFactory ioFactory;
     private final File stateFile;
 
-    private BufferedWriter fileWriter;
+    private DataOutputStream outputStream;
+    private String lastKey;
 
     StateFileWriter(IoFactory ioFactory, File stateFile) {
         if ( ioFactory == null ) throw new IllegalArgumentException("ioFactory is null!");
@@ -50,25 +85,34 @@ class StateFileWriter {
         return stateFile;
     }
 
-    public void addDigest(final String key, final String digest) throws IOException {
+    public void addDigest(final String key, final byte[] digest) throws IOException {
         if ( key == null ) throw new IllegalArgumentException("key is null");
-        if ( StringUtils.isEmpty(digest) ) throw new IllegalArgumentException("digest is empty");
-        
-        if ( fileWriter == null )
-            fileWriter = ioFactory.createBufferedWriter(stateFile);
+        if ( digest == null || digest.length == 0 ) throw new IllegalArgumentException("digest is empty");
+        if ( digest.length > MAX_DIGEST_LENGTH ) throw new IllegalArgumentException("digest is too long");
+
+        final byte[] keyBytes = key.getBytes("UTF-8");
+        if ( keyBytes.length > MAX_KEY_LENGTH ) throw new IllegalArgumentException("key is too long");
+        if ( lastKey != null && KEY_ORDER.compare(lastKey, key) > 0 ) throw new IllegalArgumentException("key " + key + " is not sorted after " + lastKey);
+        lastKey = key;
+
+        if ( outputStream == null ) {
+            outputStream = new DataOutputStream(ioFactory.createBufferedOutputStream(stateFile));
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+        }
 
-        fileWriter.write(key);
-        fileWriter.newLine();
-        fileWriter.write(digest);
-        fileWriter.newLine();
+        outputStream.writeShort(keyBytes.length);
+        outputStream.write(keyBytes);
+        outputStream.writeByte(digest.length);
+        outputStream.write(digest);
     }
 
     public void lastFileDigestAdded() throws IOException {
-        if ( fileWriter != null )
-            fileWriter.flush();
+        if ( outputStream != null )
+            outputStream.flush();
     }
 
     public void close() {
-        IOUtils.closeQuietly(fileWriter);
+        IOUtils.closeQuietly(outputStream);
     }
 }
@@ -32,4 +32,12 @@ public interface CopyAction extends CopySpec, WorkResult {
      * @param caseSensitive
      */
     void setCaseSensitive(boolean caseSensitive);
+
+    /**
+     * Specifies whether the copy is incremental. An incremental copy skips the files whose source content has not
+     * changed since the previous copy, even when the timestamp of the source has changed, and deletes the files
+     * produced by the previous copy whose source no longer exists.
+     * @param incremental
+     */
+    void setIncremental(boolean incremental);
 }
@@ -94,4 +94,11 @@ public interface CopyProcessingSpec {
      * @param closure to implement line based filtering
      */
     CopyProcessingSpec filter(Closure closure); 
+
+    /**
+     * Specifies the character set used to read and write files which are filtered. Defaults to the character set of
+     * the parent spec, or to the platform default character set.
+     * @param charset name of the character set, for example 'UTF-8'
+     */
+    CopyProcessingSpec filteringCharset(String charset);
 }
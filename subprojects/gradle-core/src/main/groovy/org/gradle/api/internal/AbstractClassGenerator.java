@@ -17,35 +17,94 @@ package org.gradle.api.internal;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.DynamicObjectAware;
+import org.gradle.util.Clock;
 import org.gradle.util.ReflectionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Collection;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import groovy.lang.*;
 
+/**
+ * <p>A {@link ClassGenerator} which generates each subclass at most once per implementation. Generated classes are
+ * cached using weak references to the source class and soft references to the generated class, so that classes loaded
+ * by a discarded class loader, such as a build script class loader, can be collected. The cache can be used by multiple threads concurrently: a class is
+ * generated while holding a lock for a stripe of the source classes, so that concurrent requests for the same class
+ * wait for a single generation.</p>
+ */
 public abstract class AbstractClassGenerator implements ClassGenerator {
-    private static final Map<Class, Map<Class, Class>> generatedClasses = new HashMap<Class, Map<Class, Class>>();
+    private static final Logger logger = LoggerFactory.getLogger(AbstractClassGenerator.class);
+    private static final ConcurrentMap<Class, GeneratedClassCache> generatedClasses
+            = new ConcurrentHashMap<Class, GeneratedClassCache>();
 
     public <T> T newInstance(Class<T> type, Object... parameters) {
         return type.cast(ReflectionUtil.newInstance(generate(type), parameters));
     }
 
     public <T> Class<? extends T> generate(Class<T> type) {
-        Map<Class, Class> cache = generatedClasses.get(getClass());
-        if (cache == null) {
-            cache = new HashMap<Class, Class>();
-            generatedClasses.put(getClass(), cache);
-        }
-        Class generatedClass = cache.get(type);
+        GeneratedClassCache cache = getCache();
+        Class<? extends T> generatedClass = cache.get(type);
         if (generatedClass != null) {
+            cache.hitCount.incrementAndGet();
+            return generatedClass;
+        }
+
+        synchronized (cache.getLock(type)) {
+            generatedClass = cache.get(type);
+            if (generatedClass != null) {
+                cache.hitCount.incrementAndGet();
+                return generatedClass;
+            }
+
+            Clock clock = new Clock();
+            generatedClass = doGenerate(type);
+            long generationTime = clock.getTimeInMs();
+            cache.put(type, generatedClass);
+            cache.generatedCount.incrementAndGet();
+            cache.generationTime.addAndGet(generationTime);
+            logger.debug("Timing: Generating subclass of {} took {}ms", type.getName(), generationTime);
             return generatedClass;
         }
+    }
+
+    /**
+     * Returns the number of requests for a subclass which have been served from the cache of this implementation.
+     */
+    public long getHitCount() {
+        return getCache().hitCount.get();
+    }
+
+    /**
+     * Returns the number of subclasses which have been generated by this implementation.
+     */
+    public long getGeneratedCount() {
+        return getCache().generatedCount.get();
+    }
+
+    /**
+     * Returns the total time spent generating subclasses by this implementation, in milliseconds.
+     */
+    public long getGenerationTime() {
+        return getCache().generationTime.get();
+    }
 
+    private GeneratedClassCache getCache() {
+        GeneratedClassCache cache = generatedClasses.get(getClass());
+        if (cache == null) {
+            generatedClasses.putIfAbsent(getClass(), new GeneratedClassCache());
+            cache = generatedClasses.get(getClass());
+        }
+        return cache;
+    }
+
+    private <T> Class<? extends T> doGenerate(Class<T> type) {
         if (Modifier.isPrivate(type.getModifiers())) {
             throw new GradleException(String.format("Cannot create a proxy class for private class '%s'.",
                     type.getSimpleName()));
@@ -119,7 +178,6 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
             throw new GradleException(String.format("Could not generate a proxy class for class %s.", type.getName()), e);
         }
 
-        cache.put(type, subclass);
         return subclass;
     }
 
@@ -140,4 +198,41 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
 
         Class<? extends T> generate() throws Exception;
     }
+
+    private static class GeneratedClassCache {
+        private static final int LOCK_COUNT = 16;
+
+        // The generated class refers to the source class, so is only softly referenced to allow the source class to be
+        // collected. A class generated into a class loader of its own, as GroovySourceGenerationBackedClassGenerator
+        // does, is referenced by nothing else, so a weak reference would be cleared at the next collection and the
+        // class compiled again on its next use. A soft reference keeps it until memory runs short. A class defined in
+        // the class loader of the source class, as AsmBackedClassGenerator does, lives as long as that class loader
+        // anyway, so is not collected while the source class can still be requested. Generating it again would fail,
+        // as the class loader already defines the class.
+        private final Map<Class, SoftReference<Class>> classes = Collections.synchronizedMap(
+                new WeakHashMap<Class, SoftReference<Class>>());
+        private final Object[] locks = new Object[LOCK_COUNT];
+        private final AtomicLong hitCount = new AtomicLong();
+        private final AtomicLong generatedCount = new AtomicLong();
+        private final AtomicLong generationTime = new AtomicLong();
+
+        private GeneratedClassCache() {
+            for (int i = 0; i < locks.length; i++) {
+                locks[i] = new Object();
+            }
+        }
+
+        public Object getLock(Class<?> type) {
+            return locks[(type.hashCode() & 0x7fffffff) % locks.length];
+        }
+
+        public <T> Class<? extends T> get(Class<T> type) {
+            SoftReference<Class> reference = classes.get(type);
+            return reference == null ? null : reference.get();
+        }
+
+        public void put(Class<?> type, Class<?> generatedClass) {
+            classes.put(type, new SoftReference<Class>(generatedClass));
+        }
+    }
 }
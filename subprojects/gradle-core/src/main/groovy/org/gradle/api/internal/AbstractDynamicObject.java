@@ -25,6 +25,16 @@ import java.util.Arrays;
  * An empty {@link DynamicObject}.
  */
 public abstract class AbstractDynamicObject implements DynamicObject {
+    /**
+     * Returned by {@link #tryGetProperty(String)} when the object does not have the requested property.
+     */
+    public static final Object NOT_FOUND = new Object() {
+        @Override
+        public String toString() {
+            return "not found";
+        }
+    };
+
     protected abstract String getDisplayName();
 
     public boolean hasProperty(String name) {
@@ -39,6 +49,18 @@ public abstract class AbstractDynamicObject implements DynamicObject {
         throw propertyMissingException(name);
     }
 
+    /**
+     * Returns the value of the given property, or {@link #NOT_FOUND} when this object does not have the property.
+     * Unlike {@link #hasProperty(String)} followed by {@link #getProperty(String)}, the property is looked up once,
+     * and no exception is created when the property is missing.
+     */
+    public Object tryGetProperty(String name) {
+        if (!hasProperty(name)) {
+            return NOT_FOUND;
+        }
+        return getProperty(name);
+    }
+
     protected MissingPropertyException propertyMissingException(String name) {
         throw new MissingPropertyException(String.format("Could not find property '%s' on %s.", name,
                 getDisplayName()));
@@ -33,6 +33,7 @@ import org.gradle.api.tasks.StopExecutionException;
 import org.gradle.api.tasks.TaskDependency;
 import org.gradle.execution.OutputHandler;
 import org.gradle.execution.DefaultOutputHandler;
+import org.gradle.util.Clock;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -216,6 +217,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
                     onlyIfSpec.isSatisfiedBy(this)) {
                 logger.lifecycle(path);
                 didWork = true;   // assume true unless changed during execution
+                Clock clock = new Clock();
                 standardOutputCapture.start();
                 for (Action<? super Task> action : actions) {
                     logger.debug("Executing Action:");
@@ -229,11 +231,11 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
                     } catch (Throwable t) {
                         executing = false;
                         standardOutputCapture.stop();
-                        outputHandler.writeHistory(false);
+                        outputHandler.writeHistory(false, clock.getTimeInMs());
                         throw new GradleScriptException(String.format("Execution failed for %s.", this), t, project.getBuildScriptSource());
                     }
                 }
-                outputHandler.writeHistory(true);
+                outputHandler.writeHistory(true, clock.getTimeInMs());
                 standardOutputCapture.stop();
             } else {
                 logger.lifecycle("{} SKIPPED as onlyIf is false", path);
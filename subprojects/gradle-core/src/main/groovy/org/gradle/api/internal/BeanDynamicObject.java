@@ -18,15 +18,27 @@ package org.gradle.api.internal;
 import groovy.lang.*;
 import org.codehaus.groovy.runtime.InvokerInvocationException;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A {@link DynamicObject} which uses groovy reflection to provide access to the properties and methods of a bean.
+ * <p>A {@link DynamicObject} which uses groovy reflection to provide access to the properties and methods of a
+ * bean.</p>
+ *
+ * <p>The properties and methods found for the default meta-class of each bean class are cached, including the
+ * properties and methods which are missing. A meta-class which can be modified, such as an {@link
+ * ExpandoMetaClass}, is always queried directly.</p>
+ *
+ * <p>The cache is weakly keyed by bean class. The properties and methods it holds, and the argument types of the
+ * method lookups, are only weakly referenced, as they refer to the bean class. The properties and methods remain
+ * reachable through the meta-class for as long as it is in use.</p>
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
+    private static final Object MISSING = new Object();
+    private static final Map<Class<?>, Lookups> LOOKUPS = Collections.synchronizedMap(
+            new WeakHashMap<Class<?>, Lookups>());
+
     private final Object bean;
     private final boolean includeProperties;
 
@@ -61,20 +73,84 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
     }
 
+    private Lookups getLookups(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        Class<?> type = bean.getClass();
+        synchronized (LOOKUPS) {
+            Lookups lookups = LOOKUPS.get(type);
+            if (lookups != null && lookups.metaClass.get() == metaClass) {
+                return lookups;
+            }
+            if (lookups != null && GroovySystem.getMetaClassRegistry().getMetaClass(type) != metaClass) {
+                // A bean with a meta-class of its own
+                return null;
+            }
+            lookups = new Lookups(metaClass);
+            LOOKUPS.put(type, lookups);
+            return lookups;
+        }
+    }
+
+    private MetaProperty lookupProperty(MetaClass metaClass, String name) {
+        Lookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return metaClass.hasProperty(bean, name);
+        }
+        Object cached = lookups.properties.get(name);
+        if (cached == MISSING) {
+            return null;
+        }
+        MetaProperty property = cached == null ? null : ((WeakReference<MetaProperty>) cached).get();
+        if (property == null) {
+            property = metaClass.hasProperty(bean, name);
+            lookups.properties.put(name, property == null ? MISSING : new WeakReference<MetaProperty>(property));
+        }
+        return property;
+    }
+
+    private MetaMethod lookupMethod(MetaClass metaClass, String name, Object... arguments) {
+        Lookups lookups = getLookups(metaClass);
+        if (lookups == null) {
+            return metaClass.getMetaMethod(name, arguments);
+        }
+        MethodKey key = new MethodKey(name, arguments);
+        Object cached = lookups.methods.get(key);
+        if (cached == MISSING) {
+            return null;
+        }
+        MetaMethod method = cached == null ? null : ((WeakReference<MetaMethod>) cached).get();
+        if (method == null) {
+            method = metaClass.getMetaMethod(name, arguments);
+            lookups.methods.put(key, method == null ? MISSING : new WeakReference<MetaMethod>(method));
+        }
+        return method;
+    }
+
     @Override
     public boolean hasProperty(String name) {
-        return includeProperties && getMetaClass().hasProperty(bean, name) != null;
+        return includeProperties && lookupProperty(getMetaClass(), name) != null;
     }
 
     @Override
     public Object getProperty(String name) throws MissingPropertyException {
-        if (!includeProperties) {
+        Object value = tryGetProperty(name);
+        if (value == NOT_FOUND) {
             throw propertyMissingException(name);
         }
+        return value;
+    }
 
-        MetaProperty property = getMetaClass().hasProperty(bean, name);
+    @Override
+    public Object tryGetProperty(String name) {
+        if (!includeProperties) {
+            return NOT_FOUND;
+        }
+
+        MetaProperty property = lookupProperty(getMetaClass(), name);
         if (property == null) {
-            throw propertyMissingException(name);
+            return NOT_FOUND;
         }
         if (property instanceof MetaBeanProperty && ((MetaBeanProperty) property).getGetter() == null) {
             throw new GroovyRuntimeException(String.format(
@@ -98,7 +174,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         MetaClass metaClass = getMetaClass();
-        MetaProperty property = metaClass.hasProperty(bean, name);
+        MetaProperty property = lookupProperty(metaClass, name);
         if (property == null) {
             throw propertyMissingException(name);
         }
@@ -148,12 +224,12 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
     @Override
     public boolean hasMethod(String name, Object... arguments) {
-        return !getMetaClass().respondsTo(bean, name, arguments).isEmpty();
+        return lookupMethod(getMetaClass(), name, arguments) != null;
     }
 
     @Override
     public Object invokeMethod(String name, Object... arguments) throws MissingMethodException {
-        MetaMethod method = getMetaClass().getMetaMethod(name, arguments);
+        MetaMethod method = lookupMethod(getMetaClass(), name, arguments);
         if (method == null) {
             throw methodMissingException(name, arguments);
         }
@@ -167,4 +243,56 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             throw e;
         }
     }
+
+    private static class Lookups {
+        private final WeakReference<MetaClass> metaClass;
+        private final Map<String, Object> properties = new ConcurrentHashMap<String, Object>();
+        private final Map<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+
+        private Lookups(MetaClass metaClass) {
+            this.metaClass = new WeakReference<MetaClass>(metaClass);
+        }
+    }
+
+    private static class MethodKey {
+        private final String name;
+        private final WeakReference<Class<?>>[] argumentTypes;
+        private final int hashCode;
+
+        private MethodKey(String name, Object[] arguments) {
+            this.name = name;
+            argumentTypes = new WeakReference[arguments.length];
+            int hashCode = name.hashCode();
+            for (int i = 0; i < arguments.length; i++) {
+                Class<?> argumentType = arguments[i] == null ? null : arguments[i].getClass();
+                argumentTypes[i] = argumentType == null ? null : new WeakReference<Class<?>>(argumentType);
+                hashCode = 31 * hashCode + (argumentType == null ? 0 : argumentType.hashCode());
+            }
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            if (!name.equals(other.name) || argumentTypes.length != other.argumentTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < argumentTypes.length; i++) {
+                WeakReference<Class<?>> type = argumentTypes[i];
+                WeakReference<Class<?>> otherType = other.argumentTypes[i];
+                if (type == null || otherType == null ? type != otherType : type.get() != otherType.get()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
@@ -21,13 +21,20 @@ import groovy.lang.MissingPropertyException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.tasks.ConventionValue;
-import org.gradle.util.ReflectionUtil;
 
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * <p>Each mapped property holds its {@link ConventionValue} along with the value it produced, so a mapping is
+ * evaluated at most once until the property is mapped again. Remapping a property discards the value of that
+ * property only.</p>
+ *
+ * <p>Properties of the source are read through a {@link BeanDynamicObject} held for the source, which resolves the
+ * getter of each property once per class.</p>
+ *
  * @author Hans Dockter
  */
 public class ConventionAwareHelper implements ConventionMapping {
@@ -35,12 +42,14 @@ public class ConventionAwareHelper implements ConventionMapping {
 
     private IConventionAware source;
 
-    private Map<String, ConventionValue> conventionMapping = new HashMap<String, ConventionValue>();
-    private Map<String, Object> conventionMappingCache = new HashMap<String, Object>();
+    private BeanDynamicObject sourceObject;
+
+    private final Map<String, MappedProperty> properties = new ConcurrentHashMap<String, MappedProperty>();
 
     public ConventionAwareHelper(IConventionAware source, Convention convention) {
         this.source = source;
         this.convention = convention;
+        sourceObject = new BeanDynamicObject(source);
     }
 
     public ConventionMapping map(String propertyName, ConventionValue value) {
@@ -66,7 +75,7 @@ public class ConventionAwareHelper implements ConventionMapping {
     public ConventionMapping map(Map<String, ConventionValue> mapping) {
         for (Map.Entry<String, ConventionValue> entry : mapping.entrySet()) {
             String propertyName = entry.getKey();
-            if (!ReflectionUtil.hasProperty(source, propertyName)) {
+            if (!sourceObject.hasProperty(propertyName)) {
                 throw new InvalidUserDataException(
                         "You can't map a property that does not exist: propertyName= " + propertyName);
             }
@@ -74,8 +83,11 @@ public class ConventionAwareHelper implements ConventionMapping {
                 throw new IllegalArgumentException("No convention value provided: propertyName= " + propertyName);
             }
         }
-        this.conventionMapping.putAll(mapping);
-        conventionMappingCache.keySet().removeAll(mapping.keySet());
+        for (Map.Entry<String, ConventionValue> entry : mapping.entrySet()) {
+            MappedProperty previous = properties.get(entry.getKey());
+            properties.put(entry.getKey(), new MappedProperty(entry.getValue(),
+                    previous == null ? 0 : previous.getEvaluationCount()));
+        }
         return this;
     }
 
@@ -92,20 +104,27 @@ public class ConventionAwareHelper implements ConventionMapping {
     }
     
     public Object getConventionValue(String propertyName) {
-        Object value = ReflectionUtil.getProperty(source, propertyName);
+        Object value = sourceObject.getProperty(propertyName);
         return getConventionValue(value, propertyName);
     }
 
     public <T> T getConventionValue(T internalValue, String propertyName) {
-        Object returnValue = internalValue;
-        if (internalValue == null && conventionMapping.keySet().contains(propertyName)) {
-            if (!conventionMappingCache.keySet().contains(propertyName)) {
-                Object conventionValue = conventionMapping.get(propertyName).getValue(convention, source);
-                conventionMappingCache.put(propertyName, conventionValue);
-            }
-            returnValue = conventionMappingCache.get(propertyName);
+        if (internalValue != null) {
+            return internalValue;
+        }
+        MappedProperty property = properties.get(propertyName);
+        if (property == null) {
+            return null;
         }
-        return (T) returnValue;
+        return (T) property.getValue(convention, source);
+    }
+
+    /**
+     * Returns the number of times the mappings of the given property have been evaluated.
+     */
+    public int getEvaluationCount(String propertyName) {
+        MappedProperty property = properties.get(propertyName);
+        return property == null ? 0 : property.getEvaluationCount();
     }
 
     public Convention getConvention() {
@@ -122,21 +141,39 @@ public class ConventionAwareHelper implements ConventionMapping {
 
     public void setSource(IConventionAware source) {
         this.source = source;
+        sourceObject = new BeanDynamicObject(source);
     }
 
-    public Map getConventionMapping() {
-        return conventionMapping;
+    public Map<String, ConventionValue> getConventionMapping() {
+        Map<String, ConventionValue> mapping = new HashMap<String, ConventionValue>();
+        for (Map.Entry<String, MappedProperty> entry : properties.entrySet()) {
+            mapping.put(entry.getKey(), entry.getValue().value);
+        }
+        return mapping;
     }
 
-    public void setConventionMapping(Map conventionMapping) {
-        this.conventionMapping = conventionMapping;
-    }
+    private static class MappedProperty {
+        private final ConventionValue value;
+        private boolean evaluated;
+        private Object cachedValue;
+        private int evaluationCount;
 
-    public Map getConventionMappingCache() {
-        return conventionMappingCache;
-    }
+        private MappedProperty(ConventionValue value, int evaluationCount) {
+            this.value = value;
+            this.evaluationCount = evaluationCount;
+        }
 
-    public void setConventionMappingCache(Map conventionMappingCache) {
-        this.conventionMappingCache = conventionMappingCache;
+        public synchronized Object getValue(Convention convention, IConventionAware source) {
+            if (!evaluated) {
+                cachedValue = value.getValue(convention, source);
+                evaluated = true;
+                evaluationCount++;
+            }
+            return cachedValue;
+        }
+
+        public synchronized int getEvaluationCount() {
+            return evaluationCount;
+        }
     }
 }
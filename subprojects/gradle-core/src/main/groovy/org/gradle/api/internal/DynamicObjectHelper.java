@@ -16,6 +16,7 @@
 package org.gradle.api.internal;
 
 import groovy.lang.MissingPropertyException;
+import org.gradle.api.internal.plugins.AbstractConvention;
 import org.gradle.api.plugins.Convention;
 
 import java.util.HashMap;
@@ -104,25 +105,58 @@ public class DynamicObjectHelper extends AbstractDynamicObject {
     }
 
     public Object getProperty(String name) {
-        if (delegateObject.hasProperty(name)) {
-            return delegateObject.getProperty(name);
+        Object value = tryGetProperty(name);
+        if (value == NOT_FOUND) {
+            throw propertyMissingException(name);
         }
-        if (additionalProperties.containsKey(name)) {
-            return additionalProperties.get(name);
+        return value;
+    }
+
+    @Override
+    public Object tryGetProperty(String name) {
+        Object value = delegateObject.tryGetProperty(name);
+        if (value != NOT_FOUND) {
+            return value;
         }
-        if (beforeConvention != null && beforeConvention.hasProperty(name)) {
-            return beforeConvention.getProperty(name);
+        value = additionalProperties.get(name);
+        if (value != null || additionalProperties.containsKey(name)) {
+            return value;
         }
-        if (convention != null && convention.hasProperty(name)) {
-            return convention.getProperty(name);
+        if (beforeConvention != null) {
+            value = tryGetProperty(beforeConvention, name);
+            if (value != NOT_FOUND) {
+                return value;
+            }
         }
-        if (afterConvention != null && afterConvention.hasProperty(name)) {
-            return afterConvention.getProperty(name);
+        if (convention != null) {
+            value = tryGetProperty(convention, name);
+            if (value != NOT_FOUND) {
+                return value;
+            }
         }
-        if (parent != null && parent.hasProperty(name)) {
-            return parent.getProperty(name);
+        if (afterConvention != null) {
+            value = tryGetProperty(afterConvention, name);
+            if (value != NOT_FOUND) {
+                return value;
+            }
+        }
+        if (parent != null) {
+            return tryGetProperty(parent, name);
+        }
+        return NOT_FOUND;
+    }
+
+    private static Object tryGetProperty(DynamicObject object, String name) {
+        if (object instanceof AbstractDynamicObject) {
+            return ((AbstractDynamicObject) object).tryGetProperty(name);
         }
-        throw propertyMissingException(name);
+        if (object instanceof AbstractConvention) {
+            return ((AbstractConvention) object).tryGetProperty(name);
+        }
+        if (!object.hasProperty(name)) {
+            return NOT_FOUND;
+        }
+        return object.getProperty(name);
     }
 
     public void setProperty(String name, Object value) {
@@ -228,28 +262,44 @@ public class DynamicObjectHelper extends AbstractDynamicObject {
         return helper;
     }
 
-    private class InheritedDynamicObject implements DynamicObject {
+    private class InheritedDynamicObject extends AbstractDynamicObject {
+        @Override
+        protected String getDisplayName() {
+            return delegateObject.getDisplayName();
+        }
+
+        @Override
         public void setProperty(String name, Object value) {
             throw new MissingPropertyException(String.format("Could not find property '%s' inherited from %s.", name,
                     delegateObject.getDisplayName()));
         }
 
+        @Override
         public boolean hasProperty(String name) {
             return snapshotInheritable().hasProperty(name);
         }
 
+        @Override
         public Object getProperty(String name) {
             return snapshotInheritable().getProperty(name);
         }
 
+        @Override
+        public Object tryGetProperty(String name) {
+            return snapshotInheritable().tryGetProperty(name);
+        }
+
+        @Override
         public Map<String, Object> getProperties() {
             return snapshotInheritable().getProperties();
         }
 
+        @Override
         public boolean hasMethod(String name, Object... arguments) {
             return snapshotInheritable().hasMethod(name, arguments);
         }
 
+        @Override
         public Object invokeMethod(String name, Object... arguments) {
             return snapshotInheritable().invokeMethod(name, arguments);
         }
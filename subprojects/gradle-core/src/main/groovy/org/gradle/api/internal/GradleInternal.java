@@ -20,6 +20,9 @@ import org.gradle.api.internal.project.IProjectRegistry;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.StandardOutputRedirector;
 import org.gradle.api.internal.plugins.PluginRegistry;
+import org.gradle.api.internal.tasks.TaskIndex;
+import org.gradle.execution.FileFingerprinter;
+import org.gradle.execution.TaskHistoryStores;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.execution.TaskExecuter;
@@ -93,4 +96,19 @@ public interface GradleInternal extends Gradle {
     BuildListener getBuildListenerBroadcaster();
 
     StandardOutputRedirector getStandardOutputRedirector();
+
+    /**
+     * Returns the index of the tasks of all projects in this build.
+     */
+    TaskIndex getTaskIndex();
+
+    /**
+     * Returns the fingerprinter used to check whether the files of the tasks of this build are up-to-date.
+     */
+    FileFingerprinter getFileFingerprinter();
+
+    /**
+     * Returns the stores which hold the execution history of the tasks of this build.
+     */
+    TaskHistoryStores getTaskHistoryStores();
 }
@@ -20,4 +20,6 @@ import org.gradle.api.Task;
 
 public interface TaskInternal extends Task {
     void execute();
+
+    void setDidWork(boolean didWork);
 }
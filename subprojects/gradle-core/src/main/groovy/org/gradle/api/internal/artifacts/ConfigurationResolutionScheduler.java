@@ -0,0 +1,183 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleDescriptorCache;
+import org.gradle.api.internal.file.PathResolvingFileCollection;
+import org.gradle.api.internal.file.UnionFileCollection;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.util.Clock;
+import org.gradle.util.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Resolves the configurations used by the tasks of a build in parallel, as soon as the task graph has been
+ * populated. A configuration is considered used by a task when it is the value of one of the task's {@link
+ * InputFiles} properties, or is one of the sources of a union or path resolving file collection which is such a
+ * value. The resolved configurations are then used as usual when the tasks execute.</p>
+ *
+ * <p>Closures and file trees are not evaluated while looking for configurations, as doing so may resolve them one at a
+ * time. A configuration which can only be reached through one of these is resolved when it is first used.</p>
+ *
+ * <p>The resolves share the module descriptors they find through a {@link ModuleDescriptorCache}, which is discarded
+ * at the end of the build. Resolve failures are ignored here, and are reported when the configuration is used.</p>
+ */
+public class ConfigurationResolutionScheduler extends BuildAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(ConfigurationResolutionScheduler.class);
+
+    private final int threadCount;
+    private final ModuleDescriptorCache descriptorCache;
+    private final Map<Class, List<Method>> inputFilesGetters = new HashMap<Class, List<Method>>();
+
+    /**
+     * @param threadCount The number of configurations to resolve at the same time. Configurations are resolved when
+     * they are first used if this is less than 2.
+     * @param descriptorCache The descriptor cache to discard at the end of the build.
+     */
+    public ConfigurationResolutionScheduler(int threadCount, ModuleDescriptorCache descriptorCache) {
+        this.threadCount = threadCount;
+        this.descriptorCache = descriptorCache;
+    }
+
+    @Override
+    public void taskGraphPopulated(TaskExecutionGraph graph) {
+        if (threadCount < 2) {
+            return;
+        }
+        resolve(getConfigurations(graph.getAllTasks()));
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        logger.debug("Module descriptor cache: {} hits, {} misses", descriptorCache.getHitCount(),
+                descriptorCache.getMissCount());
+        descriptorCache.clear();
+    }
+
+    /**
+     * Returns the unresolved configurations used by the given tasks.
+     */
+    public Set<Configuration> getConfigurations(Collection<? extends Task> tasks) {
+        Set<Configuration> configurations = new LinkedHashSet<Configuration>();
+        for (Task task : tasks) {
+            for (Method getter : getInputFilesGetters(task.getClass())) {
+                Object value;
+                try {
+                    value = getter.invoke(task);
+                } catch (Exception e) {
+                    // Leave it to the task to report the problem when it executes
+                    logger.debug(String.format("Could not query property %s of %s.", getter.getName(), task), e);
+                    continue;
+                }
+                addConfigurations(value, configurations);
+            }
+        }
+        return configurations;
+    }
+
+    private void addConfigurations(Object value, Set<Configuration> configurations) {
+        Map<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+        LinkedList<Object> queue = new LinkedList<Object>();
+        queue.add(value);
+        while (!queue.isEmpty()) {
+            Object element = queue.removeFirst();
+            if (element == null || visited.put(element, Boolean.TRUE) != null) {
+                continue;
+            }
+            if (element instanceof Configuration) {
+                if (((Configuration) element).getState() == Configuration.State.UNRESOLVED) {
+                    configurations.add((Configuration) element);
+                }
+            } else if (element instanceof UnionFileCollection) {
+                queue.addAll(((UnionFileCollection) element).getSources());
+            } else if (element instanceof PathResolvingFileCollection) {
+                queue.addAll(((PathResolvingFileCollection) element).getSources());
+            } else if (element instanceof Collection) {
+                queue.addAll((Collection<?>) element);
+            }
+        }
+    }
+
+    /**
+     * Resolves the given configurations using a bounded pool of threads.
+     */
+    public void resolve(Collection<Configuration> configurations) {
+        if (configurations.size() < 2) {
+            // Nothing to gain over resolving the configuration when it is used
+            return;
+        }
+        Clock clock = new Clock();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, configurations.size()));
+        try {
+            for (Configuration configuration : configurations) {
+                executor.execute(new ResolveAction(configuration));
+            }
+        } finally {
+            ThreadUtils.shutdown(executor);
+        }
+        logger.debug("Timing: Resolving {} configurations in parallel took: {}", configurations.size(),
+                clock.getTime());
+    }
+
+    private List<Method> getInputFilesGetters(Class<?> type) {
+        synchronized (inputFilesGetters) {
+            List<Method> getters = inputFilesGetters.get(type);
+            if (getters == null) {
+                getters = new ArrayList<Method>();
+                for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+                    for (Method method : current.getDeclaredMethods()) {
+                        if (method.getAnnotation(InputFiles.class) != null && method.getParameterTypes().length == 0
+                                && !Modifier.isStatic(method.getModifiers())) {
+                            method.setAccessible(true);
+                            getters.add(method);
+                        }
+                    }
+                }
+                inputFilesGetters.put(type, getters);
+            }
+            return getters;
+        }
+    }
+
+    private static class ResolveAction implements Runnable {
+        private final Configuration configuration;
+
+        public ResolveAction(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        public void run() {
+            try {
+                configuration.getResolvedConfiguration();
+            } catch (Throwable e) {
+                logger.debug(String.format("Could not resolve %s.", configuration), e);
+            }
+        }
+    }
+}
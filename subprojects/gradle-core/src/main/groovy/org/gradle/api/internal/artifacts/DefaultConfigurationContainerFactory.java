@@ -21,27 +21,99 @@ import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
 import org.gradle.api.internal.artifacts.dsl.DefaultConfigurationHandler;
 import org.gradle.api.artifacts.dsl.ConfigurationHandler;
 import org.gradle.api.artifacts.ProjectDependenciesBuildInstruction;
+import org.gradle.api.internal.artifacts.ivyservice.CachingIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.ShortcircuitEmptyConfigsIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingIvyService;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleDescriptorCache;
+import org.gradle.api.internal.artifacts.ivyservice.ResolverLock;
+import org.gradle.api.internal.artifacts.ivyservice.OfflineResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Hans Dockter
  */
 public class DefaultConfigurationContainerFactory implements ConfigurationContainerFactory {
     private final ProjectDependenciesBuildInstruction projectDependenciesBuildInstruction;
+    private final OfflineResolver offlineResolver;
+    private final ModuleDescriptorCache descriptorCache;
+    private final ResolverLock resolverLock;
 
     public DefaultConfigurationContainerFactory(ProjectDependenciesBuildInstruction projectDependenciesBuildInstruction) {
+        this(projectDependenciesBuildInstruction, null);
+    }
+
+    public DefaultConfigurationContainerFactory(ProjectDependenciesBuildInstruction projectDependenciesBuildInstruction,
+                                                OfflineResolver offlineResolver) {
+        this(projectDependenciesBuildInstruction, offlineResolver, new ModuleDescriptorCache(), new ResolverLock());
+    }
+
+    /**
+     * @param offlineResolver The resolver to use in place of the remote resolvers of each project, when the build runs
+     * offline. Resolvers on the local file system, such as flat dir resolvers, are still used. Use null to resolve from
+     * all the resolvers of each project.
+     * @param descriptorCache The module descriptor cache of the build.
+     * @param resolverLock The lock which the resolves and publishes of the build hold while they use the resolvers.
+     */
+    public DefaultConfigurationContainerFactory(ProjectDependenciesBuildInstruction projectDependenciesBuildInstruction,
+                                                OfflineResolver offlineResolver, ModuleDescriptorCache descriptorCache,
+                                                ResolverLock resolverLock) {
         this.projectDependenciesBuildInstruction = projectDependenciesBuildInstruction;
+        this.offlineResolver = offlineResolver;
+        this.descriptorCache = descriptorCache;
+        this.resolverLock = resolverLock;
+    }
+
+    public OfflineResolver getOfflineResolver() {
+        return offlineResolver;
+    }
+
+    public ModuleDescriptorCache getDescriptorCache() {
+        return descriptorCache;
     }
 
     public ConfigurationHandler createConfigurationContainer(ResolverProvider resolverProvider,
                                                              DependencyMetaDataProvider dependencyMetaDataProvider) {
+        if (offlineResolver != null) {
+            final ResolverProvider projectResolverProvider = resolverProvider;
+            resolverProvider = new ResolverProvider() {
+                public List<DependencyResolver> getResolvers() {
+                    return getOfflineResolvers(projectResolverProvider.getResolvers());
+                }
+            };
+        }
         IvyService ivyService = new ErrorHandlingIvyService(
                 new ShortcircuitEmptyConfigsIvyService(
-                        new DefaultIvyService(
-                                dependencyMetaDataProvider,
-                                resolverProvider)));
+                        new CachingIvyService(
+                                new DefaultIvyService(
+                                        dependencyMetaDataProvider,
+                                        resolverProvider,
+                                        descriptorCache,
+                                        resolverLock),
+                                resolverProvider,
+                                dependencyMetaDataProvider)));
         return new DefaultConfigurationHandler(ivyService, projectDependenciesBuildInstruction);
     }
+
+    /**
+     * Keeps the resolvers on the local file system, and replaces the remote resolvers with the offline resolver, at
+     * the position of the first remote resolver.
+     */
+    private List<DependencyResolver> getOfflineResolvers(List<DependencyResolver> resolvers) {
+        List<DependencyResolver> offlineResolvers = new ArrayList<DependencyResolver>();
+        boolean offlineResolverAdded = false;
+        for (DependencyResolver resolver : resolvers) {
+            if (resolver instanceof FileSystemResolver) {
+                offlineResolvers.add(resolver);
+            } else if (!offlineResolverAdded) {
+                offlineResolvers.add(offlineResolver);
+                offlineResolverAdded = true;
+            }
+        }
+        return offlineResolvers;
+    }
 }
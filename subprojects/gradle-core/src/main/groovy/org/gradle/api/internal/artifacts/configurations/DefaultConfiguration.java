@@ -72,7 +72,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         return name;
     }
 
-    public State getState() {
+    public synchronized State getState() {
         return state;
     }
 
@@ -182,7 +182,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
         return new ConfigurationFileCollection(WrapUtil.toLinkedSet(dependencies));
     }
 
-    public ResolvedConfiguration getResolvedConfiguration() {
+    public synchronized ResolvedConfiguration getResolvedConfiguration() {
         if (state == State.UNRESOLVED) {
             cachedResolvedConfiguration = ivyService.resolve(this);
             if (cachedResolvedConfiguration.hasError()) {
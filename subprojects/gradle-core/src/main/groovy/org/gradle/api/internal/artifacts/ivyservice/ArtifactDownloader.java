@@ -0,0 +1,307 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.util.url.IvyAuthenticator;
+import org.apache.ivy.util.url.URLHandlerRegistry;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.GradleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Downloads files from remote repositories. Several threads can download at the same time, up to a maximum number
+ * of connections per host.</p>
+ *
+ * <p>A file is downloaded into a {@code .part} file next to its destination, which is renamed once the download is
+ * complete. When a {@code .part} file is left behind by an interrupted download, the download is resumed from where
+ * it stopped using an HTTP range request. The SHA-1 digest of the content is calculated as it is downloaded, and is
+ * checked against the {@code .sha1} file published next to the file, when the repository provides one. This is the
+ * only place the checksum is verified, so resolvers which use the downloader should not verify it again. Checksum
+ * files themselves are not verified.</p>
+ *
+ * <p>Connections use the credentials configured for Ivy, and time out when the server does not respond.</p>
+ *
+ * <p>The amount of data downloaded during a build and the aggregate throughput are logged when the build
+ * finishes.</p>
+ */
+public class ArtifactDownloader extends BuildAdapter {
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    public static final String PART_FILE_EXTENSION = ".part";
+    public static final String CHECKSUM_EXTENSION = ".sha1";
+    public static final int CONNECT_TIMEOUT = 30000;
+    public static final int READ_TIMEOUT = 60000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtifactDownloader.class);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final int maxConnectionsPerHost;
+    private final Map<String, Semaphore> connections = new HashMap<String, Semaphore>();
+    private final AtomicInteger fileCount = new AtomicInteger();
+    private final AtomicLong byteCount = new AtomicLong();
+    private final AtomicLong downloadTime = new AtomicLong();
+
+    public ArtifactDownloader() {
+        this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    }
+
+    public ArtifactDownloader(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Notified of the progress of a download.
+     */
+    public interface DownloadListener {
+        /**
+         * Called when the content starts to arrive.
+         *
+         * @param totalLength The length of the content still to download, or -1 when not known.
+         */
+        void started(long totalLength);
+
+        void progress(int length);
+    }
+
+    /**
+     * Downloads the given resource to the given destination file, resuming any earlier partial download.
+     *
+     * @throws FileNotFoundException When the resource does not exist.
+     * @throws IOException When the download fails, or the content does not match its published checksum.
+     */
+    public void download(URL source, File destination, DownloadListener listener) throws IOException {
+        Semaphore hostConnections = getConnections(source);
+        try {
+            hostConnections.acquire();
+        } catch (InterruptedException e) {
+            throw new GradleException(String.format("Interrupted while waiting to download %s.", source), e);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            long length = doDownload(source, destination, listener);
+            downloadTime.addAndGet(System.currentTimeMillis() - start);
+            byteCount.addAndGet(length);
+            fileCount.incrementAndGet();
+        } finally {
+            hostConnections.release();
+        }
+    }
+
+    private long doDownload(URL source, File destination, DownloadListener listener) throws IOException {
+        File partFile = new File(destination.getPath() + PART_FILE_EXTENSION);
+        MessageDigest digest = createDigest();
+        long offset = partFile.isFile() ? partFile.length() : 0;
+
+        // Let the credentials configured for Ivy apply to the connection
+        IvyAuthenticator.install();
+        URLConnection connection = source.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        if (offset > 0 && connection instanceof HttpURLConnection) {
+            connection.setRequestProperty("Range", String.format("bytes=%d-", offset));
+        } else {
+            offset = 0;
+        }
+        if (offset > 0 && ((HttpURLConnection) connection).getResponseCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+            // The partial file is not a prefix of the resource, so discard it
+            ((HttpURLConnection) connection).disconnect();
+            partFile.delete();
+            return doDownload(source, destination, listener);
+        }
+        InputStream instr = openStream(source, connection);
+        if (offset > 0 && ((HttpURLConnection) connection).getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+            // The server has ignored the range, so start again
+            logger.debug("Server does not support resuming the download of {}.", source);
+            offset = 0;
+        }
+
+        long length;
+        try {
+            if (offset > 0) {
+                logger.debug("Resuming download of {} at byte {}.", source, offset);
+                updateDigest(digest, partFile);
+            }
+            listener.started(connection.getContentLength());
+            OutputStream outstr = new FileOutputStream(partFile, offset > 0);
+            try {
+                length = copy(instr, outstr, digest, listener);
+            } finally {
+                outstr.close();
+            }
+        } finally {
+            instr.close();
+        }
+
+        String actualChecksum = new BigInteger(1, digest.digest()).toString(16);
+        String expectedChecksum = getPublishedChecksum(source);
+        if (expectedChecksum != null && !trimLeadingZeros(expectedChecksum).equals(actualChecksum)) {
+            partFile.delete();
+            throw new IOException(String.format("Checksum of %s does not match. Expected %s but was %s.", source,
+                    expectedChecksum, actualChecksum));
+        }
+
+        destination.getParentFile().mkdirs();
+        destination.delete();
+        if (!partFile.renameTo(destination)) {
+            throw new IOException(String.format("Could not rename %s to %s.", partFile, destination));
+        }
+        return length;
+    }
+
+    private InputStream openStream(URL source, URLConnection connection) throws IOException {
+        if (connection instanceof HttpURLConnection) {
+            int responseCode = ((HttpURLConnection) connection).getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new FileNotFoundException(String.format("Could not find %s.", source));
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException(String.format("Could not download %s. Server returned %d %s.", source,
+                        responseCode, ((HttpURLConnection) connection).getResponseMessage()));
+            }
+        }
+        return connection.getInputStream();
+    }
+
+    /**
+     * Returns the checksum published for the given resource, or null when the resource is itself a checksum file, or
+     * when the repository does not provide a checksum or fails to return it.
+     */
+    private String getPublishedChecksum(URL source) {
+        String path = source.getPath();
+        if (path.endsWith(CHECKSUM_EXTENSION) || path.endsWith(".md5")) {
+            return null;
+        }
+        URL checksumUrl;
+        try {
+            checksumUrl = new URL(source.toExternalForm() + CHECKSUM_EXTENSION);
+        } catch (MalformedURLException e) {
+            return null;
+        }
+        try {
+            InputStream instr = URLHandlerRegistry.getDefault().openStream(checksumUrl);
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(instr, "US-ASCII"));
+                String line = reader.readLine();
+                if (line == null || line.trim().length() == 0) {
+                    return null;
+                }
+                // The file may contain the name of the checksummed file after the checksum
+                return line.trim().split("\\s+")[0].toLowerCase();
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            logger.debug(String.format("Not verifying %s as its checksum could not be downloaded.", source), e);
+            return null;
+        }
+    }
+
+    private static String trimLeadingZeros(String checksum) {
+        int start = 0;
+        while (start < checksum.length() - 1 && checksum.charAt(start) == '0') {
+            start++;
+        }
+        return checksum.substring(start);
+    }
+
+    private static long copy(InputStream instr, OutputStream outstr, MessageDigest digest,
+                             DownloadListener listener) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long length = 0;
+        int nread;
+        while ((nread = instr.read(buffer)) >= 0) {
+            outstr.write(buffer, 0, nread);
+            digest.update(buffer, 0, nread);
+            listener.progress(nread);
+            length += nread;
+        }
+        return length;
+    }
+
+    private static void updateDigest(MessageDigest digest, File file) throws IOException {
+        InputStream instr = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int nread;
+            while ((nread = instr.read(buffer)) >= 0) {
+                digest.update(buffer, 0, nread);
+            }
+        } finally {
+            instr.close();
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Semaphore getConnections(URL source) {
+        String host = String.format("%s://%s:%d", source.getProtocol(), source.getHost(), source.getPort());
+        synchronized (connections) {
+            Semaphore semaphore = connections.get(host);
+            if (semaphore == null) {
+                semaphore = new Semaphore(maxConnectionsPerHost, true);
+                connections.put(host, semaphore);
+            }
+            return semaphore;
+        }
+    }
+
+    public int getFileCount() {
+        return fileCount.get();
+    }
+
+    public long getByteCount() {
+        return byteCount.get();
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        int files = fileCount.getAndSet(0);
+        long bytes = byteCount.getAndSet(0);
+        long time = downloadTime.getAndSet(0);
+        if (files == 0) {
+            return;
+        }
+        logger.info("Timing: Downloaded {} files ({} KB) in {}ms, averaging {} KB/s per connection",
+                new Object[]{files, bytes / 1024, time, time == 0 ? "-" : String.valueOf(bytes * 1000 / 1024 / time)});
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.*;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+
+import java.io.File;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A successfully resolved configuration, as read back from a {@link ResolvedConfigurationCache}.
+ */
+class CachedResolvedConfiguration implements ResolvedConfiguration {
+    private final Configuration configuration;
+    private final Set<File> files;
+    private final Map<Dependency, Set<ResolvedDependency>> firstLevelDependencies;
+    private final Set<ResolvedArtifact> resolvedArtifacts;
+
+    CachedResolvedConfiguration(Configuration configuration, Set<File> files,
+                                Map<Dependency, Set<ResolvedDependency>> firstLevelDependencies,
+                                Set<ResolvedArtifact> resolvedArtifacts) {
+        this.configuration = configuration;
+        this.files = files;
+        this.firstLevelDependencies = firstLevelDependencies;
+        this.resolvedArtifacts = resolvedArtifacts;
+    }
+
+    public boolean hasError() {
+        return false;
+    }
+
+    public void rethrowFailure() throws ResolveException {
+    }
+
+    public Set<File> getFiles(Spec<Dependency> dependencySpec) {
+        Set<ModuleDependency> allModuleDependencies = configuration.getAllDependencies(ModuleDependency.class);
+        Set<ModuleDependency> selectedDependencies = Specs.filterIterable(allModuleDependencies, dependencySpec);
+        if (allModuleDependencies.equals(selectedDependencies)) {
+            return files;
+        }
+        Set<File> files = new LinkedHashSet<File>();
+        for (ModuleDependency moduleDependency : selectedDependencies) {
+            Set<ResolvedDependency> resolvedDependencies = firstLevelDependencies.get(moduleDependency);
+            if (resolvedDependencies != null) {
+                for (ResolvedDependency resolvedDependency : resolvedDependencies) {
+                    files.addAll(ResolvedDependencies.getFilesFromArtifacts(resolvedDependency.getAllArtifacts(null)));
+                }
+            }
+        }
+        return files;
+    }
+
+    public Set<ResolvedDependency> getFirstLevelModuleDependencies() {
+        Set<ResolvedDependency> resolvedDependencies = new LinkedHashSet<ResolvedDependency>();
+        for (Set<ResolvedDependency> dependencySet : firstLevelDependencies.values()) {
+            resolvedDependencies.addAll(dependencySet);
+        }
+        return resolvedDependencies;
+    }
+
+    public Set<ResolvedArtifact> getResolvedArtifacts() {
+        return resolvedArtifacts;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link ChainResolver} which shares the module descriptors it finds through a {@link ModuleDescriptorCache}.
+ * Dynamic and changing revisions, and the modules of the build itself, which are found in the internal repository,
+ * are not shared.
+ */
+public class CachingChainResolver extends ChainResolver {
+    private final ModuleDescriptorCache descriptorCache;
+    private final DependencyResolver internalRepository;
+
+    public CachingChainResolver(ModuleDescriptorCache descriptorCache, DependencyResolver internalRepository) {
+        this.descriptorCache = descriptorCache;
+        this.internalRepository = internalRepository;
+    }
+
+    public ModuleDescriptorCache getDescriptorCache() {
+        return descriptorCache;
+    }
+
+    @Override
+    public ResolvedModuleRevision getDependency(final DependencyDescriptor dd, final ResolveData data)
+            throws ParseException {
+        ModuleRevisionId id = dd.getDependencyRevisionId();
+        if (dd.isChanging() || id.getRevision().endsWith("SNAPSHOT")
+                || getSettings().getVersionMatcher().isDynamic(id)) {
+            return super.getDependency(dd, data);
+        }
+
+        List<DependencyResolver> resolvers = getResolvers();
+        ResolvedModuleRevision resolvedRevision = descriptorCache.get(resolvers, id, dd.isForce(),
+                new Callable<ResolvedModuleRevision>() {
+                    public ResolvedModuleRevision call() throws Exception {
+                        return CachingChainResolver.super.getDependency(dd, data);
+                    }
+                });
+        if (resolvedRevision != null && resolvedRevision.getResolver() == internalRepository) {
+            descriptorCache.remove(resolvers, id, dd.isForce());
+        }
+        return resolvedRevision;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.ChainResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.DualResolver;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.artifacts.IvyService;
+import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
+import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
+import org.gradle.util.Clock;
+import org.gradle.util.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>An {@link IvyService} which remembers the result of resolving a configuration across builds, so that a
+ * configuration whose dependencies and resolvers have not changed is resolved without Ivy.</p>
+ *
+ * <p>Only configurations whose dependencies are all external modules with fixed versions are cached. The key of a
+ * cached result is a hash of the dependency declarations, the exclude rules and the resolver definitions of the
+ * configuration. As the versions of transitive dependencies can still change in the repositories, a cached result
+ * expires after a day.</p>
+ */
+public class CachingIvyService implements IvyService {
+    public static final String CACHE_DIR_NAME = "resolvedConfigurationCache";
+    public static final long MAX_AGE = 24 * 60 * 60 * 1000L;
+
+    private static Logger logger = LoggerFactory.getLogger(CachingIvyService.class);
+
+    private final IvyService ivyService;
+    private final ResolverProvider resolverProvider;
+    private final DependencyMetaDataProvider metaDataProvider;
+
+    public CachingIvyService(IvyService ivyService, ResolverProvider resolverProvider,
+                             DependencyMetaDataProvider metaDataProvider) {
+        this.ivyService = ivyService;
+        this.resolverProvider = resolverProvider;
+        this.metaDataProvider = metaDataProvider;
+    }
+
+    public IvyService getIvyService() {
+        return ivyService;
+    }
+
+    public void publish(Set<Configuration> configurationsToPublish, PublishInstruction publishInstruction,
+                        List<DependencyResolver> publishResolvers) {
+        ivyService.publish(configurationsToPublish, publishInstruction, publishResolvers);
+    }
+
+    public ResolvedConfiguration resolve(Configuration configuration) throws ResolveException {
+        if (!isCacheable(configuration.getAllDependencies())) {
+            return ivyService.resolve(configuration);
+        }
+
+        Clock clock = new Clock();
+        ResolvedConfigurationCache cache = new ResolvedConfigurationCache(new File(
+                metaDataProvider.getGradleUserHomeDir(), CACHE_DIR_NAME), MAX_AGE);
+        String key = getKey(configuration);
+        ResolvedConfiguration resolvedConfiguration = cache.get(key, configuration);
+        if (resolvedConfiguration != null) {
+            logger.debug("Timing: Loading resolved {} from cache took {}", configuration, clock.getTime());
+            return resolvedConfiguration;
+        }
+
+        resolvedConfiguration = ivyService.resolve(configuration);
+        if (!resolvedConfiguration.hasError()) {
+            cache.put(key, configuration, resolvedConfiguration);
+        }
+        return resolvedConfiguration;
+    }
+
+    private boolean isCacheable(Set<? extends Dependency> dependencies) {
+        for (Dependency dependency : dependencies) {
+            if (!(dependency instanceof ExternalDependency)) {
+                return false;
+            }
+            if (isDynamicVersion(dependency.getVersion())) {
+                return false;
+            }
+            if (dependency instanceof ExternalModuleDependency && ((ExternalModuleDependency) dependency).isChanging()) {
+                return false;
+            }
+            if (dependency instanceof ClientModule && !isCacheable(((ClientModule) dependency).getDependencies())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isDynamicVersion(String version) {
+        return version == null
+                || version.endsWith("+")
+                || version.startsWith("latest.")
+                || version.startsWith("[")
+                || version.startsWith("]")
+                || version.startsWith("(")
+                || version.endsWith("SNAPSHOT");
+    }
+
+    String getKey(Configuration configuration) {
+        StringBuilder key = new StringBuilder();
+        key.append("transitive=").append(configuration.isTransitive()).append('\n');
+        for (Configuration superConfiguration : configuration.getHierarchy()) {
+            appendExcludeRules(superConfiguration.getExcludeRules(), key);
+        }
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            appendDependency(dependency, key);
+        }
+        for (DependencyResolver resolver : resolverProvider.getResolvers()) {
+            appendResolver(resolver, key);
+        }
+        return HashUtil.createHash(key.toString());
+    }
+
+    private void appendDependency(Dependency dependency, StringBuilder key) {
+        ModuleDependency moduleDependency = (ModuleDependency) dependency;
+        key.append("dependency ").append(dependency.getClass().getSimpleName())
+                .append(' ').append(dependency.getGroup())
+                .append(':').append(dependency.getName())
+                .append(':').append(dependency.getVersion())
+                .append(" conf=").append(moduleDependency.getConfiguration())
+                .append(" transitive=").append(moduleDependency.isTransitive())
+                .append(" force=").append(((ExternalDependency) dependency).isForce());
+        if (dependency instanceof ExternalModuleDependency) {
+            key.append(" changing=").append(((ExternalModuleDependency) dependency).isChanging());
+        }
+        key.append('\n');
+        for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+            key.append("artifact ").append(artifact.getName())
+                    .append(':').append(artifact.getType())
+                    .append(':').append(artifact.getExtension())
+                    .append(':').append(artifact.getClassifier())
+                    .append(':').append(artifact.getUrl()).append('\n');
+        }
+        appendExcludeRules(moduleDependency.getExcludeRules(), key);
+        if (dependency instanceof ClientModule) {
+            ClientModule clientModule = (ClientModule) dependency;
+            key.append("client module ").append(clientModule.getId()).append(" {\n");
+            for (Dependency nestedDependency : clientModule.getDependencies()) {
+                appendDependency(nestedDependency, key);
+            }
+            key.append("}\n");
+        }
+    }
+
+    private void appendExcludeRules(Set<ExcludeRule> excludeRules, StringBuilder key) {
+        for (ExcludeRule excludeRule : excludeRules) {
+            key.append("exclude ").append(new TreeMap<String, String>(excludeRule.getExcludeArgs())).append('\n');
+        }
+    }
+
+    private void appendResolver(DependencyResolver resolver, StringBuilder key) {
+        key.append("resolver ").append(resolver.getClass().getName()).append(' ').append(resolver.getName());
+        if (resolver instanceof AbstractPatternsBasedResolver) {
+            AbstractPatternsBasedResolver patternsBasedResolver = (AbstractPatternsBasedResolver) resolver;
+            key.append(" ivy=").append(patternsBasedResolver.getIvyPatterns())
+                    .append(" artifact=").append(patternsBasedResolver.getArtifactPatterns())
+                    .append(" m2compatible=").append(patternsBasedResolver.isM2compatible());
+        }
+        key.append('\n');
+        if (resolver instanceof ChainResolver) {
+            for (Object childResolver : ((ChainResolver) resolver).getResolvers()) {
+                appendResolver((DependencyResolver) childResolver, key);
+            }
+        }
+        if (resolver instanceof DualResolver) {
+            DualResolver dualResolver = (DualResolver) resolver;
+            appendResolver(dualResolver.getIvyResolver(), key);
+            appendResolver(dualResolver.getArtifactResolver(), key);
+        }
+    }
+}
@@ -16,7 +16,10 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.cache.DefaultRepositoryCacheManager;
+import org.apache.ivy.core.cache.RepositoryCacheManager;
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.settings.IvySettings;
 import org.apache.ivy.plugins.resolver.DependencyResolver;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.PublishInstruction;
@@ -26,17 +29,36 @@ import org.gradle.api.internal.artifacts.configurations.Configurations;
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
 import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.DefaultModuleDescriptorConverter;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * <p>The {@link IvyService} which resolves and publishes configurations using Ivy.</p>
+ *
+ * <p>The Ivy instance used to resolve is reused for as long as the resolvers, the internal repository, the client
+ * module registry and the Gradle user home stay the same, so that the Ivy settings are not built again for each
+ * configuration. A different resolver list, for example after a resolver has been added to the project, causes a new
+ * Ivy instance to be built. The shared Ivy instance is not modified once built.</p>
+ *
+ * <p>Resolvers such as the internal repository are shared with the Ivy instances of other projects. Resolves and
+ * publishes hold the build's {@link ResolverLock} while they use the resolvers, so that resolves which use different
+ * Ivy instances do not run at the same time.</p>
+ *
  * @author Hans Dockter
  */
 public class DefaultIvyService implements IvyService {
-    private SettingsConverter settingsConverter = new DefaultSettingsConverter();
+    private static Logger logger = LoggerFactory.getLogger(DefaultIvyService.class);
+
+    private SettingsConverter settingsConverter;
     private ModuleDescriptorConverter moduleDescriptorConverter = new DefaultModuleDescriptorConverter();
     private IvyFactory ivyFactory = new DefaultIvyFactory();
     private IvyDependencyResolver dependencyResolver = new SelfResolvingDependencyResolver(
@@ -44,22 +66,73 @@ public class DefaultIvyService implements IvyService {
     private IvyDependencyPublisher dependencyPublisher = new DefaultIvyDependencyPublisher(new DefaultPublishOptionsFactory());
     private final DependencyMetaDataProvider metaDataProvider;
     private final ResolverProvider resolverProvider;
+    private final ResolverLock resolverLock;
+    private final Object resolveIvyLock = new Object();
+    private ResolveIvyKey resolveIvyKey;
+    private Ivy resolveIvy;
+    private final AtomicInteger ivyCreatedCount = new AtomicInteger();
+    private final AtomicInteger ivyReusedCount = new AtomicInteger();
+    private final AtomicLong conversionTime = new AtomicLong();
+    private final AtomicLong resolveTime = new AtomicLong();
 
     public DefaultIvyService(DependencyMetaDataProvider metaDataProvider, ResolverProvider resolverProvider) {
+        this(metaDataProvider, resolverProvider, new ModuleDescriptorCache(), new ResolverLock());
+    }
+
+    /**
+     * @param descriptorCache The module descriptor cache shared by the projects of the build.
+     * @param resolverLock The lock shared by the projects of the build.
+     */
+    public DefaultIvyService(DependencyMetaDataProvider metaDataProvider, ResolverProvider resolverProvider,
+                             ModuleDescriptorCache descriptorCache, ResolverLock resolverLock) {
         this.metaDataProvider = metaDataProvider;
         this.resolverProvider = resolverProvider;
+        this.settingsConverter = new DefaultSettingsConverter(descriptorCache);
+        this.resolverLock = resolverLock;
     }
 
-    private Ivy ivyForResolve(List<DependencyResolver> dependencyResolvers, File cacheParentDir,
-                   Map<String, ModuleDescriptor> clientModuleRegistry) {
-        return ivyFactory.createIvy(
-                settingsConverter.convertForResolve(
-                        dependencyResolvers,
-                        cacheParentDir,
-                        metaDataProvider.getInternalRepository(),
-                        clientModuleRegistry
-                )
-        );
+    private Ivy ivyForResolve(ResolveIvyKey key) {
+        synchronized (resolveIvyLock) {
+            if (key.equals(resolveIvyKey)) {
+                ivyReusedCount.incrementAndGet();
+                return resolveIvy;
+            }
+            Clock clock = new Clock();
+            resolveIvy = ivyFactory.createIvy(
+                    settingsConverter.convertForResolve(
+                            key.resolvers,
+                            key.cacheParentDir,
+                            key.internalRepository,
+                            key.clientModuleRegistry
+                    )
+            );
+            resolveIvyKey = key;
+            ivyCreatedCount.incrementAndGet();
+            conversionTime.addAndGet(clock.getTimeInMs());
+            return resolveIvy;
+        }
+    }
+
+    /**
+     * Binds the resolvers of the given settings to them again, as the resolvers which are shared with other Ivy
+     * instances may have been bound to the settings of one of these instances since.
+     */
+    private void bindResolvers(IvySettings ivySettings) {
+        for (Object resolver : ivySettings.getResolvers()) {
+            DependencyResolver dependencyResolver = (DependencyResolver) resolver;
+            dependencyResolver.setSettings(ivySettings);
+            RepositoryCacheManager cacheManager = dependencyResolver.getRepositoryCacheManager();
+            if (cacheManager instanceof DefaultRepositoryCacheManager) {
+                ((DefaultRepositoryCacheManager) cacheManager).setSettings(ivySettings);
+            }
+        }
+    }
+
+    private void discardResolveIvy() {
+        synchronized (resolveIvyLock) {
+            resolveIvy = null;
+            resolveIvyKey = null;
+        }
     }
 
     private Ivy ivyForPublish(List<DependencyResolver> publishResolvers, File cacheParentDir) {
@@ -101,30 +174,87 @@ public class DefaultIvyService implements IvyService {
     }
 
     public ResolvedConfiguration resolve(final Configuration configuration) {
-        Map<String, ModuleDescriptor> clientModuleRegistry = metaDataProvider.getClientModuleRegistry();
-        Ivy ivy = ivyForResolve(resolverProvider.getResolvers(), metaDataProvider.getGradleUserHomeDir(),
-                clientModuleRegistry);
-        ModuleDescriptor moduleDescriptor = moduleDescriptorConverter.convertForResolve(configuration,
-                metaDataProvider.getModule(), clientModuleRegistry, ivy.getSettings());
-        return dependencyResolver.resolve(configuration, ivy, moduleDescriptor);
+        final ResolveIvyKey key = new ResolveIvyKey(resolverProvider.getResolvers(),
+                metaDataProvider.getGradleUserHomeDir(), metaDataProvider.getInternalRepository(),
+                metaDataProvider.getClientModuleRegistry());
+        final Ivy[] boundIvy = new Ivy[1];
+        resolverLock.acquire(key, new Runnable() {
+            public void run() {
+                boundIvy[0] = ivyForResolve(key);
+                bindResolvers(boundIvy[0].getSettings());
+            }
+        });
+        try {
+            Ivy ivy = boundIvy[0] != null ? boundIvy[0] : ivyForResolve(key);
+            ModuleDescriptor moduleDescriptor = moduleDescriptorConverter.convertForResolve(configuration,
+                    metaDataProvider.getModule(), key.clientModuleRegistry, ivy.getSettings());
+            Clock clock = new Clock();
+            try {
+                return dependencyResolver.resolve(configuration, ivy, moduleDescriptor);
+            } finally {
+                resolveTime.addAndGet(clock.getTimeInMs());
+                logger.debug("Timing: Ivy instances created {}, reused {}. Converting settings took {}ms, resolving took {}ms",
+                        new Object[]{ivyCreatedCount.get(), ivyReusedCount.get(), conversionTime.get(), resolveTime.get()});
+            }
+        } finally {
+            resolverLock.release();
+        }
+    }
+
+    /**
+     * Returns the number of Ivy instances built for resolving.
+     */
+    public int getIvyCreatedCount() {
+        return ivyCreatedCount.get();
+    }
+
+    /**
+     * Returns the number of resolves which reused an existing Ivy instance.
+     */
+    public int getIvyReusedCount() {
+        return ivyReusedCount.get();
+    }
+
+    /**
+     * Returns the total time spent building Ivy instances for resolving, in milliseconds.
+     */
+    public long getConversionTime() {
+        return conversionTime.get();
+    }
+
+    /**
+     * Returns the total time spent resolving, in milliseconds.
+     */
+    public long getResolveTime() {
+        return resolveTime.get();
     }
 
     public void publish(Set<Configuration> configurationsToPublish, PublishInstruction publishInstruction,
                         List<DependencyResolver> publishResolvers) {
         assert configurationsToPublish.size() > 0;
-        Ivy ivy = ivyForPublish(publishResolvers, metaDataProvider.getGradleUserHomeDir());
-        Set<String> confs = Configurations.getNames(configurationsToPublish, false);
-        dependencyPublisher.publish(
-                confs,
-                publishInstruction,
-                publishResolvers,
-                moduleDescriptorConverter.convertForPublish(configurationsToPublish, publishInstruction.isUploadDescriptor(),
-                        metaDataProvider.getModule(), ivy.getSettings()),
-                ivy.getPublishEngine());
+        // Publishing always builds new Ivy settings, so never shares the resolvers with another holder
+        resolverLock.acquire(new Object(), new Runnable() {
+            public void run() {
+            }
+        });
+        try {
+            Ivy ivy = ivyForPublish(publishResolvers, metaDataProvider.getGradleUserHomeDir());
+            Set<String> confs = Configurations.getNames(configurationsToPublish, false);
+            dependencyPublisher.publish(
+                    confs,
+                    publishInstruction,
+                    publishResolvers,
+                    moduleDescriptorConverter.convertForPublish(configurationsToPublish, publishInstruction.isUploadDescriptor(),
+                            metaDataProvider.getModule(), ivy.getSettings()),
+                    ivy.getPublishEngine());
+        } finally {
+            resolverLock.release();
+        }
     }
 
     public void setSettingsConverter(SettingsConverter settingsConverter) {
         this.settingsConverter = settingsConverter;
+        discardResolveIvy();
     }
 
     public void setModuleDescriptorConverter(ModuleDescriptorConverter moduleDescriptorConverter) {
@@ -133,6 +263,7 @@ public class DefaultIvyService implements IvyService {
 
     public void setIvyFactory(IvyFactory ivyFactory) {
         this.ivyFactory = ivyFactory;
+        discardResolveIvy();
     }
 
     public void setDependencyResolver(IvyDependencyResolver dependencyResolver) {
@@ -142,4 +273,41 @@ public class DefaultIvyService implements IvyService {
     public void setDependencyPublisher(IvyDependencyPublisher dependencyPublisher) {
         this.dependencyPublisher = dependencyPublisher;
     }
+
+    private static class ResolveIvyKey {
+        private final List<DependencyResolver> resolvers;
+        private final File cacheParentDir;
+        private final DependencyResolver internalRepository;
+        private final Map<String, ModuleDescriptor> clientModuleRegistry;
+
+        private ResolveIvyKey(List<DependencyResolver> resolvers, File cacheParentDir,
+                              DependencyResolver internalRepository,
+                              Map<String, ModuleDescriptor> clientModuleRegistry) {
+            this.resolvers = new ArrayList<DependencyResolver>(resolvers);
+            this.cacheParentDir = cacheParentDir;
+            this.internalRepository = internalRepository;
+            this.clientModuleRegistry = clientModuleRegistry;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ResolveIvyKey other = (ResolveIvyKey) o;
+            // The registry is compared by identity, as the client module resolver reads it as it changes. The
+            // meta-data provider hands out the same registry for each resolve of a project's configurations.
+            return resolvers.equals(other.resolvers) && cacheParentDir.equals(other.cacheParentDir)
+                    && internalRepository == other.internalRepository
+                    && clientModuleRegistry == other.clientModuleRegistry;
+        }
+
+        @Override
+        public int hashCode() {
+            return resolvers.hashCode();
+        }
+    }
 }
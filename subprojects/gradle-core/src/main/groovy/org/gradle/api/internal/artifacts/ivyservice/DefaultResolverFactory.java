@@ -45,6 +45,26 @@ import java.util.Map;
  * @author Hans Dockter
  */
 public class DefaultResolverFactory implements ResolverFactory {
+    /**
+     * The checksums for Ivy to verify for resolvers which download through the {@link ArtifactDownloader}. None, as
+     * the downloader verifies the checksum of each file as it downloads it.
+     */
+    static final String NO_CHECKSUMS = "none";
+
+    private final ArtifactDownloader downloader;
+
+    public DefaultResolverFactory() {
+        this(new ArtifactDownloader());
+    }
+
+    public DefaultResolverFactory(ArtifactDownloader downloader) {
+        this.downloader = downloader;
+    }
+
+    public ArtifactDownloader getDownloader() {
+        return downloader;
+    }
+
     public DependencyResolver createResolver(Object userDescription) {
         DependencyResolver result;
         if (userDescription instanceof String) {
@@ -73,6 +93,12 @@ public class DefaultResolverFactory implements ResolverFactory {
         return resolver;
     }
 
+    public OfflineResolver createOfflineResolver(File cacheDir) {
+        OfflineResolver resolver = new OfflineResolver(new LocalModuleIndex(cacheDir));
+        resolver.setRepositoryCacheManager(createUseOriginCacheManager(OfflineResolver.NAME));
+        return resolver;
+    }
+
     private RepositoryCacheManager createUseOriginCacheManager(String name) {
         File tmpIvyCache = createTmpDir();
         DefaultRepositoryCacheManager cacheManager = new DefaultRepositoryCacheManager();
@@ -111,6 +137,8 @@ public class DefaultResolverFactory implements ResolverFactory {
 
     private IBiblioResolver createIBiblioResolver(String name, String root) {
         IBiblioResolver iBiblioResolver = new IBiblioResolver();
+        iBiblioResolver.setRepository(new ResumingURLRepository(downloader));
+        iBiblioResolver.setChecksums(NO_CHECKSUMS);
         iBiblioResolver.setUsepoms(true);
         iBiblioResolver.setName(name);
         iBiblioResolver.setRoot(root);
@@ -122,6 +150,8 @@ public class DefaultResolverFactory implements ResolverFactory {
 
     private URLResolver createUrlResolver(String name, String root, String... jarRepoUrls) {
         URLResolver urlResolver = new URLResolver();
+        urlResolver.setRepository(new ResumingURLRepository(downloader));
+        urlResolver.setChecksums(NO_CHECKSUMS);
         urlResolver.setName(name + "_jars");
         urlResolver.setM2compatible(true);
         urlResolver.addArtifactPattern(root + '/' + ResolverContainer.MAVEN_REPO_PATTERN);
@@ -72,6 +72,15 @@ public class DefaultSettingsConverter implements SettingsConverter {
     }
 
     private IvySettings ivySettings;
+    private ModuleDescriptorCache descriptorCache;
+
+    public DefaultSettingsConverter() {
+        this(new ModuleDescriptorCache());
+    }
+
+    public DefaultSettingsConverter(ModuleDescriptorCache descriptorCache) {
+        this.descriptorCache = descriptorCache;
+    }
 
     public IvySettings convertForPublish(List<DependencyResolver> publishResolvers, File gradleUserHome, DependencyResolver internalRepository) {
         if (ivySettings != null) {
@@ -130,7 +139,7 @@ public class DefaultSettingsConverter implements SettingsConverter {
     }
 
     private ChainResolver createUserResolverChain(List<DependencyResolver> classpathResolvers, DependencyResolver internalRepository) {
-        ChainResolver chainResolver = new ChainResolver();
+        ChainResolver chainResolver = new CachingChainResolver(descriptorCache, internalRepository);
         chainResolver.setName(CHAIN_RESOLVER_NAME);
         chainResolver.add(internalRepository);
         // todo Figure out why Ivy thinks this is necessary. The IBiblio resolver has already this pattern which should be good enough. By doing this we let Maven semantics seep into our whole system.
@@ -172,4 +181,12 @@ public class DefaultSettingsConverter implements SettingsConverter {
     public void setIvySettings(IvySettings ivySettings) {
         this.ivySettings = ivySettings;
     }
+
+    public ModuleDescriptorCache getDescriptorCache() {
+        return descriptorCache;
+    }
+
+    public void setDescriptorCache(ModuleDescriptorCache descriptorCache) {
+        this.descriptorCache = descriptorCache;
+    }
 }
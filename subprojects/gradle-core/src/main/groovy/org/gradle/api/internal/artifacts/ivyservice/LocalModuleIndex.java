@@ -0,0 +1,145 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolverContainer;
+import org.gradle.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * <p>An index of the module revisions held in a local dependency cache, as laid out by {@link
+ * ResolverContainer#DEFAULT_CACHE_IVY_PATTERN}. The cache directory is scanned once, when the index is first queried,
+ * after which all queries are answered from memory.</p>
+ */
+public class LocalModuleIndex {
+    private static Logger logger = LoggerFactory.getLogger(LocalModuleIndex.class);
+
+    private static final String IVY_FILE_PREFIX = "ivy-";
+    private static final String IVY_FILE_SUFFIX = ".xml";
+
+    private final File cacheDir;
+    private Map<String, SortedSet<String>> revisions;
+    private int revisionCount;
+
+    public LocalModuleIndex(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Returns the revisions of the given module which are held in the cache.
+     *
+     * @return The revisions. Returns an empty set when the module is not in the cache.
+     */
+    public synchronized SortedSet<String> getRevisions(String organisation, String module) {
+        load();
+        SortedSet<String> moduleRevisions = revisions.get(key(organisation, module));
+        if (moduleRevisions == null) {
+            return new TreeSet<String>();
+        }
+        return new TreeSet<String>(moduleRevisions);
+    }
+
+    public synchronized boolean contains(String organisation, String module, String revision) {
+        load();
+        SortedSet<String> moduleRevisions = revisions.get(key(organisation, module));
+        return moduleRevisions != null && moduleRevisions.contains(revision);
+    }
+
+    public synchronized int getModuleCount() {
+        load();
+        return revisions.size();
+    }
+
+    public synchronized int getRevisionCount() {
+        load();
+        return revisionCount;
+    }
+
+    private void load() {
+        if (revisions != null) {
+            return;
+        }
+        Clock clock = new Clock();
+        revisions = new HashMap<String, SortedSet<String>>();
+        File[] organisationDirs = cacheDir.listFiles();
+        if (organisationDirs != null) {
+            for (File organisationDir : organisationDirs) {
+                File[] moduleDirs = organisationDir.listFiles();
+                if (moduleDirs == null) {
+                    continue;
+                }
+                for (File moduleDir : moduleDirs) {
+                    if (moduleDir.isDirectory()) {
+                        addModule(organisationDir.getName(), moduleDir);
+                    }
+                }
+            }
+        }
+        logger.debug("Timing: Indexing {} revisions of {} modules in {} took {}", new Object[]{revisionCount,
+                revisions.size(), cacheDir, clock.getTime()});
+    }
+
+    private void addModule(String organisation, File moduleDir) {
+        File[] files = moduleDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                // Either an artifact type directory or a branch directory. Only a branch directory holds ivy files.
+                File[] branchFiles = file.listFiles();
+                for (int i = 0; branchFiles != null && i < branchFiles.length; i++) {
+                    addRevision(organisation, moduleDir.getName(), branchFiles[i]);
+                }
+            } else {
+                addRevision(organisation, moduleDir.getName(), file);
+            }
+        }
+    }
+
+    private void addRevision(String organisation, String module, File file) {
+        String name = file.getName();
+        if (!name.startsWith(IVY_FILE_PREFIX) || !name.endsWith(IVY_FILE_SUFFIX) || !file.isFile()) {
+            return;
+        }
+        String revision = name.substring(IVY_FILE_PREFIX.length(), name.length() - IVY_FILE_SUFFIX.length());
+        if (revision.length() == 0) {
+            return;
+        }
+        String key = key(organisation, module);
+        SortedSet<String> moduleRevisions = revisions.get(key);
+        if (moduleRevisions == null) {
+            moduleRevisions = new TreeSet<String>();
+            revisions.put(key, moduleRevisions);
+        }
+        if (moduleRevisions.add(revision)) {
+            revisionCount++;
+        }
+    }
+
+    private static String key(String organisation, String module) {
+        return organisation + ":" + module;
+    }
+}
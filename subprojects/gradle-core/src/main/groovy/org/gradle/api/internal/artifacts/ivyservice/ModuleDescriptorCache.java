@@ -0,0 +1,159 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.AbstractPatternsBasedResolver;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.GradleException;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A thread-safe, in-memory cache of the module descriptors found by the resolvers of a build. It allows the Ivy
+ * instances which resolve different configurations, possibly at the same time, to share the descriptors of the
+ * modules they have in common. Each build has its own cache.</p>
+ *
+ * <p>Entries are keyed by the repositories searched for the module and the module revision id. Resolvers which
+ * search the same locations with the same patterns are treated as the same repository, so that projects which each
+ * declare the same repository share its modules. Other resolvers are compared by identity. When several threads look
+ * up the same entry at the same time, only one of them searches the resolvers, and the others wait for its
+ * result.</p>
+ */
+public class ModuleDescriptorCache {
+    private final ConcurrentMap<Key, FutureTask<ResolvedModuleRevision>> entries
+            = new ConcurrentHashMap<Key, FutureTask<ResolvedModuleRevision>>();
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    /**
+     * Returns the resolved module revision for the given key, using the given action to find it if it is not
+     * cached. A null result is not cached.
+     */
+    public ResolvedModuleRevision get(List<DependencyResolver> resolvers, ModuleRevisionId id, boolean force,
+                                      Callable<ResolvedModuleRevision> action) throws ParseException {
+        Key key = new Key(resolvers, id, force);
+        FutureTask<ResolvedModuleRevision> entry = entries.get(key);
+        if (entry == null) {
+            FutureTask<ResolvedModuleRevision> newEntry = new FutureTask<ResolvedModuleRevision>(action);
+            entry = entries.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                missCount.incrementAndGet();
+                entry = newEntry;
+                entry.run();
+            } else {
+                hitCount.incrementAndGet();
+            }
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        try {
+            ResolvedModuleRevision result = entry.get();
+            if (result == null) {
+                entries.remove(key, entry);
+            }
+            return result;
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            Throwable cause = e.getCause();
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new GradleException(String.format("Could not resolve module %s.", id), cause);
+        } catch (InterruptedException e) {
+            throw new GradleException(String.format("Interrupted while resolving module %s.", id), e);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, if any.
+     */
+    public void remove(List<DependencyResolver> resolvers, ModuleRevisionId id, boolean force) {
+        entries.remove(new Key(resolvers, id, force));
+    }
+
+    /**
+     * Discards all entries, and resets the hit and miss counts.
+     */
+    public void clear() {
+        entries.clear();
+        hitCount.set(0);
+        missCount.set(0);
+    }
+
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    private static class Key {
+        private final List<Object> repositories;
+        private final ModuleRevisionId id;
+        private final boolean force;
+
+        private Key(List<DependencyResolver> resolvers, ModuleRevisionId id, boolean force) {
+            this.repositories = new ArrayList<Object>();
+            for (DependencyResolver resolver : resolvers) {
+                repositories.add(getRepositoryId(resolver));
+            }
+            this.id = id;
+            this.force = force;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return force == other.force && id.equals(other.id) && repositories.equals(other.repositories);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * repositories.hashCode() + id.hashCode()) + (force ? 1 : 0);
+        }
+
+        private static Object getRepositoryId(DependencyResolver resolver) {
+            if (resolver instanceof AbstractPatternsBasedResolver) {
+                AbstractPatternsBasedResolver patternsResolver = (AbstractPatternsBasedResolver) resolver;
+                return Arrays.asList(resolver.getClass(), new ArrayList(patternsResolver.getIvyPatterns()),
+                        new ArrayList(patternsResolver.getArtifactPatterns()), patternsResolver.isM2compatible());
+            }
+            return resolver;
+        }
+    }
+}
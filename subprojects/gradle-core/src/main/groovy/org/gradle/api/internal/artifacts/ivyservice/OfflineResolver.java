@@ -0,0 +1,76 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolveData;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.gradle.api.GradleException;
+import org.gradle.api.artifacts.ResolverContainer;
+import org.gradle.util.GUtil;
+
+import java.text.ParseException;
+import java.util.SortedSet;
+
+/**
+ * <p>A resolver which resolves modules from the local dependency cache only, and is used in place of the repositories
+ * of a project when the build runs offline. Each module is looked up in a {@link LocalModuleIndex} of the cache
+ * before it is resolved, so that a module which is not in the cache fails immediately, with a message which lists
+ * the revisions of the module which are available.</p>
+ */
+public class OfflineResolver extends FileSystemResolver {
+    public static final String NAME = "offline";
+
+    private final LocalModuleIndex index;
+
+    public OfflineResolver(LocalModuleIndex index) {
+        this.index = index;
+        setName(NAME);
+        String root = index.getCacheDir().getAbsolutePath() + "/";
+        addIvyPattern(root + ResolverContainer.DEFAULT_CACHE_IVY_PATTERN);
+        addArtifactPattern(root + ResolverContainer.DEFAULT_CACHE_ARTIFACT_PATTERN);
+        setValidate(false);
+        setCheckmodified(false);
+    }
+
+    public LocalModuleIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public ResolvedModuleRevision getDependency(DependencyDescriptor dd, ResolveData data) throws ParseException {
+        ModuleRevisionId id = dd.getDependencyRevisionId();
+        checkCached(id, getSettings().getVersionMatcher().isDynamic(id));
+        return super.getDependency(dd, data);
+    }
+
+    void checkCached(ModuleRevisionId id, boolean dynamic) {
+        SortedSet<String> revisions = index.getRevisions(id.getOrganisation(), id.getName());
+        if (revisions.isEmpty()) {
+            throw new GradleException(String.format(
+                    "Could not resolve %s:%s:%s offline: no revision of this module is in the dependency cache %s.",
+                    id.getOrganisation(), id.getName(), id.getRevision(), index.getCacheDir()));
+        }
+        if (!dynamic && !revisions.contains(id.getRevision())) {
+            throw new GradleException(String.format(
+                    "Could not resolve %s:%s:%s offline: this revision is not in the dependency cache %s. Cached revisions: %s.",
+                    id.getOrganisation(), id.getName(), id.getRevision(), index.getCacheDir(), GUtil.join(revisions, ", ")));
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
+import org.gradle.api.specs.Specs;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * <p>A store of resolved configurations, kept as one binary file per key in a cache directory. An entry holds the
+ * resolved dependency graph and the artifact files of a configuration, so that the configuration can be resolved
+ * again without Ivy.</p>
+ *
+ * <p>An entry is ignored when it is older than the maximum age, or when any of its artifact files no longer exist.
+ * Entries are written to a temporary file which is then renamed, so several builds can share the cache
+ * directory.</p>
+ */
+public class ResolvedConfigurationCache {
+    private static final Logger logger = LoggerFactory.getLogger(ResolvedConfigurationCache.class);
+    private static final int MAGIC = 0x47524343;
+    private static final int VERSION = 1;
+
+    private final File cacheDir;
+    private final long maxAge;
+
+    /**
+     * @param cacheDir The directory to hold the entries.
+     * @param maxAge The maximum age of an entry, in milliseconds.
+     */
+    public ResolvedConfigurationCache(File cacheDir, long maxAge) {
+        this.cacheDir = cacheDir;
+        this.maxAge = maxAge;
+    }
+
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Returns the cached resolved configuration for the given key, or null if there is no usable entry.
+     *
+     * @param key The key of the entry.
+     * @param configuration The configuration being resolved. Its module dependencies must be the ones the entry was
+     * created for, in the same order.
+     */
+    public ResolvedConfiguration get(String key, Configuration configuration) {
+        File entryFile = getEntryFile(key);
+        if (!entryFile.isFile()) {
+            return null;
+        }
+        try {
+            DataInputStream instr = new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)));
+            try {
+                return read(instr, configuration);
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            logger.debug(String.format("Ignoring unreadable resolved configuration cache entry %s.", entryFile), e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given resolved configuration, replacing any existing entry for the key.
+     */
+    public void put(String key, Configuration configuration, ResolvedConfiguration resolvedConfiguration) {
+        File entryFile = getEntryFile(key);
+        cacheDir.mkdirs();
+        File tmpFile = new File(cacheDir, String.format("%s-%s.tmp", key, UUID.randomUUID()));
+        try {
+            DataOutputStream outstr = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                write(outstr, configuration, resolvedConfiguration);
+            } finally {
+                outstr.close();
+            }
+        } catch (IOException e) {
+            tmpFile.delete();
+            throw new UncheckedIOException(e);
+        }
+        entryFile.delete();
+        if (!tmpFile.renameTo(entryFile)) {
+            // Another build has written the entry in the meantime
+            tmpFile.delete();
+        }
+    }
+
+    private File getEntryFile(String key) {
+        return new File(cacheDir, key + ".bin");
+    }
+
+    private void write(DataOutputStream outstr, Configuration configuration,
+                       ResolvedConfiguration resolvedConfiguration) throws IOException {
+        outstr.writeInt(MAGIC);
+        outstr.writeInt(VERSION);
+        outstr.writeLong(System.currentTimeMillis());
+
+        Set<File> files = resolvedConfiguration.getFiles(Specs.<Dependency>satisfyAll());
+        outstr.writeInt(files.size());
+        for (File file : files) {
+            outstr.writeUTF(file.getAbsolutePath());
+        }
+
+        // Number the nodes and artifacts of the graph
+        Map<ResolvedDependency, Integer> nodes = new LinkedHashMap<ResolvedDependency, Integer>();
+        for (ResolvedDependency dependency : resolvedConfiguration.getFirstLevelModuleDependencies()) {
+            addNode(dependency, nodes);
+        }
+        Map<ResolvedArtifact, Integer> artifacts = new LinkedHashMap<ResolvedArtifact, Integer>();
+        for (ResolvedArtifact artifact : resolvedConfiguration.getResolvedArtifacts()) {
+            addArtifact(artifact, artifacts);
+        }
+        for (ResolvedDependency node : nodes.keySet()) {
+            for (ResolvedArtifact artifact : node.getModuleArtifacts()) {
+                addArtifact(artifact, artifacts);
+            }
+            for (ResolvedDependency parent : node.getParents()) {
+                for (ResolvedArtifact artifact : node.getParentArtifacts(parent)) {
+                    addArtifact(artifact, artifacts);
+                }
+            }
+        }
+
+        outstr.writeInt(nodes.size());
+        for (ResolvedDependency node : nodes.keySet()) {
+            writeString(outstr, node.getGroup());
+            writeString(outstr, node.getName());
+            writeString(outstr, node.getVersion());
+            writeString(outstr, node.getConfiguration());
+            Set<String> hierarchy = node instanceof DefaultResolvedDependency
+                    ? ((DefaultResolvedDependency) node).getConfigurationHierarchy()
+                    : Collections.singleton(node.getConfiguration());
+            outstr.writeInt(hierarchy.size());
+            for (String configurationName : hierarchy) {
+                outstr.writeUTF(configurationName);
+            }
+        }
+
+        outstr.writeInt(artifacts.size());
+        for (ResolvedArtifact artifact : artifacts.keySet()) {
+            writeString(outstr, artifact.getName());
+            writeString(outstr, artifact.getType());
+            writeString(outstr, artifact.getExtension());
+            outstr.writeUTF(artifact.getFile().getAbsolutePath());
+            outstr.writeInt(indexOf(artifact.getResolvedDependency(), nodes));
+        }
+
+        for (ResolvedDependency node : nodes.keySet()) {
+            writeIndexes(outstr, node.getModuleArtifacts(), artifacts);
+            outstr.writeInt(node.getParents().size());
+            for (ResolvedDependency parent : node.getParents()) {
+                outstr.writeInt(indexOf(parent, nodes));
+                writeIndexes(outstr, node.getParentArtifacts(parent), artifacts);
+            }
+            writeIndexes(outstr, node.getChildren(), nodes);
+        }
+
+        writeIndexes(outstr, resolvedConfiguration.getResolvedArtifacts(), artifacts);
+
+        // The first level dependencies of each module dependency, in the order of the configuration's dependencies
+        Map<Dependency, Set<ResolvedDependency>> firstLevelDependencies = getFirstLevelDependencies(configuration,
+                resolvedConfiguration);
+        outstr.writeInt(firstLevelDependencies.size());
+        for (Set<ResolvedDependency> dependencies : firstLevelDependencies.values()) {
+            writeIndexes(outstr, dependencies, nodes);
+        }
+    }
+
+    /**
+     * Maps each module dependency of the configuration to its first level resolved dependencies, matching them up the
+     * same way as {@link DefaultIvyReportConverter}.
+     */
+    private Map<Dependency, Set<ResolvedDependency>> getFirstLevelDependencies(Configuration configuration,
+                                                                             ResolvedConfiguration resolvedConfiguration) {
+        Map<Dependency, Set<ResolvedDependency>> firstLevelDependencies
+                = new LinkedHashMap<Dependency, Set<ResolvedDependency>>();
+        for (ModuleDependency dependency : configuration.getAllDependencies(ModuleDependency.class)) {
+            Set<ResolvedDependency> matching = new LinkedHashSet<ResolvedDependency>();
+            for (ResolvedDependency node : resolvedConfiguration.getFirstLevelModuleDependencies()) {
+                if (GUtil.elvis(dependency.getGroup(), "").equals(GUtil.elvis(node.getGroup(), ""))
+                        && dependency.getName().equals(node.getName())
+                        && GUtil.elvis(dependency.getVersion(), "").equals(GUtil.elvis(node.getVersion(), ""))
+                        && dependency.getConfiguration().equals(node.getConfiguration())) {
+                    matching.add(node);
+                }
+            }
+            firstLevelDependencies.put(dependency, matching);
+        }
+        return firstLevelDependencies;
+    }
+
+    private ResolvedConfiguration read(DataInputStream instr, Configuration configuration) throws IOException {
+        if (instr.readInt() != MAGIC || instr.readInt() != VERSION) {
+            return null;
+        }
+        if (instr.readLong() + maxAge < System.currentTimeMillis()) {
+            return null;
+        }
+
+        Set<File> files = new LinkedHashSet<File>();
+        int fileCount = instr.readInt();
+        for (int i = 0; i < fileCount; i++) {
+            File file = new File(instr.readUTF());
+            if (!file.isFile()) {
+                return null;
+            }
+            files.add(file);
+        }
+
+        int nodeCount = instr.readInt();
+        List<DefaultResolvedDependency> nodes = new ArrayList<DefaultResolvedDependency>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            String group = readString(instr);
+            String name = readString(instr);
+            String version = readString(instr);
+            String configurationName = readString(instr);
+            int hierarchyCount = instr.readInt();
+            Set<String> hierarchy = new LinkedHashSet<String>();
+            for (int j = 0; j < hierarchyCount; j++) {
+                hierarchy.add(instr.readUTF());
+            }
+            nodes.add(new DefaultResolvedDependency(group, name, version, configurationName, hierarchy,
+                    new LinkedHashSet<ResolvedArtifact>()));
+        }
+
+        int artifactCount = instr.readInt();
+        List<DefaultResolvedArtifact> artifacts = new ArrayList<DefaultResolvedArtifact>(artifactCount);
+        for (int i = 0; i < artifactCount; i++) {
+            DefaultResolvedArtifact artifact = new DefaultResolvedArtifact(readString(instr), readString(instr),
+                    readString(instr), new File(instr.readUTF()));
+            if (!artifact.getFile().isFile()) {
+                return null;
+            }
+            int owner = instr.readInt();
+            if (owner >= 0) {
+                artifact.setResolvedDependency(nodes.get(owner));
+            }
+            artifacts.add(artifact);
+        }
+
+        for (DefaultResolvedDependency node : nodes) {
+            node.getModuleArtifacts().addAll(readIndexes(instr, artifacts));
+            int parentCount = instr.readInt();
+            for (int i = 0; i < parentCount; i++) {
+                int parentIndex = instr.readInt();
+                DefaultResolvedDependency parent = parentIndex < 0 ? null : nodes.get(parentIndex);
+                node.getParents().add(parent);
+                node.addParentSpecificArtifacts(parent, new LinkedHashSet<ResolvedArtifact>(readIndexes(instr,
+                        artifacts)));
+            }
+            node.getChildren().addAll(readIndexes(instr, nodes));
+        }
+
+        Set<ResolvedArtifact> resolvedArtifacts = new LinkedHashSet<ResolvedArtifact>(readIndexes(instr, artifacts));
+
+        Set<ModuleDependency> dependencies = configuration.getAllDependencies(ModuleDependency.class);
+        if (instr.readInt() != dependencies.size()) {
+            return null;
+        }
+        Map<Dependency, Set<ResolvedDependency>> firstLevelDependencies
+                = new LinkedHashMap<Dependency, Set<ResolvedDependency>>();
+        for (ModuleDependency dependency : dependencies) {
+            firstLevelDependencies.put(dependency, new LinkedHashSet<ResolvedDependency>(readIndexes(instr, nodes)));
+        }
+
+        return new CachedResolvedConfiguration(configuration, files, firstLevelDependencies, resolvedArtifacts);
+    }
+
+    private static void addNode(ResolvedDependency node, Map<ResolvedDependency, Integer> nodes) {
+        if (nodes.containsKey(node)) {
+            return;
+        }
+        nodes.put(node, nodes.size());
+        for (ResolvedDependency child : node.getChildren()) {
+            addNode(child, nodes);
+        }
+    }
+
+    private static void addArtifact(ResolvedArtifact artifact, Map<ResolvedArtifact, Integer> artifacts) {
+        if (!artifacts.containsKey(artifact)) {
+            artifacts.put(artifact, artifacts.size());
+        }
+    }
+
+    private static <T> int indexOf(T element, Map<T, Integer> indexes) {
+        if (element == null) {
+            return -1;
+        }
+        Integer index = indexes.get(element);
+        if (index == null) {
+            throw new IllegalArgumentException(String.format("%s is not part of the resolved graph.", element));
+        }
+        return index;
+    }
+
+    private static <T> void writeIndexes(DataOutputStream outstr, Collection<? extends T> elements,
+                                         Map<T, Integer> indexes) throws IOException {
+        outstr.writeInt(elements.size());
+        for (T element : elements) {
+            outstr.writeInt(indexOf(element, indexes));
+        }
+    }
+
+    private static <T> List<T> readIndexes(DataInputStream instr, List<? extends T> elements) throws IOException {
+        int count = instr.readInt();
+        List<T> result = new ArrayList<T>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(elements.get(instr.readInt()));
+        }
+        return result;
+    }
+
+    private static void writeString(DataOutputStream outstr, String value) throws IOException {
+        outstr.writeBoolean(value != null);
+        if (value != null) {
+            outstr.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream instr) throws IOException {
+        return instr.readBoolean() ? instr.readUTF() : null;
+    }
+}
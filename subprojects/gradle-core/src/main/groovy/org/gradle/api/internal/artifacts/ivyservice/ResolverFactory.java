@@ -33,6 +33,8 @@ public interface ResolverFactory {
 
     FileSystemResolver createFlatDirResolver(String name, File... roots);
 
+    OfflineResolver createOfflineResolver(File cacheDir);
+
     AbstractResolver createMavenRepoResolver(String name, String root, String... jarRepoUrls);
 
     GroovyMavenDeployer createMavenDeployer(String name, File pomDir, ConfigurationContainer configurationContainer, Conf2ScopeMappingContainer scopeMapping);
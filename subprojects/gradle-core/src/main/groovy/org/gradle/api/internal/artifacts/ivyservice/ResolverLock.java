@@ -0,0 +1,63 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.GradleException;
+
+/**
+ * <p>Coordinates the resolves and publishes of a build. Some resolvers, such as the internal repository, are shared
+ * by the Ivy settings of several projects. A resolver can only be bound to one Ivy settings instance at a time, and
+ * binding it changes the state of the resolver.</p>
+ *
+ * <p>Callers which use the same resolver set, identified by an owner key, can hold the lock at the same time. A
+ * caller with a different owner key waits until the current holders have released the lock, then binds the resolvers
+ * to its settings while no other caller is using them.</p>
+ */
+public class ResolverLock {
+    private Object owner;
+    private int holdCount;
+
+    /**
+     * Acquires the lock for the given owner. When the lock was last held by a different owner, the given action is
+     * run to bind the resolvers of the owner. Other callers wait while the action runs.
+     */
+    public synchronized void acquire(Object owner, Runnable bindAction) {
+        while (holdCount > 0 && !owner.equals(this.owner)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                throw new GradleException("Interrupted while waiting for the resolvers to become available.", e);
+            }
+        }
+        if (holdCount == 0 && !owner.equals(this.owner)) {
+            this.owner = null;
+            bindAction.run();
+            this.owner = owner;
+        }
+        holdCount++;
+    }
+
+    /**
+     * Releases the lock acquired by a previous call to {@link #acquire(Object, Runnable)}.
+     */
+    public synchronized void release() {
+        holdCount--;
+        if (holdCount == 0) {
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.plugins.repository.TransferEvent;
+import org.apache.ivy.plugins.repository.url.URLRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * A {@link URLRepository} which downloads its resources using an {@link ArtifactDownloader}.
+ */
+public class ResumingURLRepository extends URLRepository {
+    private final ArtifactDownloader downloader;
+
+    public ResumingURLRepository(ArtifactDownloader downloader) {
+        this.downloader = downloader;
+    }
+
+    public ArtifactDownloader getDownloader() {
+        return downloader;
+    }
+
+    @Override
+    public void get(String source, File destination) throws IOException {
+        fireTransferInitiated(getResource(source), TransferEvent.REQUEST_GET);
+        try {
+            downloader.download(new URL(source), destination, new ArtifactDownloader.DownloadListener() {
+                public void started(long totalLength) {
+                    if (totalLength >= 0) {
+                        fireTransferStarted(totalLength);
+                    } else {
+                        fireTransferStarted();
+                    }
+                }
+
+                public void progress(int length) {
+                    fireTransferProgress(length);
+                }
+            });
+            fireTransferCompleted(destination.length());
+        } catch (IOException e) {
+            fireTransferError(e);
+            throw e;
+        } catch (RuntimeException e) {
+            fireTransferError(e);
+            throw e;
+        }
+    }
+}
@@ -1,39 +0,0 @@
-/*
- * Copyright 2009 the original author or authors.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.gradle.api.internal.file;
-
-
-import java.io.FilterReader;
-import java.io.Reader;
-import java.io.StringReader;
-
-/**
- * A FilterReader who's input source may be change after construction.
- */
-public class ChainableFilterReader extends FilterReader{
-
-    protected ChainableFilterReader() {
-        super(new StringReader(""));
-    }
-
-    public void setInput(Reader in) {
-        this.in = in;
-    }
-
-    public Reader getInput() {
-        return in;
-    }
-}
\ No newline at end of file
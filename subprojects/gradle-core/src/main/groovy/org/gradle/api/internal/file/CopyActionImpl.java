@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -32,6 +33,12 @@ public class  CopyActionImpl extends CopySpecImpl implements CopyAction {
 
     private boolean caseSensitive = true;
 
+    private boolean incremental;
+
+    private File stateFile;
+
+    private int threadCount = 1;
+
     private boolean didWork;
 
     private CopyVisitor visitor;
@@ -46,21 +53,90 @@ public class  CopyActionImpl extends CopySpecImpl implements CopyAction {
 
     public void execute() {
         didWork = false;
-        copyAllSpecs();
+        IncrementalCopyState incrementalState = null;
+        if (incremental) {
+            if (stateFile != null) {
+                incrementalState = new IncrementalCopyState(stateFile);
+            } else {
+                logger.debug("No state file specified for incremental copy, copying newer files only.");
+            }
+        }
+
+        CopyWorkerPool workerPool = threadCount > 1 && visitor == null ? new CopyWorkerPool(threadCount) : null;
+        try {
+            copyAllSpecs(incrementalState, workerPool);
+        } finally {
+            if (workerPool != null) {
+                workerPool.stop();
+            }
+        }
+        if (workerPool != null) {
+            workerPool.rethrowFailure();
+        }
+
+        if (incrementalState != null) {
+            incrementalState.deleteStaleFiles(getDestDirs());
+            incrementalState.save();
+            didWork |= incrementalState.getDeletedCount() > 0;
+            logger.info("Copied {} files, skipped {} unchanged files and deleted {} stale files.", new Object[]{
+                    incrementalState.getCopiedCount(), incrementalState.getSkippedCount(),
+                    incrementalState.getDeletedCount()});
+        }
     }
 
     public boolean getDidWork() {
         return didWork;
     }
 
-    private void copyAllSpecs() {
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public File getStateFile() {
+        return stateFile;
+    }
+
+    /**
+     * Sets the file in which an incremental copy records the files it has copied. An incremental copy without a
+     * state file copies the files whose source is newer than the destination, as a non-incremental copy does.
+     */
+    public void setStateFile(File stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * Sets the number of threads to use to copy unfiltered files. Defaults to 1, which copies all files on the calling
+     * thread. Worth raising for copies of many large files, where the workers can overlap their I/O.
+     */
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    private List<File> getDestDirs() {
+        List<File> destDirs = new ArrayList<File>();
+        for (CopySpecImpl spec : getLeafSyncSpecs()) {
+            destDirs.add(spec.getDestDir());
+        }
+        return destDirs;
+    }
+
+    private void copyAllSpecs(IncrementalCopyState incrementalState, CopyWorkerPool workerPool) {
         List<CopySpecImpl> specList = getLeafSyncSpecs();
         for (CopySpecImpl spec : specList) {
-            copySingleSpec(spec);
+            copySingleSpec(spec, incrementalState, workerPool);
         }
     }
 
-    private void copySingleSpec(CopySpecImpl spec) {
+    private void copySingleSpec(CopySpecImpl spec, IncrementalCopyState incrementalState,
+                                CopyWorkerPool workerPool) {
         File destDir = spec.getDestDir();
         if (destDir == null) {
             logger.error("No destination dir for Copy task");
@@ -72,7 +148,9 @@ public class  CopyActionImpl extends CopySpecImpl implements CopyAction {
             visitor = new CopyVisitor(spec.getDestDir(),
                     spec.getRemapClosures(),
                     spec.getRenameMappers(),
-                    spec.getFilterChain() );
+                    spec.getFilterChain(),
+                    incrementalState,
+                    workerPool);
         }
 
         PatternSet patterns = new PatternSet();
@@ -82,7 +160,7 @@ public class  CopyActionImpl extends CopySpecImpl implements CopyAction {
 
         spec.getSource().matching(patterns).visit(visitor);
 
-        didWork = visitor.getDidWork();
+        didWork |= visitor.getDidWork();
     }
 
     public void setCaseSensitive(boolean caseSensitive) {
@@ -22,12 +22,10 @@ import org.gradle.api.file.CopySpec;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.util.ConfigureUtil;
-import org.gradle.util.ReflectionUtil;
 
 import java.io.File;
 import java.io.FilterReader;
-import java.io.Reader;
-import java.lang.reflect.Constructor;
+import java.nio.charset.Charset;
 import java.util.*;
 
 /**
@@ -181,31 +179,33 @@ public class CopySpecImpl implements CopySpec {
 
     public FilterChain getFilterChain() {
         if (parentSpec != null) {
-            filterChain.setInputSource(parentSpec.getFilterChain());
+            filterChain.setParent(parentSpec.getFilterChain());
         }
         return filterChain;
     }
 
+    public CopySpec filteringCharset(String charset) {
+        try {
+            filterChain.setCharset(Charset.forName(charset));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUserDataException("Error - Unknown filtering charset " + charset);
+        }
+        return this;
+    }
+
     public CopySpec filter(Class<FilterReader> filterType) {
         filter(null, filterType);
         return this;
     }
 
     public CopySpec filter(Closure closure) {
-        LineFilter newFilter = new LineFilter(filterChain.getLastFilter(), closure);
-        filterChain.addFilter(newFilter);
+        filterChain.addLineFilter(closure);
         return this;
     }
 
     public CopySpec filter(Map<String, Object> map, Class<FilterReader> filterType ) {
         try {
-            Constructor<FilterReader> constructor = filterType.getConstructor(Reader.class);
-            FilterReader result = constructor.newInstance(  filterChain.getLastFilter() );
-            filterChain.addFilter(result);
-
-            if (map != null) {
-                ReflectionUtil.setFromMap(result, map);
-            }
+            filterChain.addFilter(filterType, map);
         } catch (Throwable th) {
             throw new InvalidUserDataException("Error - Invalid filter specification for "+filterType.getName());
         }
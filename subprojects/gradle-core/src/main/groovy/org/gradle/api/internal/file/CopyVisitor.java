@@ -25,42 +25,106 @@ import org.gradle.api.file.RelativePath;
 import org.gradle.api.tasks.WorkResult;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Steve Appling
  */
 public class CopyVisitor implements FileVisitor, WorkResult {
+    private static final ThreadLocal<char[]> COPY_BUFFER = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[8192];
+        }
+    };
+    private static final ThreadLocal<ByteBuffer> HASHING_COPY_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(8192);
+        }
+    };
+
     private File baseDestDir;
     private List<Closure> remapClosures;
     private List<Transformer<String>> nameMappers;
     private FilterChain filterChain;
-    private boolean didWork = false;
+    private IncrementalCopyState incrementalState;
+    private CopyWorkerPool workerPool;
+    private final Set<File> createdDirs = new HashSet<File>();
+    private volatile boolean didWork = false;
 
     public CopyVisitor(File baseDestDir, List<Closure> remapClosures, List<Transformer<String>> nameMappers, FilterChain filterChain) {
+        this(baseDestDir, remapClosures, nameMappers, filterChain, null, null);
+    }
+
+    /**
+     * @param incrementalState The state to use to decide which files are up-to-date, and to record the files which
+     * are copied. When null, a file is copied when the source is newer than the destination. Filtered files are always
+     * copied, as the filters cannot be compared with those of the previous copy.
+     * @param workerPool The pool to copy unfiltered files with. When null, files are copied by the visiting thread.
+     * Filtered files are always copied by the visiting thread, as the filter closures may not be safe to call
+     * concurrently.
+     */
+    public CopyVisitor(File baseDestDir, List<Closure> remapClosures, List<Transformer<String>> nameMappers,
+                       FilterChain filterChain, IncrementalCopyState incrementalState, CopyWorkerPool workerPool) {
         this.baseDestDir = baseDestDir;
         this.remapClosures = remapClosures;
         this.nameMappers = nameMappers;
         this.filterChain = filterChain;
+        this.incrementalState = incrementalState;
+        this.workerPool = workerPool;
     }
 
     public void visitDir(FileVisitDetails dirDetails) {
     }
 
     public void visitFile(FileVisitDetails fileDetails) {
-        File source = fileDetails.getFile();
-        File target = getTarget(fileDetails.getRelativePath());
+        final File source = fileDetails.getFile();
+        final File target = getTarget(fileDetails.getRelativePath());
         if (target == null) {
             // not allowed, skip
             return;
         }
-        target.getParentFile().mkdirs();
-        if (needsCopy(source, target)) {
-            try {
-                copyFile(source, target);
-            } catch (IOException e) {
-                throw new GradleException("Error copying file:" + source + " to:" + target, e);
-            }
+        boolean upToDate;
+        if (incrementalState != null) {
+            upToDate = !filterChain.hasFilters() && incrementalState.isUpToDate(source, target);
+        } else {
+            upToDate = !needsCopy(source, target);
+        }
+        if (upToDate) {
+            return;
+        }
+        File parentDir = target.getParentFile();
+        if (createdDirs.add(parentDir)) {
+            parentDir.mkdirs();
+        }
+        didWork = true;
+        if (workerPool != null && !filterChain.hasFilters()) {
+            workerPool.execute(new Runnable() {
+                public void run() {
+                    copy(source, target);
+                }
+            });
+        } else {
+            copy(source, target);
+        }
+    }
+
+    private void copy(File source, File target) {
+        byte[] sourceHash;
+        try {
+            sourceHash = copyFile(source, target, incrementalState != null ? incrementalState.getDigester() : null);
+        } catch (IOException e) {
+            throw new GradleException("Error copying file:" + source + " to:" + target, e);
+        }
+        if (incrementalState != null) {
+            incrementalState.copied(source, target, sourceHash);
         }
     }
 
@@ -100,37 +164,103 @@ public class CopyVisitor implements FileVisitor, WorkResult {
     }
 
     void copyFile(File srcFile, File destFile) throws IOException {
+        copyFile(srcFile, destFile, null);
+    }
+
+    /**
+     * Copies the given file, calculating the content hash of an unfiltered file with the given digester as it is
+     * copied. Returns the hash, or null when no digester is given or the file is filtered.
+     */
+    private byte[] copyFile(File srcFile, File destFile, MessageDigest digester) throws IOException {
         didWork = true;
+        byte[] hash = null;
         if (filterChain.hasFilters()) {
             copyFileFiltered(srcFile, destFile);
+        } else if (digester != null) {
+            copyFileHashed(srcFile, destFile, digester);
+            hash = digester.digest();
         } else {
             copyFileStreams(srcFile,  destFile);
         }
         destFile.setLastModified(srcFile.lastModified());
+        return hash;
     }
 
 
     private void copyFileFiltered(File srcFile, File destFile) throws IOException {
-        FileReader inReader = new FileReader(srcFile);
-        filterChain.findFirstFilterChain().setInputSource(inReader);
-        FileWriter fWriter = new FileWriter(destFile);
+        Charset charset = filterChain.getCharset();
+        Reader inReader = new InputStreamReader(new FileInputStream(srcFile), charset);
         try {
-            IOUtils.copyLarge(filterChain, fWriter);
-            fWriter.flush();
+            Reader filtered = filterChain.transform(inReader);
+            Writer fWriter = new OutputStreamWriter(new FileOutputStream(destFile), charset);
+            try {
+                char[] buffer = COPY_BUFFER.get();
+                int count;
+                while ((count = filtered.read(buffer, 0, buffer.length)) >= 0) {
+                    fWriter.write(buffer, 0, count);
+                }
+                fWriter.flush();
+            } finally {
+                IOUtils.closeQuietly(fWriter);
+            }
         } finally {
             IOUtils.closeQuietly(inReader);
-            IOUtils.closeQuietly(fWriter);
         }
     }
 
     private void copyFileStreams(File srcFile, File destFile) throws IOException {
         FileInputStream input = new FileInputStream(srcFile);
-        FileOutputStream output = new FileOutputStream(destFile);
         try {
-            IOUtils.copyLarge(input, output);
+            FileOutputStream output = new FileOutputStream(destFile);
+            try {
+                // Let the platform move the bytes between the channels, without copying them through the heap
+                FileChannel inChannel = input.getChannel();
+                FileChannel outChannel = output.getChannel();
+                long size = inChannel.size();
+                long position = 0;
+                while (position < size) {
+                    long count = inChannel.transferTo(position, size - position, outChannel);
+                    if (count <= 0) {
+                        break;
+                    }
+                    position += count;
+                }
+                if (position < size) {
+                    // The file was truncated while it was being copied
+                    throw new IOException("Could not copy all of " + srcFile + " as it has changed.");
+                }
+            } finally {
+                IOUtils.closeQuietly(output);
+            }
+        } finally {
+            IOUtils.closeQuietly(input);
+        }
+    }
+
+    private void copyFileHashed(File srcFile, File destFile, MessageDigest digester) throws IOException {
+        FileInputStream input = new FileInputStream(srcFile);
+        try {
+            FileOutputStream output = new FileOutputStream(destFile);
+            try {
+                // Hash the bytes on their way through, rather than reading the source again to hash it
+                FileChannel inChannel = input.getChannel();
+                FileChannel outChannel = output.getChannel();
+                ByteBuffer buffer = HASHING_COPY_BUFFER.get();
+                buffer.clear();
+                while (inChannel.read(buffer) >= 0) {
+                    buffer.flip();
+                    digester.update(buffer);
+                    buffer.rewind();
+                    while (buffer.hasRemaining()) {
+                        outChannel.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            } finally {
+                IOUtils.closeQuietly(output);
+            }
         } finally {
             IOUtils.closeQuietly(input);
-            IOUtils.closeQuietly(output);
         }
     }
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import org.gradle.api.GradleException;
+import org.gradle.util.ThreadUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>A bounded pool of worker threads which copy files on behalf of a {@link CopyVisitor}. At most a fixed number of
+ * copies may be pending at any time, and {@link #execute(Runnable)} blocks the visiting thread until a worker has
+ * capacity, so that visiting a large tree does not queue up an unbounded number of copies.</p>
+ *
+ * <p>Once a copy fails, no further copies are started. The first failure is rethrown by {@link #execute(Runnable)}
+ * or by {@link #rethrowFailure()}.</p>
+ */
+public class CopyWorkerPool {
+    private static final int PENDING_COPIES_PER_THREAD = 4;
+
+    private final ExecutorService executor;
+    private final Semaphore pendingCopies;
+    private volatile Throwable failure;
+
+    public CopyWorkerPool(int threadCount) {
+        executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+        pendingCopies = new Semaphore(threadCount * PENDING_COPIES_PER_THREAD);
+    }
+
+    /**
+     * Schedules the given copy, blocking until a worker has capacity to accept it.
+     */
+    public void execute(final Runnable copy) {
+        rethrowFailure();
+        try {
+            pendingCopies.acquire();
+        } catch (InterruptedException e) {
+            throw new GradleException("Interrupted while waiting to copy a file.", e);
+        }
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    if (failure == null) {
+                        copy.run();
+                    }
+                } catch (Throwable e) {
+                    synchronized (CopyWorkerPool.this) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                } finally {
+                    pendingCopies.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for all scheduled copies to complete and stops the workers.
+     */
+    public void stop() {
+        ThreadUtils.shutdown(executor);
+    }
+
+    /**
+     * Rethrows the first failure of a copy, if any.
+     */
+    public void rethrowFailure() {
+        Throwable failure = this.failure;
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new GradleException("Could not copy file.", failure);
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private int counter;
+
+        public synchronized Thread newThread(Runnable runnable) {
+            counter++;
+            Thread thread = new Thread(runnable, "Copy worker " + counter);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
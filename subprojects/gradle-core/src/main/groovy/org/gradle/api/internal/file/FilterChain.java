@@ -13,54 +13,173 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.gradle.api.internal.file;
 
+import groovy.lang.Closure;
+import org.gradle.api.GradleException;
+import org.gradle.api.Transformer;
+import org.gradle.util.ReflectionUtil;
+
 import java.io.FilterReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.lang.reflect.Constructor;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
-public class FilterChain extends FilterReader {
-    private ChainableFilterReader input;
-    private Reader tail;
+/**
+ * <p>A chain of filters to apply to the content of files as they are copied. The chain holds a description of each
+ * filter, rather than the filter itself, and {@link #transform(Reader)} creates a new set of filters for each file. The
+ * closures of the filters are shared by all files, though, so may keep state between files.</p>
+ *
+ * <p>Consecutive line filters are fused into a single {@link LineFilter}, which applies each of their closures to a
+ * line in a single pass.</p>
+ *
+ * <p>A chain may have a parent chain, whose filters are applied before the filters of this chain, and whose character
+ * set is used when this chain does not specify one.</p>
+ */
+public class FilterChain implements Transformer<Reader> {
+    private final List<Transformer<Reader>> filters = new ArrayList<Transformer<Reader>>();
+    private FilterChain parent;
+    private Charset charset;
 
-    protected FilterChain() {
-        super(new StringReader(""));
-        input = new ChainableFilterReader();
-        in = tail = input;
+    public FilterChain getParent() {
+        return parent;
     }
 
-    public void setInputSource(Reader in) {
-        input.setInput(in);
+    public void setParent(FilterChain parent) {
+        this.parent = parent;
     }
 
-    public Reader getLastFilter() {
-        return tail;
+    /**
+     * Returns the character set to use to read and write the filtered files. Defaults to the character set of the
+     * parent chain, or the platform default when there is no parent.
+     */
+    public Charset getCharset() {
+        if (charset != null) {
+            return charset;
+        }
+        return parent != null ? parent.getCharset() : Charset.defaultCharset();
     }
 
-    public void addFilter(Reader newFilter) {
-        tail = newFilter;
-        in = tail;
+    public void setCharset(Charset charset) {
+        this.charset = charset;
     }
 
-    public boolean hasFilters() {
-        if (tail != input) {
-            return true;
-        } else {
-            Reader mySource = input.getInput();
-            if (mySource instanceof FilterChain) {
-                return ((FilterChain)mySource).hasFilters();
-            }
+    /**
+     * Adds a filter to the end of this chain. The filter is called once for each file, and should return a new reader
+     * which filters the given reader.
+     */
+    public synchronized void addFilter(Transformer<Reader> filter) {
+        filters.add(filter);
+    }
+
+    /**
+     * Adds a filter of the given type to the end of this chain. A filter is created for each file using the
+     * constructor of the type which accepts a {@link Reader}, and the given properties are set on it. A filter is
+     * created straight away to check that the type and properties are valid.
+     *
+     * @param filterType The type of the filter.
+     * @param properties The properties to set on each filter. May be null.
+     */
+    public void addFilter(Class<? extends FilterReader> filterType, Map<String, Object> properties) {
+        Transformer<Reader> filter;
+        try {
+            filter = new FilterReaderTransformer(filterType.getConstructor(Reader.class), properties);
+        } catch (NoSuchMethodException e) {
+            throw new GradleException(String.format("Filter type %s does not have a constructor which accepts a Reader.",
+                    filterType.getName()), e);
         }
-        return false;
+        filter.transform(new StringReader(""));
+        addFilter(filter);
     }
 
-    public FilterChain findFirstFilterChain() {
-        Reader myInput = input.getInput();
-        if (myInput instanceof FilterChain) {
-            return ((FilterChain)myInput).findFirstFilterChain();
+    /**
+     * Adds a filter which transforms each line using the given closure. The closure is fused with the line filter at
+     * the end of this chain, if any.
+     */
+    public synchronized void addLineFilter(Closure closure) {
+        if (!filters.isEmpty() && filters.get(filters.size() - 1) instanceof LineFilterTransformer) {
+            ((LineFilterTransformer) filters.get(filters.size() - 1)).closures.add(closure);
         } else {
-            return this;
+            filters.add(new LineFilterTransformer(closure));
+        }
+    }
+
+    /**
+     * Returns true if this chain or its parent chain has any filters.
+     */
+    public synchronized boolean hasFilters() {
+        return !filters.isEmpty() || (parent != null && parent.hasFilters());
+    }
+
+    /**
+     * Returns the number of filters which will be applied by this chain, not including those of the parent chain.
+     * Fused line filters count as a single filter.
+     */
+    public synchronized int getFilterCount() {
+        return filters.size();
+    }
+
+    /**
+     * Creates the filters of this chain for a single file.
+     *
+     * @param original The reader for the content of the file.
+     * @return A reader for the filtered content.
+     */
+    public Reader transform(Reader original) {
+        Reader result = parent != null ? parent.transform(original) : original;
+        List<Transformer<Reader>> filters;
+        synchronized (this) {
+            filters = new ArrayList<Transformer<Reader>>(this.filters);
+        }
+        for (Transformer<Reader> filter : filters) {
+            result = filter.transform(result);
+        }
+        return result;
+    }
+
+    private static class FilterReaderTransformer implements Transformer<Reader> {
+        private final Constructor<? extends FilterReader> constructor;
+        private final Map<String, Object> properties;
+
+        private FilterReaderTransformer(Constructor<? extends FilterReader> constructor, Map<String, Object> properties) {
+            this.constructor = constructor;
+            this.properties = properties;
+        }
+
+        public Reader transform(Reader original) {
+            FilterReader result;
+            try {
+                result = constructor.newInstance(original);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not create filter %s.",
+                        constructor.getDeclaringClass().getName()), e);
+            }
+            if (properties != null) {
+                ReflectionUtil.setFromMap(result, properties);
+            }
+            return result;
         }
     }
 
+    private static class LineFilterTransformer implements Transformer<Reader> {
+        private final List<Closure> closures = Collections.synchronizedList(new ArrayList<Closure>());
+
+        private LineFilterTransformer(Closure closure) {
+            closures.add(closure);
+        }
+
+        public Reader transform(Reader original) {
+            Closure[] closures;
+            synchronized (this.closures) {
+                closures = this.closures.toArray(new Closure[this.closures.size()]);
+            }
+            return new LineFilter(original, closures);
+        }
+    }
 }
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.changedetection.digest.DigesterCache;
+import org.gradle.api.changedetection.digest.DigesterUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>The state of an incremental copy. Records, for each destination file, the source file it was copied from along
+ * with the length, last modified time and content hash of the source, and the length and last modified time of the
+ * destination.</p>
+ *
+ * <p>A file is up-to-date when it was copied from the same source, the destination has not been changed since, and
+ * the source has the same content. The content hash of the source is only calculated when its length or last
+ * modified time have changed, so that a file whose timestamp has been reset, for example by a VCS checkout, is not
+ * copied again. A file which was copied without a content hash, such as a filtered file, is never up-to-date.</p>
+ *
+ * <p>Destination files which were recorded by the previous copy but which were not produced by this copy are stale,
+ * and are deleted by {@link #deleteStaleFiles(Iterable)}, along with the directories which they leave empty.</p>
+ *
+ * <p>{@link #isUpToDate(File, File)} and {@link #copied(File, File, byte[])} may be called concurrently.</p>
+ */
+public class IncrementalCopyState {
+    private static Logger logger = LoggerFactory.getLogger(IncrementalCopyState.class);
+
+    private static final int MAGIC = 0x47435053;
+    private static final int VERSION = 1;
+    private static final byte[] NO_HASH = new byte[0];
+
+    private final File stateFile;
+    private final DigesterCache digesterCache;
+    private final DigesterUtil digesterUtil;
+    private final Map<String, Entry> previous = new HashMap<String, Entry>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+    private final Map<String, byte[]> sourceHashes = new ConcurrentHashMap<String, byte[]>();
+    private final AtomicInteger copiedCount = new AtomicInteger();
+    private final AtomicInteger skippedCount = new AtomicInteger();
+    private int deletedCount;
+
+    public IncrementalCopyState(File stateFile) {
+        this(stateFile, DigestObjectFactory.createShaDigesterCache(), DigestObjectFactory.createContentDigesterUtil());
+    }
+
+    public IncrementalCopyState(File stateFile, DigesterCache digesterCache, DigesterUtil digesterUtil) {
+        this.stateFile = stateFile;
+        this.digesterCache = digesterCache;
+        this.digesterUtil = digesterUtil;
+        load();
+    }
+
+    public File getStateFile() {
+        return stateFile;
+    }
+
+    /**
+     * Determines whether the given destination file is up-to-date with respect to the given source file. An
+     * up-to-date file is recorded as produced by this copy.
+     */
+    public boolean isUpToDate(File source, File dest) {
+        String destPath = dest.getAbsolutePath();
+        Entry entry = previous.get(destPath);
+        if (entry == null || !entry.sourcePath.equals(source.getAbsolutePath()) || !dest.isFile()
+                || dest.length() != entry.destLength || dest.lastModified() != entry.destLastModified) {
+            return false;
+        }
+
+        long sourceLength = source.length();
+        long sourceLastModified = source.lastModified();
+        if (entry.sourceHash.length == 0 || sourceLength != entry.sourceLength) {
+            return false;
+        }
+        if (sourceLastModified != entry.sourceLastModified) {
+            byte[] hash = hash(source);
+            if (!Arrays.equals(hash, entry.sourceHash)) {
+                return false;
+            }
+            entry = new Entry(entry.sourcePath, sourceLength, sourceLastModified, hash, entry.destLength,
+                    entry.destLastModified);
+        }
+
+        current.put(destPath, entry);
+        skippedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns a digester which the calling thread can use to calculate the content hash of a source file while
+     * copying it.
+     */
+    public MessageDigest getDigester() {
+        return digesterCache.getDigester("copy");
+    }
+
+    /**
+     * Records that the given source file has been copied to the given destination file, reading the source to
+     * calculate its content hash.
+     */
+    public void copied(File source, File dest) {
+        copied(source, dest, hash(source));
+    }
+
+    /**
+     * Records that the given source file has been copied to the given destination file.
+     *
+     * @param sourceHash The content hash of the source file, as calculated by the digester of this state while the
+     * file was copied. When null, the destination file is never up-to-date.
+     */
+    public void copied(File source, File dest, byte[] sourceHash) {
+        String destPath = dest.getAbsolutePath();
+        if (sourceHash != null) {
+            sourceHashes.put(source.getAbsolutePath(), sourceHash);
+        }
+        current.put(destPath, new Entry(source.getAbsolutePath(), source.length(), source.lastModified(),
+                sourceHash == null ? NO_HASH : sourceHash, dest.length(), dest.lastModified()));
+        copiedCount.incrementAndGet();
+    }
+
+    /**
+     * Deletes the destination files which were produced by the previous copy but not by this copy. A file is only
+     * deleted when it has not been changed since it was copied. The directories which are left empty are also
+     * deleted, up to but excluding the given destination directories.
+     *
+     * @param destDirs The destination directories of this copy.
+     */
+    public void deleteStaleFiles(Iterable<File> destDirs) {
+        Set<File> absoluteDestDirs = new HashSet<File>();
+        for (File destDir : destDirs) {
+            absoluteDestDirs.add(destDir.getAbsoluteFile());
+        }
+        for (Map.Entry<String, Entry> mapEntry : previous.entrySet()) {
+            if (current.containsKey(mapEntry.getKey())) {
+                continue;
+            }
+            File dest = new File(mapEntry.getKey());
+            Entry entry = mapEntry.getValue();
+            if (dest.isFile() && dest.length() == entry.destLength && dest.lastModified() == entry.destLastModified) {
+                if (dest.delete()) {
+                    deletedCount++;
+                    deleteEmptyParentDirs(dest, absoluteDestDirs);
+                } else {
+                    logger.warn("Could not delete stale file {}.", dest);
+                }
+            }
+        }
+    }
+
+    private void deleteEmptyParentDirs(File file, Set<File> destDirs) {
+        List<File> dirs = new ArrayList<File>();
+        File dir = file.getParentFile();
+        while (dir != null && !destDirs.contains(dir)) {
+            dirs.add(dir);
+            dir = dir.getParentFile();
+        }
+        if (dir == null) {
+            // Not in a destination directory of this copy, so leave the directories alone
+            return;
+        }
+        for (File emptyDir : dirs) {
+            String[] children = emptyDir.list();
+            if (children == null || children.length > 0 || !emptyDir.delete()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the state of this copy, replacing the state of the previous copy.
+     */
+    public void save() {
+        stateFile.getParentFile().mkdirs();
+        File tmpFile = new File(stateFile.getParentFile(), stateFile.getName() + ".tmp");
+        try {
+            DataOutputStream outstr = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                outstr.writeInt(MAGIC);
+                outstr.writeInt(VERSION);
+                outstr.writeInt(current.size());
+                for (Map.Entry<String, Entry> mapEntry : current.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    outstr.writeUTF(mapEntry.getKey());
+                    outstr.writeUTF(entry.sourcePath);
+                    outstr.writeLong(entry.sourceLength);
+                    outstr.writeLong(entry.sourceLastModified);
+                    outstr.writeShort(entry.sourceHash.length);
+                    outstr.write(entry.sourceHash);
+                    outstr.writeLong(entry.destLength);
+                    outstr.writeLong(entry.destLastModified);
+                }
+            } finally {
+                outstr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stateFile.delete();
+        if (!tmpFile.renameTo(stateFile)) {
+            logger.warn("Could not write copy state {}.", stateFile);
+            tmpFile.delete();
+        }
+    }
+
+    public int getCopiedCount() {
+        return copiedCount.get();
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    private void load() {
+        if (!stateFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream instr = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+            try {
+                if (instr.readInt() != MAGIC || instr.readInt() != VERSION) {
+                    logger.debug("Discarding copy state {} as it has an unknown format.", stateFile);
+                    return;
+                }
+                int count = instr.readInt();
+                for (int i = 0; i < count; i++) {
+                    String destPath = instr.readUTF();
+                    String sourcePath = instr.readUTF();
+                    long sourceLength = instr.readLong();
+                    long sourceLastModified = instr.readLong();
+                    byte[] sourceHash = new byte[instr.readShort()];
+                    instr.readFully(sourceHash);
+                    long destLength = instr.readLong();
+                    long destLastModified = instr.readLong();
+                    previous.put(destPath, new Entry(sourcePath, sourceLength, sourceLastModified, sourceHash,
+                            destLength, destLastModified));
+                }
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Discarding copy state " + stateFile + " as it could not be read.", e);
+            previous.clear();
+        }
+    }
+
+    private byte[] hash(File source) {
+        String path = source.getAbsolutePath();
+        byte[] hash = sourceHashes.get(path);
+        if (hash == null) {
+            MessageDigest digester = digesterCache.getDigester("copy");
+            digesterUtil.digestFileContent(digester, source);
+            hash = digester.digest();
+            sourceHashes.put(path, hash);
+        }
+        return hash;
+    }
+
+    private static class Entry {
+        private final String sourcePath;
+        private final long sourceLength;
+        private final long sourceLastModified;
+        private final byte[] sourceHash;
+        private final long destLength;
+        private final long destLastModified;
+
+        private Entry(String sourcePath, long sourceLength, long sourceLastModified, byte[] sourceHash,
+                      long destLength, long destLastModified) {
+            this.sourcePath = sourcePath;
+            this.sourceLength = sourceLength;
+            this.sourceLastModified = sourceLastModified;
+            this.sourceHash = sourceHash;
+            this.destLength = destLength;
+            this.destLastModified = destLastModified;
+        }
+    }
+}
@@ -1,31 +1,28 @@
-/*
- * Copyright 2009 the original author or authors.
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *      http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
 package org.gradle.api.internal.file;
 
 import groovy.lang.Closure;
 
 import java.io.*;
 
-public class LineFilter extends Reader{
-    private Closure closure;
-    private String transformedLine;
-    private int transformedIndex = 0;
-    private BufferedReader bufferedIn;
-    private String lineTerminator;
+/**
+ * A reader which transforms each line of its input using one or more closures. Each line, stripped of its line
+ * terminator, is passed through each of the closures in turn, and the result is followed by the platform line
+ * separator. The input is read in blocks, and lines are assembled and emitted through buffers which are reused for
+ * every line.
+ */
+public class LineFilter extends Reader {
+    private static final int BUFFER_SIZE = 8192;
 
+    private final Reader in;
+    private final Closure[] closures;
+    private final String lineTerminator;
+    private final char[] inputBuffer = new char[BUFFER_SIZE];
+    private int inputPos;
+    private int inputEnd;
+    private boolean skipLf;
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder transformedLine = new StringBuilder();
+    private int transformedIndex;
 
     /**
      * Creates a new filtered reader.
@@ -34,33 +31,75 @@ public class LineFilter extends Reader{
      * @throws NullPointerException if <code>in</code> is <code>null</code>
      */
     public LineFilter(Reader in, Closure closure) {
+        this(in, new Closure[]{closure});
+    }
+
+    /**
+     * Creates a new filtered reader which applies each of the given closures to each line, in order.
+     *
+     * @param closures the Closures to filter each line
+     * @throws NullPointerException if <code>in</code> is <code>null</code>
+     */
+    public LineFilter(Reader in, Closure... closures) {
         super();
-        this.bufferedIn = new BufferedReader(in);
-        this.closure = closure;
+        if (in == null) {
+            throw new NullPointerException();
+        }
+        this.in = in;
+        this.closures = closures;
         lineTerminator = System.getProperty("line.separator");
     }
 
-    private String getTransformedLine() throws IOException {
-        String originalLine = bufferedIn.readLine();
-        if (originalLine != null) {
-            StringBuilder result = new StringBuilder((String) closure.call(originalLine));
-            result.append(lineTerminator);
-            return result.toString();
+    private boolean readLine() throws IOException {
+        line.setLength(0);
+        while (true) {
+            if (inputPos == inputEnd) {
+                int count = in.read(inputBuffer, 0, inputBuffer.length);
+                if (count <= 0) {
+                    return line.length() > 0;
+                }
+                inputPos = 0;
+                inputEnd = count;
+            }
+            char c = inputBuffer[inputPos++];
+            if (skipLf) {
+                skipLf = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            if (c == '\n') {
+                return true;
+            }
+            if (c == '\r') {
+                skipLf = true;
+                return true;
+            }
+            line.append(c);
         }
-        return null;
     }
 
-    private void ensureData() throws IOException {
-        if (transformedLine == null || transformedIndex >= transformedLine.length()) {
-            transformedLine = getTransformedLine();
-            transformedIndex = 0;
+    private boolean ensureData() throws IOException {
+        if (transformedIndex < transformedLine.length()) {
+            return true;
+        }
+        transformedLine.setLength(0);
+        transformedIndex = 0;
+        if (!readLine()) {
+            return false;
+        }
+        String result = line.toString();
+        for (Closure closure : closures) {
+            result = String.valueOf(closure.call(result));
         }
+        transformedLine.append(result);
+        transformedLine.append(lineTerminator);
+        return true;
     }
 
     @Override
     public int read() throws IOException {
-        ensureData();
-        if (transformedLine == null) {
+        if (!ensureData()) {
             return -1;
         }
         return transformedLine.charAt(transformedIndex++);
@@ -68,22 +107,20 @@ public class LineFilter extends Reader{
 
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-        for (int i = 0; i < len; i++) {
-            final int c = read();
-            if (c == -1) {
-                if (i == 0) {
-                    return -1;
-                }
-                else {
-                    return i;
-                }
-            }
-            cbuf[off + i] = (char) c;
+        int total = 0;
+        while (total < len && ensureData()) {
+            int count = Math.min(len - total, transformedLine.length() - transformedIndex);
+            transformedLine.getChars(transformedIndex, transformedIndex + count, cbuf, off + total);
+            transformedIndex += count;
+            total += count;
+        }
+        if (total == 0 && len > 0) {
+            return -1;
         }
-        return len;
+        return total;
     }
 
     public void close() throws IOException {
-        bufferedIn.close();
+        in.close();
     }
 }
@@ -36,6 +36,10 @@ public class UnionFileCollection extends CompositeFileCollection {
         return this;
     }
 
+    public Set<FileCollection> getSources() {
+        return sourceCollections;
+    }
+
     @Override
     protected Iterable<FileCollection> getSourceCollections() {
         return sourceCollections;
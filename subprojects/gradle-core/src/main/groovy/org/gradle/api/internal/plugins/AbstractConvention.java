@@ -56,16 +56,28 @@ public class AbstractConvention implements Convention {
 
     public Object getProperty(String name) throws MissingPropertyException {
         BeanDynamicObject dynamicObject = new BeanDynamicObject(this);
-        if (dynamicObject.hasProperty(name)) {
-            return dynamicObject.getProperty(name);
+        Object value = dynamicObject.tryGetProperty(name);
+        if (value == BeanDynamicObject.NOT_FOUND) {
+            value = tryGetProperty(name);
         }
+        if (value == BeanDynamicObject.NOT_FOUND) {
+            throw new MissingPropertyException(name, Convention.class);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of the given property of the convention objects, or {@link BeanDynamicObject#NOT_FOUND} when
+     * none of the convention objects has the property.
+     */
+    public Object tryGetProperty(String name) {
         for (Object object : plugins.values()) {
-            dynamicObject = new BeanDynamicObject(object);
-            if (dynamicObject.hasProperty(name)) {
-                return dynamicObject.getProperty(name);
+            Object value = new BeanDynamicObject(object).tryGetProperty(name);
+            if (value != BeanDynamicObject.NOT_FOUND) {
+                return value;
             }
         }
-        throw new MissingPropertyException(name, Convention.class);
+        return BeanDynamicObject.NOT_FOUND;
     }
 
     public void setProperty(String property, Object value) {
@@ -17,8 +17,15 @@ package org.gradle.api.internal.project;
 
 import org.gradle.api.*;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.file.FileResolver;
+import org.gradle.execution.DefaultOutputHandler;
+import org.gradle.execution.TaskFiles;
 import org.gradle.api.tasks.*;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.util.ReflectionUtil;
 import org.apache.commons.lang.StringUtils;
 
@@ -29,6 +36,10 @@ import java.lang.annotation.Annotation;
 import java.io.File;
 
 public class AnnotationProcessingTaskFactory implements ITaskFactory {
+    private static final Logger logger = Logging.getLogger(AnnotationProcessingTaskFactory.class);
+    private static final Set<String> INFRASTRUCTURE_GETTERS = new HashSet<String>(Arrays.asList("getMetaClass",
+            "getConvention", "getConventionMapping", "getAsDynamicObject"));
+
     private final ValidationAction inputFileValidation = new ValidationAction() {
         public void validate(String propertyName, Object value) throws InvalidUserDataException {
             File fileValue = (File) value;
@@ -86,6 +97,7 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
     };
     private final ITaskFactory taskFactory;
     private final Map<Class, List<Action<Task>>> actionsForType = new HashMap<Class, List<Action<Task>>>();
+    private final Map<Class, FileProperties> filePropertiesForType = new HashMap<Class, FileProperties>();
 
     public AnnotationProcessingTaskFactory(ITaskFactory taskFactory) {
         this.taskFactory = taskFactory;
@@ -98,6 +110,7 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
             List<Action<Task>> notNullActions = new ArrayList<Action<Task>>();
             List<Action<Task>> skipActions = new ArrayList<Action<Task>>();
             List<Action<Task>> validationActions = new ArrayList<Action<Task>>();
+            FileProperties fileProperties = new FileProperties();
             actions = new ArrayList<Action<Task>>();
 
             for (Class current = task.getClass(); current != null; current = current.getSuperclass()) {
@@ -109,9 +122,15 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
                     attachInputDirValidation(methodInfo);
                     attachOutputFileValidation(methodInfo);
                     attachOutputDirValidation(methodInfo);
+                    fileProperties.add(method);
                 }
             }
 
+            if (fileProperties.canCheckUpToDate()) {
+                // Executed after validation and immediately before the task actions
+                actions.add(new UpToDateAction(actions));
+                filePropertiesForType.put(task.getClass(), fileProperties);
+            }
             actions.addAll(validationActions);
             actions.addAll(skipActions);
             actions.addAll(notNullActions);
@@ -122,6 +141,11 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
             task.doFirst(action);
         }
 
+        FileProperties fileProperties = filePropertiesForType.get(task.getClass());
+        if (fileProperties != null && task.getOutput() instanceof DefaultOutputHandler) {
+            ((DefaultOutputHandler) task.getOutput()).setTaskFiles(fileProperties.forTask(task));
+        }
+
         return task;
     }
 
@@ -223,6 +247,133 @@ public class AnnotationProcessingTaskFactory implements ITaskFactory {
                 && method.getParameterTypes().length == 0 && !Modifier.isStatic(method.getModifiers());
     }
 
+    /**
+     * Stops the task when its declared files and other properties are unchanged. The task is not checked when it has
+     * actions other than those attached by this factory, as the history does not capture the effect of these actions.
+     */
+    private static class UpToDateAction implements Action<Task> {
+        private final List<Action<Task>> typeActions;
+
+        private UpToDateAction(List<Action<Task>> typeActions) {
+            this.typeActions = typeActions;
+        }
+
+        public void execute(Task task) {
+            if (task.getProject().getGradle().getStartParameter().isNoOpt()) {
+                return;
+            }
+            for (Action<? super Task> action : task.getActions()) {
+                if (!typeActions.contains(action)) {
+                    logger.info("{} is not up-to-date as it has actions which are not declared by its type.", task);
+                    return;
+                }
+            }
+            if (task.getOutput().isUpToDate()) {
+                ((TaskInternal) task).setDidWork(false);
+                throw new StopExecutionException(String.format("Skipping %s as it is up-to-date.", task));
+            }
+        }
+    }
+
+    private static class FileProperties {
+        private final List<Method> inputGetters = new ArrayList<Method>();
+        private final List<Method> outputGetters = new ArrayList<Method>();
+        private final Set<String> fileGetterNames = new HashSet<String>();
+        private final Map<String, String> otherGetterNames = new TreeMap<String, String>();
+        private boolean hasRequiredOutput;
+
+        /**
+         * Only tasks which declare inputs and at least one non-optional output are candidates for skipping, as
+         * tasks without inputs or with only optional outputs usually have effects which their files do not capture.
+         */
+        boolean canCheckUpToDate() {
+            return !inputGetters.isEmpty() && hasRequiredOutput;
+        }
+
+        void add(Method method) {
+            boolean fileProperty = false;
+            if (method.getAnnotation(InputFile.class) != null || method.getAnnotation(InputFiles.class) != null
+                    || method.getAnnotation(InputDirectory.class) != null) {
+                inputGetters.add(method);
+                fileProperty = true;
+            }
+            if (method.getAnnotation(OutputFile.class) != null || method.getAnnotation(OutputDirectory.class) != null) {
+                outputGetters.add(method);
+                hasRequiredOutput |= method.getAnnotation(Optional.class) == null;
+                fileProperty = true;
+            }
+            if (fileProperty) {
+                fileGetterNames.add(method.getName());
+            } else if (isTaskTypeProperty(method)) {
+                otherGetterNames.put(getPropertyName(method), method.getName());
+            }
+        }
+
+        private static String getPropertyName(Method method) {
+            String name = method.getName();
+            return StringUtils.uncapitalize(name.substring(name.startsWith("is") ? 2 : 3));
+        }
+
+        /**
+         * Returns true if the given method is a public getter declared by the task type, rather than by the base
+         * task classes.
+         */
+        private static boolean isTaskTypeProperty(Method method) {
+            if (method.getDeclaringClass().isAssignableFrom(ConventionTask.class)) {
+                return false;
+            }
+            int modifiers = method.getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isSynthetic()
+                    || method.isBridge() || method.getParameterTypes().length > 0
+                    || method.getReturnType() == Void.TYPE) {
+                return false;
+            }
+            String name = method.getName();
+            boolean getter = (name.startsWith("get") && name.length() > 3) || (name.startsWith("is")
+                    && name.length() > 2 && method.getReturnType() == Boolean.TYPE);
+            return getter && !INFRASTRUCTURE_GETTERS.contains(name);
+        }
+
+        TaskFiles forTask(final Task task) {
+            return new TaskFiles() {
+                public Iterable<File> getInputFiles() {
+                    return getFiles(task, inputGetters);
+                }
+
+                public Iterable<File> getOutputFiles() {
+                    return getFiles(task, outputGetters);
+                }
+
+                public Map<String, Object> getInputProperties() {
+                    return getProperties(task);
+                }
+            };
+        }
+
+        private Map<String, Object> getProperties(Task task) {
+            Map<String, Object> properties = new TreeMap<String, Object>();
+            for (Map.Entry<String, String> entry : otherGetterNames.entrySet()) {
+                // A generated subclass overrides the annotated getters without the annotations
+                if (!fileGetterNames.contains(entry.getValue())) {
+                    properties.put(entry.getKey(), ReflectionUtil.invoke(task, entry.getValue(), new Object[0]));
+                }
+            }
+            return properties;
+        }
+
+        private static Iterable<File> getFiles(Task task, List<Method> getters) {
+            FileResolver fileResolver = ((ProjectInternal) task.getProject()).getFileResolver();
+            List<File> files = new ArrayList<File>();
+            for (Method getter : getters) {
+                Object value = ReflectionUtil.invoke(task, getter.getName(), new Object[0]);
+                if (value != null) {
+                    files.addAll(fileResolver.resolveFiles(value).getFiles());
+                }
+            }
+            return files;
+        }
+    }
+
     private interface ValidationAction {
         void validate(String propertyName, Object value) throws InvalidUserDataException;
     }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.project;
 
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.Module;
@@ -35,18 +36,21 @@ import org.gradle.api.internal.plugins.DefaultConvention;
 import org.gradle.api.internal.plugins.DefaultProjectsPluginContainer;
 import org.gradle.api.internal.tasks.DefaultTaskContainer;
 import org.gradle.api.internal.tasks.TaskContainerInternal;
+import org.gradle.api.internal.tasks.TaskIndex;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.ClassGenerator;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.plugins.ProjectPluginsContainer;
 import org.gradle.configuration.ProjectEvaluator;
+import org.gradle.execution.FileFingerprinter;
+import org.gradle.execution.TaskHistoryStores;
 import org.gradle.logging.AntLoggingAdapter;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 // todo - compose this
 public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
@@ -57,6 +61,7 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
     private final PublishArtifactFactory publishArtifactFactory;
     private final DependencyFactory dependencyFactory;
     private final ProjectEvaluator projectEvaluator;
+    private final TaskIndex taskIndex = new TaskIndex();
 
     public DefaultServiceRegistryFactory(RepositoryHandlerFactory repositoryHandlerFactory,
                                                 ConfigurationContainerFactory configurationContainerFactory,
@@ -153,7 +158,7 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
             services.add(new Service(TaskContainerInternal.class) {
                 @Override
                 protected Object create() {
-                    return new DefaultTaskContainer(project, taskFactory);
+                    return new DefaultTaskContainer(project, taskFactory, taskIndex);
                 }
             });
 
@@ -234,6 +239,9 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
         }
 
         private class DependencyMetaDataProviderImpl implements DependencyMetaDataProvider {
+            private final Map<String, ModuleDescriptor> clientModuleRegistry
+                    = new ConcurrentHashMap<String, ModuleDescriptor>();
+
             public InternalRepository getInternalRepository() {
                 return project.getGradle().getInternalRepository();
             }
@@ -242,8 +250,8 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
                 return project.getGradle().getGradleUserHomeDir();
             }
 
-            public Map getClientModuleRegistry() {
-                return new HashMap();
+            public Map<String, ModuleDescriptor> getClientModuleRegistry() {
+                return clientModuleRegistry;
             }
 
             public Module getModule() {
@@ -279,6 +287,28 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
         public BuildServiceRegistryImpl(final GradleInternal gradle) {
             this.gradle = gradle;
 
+            services.add(new Service(TaskIndex.class) {
+                @Override
+                protected Object create() {
+                    return taskIndex;
+                }
+            });
+
+            services.add(new Service(FileFingerprinter.class) {
+                @Override
+                protected Object create() {
+                    return new FileFingerprinter(new File(gradle.getGradleUserHomeDir(),
+                            FileFingerprinter.CACHE_FILE_NAME));
+                }
+            });
+
+            services.add(new Service(TaskHistoryStores.class) {
+                @Override
+                protected Object create() {
+                    return new TaskHistoryStores();
+                }
+            });
+
             services.add(new Service(ProjectFinder.class) {
                 @Override
                 protected Object create() {
@@ -313,6 +343,9 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
         }
 
         private class DependencyMetaDataProviderImpl implements DependencyMetaDataProvider {
+            private final Map<String, ModuleDescriptor> clientModuleRegistry
+                    = new ConcurrentHashMap<String, ModuleDescriptor>();
+
             public InternalRepository getInternalRepository() {
                 return gradle.getInternalRepository();
             }
@@ -321,8 +354,8 @@ public class DefaultServiceRegistryFactory implements ServiceRegistryFactory
                 return gradle.getGradleUserHomeDir();
             }
 
-            public Map getClientModuleRegistry() {
-                return new HashMap();
+            public Map<String, ModuleDescriptor> getClientModuleRegistry() {
+                return clientModuleRegistry;
             }
 
             public Module getModule() {
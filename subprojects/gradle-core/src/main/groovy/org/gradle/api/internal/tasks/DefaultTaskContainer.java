@@ -17,10 +17,7 @@ package org.gradle.api.internal.tasks;
 
 import groovy.lang.Closure;
 import org.apache.commons.lang.StringUtils;
-import org.gradle.api.InvalidUserDataException;
-import org.gradle.api.Project;
-import org.gradle.api.Task;
-import org.gradle.api.UnknownTaskException;
+import org.gradle.api.*;
 import org.gradle.api.internal.project.ITaskFactory;
 import org.gradle.util.GUtil;
 
@@ -29,10 +26,26 @@ import java.util.Map;
 
 public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements TaskContainerInternal {
     private final ITaskFactory taskFactory;
+    private final TaskIndex taskIndex;
 
     public DefaultTaskContainer(Project project, ITaskFactory taskFactory) {
+        this(project, taskFactory, new TaskIndex());
+    }
+
+    public DefaultTaskContainer(Project project, ITaskFactory taskFactory, final TaskIndex taskIndex) {
         super(Task.class, project);
         this.taskFactory = taskFactory;
+        this.taskIndex = taskIndex;
+        whenObjectAdded(new Action<Task>() {
+            public void execute(Task task) {
+                taskIndex.add(task);
+            }
+        });
+        whenObjectRemoved(new Action<Task>() {
+            public void execute(Task task) {
+                taskIndex.remove(task);
+            }
+        });
     }
 
     public Task add(Map<String, ?> options) {
@@ -78,6 +91,18 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return type.cast(add(GUtil.map(Task.TASK_NAME, name, Task.TASK_TYPE, type, Task.TASK_OVERWRITE, true)));
     }
 
+    @Override
+    public Rule addRule(Rule rule) {
+        taskIndex.ruleAdded(project, this);
+        return super.addRule(rule);
+    }
+
+    @Override
+    public Rule addRule(String description, Closure ruleAction) {
+        taskIndex.ruleAdded(project, this);
+        return super.addRule(description, ruleAction);
+    }
+
     public Task findByPath(String path) {
         if (!GUtil.isTrue(path)) {
             throw new InvalidUserDataException("A path must be specified!");
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.TaskContainer;
+
+import java.util.*;
+
+/**
+ * <p>A build-wide index of tasks by name, which is kept up to date by each {@link DefaultTaskContainer} as tasks are
+ * added and replaced. This allows the tasks with a given name to be found without visiting every project.</p>
+ *
+ * <p>Tasks created by a rule only exist once the rule has been applied, so the index also keeps track of the
+ * containers which have rules. These are asked for the task when a name is looked up.</p>
+ */
+public class TaskIndex {
+    private final Map<String, Set<Task>> tasksByName = new HashMap<String, Set<Task>>();
+    private final Map<Project, TaskContainer> containersWithRules = new LinkedHashMap<Project, TaskContainer>();
+
+    public synchronized void add(Task task) {
+        Set<Task> tasks = tasksByName.get(task.getName());
+        if (tasks == null) {
+            tasks = new HashSet<Task>();
+            tasksByName.put(task.getName(), tasks);
+        }
+        tasks.add(task);
+    }
+
+    public synchronized void remove(Task task) {
+        Set<Task> tasks = tasksByName.get(task.getName());
+        if (tasks == null) {
+            return;
+        }
+        tasks.remove(task);
+        if (tasks.isEmpty()) {
+            tasksByName.remove(task.getName());
+        }
+    }
+
+    /**
+     * Called when a rule is added to the task container of the given project.
+     */
+    public synchronized void ruleAdded(Project project, TaskContainer container) {
+        containersWithRules.put(project, container);
+    }
+
+    /**
+     * Returns the tasks with the given name which belong to any of the given projects. Any rules of the task
+     * containers of these projects are applied first.
+     */
+    public Set<Task> getTasksByName(String name, Set<? extends Project> projects) {
+        List<TaskContainer> containers = new ArrayList<TaskContainer>();
+        synchronized (this) {
+            for (Map.Entry<Project, TaskContainer> entry : containersWithRules.entrySet()) {
+                if (projects.contains(entry.getKey())) {
+                    containers.add(entry.getValue());
+                }
+            }
+        }
+        for (TaskContainer container : containers) {
+            container.findByName(name);
+        }
+        return findTasksByName(name, projects);
+    }
+
+    /**
+     * Returns the tasks with the given name which belong to any of the given projects, without applying any rules.
+     */
+    public synchronized Set<Task> findTasksByName(String name, Set<? extends Project> projects) {
+        Set<Task> matches = new HashSet<Task>();
+        Set<Task> tasks = tasksByName.get(name);
+        if (tasks != null) {
+            for (Task task : tasks) {
+                if (projects.contains(task.getProject())) {
+                    matches.add(task);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the names of all tasks in the index. Each name is returned once, however many projects have a task
+     * with that name.
+     */
+    public synchronized Set<String> getTaskNames() {
+        return new HashSet<String>(tasksByName.keySet());
+    }
+}
@@ -62,9 +62,15 @@ import java.util.Set;
  * @author Steve Appling
  */
 public class Copy extends ConventionTask implements CopyAction {
+    /**
+     * The directory, relative to the build directory, in which an incremental copy task keeps its state.
+     */
+    public static final String STATE_DIR_NAME = ".gradle/copy-state";
+
     private CopyActionImpl copyAction;
     private boolean hasSrcBeenSet;
     private boolean hasDestBeenSet;
+    private boolean incremental;
 
     public Copy() {
         FileResolver fileResolver = ((ProjectInternal) getProject()).getFileResolver();
@@ -74,6 +80,9 @@ public class Copy extends ConventionTask implements CopyAction {
     @TaskAction
     void copy() {
         configureRootSpec();
+        if (incremental) {
+            copyAction.setStateFile(new File(getProject().getBuildDir(), STATE_DIR_NAME + "/" + getName() + ".bin"));
+        }
         copyAction.execute();
         setDidWork(copyAction.getDidWork());
     }
@@ -130,6 +139,18 @@ public class Copy extends ConventionTask implements CopyAction {
         copyAction.setCaseSensitive(caseSensitive);
     }
 
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+        copyAction.setIncremental(incremental);
+    }
+
     public List<? extends CopySpec> getLeafSyncSpecs() {
         return copyAction.getLeafSyncSpecs();
     }
@@ -252,4 +273,11 @@ public class Copy extends ConventionTask implements CopyAction {
     public CopySpec filter(Closure closure) {
         return copyAction.filter(closure);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public CopySpec filteringCharset(String charset) {
+        return copyAction.filteringCharset(charset);
+    }
 }
@@ -16,18 +16,29 @@
 
 package org.gradle.api.tasks.testing;
 
+import org.gradle.api.Project;
 import org.gradle.api.testing.TestFramework;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Tom Eyckmans
  */
 public abstract class AbstractTestFramework implements TestFramework {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractTestFramework.class);
 
     public static final String USE_OF_CORRECT_TEST_FRAMEWORK =
         "Make sure the correct TestFramework is in use. \n" +
         "            - Call useJUnit(), useTestNG() or useTestFramework(<your own TestFramework implementation class>) as first statement in the test { } block. \n" +
         "            - Set the test.framework.default property in a gradle.properties file ";
 
+    public static final String CLASS_CACHE_DIR_NAME = ".gradle/test-classes";
+
     protected String name;
 
     protected AbstractTestFramework(String name) {
@@ -37,4 +48,28 @@ public abstract class AbstractTestFramework implements TestFramework {
     public String getName() {
         return name;
     }
+
+    /**
+     * Returns the file used to cache the details of the test classes between builds, or null when the test task does
+     * not scan for test classes.
+     */
+    protected File getClassCacheFile(Project project, Test testTask) {
+        if (!testTask.isScanForTestClasses()) {
+            return null;
+        }
+        return new File(project.getBuildDir(), CLASS_CACHE_DIR_NAME + "/" + testTask.getName() + "-" + name.toLowerCase() + ".bin");
+    }
+
+    /**
+     * Executes all the test classes in a single run. Test frameworks which can run forks concurrently override this
+     * method.
+     */
+    public void executeForks(Project project, Test testTask, List<? extends Collection<String>> forkIncludes) {
+        logger.info("{} does not support parallel forks. Executing the tests in a single fork.", name);
+        List<String> includes = new ArrayList<String>();
+        for (Collection<String> fork : forkIncludes) {
+            includes.addAll(fork);
+        }
+        execute(project, testTask, includes, new ArrayList<String>());
+    }
 }
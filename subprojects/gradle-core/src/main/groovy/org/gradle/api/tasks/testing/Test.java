@@ -78,6 +78,8 @@ public class Test extends ConventionTask implements PatternFilterable {
 
     private boolean scanForTestClasses = true;
 
+    private int maxParallelForks = 1;
+
     @TaskAction
     protected void executeTests() {
         final File testClassesDir = getTestClassesDir();
@@ -114,7 +116,12 @@ public class Test extends ConventionTask implements PatternFilterable {
 
         GFileUtils.createDirectoriesWhenNotExistent(getTestResultsDir());// needed for JUnit reporting
 
-        if ( !(toUseIncludes.isEmpty() && toUseExcludes.isEmpty()))
+        if ( maxParallelForks > 1 && testClassNames.size() > 1 ) {
+            final List<List<String>> forkIncludes = new TestClassBalancer(getTestResultsDir()).balance(testClassNames, maxParallelForks);
+            logger.info("Executing {} test classes in {} parallel forks.", testClassNames.size(), forkIncludes.size());
+            testFramework.executeForks(getProject(), this, forkIncludes);
+        }
+        else if ( !(toUseIncludes.isEmpty() && toUseExcludes.isEmpty()))
             testFramework.execute(getProject(), this, toUseIncludes, toUseExcludes);
         else // when there are no includes/excludes -> don't execute test framework
             logger.debug("skipping test execution, because no tests were found");
@@ -412,4 +419,25 @@ public class Test extends ConventionTask implements PatternFilterable {
     public void setScanForTestClasses(boolean scanForTestClasses) {
         this.scanForTestClasses = scanForTestClasses;
     }
+
+    /**
+     * Returns the maximum number of forked test JVMs to run concurrently. Defaults to 1.
+     */
+    public int getMaxParallelForks() {
+        return maxParallelForks;
+    }
+
+    /**
+     * Sets the maximum number of forked test JVMs to run concurrently. When greater than 1, the test classes are
+     * distributed across the forks based on their durations in the previous test run, and each fork executes its
+     * classes in a single JVM.
+     *
+     * @param maxParallelForks The maximum number of forks. Must be at least 1.
+     */
+    public void setMaxParallelForks(int maxParallelForks) {
+        if (maxParallelForks < 1) {
+            throw new IllegalArgumentException("maxParallelForks must be at least 1.");
+        }
+        this.maxParallelForks = maxParallelForks;
+    }
 }
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.testing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.File;
+import java.util.*;
+
+/**
+ * <p>Distributes a set of test classes across a number of forks, so that each fork takes roughly the same time to
+ * run. The duration of each class is taken from the XML result which the previous test run left in the test results
+ * directory. Classes with no previous result are assumed to take the average duration of the known classes.</p>
+ *
+ * <p>Classes are assigned longest first, each to the fork with the least total duration so far.</p>
+ */
+public class TestClassBalancer {
+    private static final Logger logger = LoggerFactory.getLogger(TestClassBalancer.class);
+    private static final double DEFAULT_DURATION = 1.0;
+
+    private final File testResultsDir;
+
+    public TestClassBalancer(File testResultsDir) {
+        this.testResultsDir = testResultsDir;
+    }
+
+    /**
+     * Partitions the given test classes into at most the given number of forks. No fork is empty.
+     *
+     * @param testClassNames The test class file names, relative to the test classes directory (e.g.
+     * 'org/gradle/SomeTest.class').
+     * @param maxForks The maximum number of forks.
+     * @return The test class file names for each fork.
+     */
+    public List<List<String>> balance(Collection<String> testClassNames, int maxForks) {
+        final Map<String, Double> durations = new HashMap<String, Double>();
+        double knownTotal = 0;
+        int knownCount = 0;
+        for (String testClassName : testClassNames) {
+            Double duration = getPreviousDuration(testClassName);
+            if (duration != null) {
+                durations.put(testClassName, duration);
+                knownTotal += duration;
+                knownCount++;
+            }
+        }
+        double defaultDuration = knownCount == 0 ? DEFAULT_DURATION : knownTotal / knownCount;
+        for (String testClassName : testClassNames) {
+            if (!durations.containsKey(testClassName)) {
+                durations.put(testClassName, defaultDuration);
+            }
+        }
+
+        List<String> sortedClassNames = new ArrayList<String>(testClassNames);
+        Collections.sort(sortedClassNames, new Comparator<String>() {
+            public int compare(String left, String right) {
+                int diff = durations.get(right).compareTo(durations.get(left));
+                return diff != 0 ? diff : left.compareTo(right);
+            }
+        });
+
+        int forkCount = Math.max(1, Math.min(maxForks, sortedClassNames.size()));
+        PriorityQueue<Fork> forks = new PriorityQueue<Fork>();
+        List<List<String>> result = new ArrayList<List<String>>();
+        for (int i = 0; i < forkCount; i++) {
+            Fork fork = new Fork(i);
+            forks.add(fork);
+            result.add(fork.testClassNames);
+        }
+        for (String testClassName : sortedClassNames) {
+            Fork fork = forks.remove();
+            fork.testClassNames.add(testClassName);
+            fork.duration += durations.get(testClassName);
+            forks.add(fork);
+        }
+        if (logger.isDebugEnabled()) {
+            for (Fork fork : forks) {
+                logger.debug(String.format("Test fork %d: %d classes, estimated %.1fs.", fork.index,
+                        fork.testClassNames.size(), fork.duration));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the duration in seconds recorded for the given test class by the previous test run, or null if there is
+     * no usable result.
+     */
+    Double getPreviousDuration(String testClassName) {
+        if (testResultsDir == null) {
+            return null;
+        }
+        String className = testClassName.endsWith(".class") ? testClassName.substring(0, testClassName.length() - 6)
+                : testClassName;
+        File resultFile = new File(testResultsDir, "TEST-" + className.replace('/', '.').replace('\\', '.') + ".xml");
+        if (!resultFile.isFile()) {
+            return null;
+        }
+        TimeAttributeHandler handler = new TimeAttributeHandler();
+        try {
+            SAXParser parser = SAXParserFactory.newInstance().newSAXParser();
+            parser.parse(resultFile, handler);
+        } catch (StopParsingException e) {
+            // Found the root element
+        } catch (Exception e) {
+            logger.debug("Could not read the duration from test result " + resultFile + ".", e);
+            return null;
+        }
+        return handler.duration;
+    }
+
+    private static class Fork implements Comparable<Fork> {
+        private final int index;
+        private final List<String> testClassNames = new ArrayList<String>();
+        private double duration;
+
+        private Fork(int index) {
+            this.index = index;
+        }
+
+        public int compareTo(Fork other) {
+            int diff = Double.compare(duration, other.duration);
+            return diff != 0 ? diff : index - other.index;
+        }
+    }
+
+    private static class StopParsingException extends SAXException {
+        private StopParsingException() {
+            super("Found the root element.");
+        }
+    }
+
+    private static class TimeAttributeHandler extends DefaultHandler {
+        private Double duration;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            String time = attributes.getValue("time");
+            if (time != null) {
+                try {
+                    duration = Double.valueOf(time.replace(",", ""));
+                } catch (NumberFormatException e) {
+                    // Ignore - use the default duration
+                }
+            }
+            throw new StopParsingException();
+        }
+    }
+}
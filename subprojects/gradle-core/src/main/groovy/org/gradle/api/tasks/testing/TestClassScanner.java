@@ -18,11 +18,17 @@ package org.gradle.api.tasks.testing;
 
 import org.apache.tools.ant.types.FileSet;
 import org.apache.tools.ant.types.resources.FileResource;
+import org.gradle.api.GradleException;
 import org.gradle.api.testing.TestFramework;
+import org.gradle.util.ThreadUtils;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.io.File;
 
 import groovy.util.AntBuilder;
@@ -32,6 +38,7 @@ import groovy.util.AntBuilder;
  */
 public class TestClassScanner {
     private static final Logger logger = LoggerFactory.getLogger(TestClassScanner.class);
+    private static final int MIN_CLASSES_PER_THREAD = 16;
     private final File testClassDirectory;
     private final List<String> includePatterns;
     private final List<String> excludePatterns;
@@ -72,6 +79,7 @@ public class TestClassScanner {
 
         final Iterator testClassFilesIterator = testClassFileSet.iterator();
         final Set<String> testClassNames = new HashSet<String>();
+        final List<File> testClassFiles = new ArrayList<File>();
         while ( testClassFilesIterator.hasNext() ) {
             final FileResource fileResource = (FileResource)testClassFilesIterator.next();
 
@@ -79,19 +87,64 @@ public class TestClassScanner {
                 final String fileResourceName = fileResource.getName();
                 logger.debug("test-class-scan : scanning {}", fileResourceName );
 
-                if ( scanForTestClasses ) {
-                    if (!testFramework.isTestClass(fileResource.getFile()) ) {
-                        logger.debug("test-class-scan : discarded {} not a test class", fileResourceName);
-                    }
-                }
+                if ( scanForTestClasses )
+                    testClassFiles.add(fileResource.getFile());
                 else
                     testClassNames.add(fileResourceName);
             }
         }
 
-        if ( scanForTestClasses )
+        if ( scanForTestClasses ) {
+            scanTestClassFiles(testClassFiles);
             return testFramework.getTestClassNames();
+        }
         else
             return testClassNames;
     }
+
+    /**
+     * Passes each of the given class files to the test framework for detection. Each class file is handled by a
+     * worker thread.
+     */
+    private void scanTestClassFiles(List<File> testClassFiles) {
+        final int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), testClassFiles.size() / MIN_CLASSES_PER_THREAD);
+        if ( threadCount <= 1 ) {
+            for (File testClassFile : testClassFiles) {
+                scanTestClassFile(testClassFile);
+            }
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<?>> results = new ArrayList<Future<?>>();
+            for (final File testClassFile : testClassFiles) {
+                results.add(executor.submit(new Runnable() {
+                    public void run() {
+                        scanTestClassFile(testClassFile);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        catch ( InterruptedException e ) {
+            throw new GradleException("Interrupted while scanning for test classes.", e);
+        }
+        catch ( ExecutionException e ) {
+            if ( e.getCause() instanceof RuntimeException )
+                throw (RuntimeException)e.getCause();
+            throw new GradleException("Could not scan for test classes.", e.getCause());
+        }
+        finally {
+            ThreadUtils.shutdown(executor);
+        }
+    }
+
+    private void scanTestClassFile(File testClassFile) {
+        if (!testFramework.isTestClass(testClassFile) ) {
+            logger.debug("test-class-scan : discarded {} not a test class", testClassFile.getName());
+        }
+    }
 }
@@ -20,6 +20,7 @@ import org.gradle.util.BootstrapUtil
 import org.slf4j.Logger
 import org.slf4j.LoggerFactory
 import org.gradle.api.tasks.testing.Test
+import org.gradle.api.tasks.testing.ForkMode
 
 
 /**
@@ -36,12 +37,31 @@ class AntJUnitExecute {
     void execute(File compiledTestsClassesDir, List classPath, File testResultsDir, Collection<String> includes, Collection<String> excludes, JUnitOptions junitOptions, AntBuilder ant) {
         ant.mkdir(dir: testResultsDir.absolutePath)
         createAntClassPath(ant, classPath + BootstrapUtil.antJunitJarFiles)
+        junit(ant, compiledTestsClassesDir, testResultsDir, includes, excludes, junitOptions, [:])
+    }
+
+    /**
+     * Executes each of the given groups of test classes in its own forked JVM. The forks run concurrently, and each
+     * fork is reused for all the classes of its group. The results of all forks are written to the test results dir.
+     */
+    void execute(File compiledTestsClassesDir, List classPath, File testResultsDir, List<? extends Collection<String>> forkIncludes, JUnitOptions junitOptions, AntBuilder ant) {
+        ant.mkdir(dir: testResultsDir.absolutePath)
+        createAntClassPath(ant, classPath + BootstrapUtil.antJunitJarFiles)
+        Map forkArgs = [fork: 'true', forkmode: ForkMode.ONCE.toString()]
+        ant.parallel(threadCount: forkIncludes.size(), failonany: 'true') {
+            forkIncludes.each {Collection<String> includes ->
+                junit(ant, compiledTestsClassesDir, testResultsDir, includes, [], junitOptions, forkArgs)
+            }
+        }
+    }
+
+    private void junit(AntBuilder ant, File compiledTestsClassesDir, File testResultsDir, Collection<String> includes, Collection<String> excludes, JUnitOptions junitOptions, Map overrideArgs) {
         Map otherArgs = [
                 includeantruntime: 'false',
                 errorproperty: Test.FAILURES_OR_ERRORS_PROPERTY,
                 failureproperty: Test.FAILURES_OR_ERRORS_PROPERTY
         ]
-        ant.junit(otherArgs + junitOptions.optionMap()) {
+        ant.junit(otherArgs + junitOptions.optionMap() + overrideArgs) {
             junitOptions.forkOptions.jvmArgs.each {
                 jvmarg(value: it)
             }
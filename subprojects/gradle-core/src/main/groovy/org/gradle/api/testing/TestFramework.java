@@ -22,6 +22,7 @@ import org.gradle.api.tasks.testing.AbstractTestFrameworkOptions;
 import java.io.File;
 import java.util.Set;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * @author Tom Eyckmans
@@ -33,6 +34,13 @@ public interface TestFramework {
 
     void execute(Project project, Test testTask, Collection<String> includes, Collection<String> excludes);
 
+    /**
+     * Executes the given test classes concurrently, in one forked JVM per element of the given list.
+     *
+     * @param forkIncludes The test class file names to execute in each fork.
+     */
+    void executeForks(Project project, Test testTask, List<? extends Collection<String>> forkIncludes);
+
     void report(Project project, Test testTask);
 
     AbstractTestFrameworkOptions getOptions();
@@ -21,14 +21,24 @@ import org.gradle.api.artifacts.indexing.JarFilePackageLister;
 import org.gradle.api.artifacts.indexing.JarFilePackageListener;
 import org.gradle.api.GradleException;
 import org.gradle.util.JarUtil;
+import org.objectweb.asm.ClassReader;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * <p>Detects test classes. Each class file is read at most once per build, and the result for each class is reused
+ * when it is the super class of other classes. When a {@link TestClassDetectionCache} is used, class files which have
+ * not changed since the previous build are not read at all.</p>
+ *
+ * <p>{@link #processPossibleTestClass(File)} may be called concurrently.</p>
+ *
  * @author Tom Eyckmans
  */
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
@@ -38,10 +48,18 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected final Map<String, Set<File>> packageJarFilesMappings;
     protected final Map<String, File> extractedJarClasses;
     protected final Set<String> testClassNames;
+    private final Map<String, Boolean> processedClassFiles = new ConcurrentHashMap<String, Boolean>();
+    private final TestClassDetectionCache cache;
+    private final AtomicInteger readCount = new AtomicInteger();
 
     protected AbstractTestFrameworkDetector(File testClassesDirectory, List<File> testClasspath) {
+        this(testClassesDirectory, testClasspath, null);
+    }
+
+    protected AbstractTestFrameworkDetector(File testClassesDirectory, List<File> testClasspath, File cacheFile) {
         this.testClassesDirectory = testClassesDirectory;
-        this.testClassNames = new HashSet<String>();
+        this.testClassNames = Collections.synchronizedSet(new HashSet<String>());
+        this.cache = cacheFile == null ? null : new TestClassDetectionCache(cacheFile);
         this.packageJarFilesMappings = new HashMap<String, Set<File>>();
         this.extractedJarClasses = new HashMap<String, File>();
 
@@ -86,9 +104,123 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         return testClassNames;
     }
 
+    /**
+     * Returns the number of class files which were read, rather than taken from the cache.
+     */
+    public int getReadCount() {
+        return readCount.get();
+    }
+
+    /**
+     * Saves the details of the class files seen so far to the cache, if any.
+     */
+    public void saveCache() {
+        if (cache != null) {
+            logger.debug("test-class-scan : read {} of {} class files, the others were unchanged", readCount.get(), processedClassFiles.size());
+            cache.save();
+        }
+    }
+
+    public boolean processPossibleTestClass(File testClassFile) {
+        return processClassFile(testClassFile, true);
+    }
+
+    private boolean processClassFile(File classFile, boolean cacheable) {
+        final String path = classFile.getAbsolutePath();
+        final Boolean processed = processedClassFiles.get(path);
+        if ( processed != null ) {
+            return processed;
+        }
+
+        final TestClassInfo classInfo = readClassInfo(classFile, cacheable);
+
+        boolean isTest = classInfo.isTest();
+        if (!isTest) {
+            final String superClassName = classInfo.getSuperClassName();
+            if ( superClassName == null || superClassName.startsWith("java/lang") || superClassName.startsWith("groovy/lang") ) {
+                isTest = false;
+            }
+            else if ( isKnownTestCaseClass(superClassName) ) {
+                isTest = true;
+            }
+            else {
+                final File superClassFile = getSuperTestClassFile(superClassName);
+                if ( superClassFile != null ) {
+                    isTest = processClassFile(superClassFile, !isExtractedClassFile(superClassName));
+                }
+                else
+                    logger.debug("test-class-scan : failed to scan parent class {}, could not find the class file", superClassName);
+            }
+        }
+
+        if ( isTest && !classInfo.isAbstract() )
+            testClassNames.add(classInfo.getClassName() + ".class");
+        processedClassFiles.put(path, isTest);
+
+        for (String innerClassName : classInfo.getInnerClassNames()) {
+            final File innerTestClassFile = new File(testClassesDirectory, innerClassName + ".class");
+            if ( innerTestClassFile.exists() && processPossibleTestClass(innerTestClassFile) )
+                logger.debug("test-class-scan : [inner test class] : {}", innerClassName);
+        }
+
+        return isTest;
+    }
+
+    private TestClassInfo readClassInfo(File classFile, boolean cacheable) {
+        final boolean useCache = cacheable && cache != null;
+        if ( useCache ) {
+            final TestClassInfo cachedInfo = cache.get(classFile);
+            if ( cachedInfo != null )
+                return cachedInfo;
+        }
+
+        final byte[] content;
+        try {
+            content = FileUtils.readFileToByteArray(classFile);
+        }
+        catch ( IOException e ) {
+            throw new GradleException("failed to read class file " + classFile.getAbsolutePath(), e);
+        }
+
+        byte[] hash = null;
+        if ( useCache ) {
+            hash = cache.hash(content);
+            final TestClassInfo cachedInfo = cache.get(classFile, hash);
+            if ( cachedInfo != null )
+                return cachedInfo;
+        }
+
+        readCount.incrementAndGet();
+        final T classVisitor = createClassVisitor();
+        try {
+            new ClassReader(content).accept(classVisitor, true);
+        }
+        catch ( Throwable e ) {
+            throw new GradleException("failed to read class file " + classFile.getAbsolutePath(), e);
+        }
+
+        final TestClassInfo classInfo = new TestClassInfo(classVisitor);
+        if ( useCache )
+            cache.put(classFile, hash, classInfo);
+        return classInfo;
+    }
+
+    /**
+     * Returns whether the given class is a test framework base class which makes its subclasses test classes.
+     *
+     * @param className The internal name of the class.
+     */
+    protected boolean isKnownTestCaseClass(String className) {
+        return false;
+    }
+
+    private synchronized boolean isExtractedClassFile(String className) {
+        return extractedJarClasses.containsKey(className);
+    }
+
     protected abstract T createClassVisitor();
 
-    protected File getSuperTestClassFile(String superClassName) {
+    protected synchronized File getSuperTestClassFile(String superClassName) {
         if  ( StringUtils.isEmpty(superClassName) ) throw new IllegalArgumentException("superClassName is empty!");
         if (    !superClassName.startsWith("java/lang") &&
                 !superClassName.startsWith("groovy/lang") ) {
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.testing.execution;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.changedetection.digest.DigesterCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Caches the {@link TestClassInfo} of class files between builds. Each entry is keyed by the path of the class
+ * file and records the length, last modified time and content hash of the file.</p>
+ *
+ * <p>A cached entry is used without reading the class file when its length and last modified time are unchanged. When
+ * they have changed, the caller hashes the content of the class file and the entry is used when the hash matches.</p>
+ *
+ * <p>Only the entries which are used or added during a build are saved, so entries for deleted class files are
+ * discarded. The methods of this class may be called concurrently.</p>
+ */
+public class TestClassDetectionCache {
+    private static final Logger logger = LoggerFactory.getLogger(TestClassDetectionCache.class);
+
+    private static final int MAGIC = 0x47544343;
+    private static final int VERSION = 1;
+
+    private final File cacheFile;
+    private final DigesterCache digesterCache;
+    private final Map<String, Entry> previous = new HashMap<String, Entry>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+
+    public TestClassDetectionCache(File cacheFile) {
+        this(cacheFile, DigestObjectFactory.createShaDigesterCache());
+    }
+
+    public TestClassDetectionCache(File cacheFile, DigesterCache digesterCache) {
+        this.cacheFile = cacheFile;
+        this.digesterCache = digesterCache;
+        load();
+    }
+
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Returns the cached details of the given class file, or null when the file may have changed since it was
+     * cached.
+     */
+    public TestClassInfo get(File classFile) {
+        String path = classFile.getAbsolutePath();
+        Entry entry = current.get(path);
+        if (entry == null) {
+            entry = previous.get(path);
+            if (entry == null || entry.length != classFile.length() || entry.lastModified != classFile.lastModified()) {
+                return null;
+            }
+            current.put(path, entry);
+        }
+        return entry.info;
+    }
+
+    /**
+     * Returns the cached details of the given class file when it has the given content hash, or null when the content
+     * has changed since it was cached.
+     */
+    public TestClassInfo get(File classFile, byte[] hash) {
+        String path = classFile.getAbsolutePath();
+        Entry entry = previous.get(path);
+        if (entry == null || !Arrays.equals(entry.hash, hash)) {
+            return null;
+        }
+        current.put(path, new Entry(classFile.length(), classFile.lastModified(), hash, entry.info));
+        return entry.info;
+    }
+
+    /**
+     * Records the details of the given class file, which has the given content hash.
+     */
+    public void put(File classFile, byte[] hash, TestClassInfo info) {
+        current.put(classFile.getAbsolutePath(), new Entry(classFile.length(), classFile.lastModified(), hash, info));
+    }
+
+    /**
+     * Calculates the hash of the given class file content.
+     */
+    public byte[] hash(byte[] content) {
+        MessageDigest digester = digesterCache.getDigester("test-class-detection");
+        digester.update(content);
+        return digester.digest();
+    }
+
+    /**
+     * Writes the entries used or added since this cache was loaded, replacing the previous content of the cache
+     * file.
+     */
+    public void save() {
+        cacheFile.getParentFile().mkdirs();
+        File tmpFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            DataOutputStream outstr = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                outstr.writeInt(MAGIC);
+                outstr.writeInt(VERSION);
+                outstr.writeInt(current.size());
+                for (Map.Entry<String, Entry> mapEntry : current.entrySet()) {
+                    Entry entry = mapEntry.getValue();
+                    outstr.writeUTF(mapEntry.getKey());
+                    outstr.writeLong(entry.length);
+                    outstr.writeLong(entry.lastModified);
+                    outstr.writeShort(entry.hash.length);
+                    outstr.write(entry.hash);
+                    writeInfo(outstr, entry.info);
+                }
+            } finally {
+                outstr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        cacheFile.delete();
+        if (!tmpFile.renameTo(cacheFile)) {
+            logger.warn("Could not write test class cache {}.", cacheFile);
+            tmpFile.delete();
+        }
+    }
+
+    private void load() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream instr = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (instr.readInt() != MAGIC || instr.readInt() != VERSION) {
+                    logger.debug("Discarding test class cache {} as it has an unknown format.", cacheFile);
+                    return;
+                }
+                int count = instr.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = instr.readUTF();
+                    long length = instr.readLong();
+                    long lastModified = instr.readLong();
+                    byte[] hash = new byte[instr.readShort()];
+                    instr.readFully(hash);
+                    previous.put(path, new Entry(length, lastModified, hash, readInfo(instr)));
+                }
+            } finally {
+                instr.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Discarding test class cache " + cacheFile + " as it could not be read.", e);
+            previous.clear();
+        }
+    }
+
+    private static void writeInfo(DataOutputStream outstr, TestClassInfo info) throws IOException {
+        outstr.writeUTF(info.getClassName());
+        outstr.writeBoolean(info.getSuperClassName() != null);
+        if (info.getSuperClassName() != null) {
+            outstr.writeUTF(info.getSuperClassName());
+        }
+        outstr.writeBoolean(info.isTest());
+        outstr.writeBoolean(info.isAbstract());
+        outstr.writeShort(info.getInnerClassNames().size());
+        for (String innerClassName : info.getInnerClassNames()) {
+            outstr.writeUTF(innerClassName);
+        }
+    }
+
+    private static TestClassInfo readInfo(DataInputStream instr) throws IOException {
+        String className = instr.readUTF();
+        String superClassName = instr.readBoolean() ? instr.readUTF() : null;
+        boolean test = instr.readBoolean();
+        boolean isAbstract = instr.readBoolean();
+        int innerClassCount = instr.readShort();
+        List<String> innerClassNames = new ArrayList<String>(innerClassCount);
+        for (int i = 0; i < innerClassCount; i++) {
+            innerClassNames.add(instr.readUTF());
+        }
+        return new TestClassInfo(className, superClassName, test, isAbstract, innerClassNames);
+    }
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final byte[] hash;
+        private final TestClassInfo info;
+
+        private Entry(long length, long lastModified, byte[] hash, TestClassInfo info) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.info = info;
+        }
+    }
+}
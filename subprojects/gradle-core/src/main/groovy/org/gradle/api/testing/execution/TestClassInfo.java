@@ -0,0 +1,80 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.testing.execution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The details of a single class file which are needed to decide whether it is a test class, as extracted by a
+ * {@link TestClassVisitor}.
+ */
+public class TestClassInfo {
+    private final String className;
+    private final String superClassName;
+    private final boolean test;
+    private final boolean isAbstract;
+    private final List<String> innerClassNames;
+
+    public TestClassInfo(String className, String superClassName, boolean test, boolean isAbstract,
+                         List<String> innerClassNames) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.test = test;
+        this.isAbstract = isAbstract;
+        this.innerClassNames = Collections.unmodifiableList(new ArrayList<String>(innerClassNames));
+    }
+
+    public TestClassInfo(TestClassVisitor visitor) {
+        this(visitor.getClassName(), visitor.getSuperClassName(), visitor.isTest(), visitor.isAbstract(),
+                visitor.getInnerClassNames());
+    }
+
+    /**
+     * Returns the internal name of the class, e.g. 'org/gradle/SomeTest'.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the internal name of the super class. Returns null for {@link Object}.
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    /**
+     * Returns whether the class itself declares tests, ignoring its super classes.
+     */
+    public boolean isTest() {
+        return test;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    /**
+     * Returns the internal names of the public static inner classes of this class, which may be test classes
+     * themselves.
+     */
+    public List<String> getInnerClassNames() {
+        return innerClassNames;
+    }
+}
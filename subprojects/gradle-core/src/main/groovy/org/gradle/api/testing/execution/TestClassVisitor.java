@@ -16,9 +16,13 @@
 
 package org.gradle.api.testing.execution;
 
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.EmptyVisitor;
 import org.gradle.api.testing.TestFrameworkDetector;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Tom Eyckmans
  */
@@ -26,6 +30,8 @@ public abstract class TestClassVisitor extends EmptyVisitor {
 
     protected final TestFrameworkDetector detector;
 
+    private final List<String> innerClassNames = new ArrayList<String>();
+
     protected TestClassVisitor(TestFrameworkDetector detector) {
         this.detector = detector;
     }
@@ -37,4 +43,22 @@ public abstract class TestClassVisitor extends EmptyVisitor {
     public abstract boolean isAbstract();
 
     public abstract String getSuperClassName();
+
+    /**
+     * Records the public static inner classes of the visited class, which may be test classes themselves.
+     */
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
+        boolean isPublic = (access & Opcodes.ACC_PUBLIC) != 0;
+        if ( outerName != null && innerName != null && isStatic && isPublic ) {
+            innerClassNames.add(getClassName() + "$" + innerName);
+        }
+    }
+
+    /**
+     * Returns the internal names of the public static inner classes of the visited class.
+     */
+    public List<String> getInnerClassNames() {
+        return innerClassNames;
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.BuildAdapter;
+import org.gradle.CacheUsage;
+import org.gradle.StartParameter;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.SettingsInternal;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptClasspathScriptTransformer;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptTransformer;
+import org.gradle.api.internal.project.ImportsReader;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.groovy.scripts.*;
+import org.gradle.initialization.DefaultProjectDescriptor;
+import org.gradle.util.Clock;
+import org.gradle.util.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Compiles the build scripts of all the projects of a build into the script cache, using several threads, as soon
+ * as the settings have been evaluated. The projects are then evaluated one at a time as usual, loading their build
+ * scripts from the cache.</p>
+ *
+ * <p>A build script is only fully precompiled when neither its project nor any ancestor project declares a build
+ * script classpath, as the script may need that classpath to compile correctly. Otherwise only the classpath part of
+ * the script is precompiled. Compilation failures are ignored here, and are reported when the project is
+ * evaluated.</p>
+ */
+public class BuildScriptPrecompiler extends BuildAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(BuildScriptPrecompiler.class);
+    private static final String CLASSPATH_BLOCK_NAME = "buildscript";
+
+    private final ImportsReader importsReader;
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final int threadCount;
+    private GradleInternal gradle;
+
+    public BuildScriptPrecompiler(ImportsReader importsReader, ScriptCompilerFactory scriptCompilerFactory,
+                                  int threadCount) {
+        this.importsReader = importsReader;
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.threadCount = threadCount;
+    }
+
+    @Override
+    public void buildStarted(Gradle gradle) {
+        this.gradle = (GradleInternal) gradle;
+    }
+
+    @Override
+    public void settingsEvaluated(Settings settings) {
+        SettingsInternal settingsInternal = (SettingsInternal) settings;
+        StartParameter startParameter = settingsInternal.getStartParameter();
+        if (startParameter.getCacheUsage() != CacheUsage.ON || startParameter.getBuildScriptSource() != null) {
+            return;
+        }
+        precompile(settingsInternal.getProjectRegistry().getAllProjects(), settings.getRootProject().getProjectDir(),
+                gradle.getBuildScriptClassLoader());
+    }
+
+    /**
+     * Compiles the build scripts of the given projects into the script cache.
+     *
+     * @param projects The projects.
+     * @param rootDir The root directory of the build.
+     * @param classLoader The classloader to compile the scripts with.
+     */
+    public void precompile(Collection<DefaultProjectDescriptor> projects, File rootDir, ClassLoader classLoader) {
+        Clock clock = new Clock();
+        Map<DefaultProjectDescriptor, ScriptSource> sources = new HashMap<DefaultProjectDescriptor, ScriptSource>();
+        for (DefaultProjectDescriptor project : projects) {
+            sources.put(project, new ContentAddressedScriptSource(new ImportsScriptSource(createSource(project),
+                    importsReader, rootDir)));
+        }
+
+        // Scripts with the same content share a cache entry, so compile each of them once only
+        Map<String, ScriptSource> scripts = new LinkedHashMap<String, ScriptSource>();
+        Set<String> fullyCompiled = new HashSet<String>();
+        Map<DefaultProjectDescriptor, Boolean> declaresClasspath = new HashMap<DefaultProjectDescriptor, Boolean>();
+        for (DefaultProjectDescriptor project : projects) {
+            ScriptSource source = sources.get(project);
+            scripts.put(source.getClassName(), source);
+            if (!declaresClasspath(project, sources, declaresClasspath)) {
+                fullyCompiled.add(source.getClassName());
+            }
+        }
+        if (scripts.size() < 2) {
+            // Nothing to gain over compiling the script when the project is evaluated
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, scripts.size()));
+        try {
+            for (Map.Entry<String, ScriptSource> entry : scripts.entrySet()) {
+                executor.execute(new PrecompileAction(entry.getValue(), classLoader, fullyCompiled.contains(
+                        entry.getKey())));
+            }
+        } finally {
+            ThreadUtils.shutdown(executor);
+        }
+        logger.debug("Timing: Precompiling {} build scripts took: {}", scripts.size(), clock.getTime());
+    }
+
+    private boolean declaresClasspath(DefaultProjectDescriptor project,
+                                      Map<DefaultProjectDescriptor, ScriptSource> sources,
+                                      Map<DefaultProjectDescriptor, Boolean> declaresClasspath) {
+        if (project == null) {
+            return false;
+        }
+        Boolean result = declaresClasspath.get(project);
+        if (result == null) {
+            ScriptSource source = sources.get(project);
+            result = source == null || source.getText().contains(CLASSPATH_BLOCK_NAME)
+                    || declaresClasspath(project.getParent(), sources, declaresClasspath);
+            declaresClasspath.put(project, result);
+        }
+        return result;
+    }
+
+    private ScriptSource createSource(DefaultProjectDescriptor project) {
+        File buildFile = project.getBuildFile();
+        if (!buildFile.exists()) {
+            return new StringScriptSource("empty build file", "");
+        }
+        return new FileScriptSource("build file", buildFile);
+    }
+
+    private class PrecompileAction implements Runnable {
+        private final ScriptSource source;
+        private final ClassLoader classLoader;
+        private final boolean fullyCompile;
+
+        public PrecompileAction(ScriptSource source, ClassLoader classLoader, boolean fullyCompile) {
+            this.source = source;
+            this.classLoader = classLoader;
+            this.fullyCompile = fullyCompile;
+        }
+
+        public void run() {
+            try {
+                ScriptCompiler compiler = scriptCompilerFactory.createCompiler(source);
+                compiler.setClassloader(classLoader);
+                compiler.setTransformer(new BuildScriptClasspathScriptTransformer());
+                compiler.precompile(ProjectScript.class);
+                if (fullyCompile) {
+                    compiler.setTransformer(new BuildScriptTransformer());
+                    compiler.precompile(ProjectScript.class);
+                }
+            } catch (Throwable e) {
+                logger.debug(String.format("Could not precompile %s.", source.getDisplayName()), e);
+            }
+        }
+    }
+}
@@ -16,15 +16,25 @@
 package org.gradle.execution;
 
 import org.gradle.api.Task;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+import java.util.Arrays;
 
 /**
  * @author Hans Dockter
  */
 public class DefaultOutputHandler implements OutputHandler {
+    private static final Logger logger = Logging.getLogger(DefaultOutputHandler.class);
+
     private OutputHistoryReader outputHistoryReader = new DefaultOutputHistoryReader();
     private OutputHistoryWriter outputHistoryWriter = new DefaultOutputHistoryWriter();
+    private FileFingerprinter fingerprinter;
     private Task task;
     private boolean hasOutput = false;
+    private TaskFiles taskFiles;
+    private byte[] inputFingerprint;
 
     public DefaultOutputHandler(Task task) {
         this.task = task;
@@ -42,12 +52,64 @@ public class DefaultOutputHandler implements OutputHandler {
         this.hasOutput = hasOutput;
     }
 
-    public void writeHistory(boolean successful) {
+    public TaskFiles getTaskFiles() {
+        return taskFiles;
+    }
+
+    /**
+     * Sets the files which the task declares as its inputs and outputs. The fingerprints of these files, and of the
+     * values of the other properties of the task, are recorded in the history of the task, and used to decide whether
+     * the task is up-to-date.
+     */
+    public void setTaskFiles(TaskFiles taskFiles) {
+        this.taskFiles = taskFiles;
+        hasOutput = true;
+    }
+
+    public boolean isUpToDate() {
+        if (taskFiles == null) {
+            return false;
+        }
+        inputFingerprint = fingerprintInputs();
+        if (inputFingerprint == null) {
+            logger.info("{} is not up-to-date as it has a property whose value cannot be compared.", task);
+            return false;
+        }
+        OutputHistory history = getHistory();
+        if (!history.wasCreatedSuccessfully()) {
+            logger.info("{} is not up-to-date as it has no successful execution history.", task);
+            return false;
+        }
+        if (history.getInputFingerprint() == null || !Arrays.equals(inputFingerprint, history.getInputFingerprint())) {
+            logger.info("{} is not up-to-date as its input files or properties have changed.", task);
+            return false;
+        }
+        byte[] outputFingerprint = getFingerprinter().fingerprint(taskFiles.getOutputFiles());
+        if (history.getOutputFingerprint() == null || !Arrays.equals(outputFingerprint, history.getOutputFingerprint())) {
+            logger.info("{} is not up-to-date as its output files have changed.", task);
+            return false;
+        }
+        return true;
+    }
+
+    public void writeHistory(boolean successful, long duration) {
         if (hasOutput && successful) {
-            outputHistoryWriter.taskSuccessfullyExecuted(task);
+            byte[] outputFingerprint = null;
+            if (taskFiles != null) {
+                if (inputFingerprint == null) {
+                    inputFingerprint = fingerprintInputs();
+                }
+                outputFingerprint = getFingerprinter().fingerprint(taskFiles.getOutputFiles());
+            }
+            outputHistoryWriter.taskSuccessfullyExecuted(task, duration, inputFingerprint, outputFingerprint);
         } else {
-            outputHistoryWriter.taskFailed(task);
+            outputHistoryWriter.taskFailed(task, duration);
         }
+        inputFingerprint = null;
+    }
+
+    private byte[] fingerprintInputs() {
+        return getFingerprinter().fingerprint(taskFiles.getInputFiles(), taskFiles.getInputProperties());
     }
 
     public OutputHistoryReader getOutputHistoryReader() {
@@ -65,4 +127,18 @@ public class DefaultOutputHandler implements OutputHandler {
     public void setOutputHistoryWriter(OutputHistoryWriter outputHistoryWriter) {
         this.outputHistoryWriter = outputHistoryWriter;
     }
+
+    /**
+     * Returns the fingerprinter used to fingerprint the task files. Defaults to the fingerprinter of the build.
+     */
+    public FileFingerprinter getFingerprinter() {
+        if (fingerprinter == null) {
+            return ((ProjectInternal) task.getProject()).getGradle().getFileFingerprinter();
+        }
+        return fingerprinter;
+    }
+
+    public void setFingerprinter(FileFingerprinter fingerprinter) {
+        this.fingerprinter = fingerprinter;
+    }
 }
@@ -21,12 +21,21 @@ package org.gradle.execution;
 public class DefaultOutputHistory implements OutputHistory {
     private boolean createdSuccessfully;
     private Long lastModified;
+    private byte[] inputFingerprint;
+    private byte[] outputFingerprint;
 
     public DefaultOutputHistory(boolean createdSuccessfully, long timestamp) {
         this.createdSuccessfully = createdSuccessfully;
         this.lastModified = timestamp;
     }
 
+    public DefaultOutputHistory(boolean createdSuccessfully, long timestamp, byte[] inputFingerprint,
+                                byte[] outputFingerprint) {
+        this(createdSuccessfully, timestamp);
+        this.inputFingerprint = inputFingerprint;
+        this.outputFingerprint = outputFingerprint;
+    }
+
     public DefaultOutputHistory() {
         this.createdSuccessfully = false;
         this.lastModified = null;
@@ -39,4 +48,12 @@ public class DefaultOutputHistory implements OutputHistory {
     public Long getLastModified() {
         return lastModified;
     }
+
+    public byte[] getInputFingerprint() {
+        return inputFingerprint;
+    }
+
+    public byte[] getOutputFingerprint() {
+        return outputFingerprint;
+    }
 }
\ No newline at end of file
@@ -16,21 +16,21 @@
 package org.gradle.execution;
 
 import org.gradle.api.Task;
-import org.gradle.util.GFileUtils;
-
-import java.io.File;
 
 /**
  * @author Hans Dockter
  */
 public class DefaultOutputHistoryReader implements OutputHistoryReader {
     public OutputHistory readHistory(Task task) {
-        File historyFile = new File(task.getProject().getBuildDir(), OutputHistoryWriter.HISTORY_DIR_NAME + "/" +
-                HistoryPathConverter.convertTaskPath(task.getPath()));
-        if (historyFile.isFile()) {
-            long timestamp = Long.parseLong(GFileUtils.readFileToString(historyFile));
-            return new DefaultOutputHistory(true, timestamp);
+        TaskHistory history = TaskHistoryStores.forTask(task).get(task.getPath());
+        if (history != null && history.isSuccessful()) {
+            return new DefaultOutputHistory(true, history.getTimestamp(), nullIfEmpty(history.getInputFingerprint()),
+                    nullIfEmpty(history.getOutputFingerprint()));
         }
         return new DefaultOutputHistory();
     }
+
+    private byte[] nullIfEmpty(byte[] fingerprint) {
+        return fingerprint.length == 0 ? null : fingerprint;
+    }
 }
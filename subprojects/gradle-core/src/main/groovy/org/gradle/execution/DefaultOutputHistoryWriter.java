@@ -16,25 +16,29 @@
 package org.gradle.execution;
 
 import org.gradle.api.Task;
-import org.gradle.util.GFileUtils;
-
-import java.io.File;
 
 /**
  * @author Hans Dockter
  */
 public class DefaultOutputHistoryWriter implements OutputHistoryWriter {
-    public void taskSuccessfullyExecuted(Task task) {
-        File historyFile = createHistoryFile(task);
-        GFileUtils.writeStringToFile(historyFile, "" + System.currentTimeMillis());
-    }
-
-    public void taskFailed(Task task) {
-        createHistoryFile(task).delete();
+    public void taskSuccessfullyExecuted(Task task, long duration, byte[] inputFingerprint,
+                                         byte[] outputFingerprint) {
+        TaskHistoryStore store = TaskHistoryStores.forTask(task);
+        long timestamp = System.currentTimeMillis();
+        if (!task.getDidWork()) {
+            // The output was not modified, so keep the timestamp of the last modification
+            TaskHistory previous = store.get(task.getPath());
+            if (previous != null && previous.isSuccessful()) {
+                timestamp = previous.getTimestamp();
+            }
+        }
+        store.put(new TaskHistory(task.getPath(), timestamp, duration, true, task.getDidWork(), inputFingerprint,
+                outputFingerprint));
     }
 
-    private File createHistoryFile(Task task) {
-        return new File(task.getProject().getBuildDir(), OutputHistoryWriter.HISTORY_DIR_NAME + "/" +
-                HistoryPathConverter.convertTaskPath(task.getPath()));
+    public void taskFailed(Task task, long duration) {
+        TaskHistoryStore store = TaskHistoryStores.forTask(task);
+        store.put(new TaskHistory(task.getPath(), System.currentTimeMillis(), duration, false, task.getDidWork(),
+                null, null));
     }
 }
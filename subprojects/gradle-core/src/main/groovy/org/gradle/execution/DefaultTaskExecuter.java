@@ -17,6 +17,7 @@
 package org.gradle.execution;
 
 import groovy.lang.Closure;
+import org.gradle.api.Action;
 import org.gradle.api.CircularReferenceException;
 import org.gradle.api.GradleException;
 import org.gradle.api.Task;
@@ -43,9 +44,24 @@ public class DefaultTaskExecuter implements TaskExecuter {
     private final ListenerBroadcast<TaskExecutionListener> taskListeners = new ListenerBroadcast<TaskExecutionListener>(
             TaskExecutionListener.class);
     private final Set<Task> executionPlan = new LinkedHashSet<Task>();
+    private final Map<Task, Set<Task>> planDependencies = new HashMap<Task, Set<Task>>();
+    private final int parallelThreadCount;
     private boolean populated;
     private Spec<? super Task> filter = Specs.satisfyAll();
 
+    public DefaultTaskExecuter() {
+        this(0);
+    }
+
+    /**
+     * Creates an executer which executes tasks using the given number of worker threads.
+     *
+     * @param parallelThreadCount The number of worker threads. Values less than 2 execute tasks sequentially.
+     */
+    public DefaultTaskExecuter(int parallelThreadCount) {
+        this.parallelThreadCount = parallelThreadCount;
+    }
+
     public void useFilter(Spec<? super Task> filter) {
         this.filter = filter;
     }
@@ -59,7 +75,9 @@ public class DefaultTaskExecuter implements TaskExecuter {
         for (Task task : tasks) {
             sortedTasks.add(task);
         }
+        List<Task> previousTasks = new ArrayList<Task>(executionPlan);
         fillDag(sortedTasks);
+        addGroupDependencies(previousTasks);
         populated = true;
 
         logger.debug("Timing: Creating the DAG took " + clock.getTime());
@@ -75,6 +93,7 @@ public class DefaultTaskExecuter implements TaskExecuter {
             logger.debug("Timing: Executing the DAG took " + clock.getTime());
         } finally {
             executionPlan.clear();
+            planDependencies.clear();
         }
     }
 
@@ -85,6 +104,7 @@ public class DefaultTaskExecuter implements TaskExecuter {
 
     private void fillDag(Collection<? extends Task> tasks) {
         Set<Task> visiting = new HashSet<Task>();
+        Map<Task, Set<Task>> visitingDependencies = new HashMap<Task, Set<Task>>();
         List<Task> queue = new ArrayList<Task>();
         queue.addAll(tasks);
 
@@ -106,6 +126,7 @@ public class DefaultTaskExecuter implements TaskExecuter {
                 // task in the queue
                 Set<Task> dependsOnTasks = new TreeSet<Task>(Collections.reverseOrder());
                 dependsOnTasks.addAll(task.getTaskDependencies().getDependencies(task));
+                visitingDependencies.put(task, dependsOnTasks);
                 for (Task dependsOnTask : dependsOnTasks) {
                     if (visiting.contains(dependsOnTask)) {
                         throw new CircularReferenceException(String.format(
@@ -118,6 +139,42 @@ public class DefaultTaskExecuter implements TaskExecuter {
                 queue.remove(0);
                 visiting.remove(task);
                 executionPlan.add(task);
+                Set<Task> dependencies = new LinkedHashSet<Task>();
+                for (Task dependsOnTask : visitingDependencies.remove(task)) {
+                    if (executionPlan.contains(dependsOnTask)) {
+                        dependencies.add(dependsOnTask);
+                    }
+                }
+                planDependencies.put(task, dependencies);
+            }
+        }
+    }
+
+    /**
+     * Makes the tasks which were added to the plan by the most recent call to {@link #addTasks(Iterable)} depend on
+     * the tasks added by earlier calls, so that each group of tasks starts only once the earlier groups have
+     * completed when executing in parallel. Only the tasks of the new group which do not depend on another task of
+     * the group need the extra dependencies.
+     */
+    private void addGroupDependencies(List<Task> previousTasks) {
+        if (previousTasks.isEmpty()) {
+            return;
+        }
+        Set<Task> previous = new HashSet<Task>(previousTasks);
+        for (Task task : executionPlan) {
+            if (previous.contains(task)) {
+                continue;
+            }
+            Set<Task> dependencies = planDependencies.get(task);
+            boolean dependsOnGroupTask = false;
+            for (Task dependency : dependencies) {
+                if (!previous.contains(dependency)) {
+                    dependsOnGroupTask = true;
+                    break;
+                }
+            }
+            if (!dependsOnGroupTask) {
+                dependencies.addAll(previousTasks);
             }
         }
     }
@@ -150,7 +207,11 @@ public class DefaultTaskExecuter implements TaskExecuter {
         taskListeners.add("afterExecute", closure);
     }
 
-    private void doExecute(Iterable<? extends Task> tasks) {
+    private void doExecute(Set<Task> tasks) {
+        if (parallelThreadCount > 1) {
+            doExecuteParallel(tasks);
+            return;
+        }
         for (Task task : tasks) {
             if (!task.getExecuted()) {
                 executeTask(task);
@@ -158,6 +219,20 @@ public class DefaultTaskExecuter implements TaskExecuter {
         }
     }
 
+    private void doExecuteParallel(Set<Task> tasks) {
+        Map<Task, Set<Task>> plan = new LinkedHashMap<Task, Set<Task>>();
+        for (Task task : tasks) {
+            plan.put(task, planDependencies.get(task));
+        }
+        new ParallelTaskPlanExecuter(parallelThreadCount).execute(plan, new Action<Task>() {
+            public void execute(Task task) {
+                if (!task.getExecuted()) {
+                    executeTask(task);
+                }
+            }
+        });
+    }
+
     private void executeTask(Task task) {
         fireBeforeTask(task);
         Throwable failure = null;
@@ -177,11 +252,15 @@ public class DefaultTaskExecuter implements TaskExecuter {
     }
 
     private void fireBeforeTask(Task task) {
-        taskListeners.getSource().beforeExecute(task);
+        synchronized (taskListeners) {
+            taskListeners.getSource().beforeExecute(task);
+        }
     }
 
     private void fireAfterTask(Task task, Throwable failure) {
-        taskListeners.getSource().afterExecute(task, failure);
+        synchronized (taskListeners) {
+            taskListeners.getSource().afterExecute(task, failure);
+        }
     }
 
     public boolean hasTask(Task task) {
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.changedetection.digest.DigesterCache;
+import org.gradle.api.changedetection.digest.DigesterUtil;
+import org.gradle.api.changedetection.digest.FileDigestCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * <p>Calculates a SHA-1 fingerprint of the content of a set of files and directories. Directories are included
+ * recursively. A fingerprint can also include a set of property values.</p>
+ *
+ * <p>The content hash of each file is held in a {@link FileDigestCache}, and reused for as long as the length and last
+ * modified time of the file are unchanged, so that fingerprinting unchanged files only requires a stat of each file.
+ * When the cache is backed by a file, it is saved when the build finishes, so that later builds only hash the files
+ * which have changed since.</p>
+ */
+public class FileFingerprinter extends BuildAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(FileFingerprinter.class);
+    /**
+     * The name of the file, in the Gradle user home directory, which holds the hashes of the fingerprinted files.
+     */
+    public static final String CACHE_FILE_NAME = "caches/file-hashes.bin";
+    static final int MAX_CACHED_FILES = 100000;
+
+    private final DigesterCache digesterCache;
+    private final DigesterUtil digesterUtil;
+    private final FileDigestCache fileHashes;
+
+    /**
+     * Creates a fingerprinter whose hashes are only kept in memory.
+     */
+    public FileFingerprinter() {
+        this(DigestObjectFactory.createFileDigestCache(null, MAX_CACHED_FILES));
+    }
+
+    /**
+     * Creates a fingerprinter whose hashes are loaded from and saved to the given cache file.
+     */
+    public FileFingerprinter(File cacheFile) {
+        this(DigestObjectFactory.createFileDigestCache(cacheFile, MAX_CACHED_FILES));
+    }
+
+    public FileFingerprinter(FileDigestCache fileHashes) {
+        this(DigestObjectFactory.createShaDigesterCache(), DigestObjectFactory.createContentDigesterUtil(), fileHashes);
+    }
+
+    public FileFingerprinter(DigesterCache digesterCache, DigesterUtil digesterUtil, FileDigestCache fileHashes) {
+        this.digesterCache = digesterCache;
+        this.digesterUtil = digesterUtil;
+        this.fileHashes = fileHashes;
+    }
+
+    /**
+     * Calculates the fingerprint of the given files. The fingerprint changes when a file is added, removed or changes
+     * content.
+     *
+     * @param files The files and directories to fingerprint.
+     * @return The fingerprint.
+     */
+    public byte[] fingerprint(Iterable<File> files) {
+        SortedSet<File> expanded = new TreeSet<File>();
+        for (File file : files) {
+            expand(file.getAbsoluteFile(), expanded);
+        }
+
+        MessageDigest digester = digesterCache.getDigester("fingerprint");
+        for (File file : expanded) {
+            digester.update(getBytes(file.getPath()));
+            if (file.isFile()) {
+                digester.update(hash(file));
+            } else {
+                digester.update((byte) 0);
+            }
+        }
+        return digester.digest();
+    }
+
+    /**
+     * Calculates the fingerprint of the given files and property values. The fingerprint changes when a file is added,
+     * removed or changes content, or when a property value changes. Only null, strings, numbers, booleans, characters,
+     * enums and files, and arrays, collections and maps of these, can be fingerprinted. The elements of a collection or
+     * map are included in iteration order.
+     *
+     * @param files The files and directories to fingerprint.
+     * @param properties The property values to fingerprint, by property name.
+     * @return The fingerprint, or null when a property has a value which cannot be fingerprinted.
+     */
+    public byte[] fingerprint(Iterable<File> files, Map<String, ?> properties) {
+        MessageDigest digester = digesterCache.getDigester("properties");
+        digester.update(fingerprint(files));
+        for (Map.Entry<String, ?> entry : properties.entrySet()) {
+            update(digester, entry.getKey());
+            if (!update(digester, entry.getValue())) {
+                return null;
+            }
+        }
+        return digester.digest();
+    }
+
+    private boolean update(MessageDigest digester, Object value) {
+        if (value == null) {
+            digester.update((byte) 0);
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum || value instanceof File) {
+            digester.update((byte) 1);
+            update(digester, value.getClass().getName());
+            update(digester, value.toString());
+        } else if (value instanceof Object[]) {
+            return update(digester, Arrays.asList((Object[]) value));
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            digester.update((byte) 2);
+            update(digester, collection.size());
+            for (Object element : collection) {
+                if (!update(digester, element)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            digester.update((byte) 3);
+            update(digester, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!update(digester, entry.getKey()) || !update(digester, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void update(MessageDigest digester, String value) {
+        byte[] bytes = getBytes(value);
+        update(digester, bytes.length);
+        digester.update(bytes);
+    }
+
+    private static void update(MessageDigest digester, int value) {
+        digester.update(new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+    }
+
+    private void expand(File file, Collection<File> files) {
+        if (!file.isDirectory()) {
+            files.add(file);
+            return;
+        }
+        File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            expand(child, files);
+        }
+    }
+
+    private byte[] hash(File file) {
+        byte[] hash = fileHashes.getDigest(file);
+        if (hash != null) {
+            return hash;
+        }
+
+        MessageDigest digester = digesterCache.getDigester("file");
+        digesterUtil.digestFile(digester, file);
+        hash = digester.digest();
+        fileHashes.putDigest(file, hash);
+        return hash;
+    }
+
+    /**
+     * Saves the file hashes, so that they can be reused by later builds.
+     */
+    public void save() {
+        fileHashes.save();
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        try {
+            save();
+        } catch (UncheckedIOException e) {
+            logger.warn("Could not save the file hash cache.", e);
+        }
+    }
+
+    private static byte[] getBytes(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -26,10 +26,17 @@ public interface OutputHandler {
      */
     boolean getHasOutput();
 
+    /**
+     * Returns whether the declared input and output files of the task are unchanged since the last successful
+     * execution of the task. Returns false when the task does not declare its output files.
+     */
+    boolean isUpToDate();
+
     /**
      * Persists the history of the task execution.
      *
      * @param successful Whether the task execution was successful
+     * @param duration The duration of the task execution, in milliseconds
      */
-    void writeHistory(boolean successful);
+    void writeHistory(boolean successful, long duration);
 }
@@ -32,4 +32,16 @@ public interface OutputHistory {
      * output is marked as modified or not depends on the value of {@link org.gradle.api.Task#getDidWork()}.
      */
     Long getLastModified();
+
+    /**
+     * Returns the fingerprint of the task inputs recorded by the last successful execution, or null if none was
+     * recorded.
+     */
+    byte[] getInputFingerprint();
+
+    /**
+     * Returns the fingerprint of the task outputs recorded by the last successful execution, or null if none was
+     * recorded.
+     */
+    byte[] getOutputFingerprint();
 }
@@ -23,7 +23,7 @@ import org.gradle.api.Task;
 public interface OutputHistoryWriter {
     static final String HISTORY_DIR_NAME = ".gradle/task-execution-history";
     
-    void taskSuccessfullyExecuted(Task a);
+    void taskSuccessfullyExecuted(Task a, long duration, byte[] inputFingerprint, byte[] outputFingerprint);
 
-    void taskFailed(Task a);
+    void taskFailed(Task a, long duration);
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Action;
+import org.gradle.api.GradleException;
+import org.gradle.api.Task;
+import org.gradle.util.Clock;
+import org.gradle.util.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>Executes a task execution plan using a bounded pool of worker threads. A task is handed to a worker as soon as
+ * all the tasks it depends on have completed, in the order in which the tasks appear in the plan.</p>
+ *
+ * <p>Once a task fails, no further tasks are started. The executer waits for the tasks already running to finish and
+ * then rethrows the first failure.</p>
+ */
+class ParallelTaskPlanExecuter {
+    private static Logger logger = LoggerFactory.getLogger(ParallelTaskPlanExecuter.class);
+
+    private final int threadCount;
+    private final Object lock = new Object();
+    private final Map<Task, Set<Task>> waitingFor = new HashMap<Task, Set<Task>>();
+    private final Map<Task, List<Task>> dependents = new HashMap<Task, List<Task>>();
+    private final LinkedList<Task> readyTasks = new LinkedList<Task>();
+    private final Map<String, List<TimelineEntry>> timeline = new TreeMap<String, List<TimelineEntry>>();
+    private int runningCount;
+    private Throwable failure;
+    private Clock clock;
+
+    ParallelTaskPlanExecuter(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Executes the given plan.
+     *
+     * @param plan The tasks to execute, in execution order, mapped to the tasks of the plan they depend on.
+     * @param action The action to use to execute each task.
+     */
+    public void execute(Map<Task, Set<Task>> plan, Action<Task> action) {
+        clock = new Clock();
+        for (Map.Entry<Task, Set<Task>> entry : plan.entrySet()) {
+            Task task = entry.getKey();
+            if (entry.getValue().isEmpty()) {
+                readyTasks.add(task);
+                continue;
+            }
+            waitingFor.put(task, new HashSet<Task>(entry.getValue()));
+            for (Task dependency : entry.getValue()) {
+                List<Task> tasks = dependents.get(dependency);
+                if (tasks == null) {
+                    tasks = new ArrayList<Task>();
+                    dependents.put(dependency, tasks);
+                }
+                tasks.add(task);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+        boolean interrupted = false;
+        try {
+            synchronized (lock) {
+                while (true) {
+                    while (failure == null && !readyTasks.isEmpty()) {
+                        runningCount++;
+                        executor.execute(new TaskRunner(readyTasks.removeFirst(), action));
+                    }
+                    if (runningCount == 0) {
+                        break;
+                    }
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // Restore the interrupt once the running tasks have finished, as wait() would fail at once
+                        interrupted = true;
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+        } finally {
+            ThreadUtils.shutdown(executor);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        logTimeline();
+
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        throw new GradleException("Task execution failed with an exception.", failure);
+    }
+
+    private void taskCompleted(Task task, long startTime, Throwable taskFailure) {
+        synchronized (lock) {
+            runningCount--;
+            String worker = Thread.currentThread().getName();
+            List<TimelineEntry> entries = timeline.get(worker);
+            if (entries == null) {
+                entries = new ArrayList<TimelineEntry>();
+                timeline.put(worker, entries);
+            }
+            entries.add(new TimelineEntry(task, startTime, clock.getTimeInMs()));
+
+            if (taskFailure != null) {
+                if (failure == null) {
+                    failure = taskFailure;
+                }
+            } else {
+                List<Task> tasks = dependents.get(task);
+                if (tasks != null) {
+                    for (Task dependent : tasks) {
+                        Set<Task> remaining = waitingFor.get(dependent);
+                        remaining.remove(task);
+                        if (remaining.isEmpty()) {
+                            waitingFor.remove(dependent);
+                            readyTasks.add(dependent);
+                        }
+                    }
+                }
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void logTimeline() {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logger.info("Timing: Executing the DAG on " + threadCount + " workers took " + clock.getTime());
+        for (Map.Entry<String, List<TimelineEntry>> entry : timeline.entrySet()) {
+            StringBuilder line = new StringBuilder(entry.getKey()).append(':');
+            long busyTime = 0;
+            for (TimelineEntry timelineEntry : entry.getValue()) {
+                line.append(' ').append(timelineEntry);
+                busyTime += timelineEntry.end - timelineEntry.start;
+            }
+            line.append(" (busy ").append(busyTime).append("ms)");
+            logger.info(line.toString());
+        }
+    }
+
+    private class TaskRunner implements Runnable {
+        private final Task task;
+        private final Action<Task> action;
+
+        public TaskRunner(Task task, Action<Task> action) {
+            this.task = task;
+            this.action = action;
+        }
+
+        public void run() {
+            long startTime = clock.getTimeInMs();
+            Throwable taskFailure = null;
+            try {
+                action.execute(task);
+            } catch (Throwable e) {
+                taskFailure = e;
+            }
+            taskCompleted(task, startTime, taskFailure);
+        }
+    }
+
+    private static class TimelineEntry {
+        private final Task task;
+        private final long start;
+        private final long end;
+
+        private TimelineEntry(Task task, long start, long end) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%d-%dms]", task.getPath(), start, end);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private int counter;
+
+        public synchronized Thread newThread(Runnable runnable) {
+            counter++;
+            return new Thread(runnable, "Task worker " + counter);
+        }
+    }
+}
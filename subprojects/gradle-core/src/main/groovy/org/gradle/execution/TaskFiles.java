@@ -0,0 +1,42 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import java.io.File;
+import java.util.Map;
+
+/**
+ * The files which a task declares as its inputs and outputs, along with the other properties of the task, which are
+ * treated as inputs.
+ */
+public interface TaskFiles {
+    /**
+     * Returns the input files and directories of the task. Never returns null.
+     */
+    Iterable<File> getInputFiles();
+
+    /**
+     * Returns the output files and directories of the task. Never returns null.
+     */
+    Iterable<File> getOutputFiles();
+
+    /**
+     * Returns the values of the properties of the task which are not input or output files, by property name. Never
+     * returns null.
+     */
+    Map<String, Object> getInputProperties();
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+/**
+ * An immutable record of the most recent execution of a task, as held by a {@link TaskHistoryStore}.
+ */
+public class TaskHistory {
+    private static final byte[] NO_FINGERPRINT = new byte[0];
+
+    private final String taskPath;
+    private final long timestamp;
+    private final long duration;
+    private final boolean successful;
+    private final boolean didWork;
+    private final byte[] inputFingerprint;
+    private final byte[] outputFingerprint;
+
+    public TaskHistory(String taskPath, long timestamp, long duration, boolean successful, boolean didWork,
+                       byte[] inputFingerprint, byte[] outputFingerprint) {
+        this.taskPath = taskPath;
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.successful = successful;
+        this.didWork = didWork;
+        this.inputFingerprint = inputFingerprint == null ? NO_FINGERPRINT : inputFingerprint;
+        this.outputFingerprint = outputFingerprint == null ? NO_FINGERPRINT : outputFingerprint;
+    }
+
+    public String getTaskPath() {
+        return taskPath;
+    }
+
+    /**
+     * Returns the time at which the task output was last modified.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the duration of the execution, in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isSuccessful() {
+        return successful;
+    }
+
+    public boolean isDidWork() {
+        return didWork;
+    }
+
+    /**
+     * Returns the fingerprint of the task inputs. Returns an empty array when no fingerprint was recorded.
+     */
+    public byte[] getInputFingerprint() {
+        return inputFingerprint;
+    }
+
+    /**
+     * Returns the fingerprint of the task outputs. Returns an empty array when no fingerprint was recorded.
+     */
+    public byte[] getOutputFingerprint() {
+        return outputFingerprint;
+    }
+}
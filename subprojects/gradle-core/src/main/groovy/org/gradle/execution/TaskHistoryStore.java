@@ -0,0 +1,254 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>An append-only binary file holding the execution history of the tasks of a project. The file is read and
+ * indexed by task path in a single pass when first used, after which lookups are served from memory. Each update
+ * appends a new record, and superseded records are discarded by compacting the file when the store is closed.</p>
+ *
+ * <p>The store notices when its file has been deleted, for example by a clean, and starts again with no history. This
+ * is checked when a record is written rather than on each lookup, so a lookup may still return history from a deleted
+ * file until then. This is harmless, as the outputs of a task are compared with the output fingerprint of its
+ * history before the task is considered up-to-date.</p>
+ *
+ * <p>The stores of a build are held by its {@link TaskHistoryStores}.</p>
+ */
+public class TaskHistoryStore {
+    public static final String STORE_FILE_NAME = OutputHistoryWriter.HISTORY_DIR_NAME + ".bin";
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryStore.class);
+    private static final int MAGIC = 0x47544853;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int MIN_RECORDS_FOR_COMPACTION = 64;
+    private static final byte SUCCESSFUL = 1;
+    private static final byte DID_WORK = 2;
+
+    private final File storeFile;
+    private final Map<String, TaskHistory> entries = new HashMap<String, TaskHistory>();
+    private RandomAccessFile file;
+    private int recordCount;
+
+    TaskHistoryStore(File storeFile) {
+        this.storeFile = storeFile;
+    }
+
+    public File getStoreFile() {
+        return storeFile;
+    }
+
+    /**
+     * Returns the most recent history for the given task, or null if there is none.
+     */
+    public synchronized TaskHistory get(String taskPath) {
+        open();
+        return entries.get(taskPath);
+    }
+
+    /**
+     * Records the given history, replacing any previous history for the same task.
+     */
+    public synchronized void put(TaskHistory history) {
+        if (!storeFile.isFile()) {
+            reset();
+        }
+        open();
+        try {
+            file.seek(file.length());
+            file.write(encode(history));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        entries.put(history.getTaskPath(), history);
+        recordCount++;
+    }
+
+    /**
+     * Closes this store, first compacting the file if it holds many superseded records.
+     */
+    public synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        file = null;
+        if (recordCount >= MIN_RECORDS_FOR_COMPACTION && recordCount > 2 * entries.size() && storeFile.isFile()) {
+            compact();
+        }
+        entries.clear();
+        recordCount = 0;
+    }
+
+    private void reset() {
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Ignore - the file has been deleted
+            }
+            file = null;
+        }
+        entries.clear();
+        recordCount = 0;
+    }
+
+    private void open() {
+        if (file != null) {
+            return;
+        }
+        File backupFile = getBackupFile();
+        if (!storeFile.exists() && backupFile.isFile()) {
+            // An earlier compaction did not complete, so go back to the file it replaced
+            backupFile.renameTo(storeFile);
+        }
+        try {
+            storeFile.getParentFile().mkdirs();
+            file = new RandomAccessFile(storeFile, "rw");
+            long validLength = load(file.getChannel());
+            if (validLength < file.length() || validLength == 0) {
+                // Discard an incomplete trailing record, or start a new file
+                file.setLength(validLength);
+                if (validLength == 0) {
+                    file.writeInt(MAGIC);
+                    file.writeInt(VERSION);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long load(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) {
+            return 0;
+        }
+        // Read rather than map the file, as a mapping stops the file from being replaced by compact() on Windows
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            logger.debug("Discarding task history {} as it has an unknown format.", storeFile);
+            return 0;
+        }
+        int validPosition = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                TaskHistory history = decode(buffer);
+                entries.put(history.getTaskPath(), history);
+                recordCount++;
+                validPosition = buffer.position();
+            }
+        } catch (BufferUnderflowException e) {
+            logger.debug("Discarding incomplete record at the end of task history {}.", storeFile);
+        }
+        return validPosition;
+    }
+
+    private void compact() {
+        File tmpFile = new File(storeFile.getParentFile(), storeFile.getName() + ".tmp");
+        try {
+            DataOutputStream outstr = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                outstr.writeInt(MAGIC);
+                outstr.writeInt(VERSION);
+                for (TaskHistory history : entries.values()) {
+                    outstr.write(encode(history));
+                }
+            } finally {
+                outstr.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (tmpFile.renameTo(storeFile)) {
+            return;
+        }
+
+        // The rename cannot replace an existing file on some platforms, so move the store file out of the way first,
+        // and only discard it once it has been replaced
+        File backupFile = getBackupFile();
+        backupFile.delete();
+        if (storeFile.renameTo(backupFile)) {
+            if (tmpFile.renameTo(storeFile)) {
+                backupFile.delete();
+                return;
+            }
+            backupFile.renameTo(storeFile);
+        }
+        logger.warn("Could not compact task history {}.", storeFile);
+        tmpFile.delete();
+    }
+
+    private File getBackupFile() {
+        return new File(storeFile.getParentFile(), storeFile.getName() + ".bak");
+    }
+
+    private static byte[] encode(TaskHistory history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream outstr = new DataOutputStream(bytes);
+        byte[] path = history.getTaskPath().getBytes("UTF-8");
+        outstr.writeShort(path.length);
+        outstr.write(path);
+        outstr.writeLong(history.getTimestamp());
+        outstr.writeLong(history.getDuration());
+        outstr.writeByte((history.isSuccessful() ? SUCCESSFUL : 0) | (history.isDidWork() ? DID_WORK : 0));
+        outstr.writeShort(history.getInputFingerprint().length);
+        outstr.write(history.getInputFingerprint());
+        outstr.writeShort(history.getOutputFingerprint().length);
+        outstr.write(history.getOutputFingerprint());
+        outstr.flush();
+        return bytes.toByteArray();
+    }
+
+    private static TaskHistory decode(ByteBuffer buffer) throws IOException {
+        String path = new String(readBytes(buffer), "UTF-8");
+        long timestamp = buffer.getLong();
+        long duration = buffer.getLong();
+        byte flags = buffer.get();
+        byte[] inputFingerprint = readBytes(buffer);
+        byte[] outputFingerprint = readBytes(buffer);
+        return new TaskHistory(path, timestamp, duration, (flags & SUCCESSFUL) != 0, (flags & DID_WORK) != 0,
+                inputFingerprint, outputFingerprint);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xffff];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link TaskHistoryStore}s opened by a build, one per build directory. Each build has its own stores, which are
+ * closed when the build finishes.
+ */
+public class TaskHistoryStores extends BuildAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(TaskHistoryStores.class);
+
+    private final Map<File, TaskHistoryStore> stores = new HashMap<File, TaskHistoryStore>();
+
+    /**
+     * Returns the store which holds the history of the given task, using the stores of the build of the task.
+     */
+    public static TaskHistoryStore forTask(Task task) {
+        Project project = task.getProject();
+        return ((ProjectInternal) project).getGradle().getTaskHistoryStores().forBuildDir(project.getBuildDir());
+    }
+
+    /**
+     * Returns the store for the given build directory, loading it if required.
+     */
+    public TaskHistoryStore forBuildDir(File buildDir) {
+        File storeFile = new File(buildDir, TaskHistoryStore.STORE_FILE_NAME).getAbsoluteFile();
+        synchronized (stores) {
+            TaskHistoryStore store = stores.get(storeFile);
+            if (store == null) {
+                store = new TaskHistoryStore(storeFile);
+                stores.put(storeFile, store);
+            }
+            return store;
+        }
+    }
+
+    /**
+     * Compacts and closes all the stores which have been opened. A store which fails to close is logged and skipped,
+     * so that the remaining stores are still closed.
+     */
+    public void close() {
+        List<TaskHistoryStore> openStores;
+        synchronized (stores) {
+            openStores = new ArrayList<TaskHistoryStore>(stores.values());
+            stores.clear();
+        }
+        for (TaskHistoryStore store : openStores) {
+            try {
+                store.close();
+            } catch (RuntimeException e) {
+                logger.warn(String.format("Could not close task history %s.", store.getStoreFile()), e);
+            }
+        }
+    }
+
+    @Override
+    public void buildFinished(BuildResult result) {
+        close();
+    }
+}
@@ -19,6 +19,7 @@ import org.apache.commons.lang.StringUtils;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.tasks.TaskIndex;
 import org.gradle.util.GUtil;
 
 import java.util.*;
@@ -27,9 +28,13 @@ import java.util.regex.Matcher;
 
 /**
  * A {@link BuildExecuter} which selects tasks which match the provided names. For each name, selects all tasks in all
- * projects whose name is the given name.
+ * projects whose name is the given name. Tasks are looked up using the {@link TaskIndex} of the build, and camel-case
+ * abbreviations are matched against the distinct task names of the build rather than against each task.
  */
 public class TaskNameResolvingBuildExecuter implements BuildExecuter {
+    private static final Pattern BOUNDARY_PATTERN = Pattern.compile(
+            "(^\\p{javaLowerCase}+)|(\\p{javaUpperCase}\\p{javaLowerCase}*)");
+
     private final List<String> names;
     private String description;
     private TaskExecuter executer;
@@ -58,7 +63,9 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
 
     private static Map<String, Collection<Task>> doSelect(GradleInternal gradle, Iterable<String> paths) {
         Project defaultProject = gradle.getDefaultProject();
+        TaskIndex taskIndex = gradle.getTaskIndex();
 
+        Set<Project> projects = null;
         Map<String, Collection<Task>> allProjectsTasksByName = null;
 
         Map<String, Collection<Task>> matches = new LinkedHashMap<String, Collection<Task>>();
@@ -90,13 +97,16 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
 
             }
             else {
-                Set<Task> tasks = defaultProject.getTasksByName(path, true);
+                if (projects == null) {
+                    projects = new HashSet<Project>(defaultProject.getAllprojects());
+                }
+                Set<Task> tasks = taskIndex.getTasksByName(path, projects);
                 if (!tasks.isEmpty()) {
                     matches.put(path, tasks);
                     continue;
                 }
                 if (allProjectsTasksByName == null) {
-                    allProjectsTasksByName = buildTaskMap(defaultProject);
+                    allProjectsTasksByName = new TaskNameMap(taskIndex, projects);
                 }
                 tasksByName = allProjectsTasksByName;
                 baseName = path;
@@ -105,15 +115,10 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
 
             Pattern pattern = getPatternForName(baseName);
             Set<String> patternCandidates = new TreeSet<String>();
-            Set<String> typoCandidates = new TreeSet<String>();
             for (String candidate : tasksByName.keySet()) {
-                if (pattern.matcher(candidate).matches()) {
+                if (pattern.matcher(candidate).matches() && tasksByName.get(candidate) != null) {
                     patternCandidates.add(candidate);
                 }
-                if (StringUtils.getLevenshteinDistance(baseName.toUpperCase(), candidate.toUpperCase()) <= Math.min(3,
-                        baseName.length() / 2)) {
-                    typoCandidates.add(candidate);
-                }
             }
             if (patternCandidates.size() == 1) {
                 String actualName = patternCandidates.iterator().next();
@@ -125,6 +130,14 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
                 throw new TaskSelectionException(String.format("Task '%s' is ambiguous in %s. Candidates are: %s.",
                         baseName, defaultProject, GUtil.toString(patternCandidates)));
             }
+
+            Set<String> typoCandidates = new TreeSet<String>();
+            for (String candidate : tasksByName.keySet()) {
+                if (StringUtils.getLevenshteinDistance(baseName.toUpperCase(), candidate.toUpperCase()) <= Math.min(3,
+                        baseName.length() / 2) && tasksByName.get(candidate) != null) {
+                    typoCandidates.add(candidate);
+                }
+            }
             if (!typoCandidates.isEmpty()) {
                 throw new TaskSelectionException(String.format("Task '%s' not found in %s. Some candidates are: %s.",
                         baseName, defaultProject, GUtil.toString(typoCandidates)));
@@ -136,8 +149,7 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
     }
 
     private static Pattern getPatternForName(String name) {
-        Pattern boundaryPattern = Pattern.compile("(^\\p{javaLowerCase}+)|(\\p{javaUpperCase}\\p{javaLowerCase}*)");
-        Matcher matcher = boundaryPattern.matcher(name);
+        Matcher matcher = BOUNDARY_PATTERN.matcher(name);
         int pos = 0;
         StringBuilder builder = new StringBuilder();
         while (matcher.find()) {
@@ -151,21 +163,6 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
         return Pattern.compile(builder.toString());
     }
 
-    private static Map<String, Collection<Task>> buildTaskMap(Project defaultProject) {
-        Map<String, Collection<Task>> tasksByName = new HashMap<String, Collection<Task>>();
-        for (Project project : defaultProject.getAllprojects()) {
-            for (Task task : project.getTasks().getAll()) {
-                Collection<Task> tasksForName = tasksByName.get(task.getName());
-                if (tasksForName == null) {
-                    tasksForName = new HashSet<Task>();
-                    tasksByName.put(task.getName(), tasksForName);
-                }
-                tasksForName.add(task);
-            }
-        }
-        return tasksByName;
-    }
-
     public String getDisplayName() {
         return description;
     }
@@ -173,4 +170,48 @@ public class TaskNameResolvingBuildExecuter implements BuildExecuter {
     public void execute() {
         executer.execute();
     }
+
+    /**
+     * The tasks of a set of projects, grouped by name. The names are those of all tasks in the build, and the tasks
+     * for each name are looked up from the index when first requested. A name with no tasks in the given projects
+     * maps to null.
+     */
+    private static class TaskNameMap extends AbstractMap<String, Collection<Task>> {
+        private final TaskIndex taskIndex;
+        private final Set<Project> projects;
+        private final Set<String> names;
+        private final Map<String, Collection<Task>> tasksByName = new HashMap<String, Collection<Task>>();
+
+        private TaskNameMap(TaskIndex taskIndex, Set<Project> projects) {
+            this.taskIndex = taskIndex;
+            this.projects = projects;
+            names = taskIndex.getTaskNames();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return names;
+        }
+
+        @Override
+        public Collection<Task> get(Object key) {
+            if (!names.contains(key)) {
+                return null;
+            }
+            if (!tasksByName.containsKey(key)) {
+                Set<Task> tasks = taskIndex.findTasksByName((String) key, projects);
+                tasksByName.put((String) key, tasks.isEmpty() ? null : tasks);
+            }
+            return tasksByName.get(key);
+        }
+
+        @Override
+        public Set<Entry<String, Collection<Task>>> entrySet() {
+            Map<String, Collection<Task>> entries = new HashMap<String, Collection<Task>>();
+            for (String name : names) {
+                entries.put(name, get(name));
+            }
+            return entries.entrySet();
+        }
+    }
 }
@@ -28,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -58,13 +59,17 @@ public class JUnitTestFramework extends AbstractTestFramework {
     }
 
     public void prepare(Project project, Test testTask) {
-        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath());
+        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(), getClassCacheFile(project, testTask));
     }
 
     public void execute(Project project, Test testTask, Collection<String> includes, Collection<String> excludes) {
         antJUnitExecute.execute(testTask.getTestClassesDir(), testTask.getClasspath(), testTask.getTestResultsDir(), includes, excludes, options, project.getAnt());
     }
 
+    public void executeForks(Project project, Test testTask, List<? extends Collection<String>> forkIncludes) {
+        antJUnitExecute.execute(testTask.getTestClassesDir(), testTask.getClasspath(), testTask.getTestResultsDir(), forkIncludes, options, project.getAnt());
+    }
+
     public void report(Project project, Test testTask) {
         antJUnitReport.execute(testTask.getTestResultsDir(), testTask.getTestReportDir(), project.getAnt());
     }
@@ -98,6 +103,7 @@ public class JUnitTestFramework extends AbstractTestFramework {
     }
 
     public Set<String> getTestClassNames() {
+        detector.saveCache();
         return detector.getTestClassNames();
     }
 }
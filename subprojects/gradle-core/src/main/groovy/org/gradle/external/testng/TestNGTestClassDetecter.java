@@ -22,18 +22,12 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.gradle.api.testing.execution.TestClassVisitor;
 import org.gradle.api.testing.TestFrameworkDetector;
-import org.slf4j.LoggerFactory;
-import org.slf4j.Logger;
-
-import java.io.File;
 
 /**
  * @author Tom Eyckmans
  */
 class TestNGTestClassDetecter extends TestClassVisitor {
 
-    private static final Logger LOG = LoggerFactory.getLogger(TestNGTestClassDetecter.class);
-
     private boolean isAbstract = false;
     private String className = null;
     private String superClassName = null;
@@ -89,38 +83,6 @@ class TestNGTestClassDetecter extends TestClassVisitor {
         return new EmptyVisitor();
     }
 
-    /**
-     * Visits information about an inner class. This inner class is not
-     * necessarily a member of the class being visited.
-     *
-     * @param name      the internal name of an inner class (see
-     *                  {@link org.objectweb.asm.Type#getInternalName() getInternalName}).
-     * @param outerName the internal name of the class to which the inner class
-     *                  belongs (see {@link org.objectweb.asm.Type#getInternalName() getInternalName}). May
-     *                  be <tt>null</tt> for not member classes.
-     * @param innerName the (simple) name of the inner class inside its
-     *                  enclosing class. May be <tt>null</tt> for anonymous inner
-     *                  classes.
-     * @param access    the access flags of the inner class as originally declared
-     *                  in the enclosing class.
-     */
-    public void visitInnerClass(
-            String name,
-            String outerName,
-            String innerName,
-            int access) {
-        boolean isStatic = (access & Opcodes.ACC_STATIC) != 0;
-        boolean isPublic = (access & Opcodes.ACC_PUBLIC) != 0;
-        if( outerName != null && innerName != null && isStatic && isPublic ) {
-            final File innerTestClassFile = new File(detector.getTestClassesDirectory(), className + "$" + innerName + ".class");
-            if ( innerTestClassFile.exists() ) {
-                if ( detector.processPossibleTestClass(innerTestClassFile) )
-                    LOG.debug("test-class-scan : [inner test class] : "+className+" : [name: " + name + ", outerName: " + outerName + ", innerName: " + innerName + "]");
-            }
-        }
-    }
-
-
 
     /**
      * Visits a method of the class. This method <i>must</i> return a new
@@ -48,7 +48,7 @@ public class TestNGTestFramework extends AbstractTestFramework {
     }
 
     public void prepare(Project project, Test testTask) {
-        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath());
+        detector = new TestNGDetector(testTask.getTestClassesDir(), testTask.getClasspath(), getClassCacheFile(project, testTask));
     }
 
     public void execute(Project project, Test testTask, Collection<String> includes, Collection<String> excludes) {
@@ -92,6 +92,7 @@ public class TestNGTestFramework extends AbstractTestFramework {
     }
 
     public Set<String> getTestClassNames() {
+        detector.saveCache();
         return detector.getTestClassNames();
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts;
+
+import org.gradle.util.HashUtil;
+
+import java.io.File;
+
+/**
+ * <p>A {@link ScriptSource} which names the script class after the content of the script rather than after its
+ * location. Scripts with the same kind of source name and identical content, such as the build scripts of many
+ * similar projects, share the same class name and so can share a single compiled class.</p>
+ *
+ * <p>The text of the script is read once, when this source is created.</p>
+ */
+public class ContentAddressedScriptSource implements ScriptSource {
+    private final ScriptSource source;
+    private final String text;
+    private final String className;
+
+    public ContentAddressedScriptSource(ScriptSource source) {
+        this.source = source;
+        String text = source.getText();
+        this.text = text == null ? "" : text;
+        this.className = getClassName(source.getClassName(), this.text);
+    }
+
+    /**
+     * Returns the content-addressed class name for the given script source. This is the same value as the class name
+     * and file name of a {@code ContentAddressedScriptSource} created for the source.
+     */
+    public static String getClassName(ScriptSource source) {
+        String text = source.getText();
+        return getClassName(source.getClassName(), text == null ? "" : text);
+    }
+
+    private static String getClassName(String originalClassName, String text) {
+        // Replace the location based id of the original name, if any, with a hash of the content
+        int index = originalClassName.lastIndexOf('_');
+        String prefix = index > 0 ? originalClassName.substring(0, index) : originalClassName;
+        return prefix + '_' + HashUtil.createHash(text);
+    }
+
+    public ScriptSource getSource() {
+        return source;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public File getSourceFile() {
+        return source.getSourceFile();
+    }
+
+    /**
+     * Returns the class name, as a compiled class may be shared by several source files.
+     */
+    public String getFileName() {
+        return className;
+    }
+
+    public String getDisplayName() {
+        return source.getDisplayName();
+    }
+}
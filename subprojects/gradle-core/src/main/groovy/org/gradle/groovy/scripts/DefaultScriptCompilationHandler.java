@@ -35,11 +35,26 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 
 import java.io.File;
+import java.lang.ref.WeakReference;
 import java.net.URLClassLoader;
 import java.security.CodeSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import static java.util.Collections.*;
 
 /**
+ * <p>Compiles scripts, optionally writing the compiled classes to a cache directory.</p>
+ *
+ * <p>A cache directory is written by compiling into a temporary directory which is then renamed, so that a build
+ * never sees a partially written cache directory, even when several builds share the cache. A class loaded from a
+ * cache directory is reused for all scripts subsequently loaded from that directory with the same parent
+ * classloader. The cache does not keep either the parent classloader or the loaded class alive, so a class is
+ * discarded once the scripts created from it are no longer used.</p>
+ *
  * @author Hans Dockter
  */
 public class DefaultScriptCompilationHandler implements ScriptCompilationHandler {
@@ -47,6 +62,12 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
     static final String DEBUGINFO_KEY = "sourcefile";
 
     private final CachePropertiesHandler cachePropertiesHandler;
+    private final Map<File, Map<ClassLoader, WeakReference<Class>>> loadedClasses
+            = new HashMap<File, Map<ClassLoader, WeakReference<Class>>>();
+    private final AtomicInteger compileCount = new AtomicInteger();
+    private final AtomicLong compileTime = new AtomicLong();
+    private final AtomicInteger loadCount = new AtomicInteger();
+    private final AtomicLong loadTime = new AtomicLong();
 
     public DefaultScriptCompilationHandler(CachePropertiesHandler cachePropertiesHandler) {
         this.cachePropertiesHandler = cachePropertiesHandler;
@@ -67,15 +88,54 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
     public void writeToCache(ScriptSource source, ClassLoader classLoader, File scriptCacheDir,
                              Transformer transformer, Class<? extends Script> scriptBaseClass) {
         Clock clock = new Clock();
-        GFileUtils.deleteDirectory(scriptCacheDir);
-        scriptCacheDir.mkdirs();
-        CompilerConfiguration configuration = createBaseCompilerConfiguration(scriptBaseClass);
-        configuration.setTargetDirectory(scriptCacheDir);
-        compileScript(source, classLoader, configuration, transformer);
+        scriptCacheDir.getParentFile().mkdirs();
+        File tmpDir = new File(scriptCacheDir.getParentFile(), String.format("%s-%s.tmp", scriptCacheDir.getName(),
+                UUID.randomUUID()));
+        tmpDir.mkdirs();
+        try {
+            CompilerConfiguration configuration = createBaseCompilerConfiguration(scriptBaseClass);
+            configuration.setTargetDirectory(tmpDir);
+            compileScript(source, classLoader, configuration, transformer);
+            cachePropertiesHandler.writeProperties(source, tmpDir, singletonMap(DEBUGINFO_KEY, source.getFileName()));
+            moveToCache(source, tmpDir, scriptCacheDir);
+        } finally {
+            if (tmpDir.exists()) {
+                GFileUtils.deleteDirectory(tmpDir);
+            }
+        }
 
-        cachePropertiesHandler.writeProperties(source, scriptCacheDir, singletonMap(DEBUGINFO_KEY, source.getFileName()));
+        long time = clock.getTimeInMs();
         logger.debug("Timing: Writing script to cache at {} took: {}", scriptCacheDir.getAbsolutePath(),
                 clock.getTime());
+        logger.debug("Timing: Compiled {} scripts in {}ms, loaded {} scripts from cache in {}ms.", new Object[]{
+                compileCount.incrementAndGet(), compileTime.addAndGet(time), loadCount.get(), loadTime.get()});
+    }
+
+    private void moveToCache(ScriptSource source, File tmpDir, File scriptCacheDir) {
+        synchronized (loadedClasses) {
+            loadedClasses.remove(scriptCacheDir);
+        }
+        if (tmpDir.renameTo(scriptCacheDir)) {
+            return;
+        }
+        if (isValid(source, scriptCacheDir)) {
+            // Another build has cached the same script in the meantime
+            return;
+        }
+        GFileUtils.deleteDirectory(scriptCacheDir);
+        if (!tmpDir.renameTo(scriptCacheDir) && !isValid(source, scriptCacheDir)) {
+            throw new GradleException(String.format("Could not write compiled %s to cache directory '%s'.",
+                    source.getDisplayName(), scriptCacheDir));
+        }
+    }
+
+    public boolean isCached(ScriptSource source, File scriptCacheDir) {
+        return isValid(source, scriptCacheDir);
+    }
+
+    private boolean isValid(ScriptSource source, File scriptCacheDir) {
+        return cachePropertiesHandler.getCacheState(source, scriptCacheDir, singletonMap(DEBUGINFO_KEY,
+                source.getFileName())) == CachePropertiesHandler.CacheState.VALID;
     }
 
     private Class compileScript(final ScriptSource source, ClassLoader classLoader, CompilerConfiguration configuration,
@@ -142,16 +202,20 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
 
     public <T extends Script> T loadFromCache(ScriptSource source, ClassLoader classLoader, File scriptCacheDir,
                                               Class<T> scriptBaseClass) {
-        CachePropertiesHandler.CacheState cacheState = cachePropertiesHandler.getCacheState(source, scriptCacheDir, singletonMap(DEBUGINFO_KEY, source.getFileName()));
-        if (cacheState == CachePropertiesHandler.CacheState.INVALID) {
-            return null;
-        }
         Clock clock = new Clock();
+        Class scriptClass = getLoadedClass(classLoader, scriptCacheDir);
         Script script;
         try {
-            URLClassLoader urlClassLoader = new URLClassLoader(WrapUtil.toArray(scriptCacheDir.toURI().toURL()),
-                    classLoader);
-            script = (Script) urlClassLoader.loadClass(source.getClassName()).newInstance();
+            if (scriptClass == null) {
+                if (!isValid(source, scriptCacheDir)) {
+                    return null;
+                }
+                URLClassLoader urlClassLoader = new URLClassLoader(WrapUtil.toArray(scriptCacheDir.toURI().toURL()),
+                        classLoader);
+                scriptClass = urlClassLoader.loadClass(source.getClassName());
+                addLoadedClass(classLoader, scriptCacheDir, scriptClass);
+            }
+            script = (Script) scriptClass.newInstance();
         } catch (ClassNotFoundException e) {
             logger.debug("Class not in cache: ", e);
             return null;
@@ -161,10 +225,37 @@ public class DefaultScriptCompilationHandler implements ScriptCompilationHandler
         if (!scriptBaseClass.isInstance(script)) {
             return null;
         }
+
+        long time = clock.getTimeInMs();
         logger.debug("Timing: Loading script from cache took: {}", clock.getTime());
+        logger.debug("Timing: Compiled {} scripts in {}ms, loaded {} scripts from cache in {}ms.", new Object[]{
+                compileCount.get(), compileTime.get(), loadCount.incrementAndGet(), loadTime.addAndGet(time)});
         return scriptBaseClass.cast(script);
     }
 
+    private Class getLoadedClass(ClassLoader classLoader, File scriptCacheDir) {
+        synchronized (loadedClasses) {
+            Map<ClassLoader, WeakReference<Class>> classes = loadedClasses.get(scriptCacheDir);
+            if (classes == null) {
+                return null;
+            }
+            WeakReference<Class> scriptClass = classes.get(classLoader);
+            return scriptClass == null ? null : scriptClass.get();
+        }
+    }
+
+    private void addLoadedClass(ClassLoader classLoader, File scriptCacheDir, Class scriptClass) {
+        synchronized (loadedClasses) {
+            Map<ClassLoader, WeakReference<Class>> classes = loadedClasses.get(scriptCacheDir);
+            if (classes == null) {
+                // The script class references its parent classloader, so is held weakly as well as the classloader
+                classes = new WeakHashMap<ClassLoader, WeakReference<Class>>();
+                loadedClasses.put(scriptCacheDir, classes);
+            }
+            classes.put(classLoader, new WeakReference<Class>(scriptClass));
+        }
+    }
+
     public CachePropertiesHandler getCachePropertyHandler() {
         return cachePropertiesHandler;
     }
@@ -20,6 +20,10 @@ import org.gradle.CacheUsage;
 import java.io.File;
 
 /**
+ * <p>Creates {@link ScriptCompiler} instances which, unless caching is switched off, keep the compiled script classes
+ * in a cache keyed by the content of the script. Scripts with identical content share a single cache entry, whichever
+ * project or location they come from.</p>
+ *
  * @author Hans Dockter
  */
 public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
@@ -77,13 +81,24 @@ public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
             return scriptCompilationHandler.createScriptOnTheFly(source, classLoader, transformer, scriptBaseClass);
         }
 
-        private <T extends Script> T loadViaCache(ClassLoader classLoader, Class<T> scriptBaseClass) {
-            File scriptCacheDir = new File(cacheDir, source.getClassName());
-            if (transformer != null) {
-                scriptCacheDir = new File(scriptCacheDir, transformer.getClass().getSimpleName());
-            } else {
-                scriptCacheDir = new File(scriptCacheDir, "NoTransformer");
+        public void precompile(Class<? extends Script> scriptType) {
+            if (cacheUsage != CacheUsage.ON) {
+                // The script is compiled anyway when it is loaded
+                return;
+            }
+            ClassLoader classloader = this.classloader != null ? this.classloader
+                    : Thread.currentThread().getContextClassLoader();
+            ScriptSource source = new ContentAddressedScriptSource(this.source);
+            File scriptCacheDir = getCacheDir(source, scriptType);
+            if (scriptCompilationHandler.isCached(source, scriptCacheDir)) {
+                return;
             }
+            scriptCompilationHandler.writeToCache(source, classloader, scriptCacheDir, transformer, scriptType);
+        }
+
+        private <T extends Script> T loadViaCache(ClassLoader classLoader, Class<T> scriptBaseClass) {
+            ScriptSource source = new ContentAddressedScriptSource(this.source);
+            File scriptCacheDir = getCacheDir(source, scriptBaseClass);
 
             if (cacheUsage == CacheUsage.ON) {
                 T cachedScript = scriptCompilationHandler.loadFromCache(source, classLoader, scriptCacheDir,
@@ -95,5 +110,11 @@ public class DefaultScriptCompilerFactory implements ScriptCompilerFactory {
             scriptCompilationHandler.writeToCache(source, classLoader, scriptCacheDir, transformer, scriptBaseClass);
             return scriptCompilationHandler.loadFromCache(source, classLoader, scriptCacheDir, scriptBaseClass);
         }
+
+        private File getCacheDir(ScriptSource source, Class<? extends Script> scriptBaseClass) {
+            String transformerName = transformer != null ? transformer.getClass().getSimpleName() : "NoTransformer";
+            return new File(new File(cacheDir, source.getClassName()), transformerName + "_"
+                    + scriptBaseClass.getSimpleName());
+        }
     }
 }
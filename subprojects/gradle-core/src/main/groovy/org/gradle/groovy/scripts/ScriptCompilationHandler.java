@@ -31,4 +31,6 @@ public interface ScriptCompilationHandler {
 
     <T extends Script> T loadFromCache(ScriptSource source, ClassLoader classLoader, File scriptCacheDir,
                                        Class<T> scriptBaseClass);
+
+    boolean isCached(ScriptSource source, File scriptCacheDir);
 }
@@ -38,4 +38,13 @@ public interface ScriptCompiler {
      * @throws GradleScriptException On compilation failure.
      */
     <T extends Script> ScriptRunner<T> compile(Class<T> scriptType) throws GradleScriptException;
+
+    /**
+     * Compiles the script into the script cache without loading it, so that a later call to {@link #compile} with the
+     * same transformer and script type can load it from the cache. Does nothing when the script is already cached, or
+     * when the cache is switched off or being rebuilt.
+     *
+     * @throws GradleScriptException On compilation failure.
+     */
+    void precompile(Class<? extends Script> scriptType) throws GradleScriptException;
 }
@@ -30,6 +30,9 @@ import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.internal.plugins.DefaultPluginRegistry;
 import org.gradle.api.internal.project.*;
+import org.gradle.api.internal.tasks.TaskIndex;
+import org.gradle.execution.FileFingerprinter;
+import org.gradle.execution.TaskHistoryStores;
 import org.gradle.execution.DefaultTaskExecuter;
 import org.gradle.execution.TaskExecuter;
 import org.gradle.util.ConfigureUtil;
@@ -52,6 +55,9 @@ public class DefaultGradle implements GradleInternal {
     private DefaultPluginRegistry pluginRegistry;
     private ScriptHandler scriptHandler;
     private ScriptClassLoaderProvider scriptClassLoaderProvider;
+    private TaskIndex taskIndex;
+    private FileFingerprinter fileFingerprinter;
+    private TaskHistoryStores taskHistoryStores;
     private final ListenerBroadcast<ProjectEvaluationListener> projectEvaluationListenerBroadcast
             = new ListenerBroadcast<ProjectEvaluationListener>(ProjectEvaluationListener.class);
     private final ListenerBroadcast<BuildListener> buildListeners = new ListenerBroadcast<BuildListener>(
@@ -65,11 +71,14 @@ public class DefaultGradle implements GradleInternal {
         this.standardOutputRedirector = standardOutputRedirector;
         this.projectRegistry = new DefaultProjectRegistry<ProjectInternal>();
         this.pluginRegistry = new DefaultPluginRegistry(startParameter.getPluginPropertiesFile());
-        this.taskGraph = new DefaultTaskExecuter();
+        this.taskGraph = new DefaultTaskExecuter(startParameter.getParallelThreadCount());
 
         ServiceRegistry serviceRegistry = serviceRegistryFactory.createForBuild(this);
         scriptHandler = serviceRegistry.get(ScriptHandler.class);
         scriptClassLoaderProvider = serviceRegistry.get(ScriptClassLoaderProvider.class);
+        taskIndex = serviceRegistry.get(TaskIndex.class);
+        fileFingerprinter = serviceRegistry.get(FileFingerprinter.class);
+        taskHistoryStores = serviceRegistry.get(TaskHistoryStores.class);
     }
 
     public String getGradleVersion() {
@@ -181,6 +190,18 @@ public class DefaultGradle implements GradleInternal {
         return standardOutputRedirector;
     }
 
+    public TaskIndex getTaskIndex() {
+        return taskIndex;
+    }
+
+    public FileFingerprinter getFileFingerprinter() {
+        return fileFingerprinter;
+    }
+
+    public TaskHistoryStores getTaskHistoryStores() {
+        return taskHistoryStores;
+    }
+
     public void captureStandardOutput(LogLevel level) {
         standardOutputRedirector.on(level);
     }
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.util;
+
+import org.gradle.api.GradleException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * <p>Generates the broadcaster class for a listener type. For each method of the listener type, the generated class
+ * contains a method which iterates over the current listeners and calls the method on each listener directly. A
+ * {@link ListenerBroadcast.ClosureListener} is instead notified with the index of the method and the boxed
+ * parameters.</p>
+ *
+ * <p>The broadcaster class for each listener type is generated once, and defined in the class loader of the listener
+ * type. The cache refers to the listener types and their broadcasters weakly, so that listener types loaded by a
+ * discarded class loader, such as a build script class loader, can be collected. When a cached broadcaster has been
+ * collected while its class is still loaded, the loaded class is reused rather than defined again.</p>
+ */
+class BroadcastClassGenerator {
+    private static final Map<Class<?>, WeakReference<GeneratedBroadcaster>> generatedClasses
+            = new WeakHashMap<Class<?>, WeakReference<GeneratedBroadcaster>>();
+
+    private static final Type broadcasterType = Type.getType(ListenerBroadcast.Broadcaster.class);
+    private static final Type closureListenerType = Type.getType(ListenerBroadcast.ClosureListener.class);
+    private static final Type objectType = Type.getType(Object.class);
+    private static final Type listenerBroadcastType = Type.getType(ListenerBroadcast.class);
+
+    public static GeneratedBroadcaster generate(Class<?> type) {
+        synchronized (generatedClasses) {
+            WeakReference<GeneratedBroadcaster> reference = generatedClasses.get(type);
+            GeneratedBroadcaster generated = reference == null ? null : reference.get();
+            if (generated == null) {
+                try {
+                    generated = new BroadcastClassGenerator(type).generate();
+                } catch (Exception e) {
+                    throw new GradleException(String.format("Could not generate a broadcaster class for %s.",
+                            type.getName()), e);
+                }
+                generatedClasses.put(type, new WeakReference<GeneratedBroadcaster>(generated));
+            }
+            return generated;
+        }
+    }
+
+    private final Class<?> type;
+    private final Type listenerType;
+    private final String typeName;
+    private final Type generatedType;
+    private final ClassWriter visitor = new ClassWriter(true);
+
+    private BroadcastClassGenerator(Class<?> type) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException(String.format("%s is not an interface.", type.getName()));
+        }
+        this.type = type;
+        listenerType = Type.getType(type);
+        String name = type.getName() + "_Broadcast";
+        typeName = name.startsWith("java.") ? "org.gradle.util." + name.replace('.', '_') : name;
+        generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
+    }
+
+    private GeneratedBroadcaster generate() throws Exception {
+        ClassLoader classLoader = type.getClassLoader() != null ? type.getClassLoader()
+                : ListenerBroadcast.class.getClassLoader();
+        Method[] methods = getBroadcastMethods();
+        Class<?> generatedClass = (Class<?>) ReflectionUtil.invoke(classLoader, "findLoadedClass", new Object[]{
+                typeName
+        });
+        if (generatedClass == null) {
+            generatedClass = defineClass(classLoader, methods);
+        }
+        return new GeneratedBroadcaster(generatedClass.getConstructor(ListenerBroadcast.class), methods);
+    }
+
+    private Class<?> defineClass(ClassLoader classLoader, Method[] methods) throws Exception {
+        visitor.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, generatedType.getInternalName(), null,
+                broadcasterType.getInternalName(), new String[]{listenerType.getInternalName()});
+
+        addConstructor();
+        for (int i = 0; i < methods.length; i++) {
+            addBroadcastMethod(methods[i], i);
+        }
+
+        visitor.visitEnd();
+
+        byte[] bytecode = visitor.toByteArray();
+        return (Class<?>) ReflectionUtil.invoke(classLoader, "defineClass", new Object[]{
+                typeName, bytecode, 0, bytecode.length
+        });
+    }
+
+    private Method[] getBroadcastMethods() {
+        Map<String, Method> methods = new TreeMap<String, Method>();
+        for (Method method : type.getMethods()) {
+            if (isObjectMethod(method)) {
+                continue;
+            }
+            methods.put(method.getName() + Type.getMethodDescriptor(method), method);
+        }
+        return methods.values().toArray(new Method[methods.size()]);
+    }
+
+    private boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void addConstructor() {
+        // GENERATE public <type>_Broadcast(ListenerBroadcast broadcast) { super(broadcast); }
+
+        String constructorDesc = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{listenerBroadcastType});
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", constructorDesc, null,
+                new String[0]);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, broadcasterType.getInternalName(), "<init>",
+                constructorDesc);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        // END
+    }
+
+    private void addBroadcastMethod(Method method, int methodIndex) {
+        // GENERATE public <return> <method>(<params>) {
+        //     Object[] listeners = getListeners();
+        //     for (int i = 0; i < listeners.length; i++) {
+        //         Object listener = listeners[i];
+        //         if (listener instanceof ClosureListener) {
+        //             ((ClosureListener) listener).notify(<methodIndex>, new Object[]{<params>});
+        //         } else {
+        //             try {
+        //                 ((<type>) listener).<method>(<params>);
+        //             } catch (Throwable t) {
+        //                 throw listenerFailed(t);
+        //             }
+        //         }
+        //     }
+        //     return <default value>;
+        // }
+
+        String methodDescriptor = Type.getMethodDescriptor(method);
+        Type[] paramTypes = Type.getArgumentTypes(method);
+        Type returnType = Type.getReturnType(method);
+
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), methodDescriptor,
+                null, getExceptionNames(method));
+        methodVisitor.visitCode();
+
+        int listenersVar = 1;
+        for (Type paramType : paramTypes) {
+            listenersVar += paramType.getSize();
+        }
+        int indexVar = listenersVar + 1;
+        int listenerVar = indexVar + 1;
+
+        Label loopStart = new Label();
+        Label loopEnd = new Label();
+        Label directCall = new Label();
+        Label next = new Label();
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label handler = new Label();
+        methodVisitor.visitTryCatchBlock(tryStart, tryEnd, handler, "java/lang/Throwable");
+
+        // GENERATE Object[] listeners = getListeners()
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "getListeners",
+                Type.getMethodDescriptor(Type.getType(Object[].class), new Type[0]));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, listenersVar);
+
+        // END
+
+        // GENERATE for (int i = 0; i < listeners.length; i++)
+
+        methodVisitor.visitInsn(Opcodes.ICONST_0);
+        methodVisitor.visitVarInsn(Opcodes.ISTORE, indexVar);
+        methodVisitor.visitLabel(loopStart);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenersVar);
+        methodVisitor.visitInsn(Opcodes.ARRAYLENGTH);
+        methodVisitor.visitJumpInsn(Opcodes.IF_ICMPGE, loopEnd);
+
+        // GENERATE Object listener = listeners[i]
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenersVar);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitInsn(Opcodes.AALOAD);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, listenerVar);
+
+        // END
+
+        // GENERATE if (listener instanceof ClosureListener) { ((ClosureListener) listener).notify(<methodIndex>, new Object[]{<params>}) }
+
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenerVar);
+        methodVisitor.visitTypeInsn(Opcodes.INSTANCEOF, closureListenerType.getInternalName());
+        methodVisitor.visitJumpInsn(Opcodes.IFEQ, directCall);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenerVar);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, closureListenerType.getInternalName());
+        pushInt(methodVisitor, methodIndex);
+        pushInt(methodVisitor, paramTypes.length);
+        methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, objectType.getInternalName());
+        int var = 1;
+        for (int i = 0; i < paramTypes.length; i++) {
+            methodVisitor.visitInsn(Opcodes.DUP);
+            pushInt(methodVisitor, i);
+            methodVisitor.visitVarInsn(paramTypes[i].getOpcode(Opcodes.ILOAD), var);
+            box(methodVisitor, paramTypes[i]);
+            methodVisitor.visitInsn(Opcodes.AASTORE);
+            var += paramTypes[i].getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, closureListenerType.getInternalName(), "notify",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{Type.INT_TYPE, Type.getType(Object[].class)}));
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+
+        // END
+
+        // GENERATE try { ((<type>) listener).<method>(<params>) } catch (Throwable t) { throw listenerFailed(t) }
+
+        methodVisitor.visitLabel(directCall);
+        methodVisitor.visitLabel(tryStart);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenerVar);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, listenerType.getInternalName());
+        var = 1;
+        for (Type paramType : paramTypes) {
+            methodVisitor.visitVarInsn(paramType.getOpcode(Opcodes.ILOAD), var);
+            var += paramType.getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, listenerType.getInternalName(), method.getName(),
+                methodDescriptor);
+        if (returnType.getSort() == Type.LONG || returnType.getSort() == Type.DOUBLE) {
+            methodVisitor.visitInsn(Opcodes.POP2);
+        } else if (returnType.getSort() != Type.VOID) {
+            methodVisitor.visitInsn(Opcodes.POP);
+        }
+        methodVisitor.visitLabel(tryEnd);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+
+        methodVisitor.visitLabel(handler);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitInsn(Opcodes.SWAP);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, broadcasterType.getInternalName(), "listenerFailed",
+                Type.getMethodDescriptor(Type.getType(RuntimeException.class), new Type[]{Type.getType(
+                        Throwable.class)}));
+        methodVisitor.visitInsn(Opcodes.ATHROW);
+
+        // END
+
+        methodVisitor.visitLabel(next);
+        methodVisitor.visitIincInsn(indexVar, 1);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, loopStart);
+        methodVisitor.visitLabel(loopEnd);
+
+        // END
+
+        returnDefaultValue(methodVisitor, returnType);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        // END
+    }
+
+    private String[] getExceptionNames(Method method) {
+        Class<?>[] exceptionTypes = method.getExceptionTypes();
+        String[] exceptionNames = new String[exceptionTypes.length];
+        for (int i = 0; i < exceptionTypes.length; i++) {
+            exceptionNames[i] = Type.getInternalName(exceptionTypes[i]);
+        }
+        return exceptionNames;
+    }
+
+    private static void pushInt(MethodVisitor methodVisitor, int value) {
+        if (value <= 5) {
+            methodVisitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, value);
+        } else if (value <= Short.MAX_VALUE) {
+            methodVisitor.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    private static void box(MethodVisitor methodVisitor, Type type) {
+        Class<?> boxedType;
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                boxedType = Boolean.class;
+                break;
+            case Type.CHAR:
+                boxedType = Character.class;
+                break;
+            case Type.BYTE:
+                boxedType = Byte.class;
+                break;
+            case Type.SHORT:
+                boxedType = Short.class;
+                break;
+            case Type.INT:
+                boxedType = Integer.class;
+                break;
+            case Type.LONG:
+                boxedType = Long.class;
+                break;
+            case Type.FLOAT:
+                boxedType = Float.class;
+                break;
+            case Type.DOUBLE:
+                boxedType = Double.class;
+                break;
+            default:
+                return;
+        }
+        Type boxed = Type.getType(boxedType);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf",
+                Type.getMethodDescriptor(boxed, new Type[]{type}));
+    }
+
+    private static void returnDefaultValue(MethodVisitor methodVisitor, Type returnType) {
+        switch (returnType.getSort()) {
+            case Type.VOID:
+                methodVisitor.visitInsn(Opcodes.RETURN);
+                return;
+            case Type.OBJECT:
+            case Type.ARRAY:
+                methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+                break;
+            case Type.LONG:
+                methodVisitor.visitInsn(Opcodes.LCONST_0);
+                break;
+            case Type.FLOAT:
+                methodVisitor.visitInsn(Opcodes.FCONST_0);
+                break;
+            case Type.DOUBLE:
+                methodVisitor.visitInsn(Opcodes.DCONST_0);
+                break;
+            default:
+                methodVisitor.visitInsn(Opcodes.ICONST_0);
+                break;
+        }
+        methodVisitor.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+    }
+
+    static class GeneratedBroadcaster {
+        private final Constructor<?> constructor;
+        private final Method[] methods;
+
+        private GeneratedBroadcaster(Constructor<?> constructor, Method[] methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+
+        /**
+         * Returns the methods of the listener type, in the order of the indexes passed to
+         * {@link ListenerBroadcast.ClosureListener#notify(int, Object[])}.
+         */
+        public Method[] getMethods() {
+            return methods;
+        }
+
+        public Object newInstance(ListenerBroadcast<?> broadcast) {
+            try {
+                return constructor.newInstance(broadcast);
+            } catch (Exception e) {
+                throw new GradleException(String.format("Could not create a broadcaster for %s.",
+                        constructor.getDeclaringClass().getName()), e);
+            }
+        }
+    }
+}
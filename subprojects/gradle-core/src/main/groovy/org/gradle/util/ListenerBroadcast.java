@@ -23,29 +23,34 @@ import org.gradle.api.GradleScriptException;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Script;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 
 /**
  * <p>Manages a set of listeners of type T. Provides an implementation of T which can be used to broadcast to all
  * registered listeners.</p>
  *
+ * <p>The broadcaster is an instance of a class generated for T, which calls each listener directly. The listeners
+ * are held in a copy-on-write array, so that events can be broadcast concurrently with each other and with the
+ * addition and removal of listeners. An event is delivered to the listeners registered when it was broadcast.</p>
+ *
  * @param <T> The listener type.
  */
 public class ListenerBroadcast<T> {
+    private static final Object[] NO_LISTENERS = new Object[0];
+
     private final T source;
     private final Class<T> type;
-    private final Map<Object, InvocationHandler> handlers = new LinkedHashMap<Object, InvocationHandler>();
+    private final Method[] methods;
+    private volatile Object[] listeners = NO_LISTENERS;
 
     public ListenerBroadcast(Class<T> type) {
         this.type = type;
-        source = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
-                new BroadcastInvocationHandler()));
+        BroadcastClassGenerator.GeneratedBroadcaster generated = BroadcastClassGenerator.generate(type);
+        methods = generated.getMethods();
+        source = type.cast(generated.newInstance(this));
     }
 
     /**
@@ -63,18 +68,49 @@ public class ListenerBroadcast<T> {
      * @param listener The listener.
      */
     public void add(T listener) {
-        handlers.put(listener, new ListenerInvocationHandler(listener));
+        addListener(listener, listener);
     }
 
     /**
      * Adds a closure to be notified when the given method is called.
      */
     public void add(String methodName, Closure closure) {
-        handlers.put(closure, new ClosureInvocationHandler(methodName, closure));
+        addListener(closure, new ClosureListener(this, methodName, closure));
+    }
+
+    public synchronized void remove(T listener) {
+        int index = indexOf(listener);
+        if (index < 0) {
+            return;
+        }
+        List<Object> newListeners = new ArrayList<Object>(Arrays.asList(listeners));
+        newListeners.remove(index);
+        listeners = newListeners.toArray();
+    }
+
+    private synchronized void addListener(Object key, Object listener) {
+        int index = indexOf(key);
+        Object[] newListeners;
+        if (index >= 0) {
+            newListeners = listeners.clone();
+        } else {
+            index = listeners.length;
+            newListeners = new Object[index + 1];
+            System.arraycopy(listeners, 0, newListeners, 0, index);
+        }
+        newListeners[index] = listener;
+        listeners = newListeners;
     }
 
-    public void remove(T listener) {
-        handlers.remove(listener);
+    private int indexOf(Object key) {
+        for (int i = 0; i < listeners.length; i++) {
+            Object listener = listeners[i];
+            Object listenerKey = listener instanceof ClosureListener ? ((ClosureListener) listener).closure : listener;
+            if (listenerKey.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private String getErrorMessage() {
@@ -82,68 +118,68 @@ public class ListenerBroadcast<T> {
         return String.format("Failed to notify %s.", typeDescription);
     }
 
-    private class BroadcastInvocationHandler implements InvocationHandler {
-        public Object invoke(Object target, Method method, Object[] parameters) throws Throwable {
-            if (method.getName().equals("equals")) {
-                return parameters[0] != null && Proxy.isProxyClass(parameters[0].getClass())
-                        && Proxy.getInvocationHandler(parameters[0]) == this;
-            }
-            if (method.getName().equals("hashCode")) {
-                return hashCode();
-            }
-            if (method.getName().equals("toString")) {
-                return String.format("%s broadcast", type.getSimpleName());
-            }
-            for (InvocationHandler handler : handlers.values()) {
-                handler.invoke(null, method, parameters);
-            }
-            return null;
+    /**
+     * The base class of the generated broadcasters. This is public so that it can be extended by a generated class in
+     * the package of the listener type, and should not be used otherwise.
+     */
+    public abstract static class Broadcaster {
+        private final ListenerBroadcast<?> broadcast;
+
+        protected Broadcaster(ListenerBroadcast<?> broadcast) {
+            this.broadcast = broadcast;
         }
-    }
 
-    private class ListenerInvocationHandler implements InvocationHandler {
-        private final Object listener;
+        protected final Object[] getListeners() {
+            return broadcast.listeners;
+        }
 
-        public ListenerInvocationHandler(Object listener) {
-            this.listener = listener;
+        protected final RuntimeException listenerFailed(Throwable failure) {
+            return new GradleException(broadcast.getErrorMessage(), failure);
         }
 
-        public Object invoke(Object target, Method method, Object[] parameters) throws Throwable {
-            try {
-                method.invoke(listener, parameters);
-            } catch (InvocationTargetException e) {
-                throw new GradleException(getErrorMessage(), e.getCause());
-            }
-            return null;
+        @Override
+        public String toString() {
+            return String.format("%s broadcast", broadcast.type.getSimpleName());
         }
     }
 
-    private class ClosureInvocationHandler implements InvocationHandler {
-        private final String methodName;
+    /**
+     * A closure which is notified when a given method of the listener type is called. This is public so that it can be
+     * called by a generated broadcaster, and should not be used otherwise.
+     */
+    public static final class ClosureListener {
+        private final ListenerBroadcast<?> broadcast;
         private final Closure closure;
+        private final boolean[] handlesMethod;
 
-        public ClosureInvocationHandler(String methodName, Closure closure) {
-            this.methodName = methodName;
+        private ClosureListener(ListenerBroadcast<?> broadcast, String methodName, Closure closure) {
+            this.broadcast = broadcast;
             this.closure = closure;
+            handlesMethod = new boolean[broadcast.methods.length];
+            for (int i = 0; i < broadcast.methods.length; i++) {
+                handlesMethod[i] = broadcast.methods[i].getName().equals(methodName);
+            }
         }
 
-        public Object invoke(Object target, Method method, Object[] parameters) throws Throwable {
-            if (method.getName().equals(methodName)) {
-                if (closure.getMaximumNumberOfParameters() < parameters.length) {
-                    parameters = Arrays.asList(parameters).subList(0, closure.getMaximumNumberOfParameters())
-                            .toArray();
-                }
-                try {
-                    closure.call(parameters);
-                } catch (InvokerInvocationException e) {
-                    ScriptSource source = findSource(closure);
-                    if (source != null) {
-                        throw new GradleScriptException(getErrorMessage(), e.getCause(), source);
-                    }
-                    throw new GradleException(getErrorMessage(), e.getCause());
+        /**
+         * Called when the method with the given index is called on the broadcaster.
+         */
+        public void notify(int methodIndex, Object[] parameters) {
+            if (!handlesMethod[methodIndex]) {
+                return;
+            }
+            if (closure.getMaximumNumberOfParameters() < parameters.length) {
+                parameters = Arrays.asList(parameters).subList(0, closure.getMaximumNumberOfParameters()).toArray();
+            }
+            try {
+                closure.call(parameters);
+            } catch (InvokerInvocationException e) {
+                ScriptSource source = findSource(closure);
+                if (source != null) {
+                    throw new GradleScriptException(broadcast.getErrorMessage(), e.getCause(), source);
                 }
+                throw new GradleException(broadcast.getErrorMessage(), e.getCause());
             }
-            return null;
         }
 
         private ScriptSource findSource(Closure closure) {
@@ -59,6 +59,8 @@ public class DefaultCommandLine2StartParameterConverterTest {
     private CacheUsage expectedCacheUsage = CacheUsage.ON;
     private boolean expectedSearchUpwards = true;
     private boolean expectedDryRun = false;
+    private int expectedParallelThreadCount = 0;
+    private boolean expectedOffline = false;
     private boolean expectedShowHelp = false;
     private boolean expectedShowVersion = false;
     private StartParameter.ShowStacktrace expectedShowStackTrace = StartParameter.ShowStacktrace.INTERNAL_EXCEPTIONS;
@@ -111,6 +113,8 @@ public class DefaultCommandLine2StartParameterConverterTest {
         assertEquals(expectedGradleUserHome.getAbsoluteFile(), startParameter.getGradleUserHomeDir().getAbsoluteFile());
         assertEquals(expectedLogLevel, startParameter.getLogLevel());
         assertEquals(expectedDryRun, startParameter.isDryRun());
+        assertEquals(expectedParallelThreadCount, startParameter.getParallelThreadCount());
+        assertEquals(expectedOffline, startParameter.isOffline());
         assertEquals(expectedShowHelp, startParameter.isShowHelp());
         assertEquals(expectedShowVersion, startParameter.isShowVersion());
         assertEquals(expectedShowStackTrace, startParameter.getShowStacktrace());
@@ -253,6 +257,23 @@ public class DefaultCommandLine2StartParameterConverterTest {
         checkConversion("-m");
     }
 
+    @Test
+    public void withParallelThreads() {
+        expectedParallelThreadCount = 4;
+        checkConversion("--parallel-threads", "4");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withNonPositiveParallelThreads() {
+        checkConversion("--parallel-threads", "0");
+    }
+
+    @Test
+    public void withOffline() {
+        expectedOffline = true;
+        checkConversion("--offline");
+    }
+
     @Test
     public void withExcludeTask() {
         expectedExcludedTasks.add("excluded");
@@ -60,6 +60,7 @@ class StartParameterTest {
         testObj.pluginPropertiesFile = new File('plugin')
         testObj.initScripts = [new File('init script'), new File("/path/to/another init script")]
         testObj.cacheUsage = CacheUsage.ON
+        testObj.offline = true
 
         StartParameter startParameter = testObj.newInstance()
         assertEquals(testObj, startParameter)
@@ -224,6 +225,7 @@ class StartParameterTest {
         parameter.cacheUsage = CacheUsage.OFF
         parameter.pluginPropertiesFile = new File("plugins")
         parameter.defaultImportsFile = new File("imports")
+        parameter.offline = true
 
         // Non-copied
         parameter.currentDir = new File("other")
@@ -243,6 +245,7 @@ class StartParameterTest {
         assertThat(newParameter.cacheUsage, equalTo(parameter.cacheUsage));
         assertThat(newParameter.pluginPropertiesFile, equalTo(parameter.pluginPropertiesFile));
         assertThat(newParameter.defaultImportsFile, equalTo(parameter.defaultImportsFile));
+        assertTrue(newParameter.offline)
 
         assertThat(newParameter.buildFile, nullValue())
         assertThat(newParameter.taskNames, isEmpty())
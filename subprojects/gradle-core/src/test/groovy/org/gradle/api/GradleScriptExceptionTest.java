@@ -17,6 +17,7 @@
 package org.gradle.api;
 
 import org.gradle.api.internal.Contextual;
+import org.gradle.groovy.scripts.ContentAddressedScriptSource;
 import org.gradle.groovy.scripts.ScriptSource;
 import static org.gradle.util.WrapUtil.*;
 import static org.hamcrest.Matchers.*;
@@ -42,6 +43,10 @@ public class GradleScriptExceptionTest {
             will(returnValue("filename"));
             allowing(source).getDisplayName();
             will(returnValue("<description>"));
+            allowing(source).getClassName();
+            will(returnValue("script_id"));
+            allowing(source).getText();
+            will(returnValue("<text>"));
         }});
     }
 
@@ -65,6 +70,16 @@ public class GradleScriptExceptionTest {
         assertThat(exception.getMessage(), equalTo(String.format("<description> line: 7%n<message>")));
     }
 
+    @Test
+    public void extractsLineNumberFromStackFrameOfContentAddressedClass() {
+        String contentFileName = ContentAddressedScriptSource.getClassName(source);
+        RuntimeException cause = new RuntimeException("<cause>");
+        GradleScriptException exception = new GradleScriptException("<message>", cause, source);
+        exception.setStackTrace(new StackTraceElement[]{otherElement, new StackTraceElement("class", "method",
+                contentFileName, 5)});
+        assertThat(exception.getLocation(), equalTo("<description> line: 5"));
+    }
+
     @Test
     public void usesProvidedLineNumber() {
         GradleScriptException exception = new GradleScriptException("<message>", new RuntimeException(), source, 91);
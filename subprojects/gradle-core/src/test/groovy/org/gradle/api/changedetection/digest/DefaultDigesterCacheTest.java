@@ -100,4 +100,23 @@ public class DefaultDigesterCacheTest {
         assertNotNull(digester);
         assertEquals(digester, digesterMock);
     }
+
+    @Test
+    public void testGetDigesterReturnsDigesterPerThread() throws InterruptedException {
+        final DefaultDigesterCache shaDigesterCache = new DefaultDigesterCache(DigestObjectFactory.createShaDigesterFactory());
+        final MessageDigest[] otherThreadDigester = new MessageDigest[1];
+
+        final MessageDigest digester = shaDigesterCache.getDigester(okDigesterKey);
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                otherThreadDigester[0] = shaDigesterCache.getDigester(okDigesterKey);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertNotNull(otherThreadDigester[0]);
+        assertNotSame(digester, otherThreadDigester[0]);
+        assertSame(digester, shaDigesterCache.getDigester(okDigesterKey));
+    }
 }
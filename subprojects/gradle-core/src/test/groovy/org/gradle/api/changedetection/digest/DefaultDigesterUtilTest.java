@@ -21,9 +21,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.jmock.Expectations;
+import org.apache.commons.io.FileUtils;
+import static org.junit.Assert.*;
 
 import java.security.MessageDigest;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * @author Tom Eyckmans
@@ -138,4 +142,39 @@ public class DefaultDigesterUtilTest {
 
         digesterUtil.digestFile(digesterMock, fileMock);
     }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void digestFileContentForDirectory() {
+        context.checking(new Expectations(){{
+            one(fileMock).exists();will(returnValue(true));
+            one(fileMock).isFile();will(returnValue(false));
+            one(fileMock).getAbsolutePath();will(returnValue(fileMockAbsolutePath));
+        }});
+
+        digesterUtil.digestFileContent(digesterMock, fileMock);
+    }
+
+    @Test
+    public void digestFileContent() throws IOException {
+        final File tempFile = File.createTempFile("gradle", "test");
+        try {
+            // larger than the buffer, so the content is read in several chunks
+            final StringBuilder content = new StringBuilder();
+            for ( int i = 0; i < 2000; i++ ) {
+                content.append("line ").append(i).append('\n');
+            }
+            FileUtils.writeStringToFile(tempFile, content.toString());
+
+            final MessageDigest expected = DigestObjectFactory.createShaDigesterFactory().createDigester();
+            expected.update(content.toString().getBytes());
+            final MessageDigest actual = DigestObjectFactory.createShaDigesterFactory().createDigester();
+
+            digesterUtil.digestFileContent(actual, tempFile);
+
+            assertTrue(Arrays.equals(expected.digest(), actual.digest()));
+        }
+        finally {
+            assertTrue(tempFile.delete());
+        }
+    }
 }
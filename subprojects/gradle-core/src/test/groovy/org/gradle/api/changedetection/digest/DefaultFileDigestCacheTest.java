@@ -0,0 +1,122 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.digest;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * @author Tom Eyckmans
+ */
+public class DefaultFileDigestCacheTest {
+    private final File testDir = HelperUtil.makeNewTestDir();
+    private final File cacheFile = new File(testDir, "cache.bin");
+    private final byte[] digest = new byte[] {1, 2, 3};
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void returnsCachedDigestForUnchangedFile() {
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 10);
+        File file = file("a.txt", "content");
+
+        assertThat(cache.getDigest(file), nullValue());
+        cache.putDigest(file, digest);
+
+        assertThat(cache.getDigest(file), equalTo(digest));
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+    }
+
+    @Test
+    public void doesNotReturnCachedDigestWhenFileHasChanged() {
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 10);
+        File file = file("a.txt", "content");
+        cache.putDigest(file, digest);
+
+        GFileUtils.writeStringToFile(file, "changed content");
+        file.setLastModified(System.currentTimeMillis() - 10000);
+
+        assertThat(cache.getDigest(file), nullValue());
+        assertThat(cache.getMissCount(), equalTo(1L));
+    }
+
+    @Test
+    public void doesNotCacheRecentlyModifiedFile() {
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 10);
+        File file = file("a.txt", "content");
+        file.setLastModified(System.currentTimeMillis());
+
+        cache.putDigest(file, digest);
+
+        assertThat(cache.getDigest(file), nullValue());
+    }
+
+    @Test
+    public void discardsLeastRecentlyUsedEntriesWhenFull() {
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 2);
+        File a = file("a.txt", "a");
+        File b = file("b.txt", "b");
+        File c = file("c.txt", "c");
+        cache.putDigest(a, digest);
+        cache.putDigest(b, digest);
+        cache.getDigest(a);
+        cache.putDigest(c, digest);
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.getDigest(a), notNullValue());
+        assertThat(cache.getDigest(b), nullValue());
+        assertThat(cache.getDigest(c), notNullValue());
+    }
+
+    @Test
+    public void savedCacheIsUsedByLaterBuilds() {
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 10);
+        File file = file("a.txt", "content");
+        cache.putDigest(file, digest);
+        cache.save();
+
+        DefaultFileDigestCache reloaded = new DefaultFileDigestCache(cacheFile, 10);
+
+        assertThat(reloaded.getDigest(file), equalTo(digest));
+    }
+
+    @Test
+    public void ignoresDamagedCacheFile() {
+        GFileUtils.writeStringToFile(cacheFile, "not a cache");
+
+        DefaultFileDigestCache cache = new DefaultFileDigestCache(cacheFile, 10);
+
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    private File file(String name, String content) {
+        File file = new File(testDir, name);
+        GFileUtils.writeStringToFile(file, content);
+        file.setLastModified(System.currentTimeMillis() - 10000);
+        return file;
+    }
+}
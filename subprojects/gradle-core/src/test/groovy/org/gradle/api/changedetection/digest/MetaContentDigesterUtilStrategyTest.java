@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.jmock.Expectations;
 import static org.junit.Assert.*;
+import org.apache.commons.io.FileUtils;
 
 import java.security.MessageDigest;
 import java.io.IOException;
@@ -66,6 +67,55 @@ public class MetaContentDigesterUtilStrategyTest {
         }
     }
 
+    @Test
+    public void digestFileUsesCachedContentDigest() throws IOException {
+        final FileDigestCache fileDigestCacheMock = context.mock(FileDigestCache.class);
+        final byte[] contentDigest = new byte[] {1, 2, 3};
+        final File tempFile = File.createTempFile("gradle", "test");
+        try {
+            context.checking(new Expectations(){{
+                one(digesterMock).update(tempFile.getAbsolutePath().getBytes());
+                one(digesterMock).update(((Long)tempFile.lastModified()).byteValue());
+                one(digesterMock).update(((Long)tempFile.length()).byteValue());
+                one(fileDigestCacheMock).getDigest(tempFile);
+                will(returnValue(contentDigest));
+                one(digesterMock).update(contentDigest);
+            }});
+
+            new MetaContentDigesterUtilStrategy(fileDigestCacheMock, DigestObjectFactory.createShaDigesterFactory()).digestFile(digesterMock, tempFile);
+        }
+        finally {
+            assertTrue(tempFile.delete());
+        }
+    }
+
+    @Test
+    public void digestFileCachesContentDigestWhenNotCached() throws IOException {
+        final FileDigestCache fileDigestCacheMock = context.mock(FileDigestCache.class);
+        final DigesterFactory digesterFactory = DigestObjectFactory.createShaDigesterFactory();
+        final File tempFile = File.createTempFile("gradle", "test");
+        FileUtils.writeStringToFile(tempFile, "content");
+        final MessageDigest expectedDigester = digesterFactory.createDigester();
+        expectedDigester.update("content".getBytes());
+        final byte[] contentDigest = expectedDigester.digest();
+        try {
+            context.checking(new Expectations(){{
+                one(digesterMock).update(tempFile.getAbsolutePath().getBytes());
+                one(digesterMock).update(((Long)tempFile.lastModified()).byteValue());
+                one(digesterMock).update(((Long)tempFile.length()).byteValue());
+                one(fileDigestCacheMock).getDigest(tempFile);
+                will(returnValue(null));
+                one(fileDigestCacheMock).putDigest(tempFile, contentDigest);
+                one(digesterMock).update(contentDigest);
+            }});
+
+            new MetaContentDigesterUtilStrategy(fileDigestCacheMock, digesterFactory).digestFile(digesterMock, tempFile);
+        }
+        finally {
+            assertTrue(tempFile.delete());
+        }
+    }
+
     @Test
     public void digestDirectory() throws IOException {
         final File tempDir = HelperUtil.makeNewTestDir();
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.state;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.changedetection.digest.DigesterCache;
+import org.gradle.api.changedetection.digest.DigesterUtil;
+import org.gradle.api.changedetection.digest.DigesterUtilStrategy;
+import org.gradle.api.io.DefaultIoFactory;
+import org.gradle.api.io.IoFactory;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.ThreadUtils;
+import static org.gradle.util.WrapUtil.toList;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @author Tom Eyckmans
+ */
+public class DirectoryTreeStateCalculatorTest {
+    private final File testDir = HelperUtil.makeNewTestDir();
+    private final File rootDir = new File(testDir, "root");
+    private final IoFactory ioFactory = new DefaultIoFactory();
+    private final DigesterCache digesterCache = DigestObjectFactory.createShaDigesterCache();
+    private StateFileUtil stateFileUtil;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        file("a.txt", "a");
+        file("sub1/b.txt", "bb");
+        file("sub1/deep/c.txt", "ccc");
+        new File(rootDir, "sub2").mkdirs();
+
+        stateFileUtil = new StateFileUtil(testDir, rootDir, new File(testDir, "states"), digesterCache.getDigesterFactory(), ioFactory);
+        executor = ThreadUtils.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadUtils.shutdown(executor);
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void calculatesStateOfEachDirectoryInTheTree() {
+        List<DirectoryState> states = calculate(DigestObjectFactory.createContentDigesterUtil());
+
+        assertThat(relativePaths(states), equalTo(toList(".", sep("./sub1"), sep("./sub1/deep"), sep("./sub2"))));
+        for (DirectoryState state : states) {
+            assertThat(state.getDigest(), notNullValue());
+            assertThat(state.getFailureCause(), nullValue());
+        }
+    }
+
+    @Test
+    public void directoryContainsStatesOfItsSubDirectories() {
+        DirectoryState root = calculate(DigestObjectFactory.createContentDigesterUtil()).get(0);
+
+        assertThat(relativePaths(root.getSubDirectoryStates()), equalTo(toList(sep("./sub1"), sep("./sub2"))));
+        assertThat(root.getSubDirectoryStates().get(0).getParentDirectoryState(), sameInstance(root));
+        assertThat(root.getSize(), equalTo(6L));
+        assertThat(root.getSubDirectoryStates().get(0).getSize(), equalTo(5L));
+    }
+
+    @Test
+    public void changeInDeepFileChangesDigestOfAllParentDirectories() {
+        List<DirectoryState> original = calculate(DigestObjectFactory.createContentDigesterUtil());
+        file("sub1/deep/c.txt", "changed");
+        List<DirectoryState> changed = calculate(DigestObjectFactory.createContentDigesterUtil());
+
+        assertFalse(Arrays.equals(changed.get(0).getDigest(), original.get(0).getDigest()));
+        assertFalse(Arrays.equals(changed.get(1).getDigest(), original.get(1).getDigest()));
+        assertFalse(Arrays.equals(changed.get(2).getDigest(), original.get(2).getDigest()));
+        assertTrue(Arrays.equals(changed.get(3).getDigest(), original.get(3).getDigest()));
+    }
+
+    @Test
+    public void failsWhenTheDigestOfADirectoryCannotBeCalculated() {
+        final RuntimeException failure = new RuntimeException("broken");
+        DigesterUtil digesterUtil = DigestObjectFactory.createDigesterUtil(new DigesterUtilStrategy() {
+            public void digestFile(MessageDigest digester, File file) {
+                if (file.getName().equals("c.txt")) {
+                    throw failure;
+                }
+            }
+
+            public void digestDirectory(MessageDigest digester, File directory, long directorySize) {
+            }
+        });
+
+        try {
+            calculate(digesterUtil);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getCause(), sameInstance((Throwable) failure));
+        }
+    }
+
+    private List<DirectoryState> calculate(DigesterUtil digesterUtil) {
+        DirectoryTreeStateCalculator calculator = new DirectoryTreeStateCalculator(new DirectoryStateBuilder(stateFileUtil), stateFileUtil, digesterCache, digesterUtil, ioFactory);
+        return calculator.calculate(rootDir, executor);
+    }
+
+    private List<String> relativePaths(List<DirectoryState> states) {
+        List<String> paths = new ArrayList<String>();
+        for (DirectoryState state : states) {
+            paths.add(state.getRelativePath());
+        }
+        return paths;
+    }
+
+    private String sep(String path) {
+        return path.replace('/', File.separatorChar);
+    }
+
+    private File file(String path, String content) {
+        File file = new File(rootDir, path);
+        file.getParentFile().mkdirs();
+        GFileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.changedetection.state;
+
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.io.DefaultIoFactory;
+import org.gradle.api.io.IoFactory;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.Matchers.*;
+import static org.gradle.util.WrapUtil.toList;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Tom Eyckmans
+ */
+public class StateFileComparatorTest {
+    private static final String STATE_FILENAME = "test.state";
+
+    private final File testDir = HelperUtil.makeNewTestDir();
+    private final IoFactory ioFactory = new DefaultIoFactory();
+    private final RecordingListener listener = new RecordingListener();
+    private StateFileUtil stateFileUtil;
+
+    @Before
+    public void setUp() {
+        File directoryToProcess = new File(testDir, "src");
+        directoryToProcess.mkdirs();
+        stateFileUtil = new StateFileUtil(testDir, directoryToProcess, new File(testDir, "states"), DigestObjectFactory.createShaDigesterFactory(), ioFactory);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void reportsNoChangesForEqualStateFiles() throws IOException {
+        writeState(stateFileUtil.getOldDirsStateFile(STATE_FILENAME), "a", 1, "b", 2);
+        writeState(stateFileUtil.getNewDirsStateFile(STATE_FILENAME), "a", 1, "b", 2);
+
+        assertFalse(compare());
+        assertThat(listener.events, isEmpty());
+    }
+
+    @Test
+    public void reportsCreatedChangedAndDeletedItems() throws IOException {
+        writeState(stateFileUtil.getOldDirsStateFile(STATE_FILENAME), "a", 1, "b", 2, "d", 4);
+        writeState(stateFileUtil.getNewDirsStateFile(STATE_FILENAME), "b", 3, "c", 3, "d", 4, "e", 5);
+
+        assertTrue(compare());
+        assertThat(listener.events, equalTo(toList("deleted a 01", "changed b 02 03", "created c 03", "created e 05")));
+    }
+
+    @Test
+    public void reportsAllItemsCreatedWhenThereIsNoOldStateFile() throws IOException {
+        writeState(stateFileUtil.getNewDirsStateFile(STATE_FILENAME), "a", 1);
+
+        assertTrue(compare());
+        assertThat(listener.events, equalTo(toList("created a 01")));
+    }
+
+    @Test
+    public void reportsAllItemsCreatedWhenOldStateFileHasAnUnknownFormat() throws IOException {
+        GFileUtils.writeStringToFile(stateFileUtil.getOldDirsStateFile(STATE_FILENAME), "a\n0102\n");
+        writeState(stateFileUtil.getNewDirsStateFile(STATE_FILENAME), "a", 1);
+
+        assertTrue(compare());
+        assertThat(listener.events, equalTo(toList("created a 01")));
+    }
+
+    @Test
+    public void reportsAllItemsDeletedWhenThereIsNoNewStateFile() throws IOException {
+        writeState(stateFileUtil.getOldDirsStateFile(STATE_FILENAME), "a", 1, "b", 2);
+
+        assertTrue(compare());
+        assertThat(listener.events, equalTo(toList("deleted a 01", "deleted b 02")));
+    }
+
+    @Test
+    public void mergesKeysOutsideTheBasicMultilingualPlaneInTheOrderTheyAreWritten() throws IOException {
+        writeState(stateFileUtil.getOldDirsStateFile(STATE_FILENAME), "\ufffd", 1, "\ud800\udc00", 2);
+        writeState(stateFileUtil.getNewDirsStateFile(STATE_FILENAME), "\ud800\udc00", 2);
+
+        assertTrue(compare());
+        assertThat(listener.events, equalTo(toList("deleted \ufffd 01")));
+    }
+
+    private boolean compare() throws IOException {
+        return new StateFileComparator(stateFileUtil, STATE_FILENAME).compareStateFiles(listener);
+    }
+
+    private void writeState(File stateFile, Object... keysAndDigests) throws IOException {
+        StateFileWriter writer = new StateFileWriter(ioFactory, stateFile);
+        try {
+            for (int i = 0; i < keysAndDigests.length; i += 2) {
+                writer.addDigest((String) keysAndDigests[i], new byte[] {((Integer) keysAndDigests[i + 1]).byteValue()});
+            }
+            writer.lastFileDigestAdded();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static class RecordingListener implements StateFileChangeListener {
+        private final List<String> events = new ArrayList<String>();
+
+        public void itemCreated(StateFileItem createdItem) {
+            events.add("created " + createdItem.getKey() + " " + createdItem.getDigest());
+        }
+
+        public void itemDeleted(StateFileItem deletedItem) {
+            events.add("deleted " + deletedItem.getKey() + " " + deletedItem.getDigest());
+        }
+
+        public void itemChanged(StateFileItem oldState, StateFileItem newState) {
+            events.add("changed " + oldState.getKey() + " " + oldState.getDigest() + " " + newState.getDigest());
+        }
+    }
+}
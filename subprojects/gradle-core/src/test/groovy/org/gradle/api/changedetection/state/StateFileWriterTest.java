@@ -21,21 +21,19 @@ import org.junit.After;
 import org.junit.Test;
 import static org.junit.Assert.*;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.gradle.api.io.IoFactory;
 import org.gradle.api.io.DefaultIoFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
-import java.io.BufferedReader;
 
 /**
  * @author Tom Eyckmans
  */
 public class StateFileWriterTest {
     private final String okKey = "okKey";
-    private final String okDigest = "okDigest";
+    private final byte[] okDigest = new byte[] {1, 2, (byte) 0xfe};
+    private final String okDigestHex = "0102fe";
 
     private IoFactory ioFactoryMock;
 
@@ -72,7 +70,7 @@ public class StateFileWriterTest {
 
         stateFileWriter.lastFileDigestAdded();
 
-        assertTrue(stateFileContentOk("", okDigest));
+        assertTrue(stateFileContentOk("", okDigestHex));
     }
 
     @Test ( expected = IllegalArgumentException.class )
@@ -83,7 +81,7 @@ public class StateFileWriterTest {
 
     @Test ( expected = IllegalArgumentException.class )
     public void addDigestEmptyDigest() throws IOException {
-        stateFileWriter.addDigest(okKey, "");
+        stateFileWriter.addDigest(okKey, new byte[0]);
     }
 
     @Test
@@ -94,7 +92,8 @@ public class StateFileWriterTest {
 
         stateFileWriter.lastFileDigestAdded();
 
-        assertTrue(stateFileContentOk(okKey, okDigest));
+        assertTrue(stateFileContentOk(okKey, okDigestHex));
+        assertEquals(StateFileWriter.HEADER_SIZE + 2 + okKey.length() + 1 + okDigest.length, testStateFile.length());
     }
 
     @Test
@@ -104,7 +103,35 @@ public class StateFileWriterTest {
 
         stateFileWriter.lastFileDigestAdded();
 
-        assertTrue(stateFileContentOk(okKey, okDigest,okKey, okDigest));
+        assertTrue(stateFileContentOk(okKey, okDigestHex, okKey, okDigestHex));
+    }
+
+    @Test
+    public void addDigestWithNonAsciiKey() throws IOException {
+        stateFileWriter.addDigest("\u00e9t\u00e9", okDigest);
+
+        stateFileWriter.lastFileDigestAdded();
+
+        assertTrue(stateFileContentOk("\u00e9t\u00e9", okDigestHex));
+    }
+
+    @Test ( expected = IllegalArgumentException.class )
+    public void addDigestWithKeyBeforePreviousKey() throws IOException {
+        stateFileWriter.addDigest("b", okDigest);
+        stateFileWriter.addDigest("a", okDigest);
+    }
+
+    @Test
+    public void addDigestsOrdersKeysByCodePoint() throws IOException {
+        stateFileWriter.addDigest("\ufffd", okDigest);
+        stateFileWriter.addDigest("\ud800\udc00", okDigest);
+
+        stateFileWriter.lastFileDigestAdded();
+
+        assertTrue(stateFileContentOk("\ufffd", okDigestHex, "\ud800\udc00", okDigestHex));
+        assertTrue(StateFileWriter.KEY_ORDER.compare("\ud800\udc00", "\ufffd") > 0);
+        assertTrue(StateFileWriter.KEY_ORDER.compare("ab", "a") > 0);
+        assertEquals(0, StateFileWriter.KEY_ORDER.compare("a", "a"));
     }
 
     @After
@@ -115,21 +142,21 @@ public class StateFileWriterTest {
         }
     }
 
-    private boolean stateFileContentOk(String...lines) throws IOException {
-        String testStateFileContent = FileUtils.readFileToString(testStateFile);
-        BufferedReader reader = null;
+    private boolean stateFileContentOk(String...keysAndDigests) throws IOException {
+        final StateFileReader reader = new StateFileReader(ioFactoryMock, testStateFile);
         try {
-            reader = new BufferedReader(new StringReader(testStateFileContent));
-            String line = null;
-            int lineIndex = 0;
-            while ( (line = reader.readLine()) != null ) {
-                if ( !line.equals(lines[lineIndex++]) )
+            int index = 0;
+            StateFileItem item = null;
+            while ( (item = reader.readStateFileItem()) != null ) {
+                if ( index + 1 >= keysAndDigests.length
+                        || !item.getKey().equals(keysAndDigests[index++])
+                        || !item.getDigest().equals(keysAndDigests[index++]) )
                     return false;
             }
-            return true;
+            return index == keysAndDigests.length;
         }
         finally {
-            IOUtils.closeQuietly(reader);
+            reader.lastStateFileItemRead();
         }
     }
 }
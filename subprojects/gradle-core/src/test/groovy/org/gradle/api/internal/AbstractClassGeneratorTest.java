@@ -24,13 +24,15 @@ import org.gradle.api.plugins.Convention;
 import org.gradle.api.tasks.ConventionValue;
 import org.gradle.util.GUtil;
 import org.gradle.util.HelperUtil;
+import org.gradle.util.ThreadUtils;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public abstract class AbstractClassGeneratorTest {
     private ClassGenerator generator;
@@ -71,6 +73,27 @@ public abstract class AbstractClassGeneratorTest {
         assertSame(generator.generate(Bean.class), generator.generate(Bean.class));
     }
 
+    @Test
+    public void generatesSubclassOnceWhenRequestedConcurrently() {
+        final AbstractClassGenerator classGenerator = (AbstractClassGenerator) generator;
+        long generatedCount = classGenerator.getGeneratedCount();
+        final Set<Class<?>> classes = Collections.synchronizedSet(new HashSet<Class<?>>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    classes.add(classGenerator.generate(ConcurrentlyGeneratedBean.class));
+                }
+            });
+        }
+        ThreadUtils.shutdown(executor);
+
+        assertThat(classes.size(), equalTo(1));
+        assertThat(classGenerator.getGeneratedCount(), equalTo(generatedCount + 1));
+        assertSame(classes.iterator().next(), generator.generate(ConcurrentlyGeneratedBean.class));
+    }
+
     @Test
     public void overridesPublicConstructors() throws Exception {
         Class<? extends Bean> generatedClass = generator.generate(BeanWithConstructor.class);
@@ -267,6 +290,18 @@ public abstract class AbstractClassGeneratorTest {
         }
     }
 
+    public static class ConcurrentlyGeneratedBean {
+        private String property;
+
+        public String getProperty() {
+            return property;
+        }
+
+        public void setProperty(String property) {
+            this.property = property;
+        }
+    }
+
     public static class BeanWithConstructor extends Bean {
         public BeanWithConstructor() {
             this("default value");
@@ -32,6 +32,7 @@ public class AbstractDynamicObjectTest {
     public void hasNoProperties() {
         assertFalse(object.hasProperty("something"));
         assertTrue(object.getProperties().isEmpty());
+        assertThat(object.tryGetProperty("something"), sameInstance(AbstractDynamicObject.NOT_FOUND));
 
         try {
             object.getProperty("something");
@@ -107,4 +107,37 @@ public class ConventionAwareHelperTest {
         });
         assertSame(conventionAware.getConventionValue("list1"), conventionAware.getConventionValue("list1"));
     }
+
+    @Test public void evaluatesMappingAgainWhenPropertyIsRemapped() {
+        ConventionValue value = new ConventionValue() {
+            public Object getValue(Convention convention, IConventionAware conventionAwareObject) {
+                return toList("a");
+            }
+        };
+        conventionAware.map("list1", value);
+        conventionAware.map("list2", value);
+        assertThat(conventionAware.getEvaluationCount("list1"), equalTo(0));
+
+        Object list1 = conventionAware.getConventionValue("list1");
+        Object list2 = conventionAware.getConventionValue("list2");
+        conventionAware.getConventionValue("list1");
+        assertThat(conventionAware.getEvaluationCount("list1"), equalTo(1));
+
+        conventionAware.map("list1", value);
+        assertNotSame(list1, conventionAware.getConventionValue("list1"));
+        assertSame(list2, conventionAware.getConventionValue("list2"));
+        assertThat(conventionAware.getEvaluationCount("list1"), equalTo(2));
+        assertThat(conventionAware.getEvaluationCount("list2"), equalTo(1));
+    }
+
+    @Test public void cachesNullPropertyValues() {
+        conventionAware.map("list1", new ConventionValue() {
+            public Object getValue(Convention convention, IConventionAware conventionAwareObject) {
+                return null;
+            }
+        });
+        assertThat(conventionAware.getConventionValue("list1"), nullValue());
+        assertThat(conventionAware.getConventionValue("list1"), nullValue());
+        assertThat(conventionAware.getEvaluationCount("list1"), equalTo(1));
+    }
 }
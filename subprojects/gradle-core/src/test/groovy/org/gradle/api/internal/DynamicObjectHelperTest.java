@@ -394,6 +394,38 @@ public class DynamicObjectHelperTest {
         assertThat(bean.getProperty("additional"), nullValue());
     }
 
+    @Test
+    public void tryGetPropertyReturnsNotFoundForUnknownProperty() {
+        Bean bean = new Bean();
+        bean.setParent(new Bean());
+        bean.setConvention(new DefaultConvention());
+
+        assertThat(bean.helper.tryGetProperty("unknown"), sameInstance(AbstractDynamicObject.NOT_FOUND));
+        assertThat(((AbstractDynamicObject) bean.getInheritable()).tryGetProperty("unknown"), sameInstance(
+                AbstractDynamicObject.NOT_FOUND));
+    }
+
+    @Test
+    public void tryGetPropertyFindsPropertyInEachLocation() {
+        Bean parent = new Bean();
+        parent.setProperty("parentProperty", "parent");
+        Convention convention = new DefaultConvention();
+        ConventionBean conventionBean = new ConventionBean();
+        conventionBean.setConventionProperty("convention");
+        convention.getPlugins().put("test", conventionBean);
+
+        Bean bean = new Bean();
+        bean.setParent(parent);
+        bean.setConvention(convention);
+        bean.setReadWriteProperty("class");
+        bean.setProperty("additional", null);
+
+        assertThat(bean.helper.tryGetProperty("readWriteProperty"), equalTo((Object) "class"));
+        assertThat(bean.helper.tryGetProperty("additional"), nullValue());
+        assertThat(bean.helper.tryGetProperty("conventionProperty"), equalTo((Object) "convention"));
+        assertThat(bean.helper.tryGetProperty("parentProperty"), equalTo((Object) "parent"));
+    }
+
     @Test
     public void canInvokeMethodDefinedByClass() {
         Bean bean = new Bean();
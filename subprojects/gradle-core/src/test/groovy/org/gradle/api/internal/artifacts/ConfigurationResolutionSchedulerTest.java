@@ -0,0 +1,231 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.execution.TaskExecutionGraph;
+import org.gradle.api.internal.artifacts.configurations.DefaultConfiguration;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleDescriptorCache;
+import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.file.PathResolvingFileCollection;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+@RunWith(JMock.class)
+public class ConfigurationResolutionSchedulerTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final List<String> resolved = Collections.synchronizedList(new ArrayList<String>());
+    private final ModuleDescriptorCache descriptorCache = new ModuleDescriptorCache();
+    private final ConfigurationResolutionScheduler scheduler = new ConfigurationResolutionScheduler(4,
+            descriptorCache);
+    private final IvyService ivyService = new TestIvyService();
+    private final TaskExecutionGraph graph = context.mock(TaskExecutionGraph.class);
+    private Project project;
+
+    @Before
+    public void setUp() {
+        project = HelperUtil.createRootProject();
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void resolvesConfigurationsUsedByScheduledTasks() {
+        Configuration compile = configuration("compile");
+        Configuration runtime = configuration("runtime");
+        Configuration testRuntime = configuration("testRuntime");
+        configuration("unused");
+        final List<Task> tasks = toList(
+                (Task) new TaskWithClasspath(project, "a", compile),
+                new TaskWithClasspath(project, "b", runtime),
+                new TaskWithClasspath(project, "c", compile),
+                new TaskWithClasspath(project, "d", testRuntime));
+        context.checking(new Expectations() {{
+            allowing(graph).getAllTasks();
+            will(returnValue(tasks));
+        }});
+
+        scheduler.taskGraphPopulated(graph);
+
+        assertThat(resolved.size(), equalTo(3));
+        assertThat(new HashSet<String>(resolved), equalTo(toSet("compile", "runtime", "testRuntime")));
+        assertThat(compile.getState(), equalTo(Configuration.State.RESOLVED));
+        assertThat(runtime.getState(), equalTo(Configuration.State.RESOLVED));
+        assertThat(testRuntime.getState(), equalTo(Configuration.State.RESOLVED));
+    }
+
+    @Test
+    public void ignoresPropertiesWhichAreNotUnresolvedConfigurations() {
+        Configuration compile = configuration("compile");
+        Configuration runtime = configuration("runtime");
+        runtime.getResolvedConfiguration();
+        resolved.clear();
+
+        Set<Configuration> configurations = scheduler.getConfigurations(toList(
+                (Task) new TaskWithClasspath(project, "a", compile),
+                new TaskWithClasspath(project, "b", runtime),
+                new TaskWithClasspath(project, "c", toSet(new File("lib.jar"))),
+                new TaskWithClasspath(project, "d", null),
+                new BrokenTask(project, "e")));
+
+        assertThat(configurations, equalTo(toSet(compile)));
+        assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    public void findsConfigurationsInsideCompositeFileCollections() {
+        Configuration compile = configuration("compile");
+        Configuration runtime = configuration("runtime");
+        Configuration testRuntime = configuration("testRuntime");
+        PathResolvingFileCollection paths = new PathResolvingFileCollection(new IdentityFileResolver(),
+                new File("classes"), toList(testRuntime));
+
+        Set<Configuration> configurations = scheduler.getConfigurations(toList(
+                (Task) new TaskWithClasspath(project, "a", compile.plus(runtime)),
+                new TaskWithClasspath(project, "b", paths)));
+
+        assertThat(configurations, equalTo(toSet(compile, runtime, testRuntime)));
+        assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    public void ignoresResolveFailures() {
+        Configuration broken = configuration("broken");
+        Configuration compile = configuration("compile");
+
+        scheduler.resolve(toList(broken, compile));
+
+        assertThat(broken.getState(), equalTo(Configuration.State.UNRESOLVED));
+        assertThat(compile.getState(), equalTo(Configuration.State.RESOLVED));
+    }
+
+    @Test
+    public void doesNotResolveConfigurationsWhenRunningSequentially() {
+        ConfigurationResolutionScheduler scheduler = new ConfigurationResolutionScheduler(1, descriptorCache);
+
+        scheduler.taskGraphPopulated(graph);
+
+        assertTrue(resolved.isEmpty());
+    }
+
+    @Test
+    public void discardsDescriptorsAtEndOfBuild() throws Exception {
+        final ModuleRevisionId id = ModuleRevisionId.newInstance("org", "a", "1.0");
+        final ResolvedModuleRevision revision = new ResolvedModuleRevision(null, null, null, null);
+        Callable<ResolvedModuleRevision> action = new Callable<ResolvedModuleRevision>() {
+            public ResolvedModuleRevision call() throws Exception {
+                return revision;
+            }
+        };
+        descriptorCache.get(Collections.<DependencyResolver>emptyList(), id, false, action);
+        descriptorCache.get(Collections.<DependencyResolver>emptyList(), id, false, action);
+        assertThat(descriptorCache.getHitCount(), equalTo(1));
+
+        scheduler.buildFinished(null);
+
+        assertThat(descriptorCache.getHitCount(), equalTo(0));
+        descriptorCache.get(Collections.<DependencyResolver>emptyList(), id, false, action);
+        assertThat(descriptorCache.getMissCount(), equalTo(1));
+    }
+
+    private Configuration configuration(String name) {
+        return new DefaultConfiguration(name, null, ivyService, null);
+    }
+
+    private class TestIvyService implements IvyService {
+        public ResolvedConfiguration resolve(Configuration configuration) throws ResolveException {
+            resolved.add(configuration.getName());
+            if (configuration.getName().equals("broken")) {
+                throw new RuntimeException("broken");
+            }
+            return new ResolvedConfiguration() {
+                public boolean hasError() {
+                    return false;
+                }
+
+                public void rethrowFailure() throws ResolveException {
+                }
+
+                public Set<File> getFiles(Spec<Dependency> dependencySpec) {
+                    return Collections.emptySet();
+                }
+
+                public Set<ResolvedDependency> getFirstLevelModuleDependencies() {
+                    return Collections.emptySet();
+                }
+
+                public Set<ResolvedArtifact> getResolvedArtifacts() {
+                    return Collections.emptySet();
+                }
+            };
+        }
+
+        public void publish(Set<Configuration> configurationsToPublish, PublishInstruction publishInstruction,
+                            List<DependencyResolver> publishResolvers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static class TaskWithClasspath extends DefaultTask {
+        private final Iterable<File> classpath;
+
+        public TaskWithClasspath(Project project, String name, Iterable<File> classpath) {
+            super(project, name);
+            this.classpath = classpath;
+        }
+
+        @InputFiles
+        public Iterable<File> getClasspath() {
+            return classpath;
+        }
+    }
+
+    public static class BrokenTask extends DefaultTask {
+        public BrokenTask(Project project, String name) {
+            super(project, name);
+        }
+
+        @InputFiles
+        public Iterable<File> getClasspath() {
+            throw new RuntimeException("broken");
+        }
+    }
+}
@@ -20,16 +20,25 @@ import org.gradle.api.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.configurations.DefaultConfigurationContainer;
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
 import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
+import org.gradle.api.internal.artifacts.ivyservice.CachingIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.DefaultIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.ShortcircuitEmptyConfigsIvyService;
 import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingIvyService;
+import org.gradle.api.internal.artifacts.ivyservice.LocalModuleIndex;
+import org.gradle.api.internal.artifacts.ivyservice.OfflineResolver;
+import org.gradle.util.WrapUtil;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
 import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+
 /**
  * @author Hans Dockter
  */
@@ -54,9 +63,37 @@ public class DefaultConfigurationContainerFactoryTest {
         assertThat(errorHandlingService.getIvyService(), instanceOf(ShortcircuitEmptyConfigsIvyService.class));
         ShortcircuitEmptyConfigsIvyService service = (ShortcircuitEmptyConfigsIvyService) errorHandlingService.getIvyService();
 
-        assertThat(service.getIvyService(), instanceOf(DefaultIvyService.class));
-        assertThat(((DefaultIvyService) service.getIvyService()).getMetaDataProvider(), sameInstance(dependencyMetaDataProviderStub));
-        assertThat(((DefaultIvyService) service.getIvyService()).getResolverProvider(), sameInstance(resolverProviderDummy));
+        assertThat(service.getIvyService(), instanceOf(CachingIvyService.class));
+        CachingIvyService cachingService = (CachingIvyService) service.getIvyService();
+
+        assertThat(cachingService.getIvyService(), instanceOf(DefaultIvyService.class));
+        assertThat(((DefaultIvyService) cachingService.getIvyService()).getMetaDataProvider(), sameInstance(dependencyMetaDataProviderStub));
+        assertThat(((DefaultIvyService) cachingService.getIvyService()).getResolverProvider(), sameInstance(resolverProviderDummy));
         assertThat(configurationContainer.getProjectDependenciesBuildInstruction(), sameInstance(projectDependenciesBuildInstructionDummy));
     }
+
+    @Test
+    public void testCreateOffline() {
+        final ResolverProvider resolverProviderStub = context.mock(ResolverProvider.class);
+        DependencyMetaDataProvider dependencyMetaDataProviderStub = context.mock(DependencyMetaDataProvider.class);
+        OfflineResolver offlineResolver = new OfflineResolver(new LocalModuleIndex(new File("cache")));
+        final FileSystemResolver flatDirResolver = new FileSystemResolver();
+        final DependencyResolver remoteResolver1 = context.mock(DependencyResolver.class, "remote1");
+        final DependencyResolver remoteResolver2 = context.mock(DependencyResolver.class, "remote2");
+        context.checking(new Expectations() {{
+            allowing(resolverProviderStub).getResolvers();
+            will(returnValue(WrapUtil.<DependencyResolver>toList(remoteResolver1, flatDirResolver, remoteResolver2)));
+        }});
+
+        DefaultConfigurationContainer configurationContainer = (DefaultConfigurationContainer)
+                new DefaultConfigurationContainerFactory(new ProjectDependenciesBuildInstruction(null), offlineResolver)
+                        .createConfigurationContainer(resolverProviderStub, dependencyMetaDataProviderStub);
+
+        ErrorHandlingIvyService errorHandlingService = (ErrorHandlingIvyService) configurationContainer.getIvyService();
+        ShortcircuitEmptyConfigsIvyService service = (ShortcircuitEmptyConfigsIvyService) errorHandlingService.getIvyService();
+        CachingIvyService cachingService = (CachingIvyService) service.getIvyService();
+        ResolverProvider resolverProvider = ((DefaultIvyService) cachingService.getIvyService()).getResolverProvider();
+        assertThat(resolverProvider.getResolvers(), equalTo(WrapUtil.<DependencyResolver>toList(offlineResolver,
+                flatDirResolver)));
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.TestHttpServer;
+import org.gradle.util.ThreadUtils;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ArtifactDownloaderTest {
+    private static final String CONTENT = "some artifact content which is long enough to be split in two";
+
+    private final TestHttpServer server = new TestHttpServer();
+    private final ArtifactDownloader downloader = new ArtifactDownloader(2);
+    private final List<Long> progress = new ArrayList<Long>();
+    private final ArtifactDownloader.DownloadListener listener = new ArtifactDownloader.DownloadListener() {
+        public void started(long totalLength) {
+            progress.add(totalLength);
+        }
+
+        public void progress(int length) {
+        }
+    };
+    private File testDir;
+    private File destination;
+    private File partFile;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        testDir = HelperUtil.makeNewTestDir();
+        destination = new File(testDir, "cache/artifact.jar");
+        partFile = new File(testDir, "cache/artifact.jar.part");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void downloadsResourceAndVerifiesChecksum() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+        server.addResource("artifact.jar.sha1", sha1(CONTENT) + "  artifact.jar\n");
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+        assertFalse(partFile.exists());
+        assertThat(server.getRequests(), equalTo(toList("/artifact.jar", "/artifact.jar.sha1")));
+        assertThat(progress, equalTo(toList((long) CONTENT.length())));
+        assertThat(downloader.getFileCount(), equalTo(1));
+        assertThat(downloader.getByteCount(), equalTo((long) CONTENT.length()));
+    }
+
+    @Test
+    public void downloadsResourceWhenNoChecksumIsPublished() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+    }
+
+    @Test
+    public void downloadsResourceWhenChecksumCannotBeDownloaded() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+        server.addError("artifact.jar.sha1", "500 Internal Server Error");
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+    }
+
+    @Test
+    public void doesNotVerifyChecksumFiles() throws Exception {
+        server.addResource("artifact.jar.sha1", sha1(CONTENT));
+
+        downloader.download(server.getUrl("artifact.jar.sha1"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(sha1(CONTENT)));
+        assertThat(server.getRequests(), equalTo(toList("/artifact.jar.sha1")));
+    }
+
+    @Test
+    public void resumesPartialDownload() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+        server.addResource("artifact.jar.sha1", sha1(CONTENT));
+        GFileUtils.writeStringToFile(partFile, CONTENT.substring(0, 20));
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+        assertFalse(partFile.exists());
+        assertThat(server.getRequests().get(0), equalTo("/artifact.jar bytes=20-"));
+        assertThat(progress, equalTo(toList((long) CONTENT.length() - 20)));
+    }
+
+    @Test
+    public void startsAgainWhenServerDoesNotSupportRanges() throws Exception {
+        server.setSupportsRanges(false);
+        server.addResource("artifact.jar", CONTENT);
+        server.addResource("artifact.jar.sha1", sha1(CONTENT));
+        GFileUtils.writeStringToFile(partFile, CONTENT.substring(0, 20));
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+    }
+
+    @Test
+    public void startsAgainWhenPartialDownloadIsLongerThanResource() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+        GFileUtils.writeStringToFile(partFile, CONTENT + "with some garbage");
+
+        downloader.download(server.getUrl("artifact.jar"), destination, listener);
+
+        assertThat(GFileUtils.readFileToString(destination), equalTo(CONTENT));
+    }
+
+    @Test
+    public void failsWhenChecksumDoesNotMatch() throws Exception {
+        server.addResource("artifact.jar", CONTENT);
+        server.addResource("artifact.jar.sha1", sha1("other content"));
+
+        try {
+            downloader.download(server.getUrl("artifact.jar"), destination, listener);
+            fail();
+        } catch (IOException e) {
+            assertThat(e.getMessage(), startsWith(String.format("Checksum of %s does not match.",
+                    server.getUrl("artifact.jar"))));
+        }
+
+        assertFalse(destination.exists());
+        assertFalse(partFile.exists());
+    }
+
+    @Test
+    public void failsWhenResourceDoesNotExist() throws Exception {
+        try {
+            downloader.download(server.getUrl("missing.jar"), destination, listener);
+            fail();
+        } catch (FileNotFoundException e) {
+            assertThat(e.getMessage(), equalTo(String.format("Could not find %s.", server.getUrl("missing.jar"))));
+        }
+
+        assertFalse(destination.exists());
+    }
+
+    @Test
+    public void limitsConcurrentConnectionsPerHost() throws Exception {
+        server.setResponseDelay(100);
+        List<Callable<Object>> downloads = new ArrayList<Callable<Object>>();
+        for (int i = 0; i < 6; i++) {
+            final String name = "artifact" + i + ".jar";
+            server.addResource(name, CONTENT + i);
+            downloads.add(new Callable<Object>() {
+                public Object call() throws Exception {
+                    downloader.download(server.getUrl(name), new File(testDir, name), listener);
+                    return null;
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            for (Future<Object> result : executor.invokeAll(downloads)) {
+                result.get();
+            }
+        } finally {
+            ThreadUtils.shutdown(executor);
+        }
+
+        assertThat(downloader.getFileCount(), equalTo(6));
+        assertThat(server.getMaxActiveRequests(), lessThanOrEqualTo(2));
+        assertThat(GFileUtils.readFileToString(new File(testDir, "artifact3.jar")), equalTo(CONTENT + 3));
+    }
+
+    private String sha1(String content) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        digest.update(content.getBytes("UTF-8"));
+        return String.format("%040x", new BigInteger(1, digest.digest()));
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.artifacts.DefaultResolvedArtifact;
+import org.gradle.api.internal.artifacts.DefaultResolvedDependency;
+import org.gradle.api.internal.artifacts.IvyService;
+import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
+import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@RunWith(JMock.class)
+public class CachingIvyServiceTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final IvyService delegate = context.mock(IvyService.class);
+    private final ResolverProvider resolverProvider = context.mock(ResolverProvider.class);
+    private final DependencyMetaDataProvider metaDataProvider = context.mock(DependencyMetaDataProvider.class);
+    private final CachingIvyService ivyService = new CachingIvyService(delegate, resolverProvider, metaDataProvider);
+    private File testDir;
+    private File jarA;
+    private File jarB;
+    private int counter;
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        jarA = new File(testDir, "repo/a-1.0.jar");
+        jarB = new File(testDir, "repo/b-2.0.jar");
+        GFileUtils.writeStringToFile(jarA, "a");
+        GFileUtils.writeStringToFile(jarB, "b");
+
+        context.checking(new Expectations() {{
+            allowing(metaDataProvider).getGradleUserHomeDir();
+            will(returnValue(new File(testDir, "userHome")));
+            allowing(resolverProvider).getResolvers();
+            will(returnValue(Collections.<DependencyResolver>emptyList()));
+        }});
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void resolvesFromCacheWhenDependenciesHaveNotChanged() {
+        ModuleDependency dependency = new DefaultExternalModuleDependency("org", "a", "1.0");
+        Configuration configuration = configuration(dependency);
+
+        ResolvedConfiguration resolvedConfiguration = resolvedConfiguration(dependency);
+        expectDelegateResolves(configuration, resolvedConfiguration);
+        assertSame(resolvedConfiguration, ivyService.resolve(configuration));
+
+        ResolvedConfiguration cached = ivyService.resolve(configuration);
+
+        assertNotSame(resolvedConfiguration, cached);
+        assertFalse(cached.hasError());
+        cached.rethrowFailure();
+        assertEquals(toLinkedSet(jarA, jarB), cached.getFiles(Specs.<Dependency>satisfyAll()));
+        assertEquals(toLinkedSet(jarA, jarB), cached.getFiles(new Spec<Dependency>() {
+            public boolean isSatisfiedBy(Dependency element) {
+                return element.getName().equals("a");
+            }
+        }));
+
+        ResolvedDependency a = cached.getFirstLevelModuleDependencies().iterator().next();
+        assertThat(cached.getFirstLevelModuleDependencies().size(), equalTo(1));
+        assertThat(a.getName(), equalTo("a"));
+        assertThat(a.getVersion(), equalTo("1.0"));
+        assertThat(a.getModuleArtifacts().iterator().next().getFile(), equalTo(jarA));
+        assertSame(a, a.getModuleArtifacts().iterator().next().getResolvedDependency());
+        assertTrue(a.getParents().contains(null));
+
+        ResolvedDependency b = a.getChildren().iterator().next();
+        assertThat(b.getName(), equalTo("b"));
+        assertThat(b.getVersion(), equalTo("2.0"));
+        assertTrue(b.getParents().contains(a));
+        assertThat(b.getParentArtifacts(a).iterator().next().getFile(), equalTo(jarB));
+
+        assertThat(cached.getResolvedArtifacts().size(), equalTo(2));
+    }
+
+    @Test
+    public void resolvesUsingIvyWhenDependenciesHaveChanged() {
+        ModuleDependency dependency = new DefaultExternalModuleDependency("org", "a", "1.0");
+        Configuration configuration = configuration(dependency);
+        expectDelegateResolves(configuration, resolvedConfiguration(dependency));
+        ivyService.resolve(configuration);
+
+        ModuleDependency other = new DefaultExternalModuleDependency("org", "a", "1.1");
+        Configuration otherConfiguration = configuration(other);
+        ResolvedConfiguration resolvedConfiguration = resolvedConfiguration(other);
+        expectDelegateResolves(otherConfiguration, resolvedConfiguration);
+
+        assertSame(resolvedConfiguration, ivyService.resolve(otherConfiguration));
+    }
+
+    @Test
+    public void resolvesUsingIvyWhenCachedArtifactHasBeenDeleted() {
+        ModuleDependency dependency = new DefaultExternalModuleDependency("org", "a", "1.0");
+        Configuration configuration = configuration(dependency);
+        expectDelegateResolves(configuration, resolvedConfiguration(dependency));
+        ivyService.resolve(configuration);
+
+        jarB.delete();
+        ResolvedConfiguration resolvedConfiguration = resolvedConfiguration(dependency);
+        expectDelegateResolves(configuration, resolvedConfiguration);
+
+        assertSame(resolvedConfiguration, ivyService.resolve(configuration));
+    }
+
+    @Test
+    public void doesNotCacheFailedResolve() {
+        ModuleDependency dependency = new DefaultExternalModuleDependency("org", "a", "1.0");
+        final Configuration configuration = configuration(dependency);
+        final ResolvedConfiguration failed = context.mock(ResolvedConfiguration.class);
+        context.checking(new Expectations() {{
+            exactly(2).of(delegate).resolve(configuration);
+            will(returnValue(failed));
+            allowing(failed).hasError();
+            will(returnValue(true));
+        }});
+
+        assertSame(failed, ivyService.resolve(configuration));
+        assertSame(failed, ivyService.resolve(configuration));
+    }
+
+    @Test
+    public void doesNotCacheDynamicVersions() {
+        assertNotCached(new DefaultExternalModuleDependency("org", "a", "1.+"));
+        assertNotCached(new DefaultExternalModuleDependency("org", "a", "latest.integration"));
+        assertNotCached(new DefaultExternalModuleDependency("org", "a", "[1.0,2.0)"));
+        assertNotCached(new DefaultExternalModuleDependency("org", "a", "1.0-SNAPSHOT"));
+        assertNotCached(new DefaultExternalModuleDependency("org", "a", "1.0").setChanging(true));
+    }
+
+    @Test
+    public void doesNotCacheProjectOrSelfResolvingDependencies() {
+        assertNotCached(context.mock(ProjectDependency.class));
+        assertNotCached(context.mock(SelfResolvingDependency.class));
+    }
+
+    private void assertNotCached(Dependency dependency) {
+        final Configuration configuration = configuration(dependency);
+        final ResolvedConfiguration resolvedConfiguration = context.mock(ResolvedConfiguration.class,
+                "resolved" + counter);
+        context.checking(new Expectations() {{
+            exactly(2).of(delegate).resolve(configuration);
+            will(returnValue(resolvedConfiguration));
+        }});
+
+        assertSame(resolvedConfiguration, ivyService.resolve(configuration));
+        assertSame(resolvedConfiguration, ivyService.resolve(configuration));
+    }
+
+    private Configuration configuration(final Dependency dependency) {
+        counter++;
+        final Configuration configuration = context.mock(Configuration.class, "configuration" + counter);
+        final Set<ModuleDependency> moduleDependencies = new LinkedHashSet<ModuleDependency>();
+        if (dependency instanceof ModuleDependency) {
+            moduleDependencies.add((ModuleDependency) dependency);
+        }
+        context.checking(new Expectations() {{
+            allowing(configuration).getAllDependencies();
+            will(returnValue(toSet(dependency)));
+            allowing(configuration).getAllDependencies(ModuleDependency.class);
+            will(returnValue(moduleDependencies));
+            allowing(configuration).isTransitive();
+            will(returnValue(true));
+            allowing(configuration).getHierarchy();
+            will(returnValue(Collections.singletonList(configuration)));
+            allowing(configuration).getExcludeRules();
+            will(returnValue(Collections.emptySet()));
+        }});
+        return configuration;
+    }
+
+    private void expectDelegateResolves(final Configuration configuration,
+                                        final ResolvedConfiguration resolvedConfiguration) {
+        context.checking(new Expectations() {{
+            one(delegate).resolve(configuration);
+            will(returnValue(resolvedConfiguration));
+        }});
+    }
+
+    private ResolvedConfiguration resolvedConfiguration(ModuleDependency dependency) {
+        DefaultResolvedArtifact artifactA = new DefaultResolvedArtifact("a", "jar", "jar", jarA);
+        DefaultResolvedArtifact artifactB = new DefaultResolvedArtifact("b", "jar", "jar", jarB);
+        final DefaultResolvedDependency a = new DefaultResolvedDependency("org", "a", dependency.getVersion(),
+                Dependency.DEFAULT_CONFIGURATION, toSet(Dependency.DEFAULT_CONFIGURATION),
+                toLinkedSet((ResolvedArtifact) artifactA));
+        DefaultResolvedDependency b = new DefaultResolvedDependency("org", "b", "2.0",
+                Dependency.DEFAULT_CONFIGURATION, toSet(Dependency.DEFAULT_CONFIGURATION),
+                new LinkedHashSet<ResolvedArtifact>());
+        artifactA.setResolvedDependency(a);
+        artifactB.setResolvedDependency(b);
+        a.getParents().add(null);
+        a.getChildren().add(b);
+        b.getParents().add(a);
+        b.addParentSpecificArtifacts(a, toLinkedSet((ResolvedArtifact) artifactB));
+        final Set<ResolvedArtifact> artifacts = toLinkedSet((ResolvedArtifact) artifactA, artifactB);
+
+        return new ResolvedConfiguration() {
+            public boolean hasError() {
+                return false;
+            }
+
+            public void rethrowFailure() throws ResolveException {
+            }
+
+            public Set<File> getFiles(Spec<Dependency> dependencySpec) {
+                return toLinkedSet(jarA, jarB);
+            }
+
+            public Set<ResolvedDependency> getFirstLevelModuleDependencies() {
+                return toLinkedSet((ResolvedDependency) a);
+            }
+
+            public Set<ResolvedArtifact> getResolvedArtifacts() {
+                return artifacts;
+            }
+        };
+    }
+}
@@ -27,6 +27,7 @@ import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvid
 import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
 import org.gradle.util.HelperUtil;
 import org.gradle.util.WrapUtil;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.sameInstance;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JMock;
@@ -123,4 +124,69 @@ public class DefaultIvyService_ResolveFromRepoTest {
         ivyService.setIvyFactory(ivyFactoryStub);
         assertThat(ivyService.resolve(configurationDummy), sameInstance(resolvedConfiguration));
     }
+
+    @Test
+    public void reusesIvyInstanceWhileResolversAreUnchanged() {
+        final IvySettings ivySettingsDummy = new IvySettings();
+        final Ivy ivyStub = context.mock(Ivy.class);
+        final IvyFactory ivyFactoryMock = context.mock(IvyFactory.class);
+
+        context.checking(new Expectations() {{
+            one(ivyService.getSettingsConverter()).convertForResolve(dependencyResolversDummy, cacheParentDirDummy,
+                    internalRepositoryDummy, clientModuleRegistryDummy);
+            will(returnValue(ivySettingsDummy));
+
+            one(ivyFactoryMock).createIvy(ivySettingsDummy);
+            will(returnValue(ivyStub));
+        }});
+        expectResolve(ivyStub, ivySettingsDummy);
+
+        ivyService.setIvyFactory(ivyFactoryMock);
+        ivyService.resolve(configurationDummy);
+        ivyService.resolve(configurationDummy);
+
+        assertThat(ivyService.getIvyCreatedCount(), equalTo(1));
+        assertThat(ivyService.getIvyReusedCount(), equalTo(1));
+    }
+
+    @Test
+    public void createsNewIvyInstanceWhenResolversChange() {
+        final IvySettings ivySettingsDummy = new IvySettings();
+        final Ivy ivyStub = context.mock(Ivy.class);
+        final IvyFactory ivyFactoryMock = context.mock(IvyFactory.class);
+
+        context.checking(new Expectations() {{
+            exactly(2).of(ivyService.getSettingsConverter()).convertForResolve(dependencyResolversDummy,
+                    cacheParentDirDummy, internalRepositoryDummy, clientModuleRegistryDummy);
+            will(returnValue(ivySettingsDummy));
+
+            exactly(2).of(ivyFactoryMock).createIvy(ivySettingsDummy);
+            will(returnValue(ivyStub));
+        }});
+        expectResolve(ivyStub, ivySettingsDummy);
+
+        ivyService.setIvyFactory(ivyFactoryMock);
+        ivyService.resolve(configurationDummy);
+        dependencyResolversDummy.add(context.mock(DependencyResolver.class, "added"));
+        ivyService.resolve(configurationDummy);
+
+        assertThat(ivyService.getIvyCreatedCount(), equalTo(2));
+        assertThat(ivyService.getIvyReusedCount(), equalTo(0));
+    }
+
+    private void expectResolve(final Ivy ivyStub, final IvySettings ivySettingsDummy) {
+        final ModuleDescriptor moduleDescriptorDummy = HelperUtil.createModuleDescriptor(WrapUtil.toSet("someConf"));
+        final ResolvedConfiguration resolvedConfiguration = context.mock(ResolvedConfiguration.class);
+        context.checking(new Expectations() {{
+            allowing(ivyStub).getSettings();
+            will(returnValue(ivySettingsDummy));
+
+            allowing(ivyService.getModuleDescriptorConverter()).convertForResolve(configurationDummy, moduleDummy,
+                    clientModuleRegistryDummy, ivySettingsDummy);
+            will(returnValue(moduleDescriptorDummy));
+
+            allowing(ivyService.getDependencyResolver()).resolve(configurationDummy, ivyStub, moduleDescriptorDummy);
+            will(returnValue(resolvedConfiguration));
+        }});
+    }
 }
\ No newline at end of file
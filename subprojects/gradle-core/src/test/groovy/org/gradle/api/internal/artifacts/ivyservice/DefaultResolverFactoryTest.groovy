@@ -72,6 +72,8 @@ class DefaultResolverFactoryTest {
         assert urlResolver.artifactPatterns.contains("$TEST_REPO_URL/$ResolverContainer.MAVEN_REPO_PATTERN" as String)
         assert urlResolver.artifactPatterns.contains("$testUrl2/$ResolverContainer.MAVEN_REPO_PATTERN" as String)
         assertEquals("${TEST_REPO_NAME}_jars" as String, urlResolver.name)
+        assert urlResolver.repository instanceof ResumingURLRepository
+        assert urlResolver.repository.downloader.is(factory.downloader)
     }
 
     @Test
@@ -86,6 +88,8 @@ class DefaultResolverFactoryTest {
         assertEquals(TEST_REPO_URL + '/', iBiblioResolver.root)
         assertEquals(ResolverContainer.MAVEN_REPO_PATTERN, iBiblioResolver.pattern)
         assertEquals("${TEST_REPO_NAME}$expectedNameSuffix" as String, iBiblioResolver.name)
+        assert iBiblioResolver.repository instanceof ResumingURLRepository
+        assert iBiblioResolver.repository.downloader.is(factory.downloader)
     }
 
     @Test public void testCreateFlatDirResolver() {
@@ -100,6 +104,16 @@ class DefaultResolverFactoryTest {
 
     }
 
+    @Test public void testCreateOfflineResolver() {
+        File cacheDir = new File('/cache')
+        OfflineResolver resolver = factory.createOfflineResolver(cacheDir)
+        checkNoModuleRepository(resolver, OfflineResolver.NAME,
+                ["$cacheDir.absolutePath/$ResolverContainer.DEFAULT_CACHE_ARTIFACT_PATTERN"],
+                ["$cacheDir.absolutePath/$ResolverContainer.DEFAULT_CACHE_IVY_PATTERN".toString()])
+        assertEquals(cacheDir, resolver.index.cacheDir)
+        assertTrue(((DefaultRepositoryCacheManager) resolver.getRepositoryCacheManager()).isUseOrigin())
+    }
+
     private void checkNoModuleRepository(RepositoryResolver resolver, String expectedName, List expectedArtifactPatterns,
                                          List expectedIvyPatterns) {
         assertEquals(expectedName, resolver.name)
@@ -67,6 +67,8 @@ class DefaultSettingsConverterTest {
         assert chainResolver.resolvers[1].is(TEST_RESOLVER)
         assert chainResolver.resolvers[2].is(TEST_RESOLVER_2)
         assertTrue chainResolver.returnFirst
+        assert chainResolver instanceof CachingChainResolver
+        assert chainResolver.descriptorCache.is(converter.descriptorCache)
 
         ClientModuleResolver clientModuleResolver = settings.getResolver(DefaultSettingsConverter.CLIENT_MODULE_NAME)
         ChainResolver clientModuleChain = settings.getResolver(DefaultSettingsConverter.CLIENT_MODULE_CHAIN_NAME)
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.core.resolve.ResolvedModuleRevision;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.apache.ivy.plugins.resolver.FileSystemResolver;
+import org.apache.ivy.plugins.resolver.IBiblioResolver;
+import org.gradle.util.ThreadUtils;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ModuleDescriptorCacheTest {
+    private final ModuleDescriptorCache cache = new ModuleDescriptorCache();
+    private final List<DependencyResolver> resolvers = toList((DependencyResolver) new IBiblioResolver());
+    private final ModuleRevisionId id = ModuleRevisionId.newInstance("org", "a", "1.0");
+    private final ResolvedModuleRevision revision = new ResolvedModuleRevision(null, null, null, null);
+    private final AtomicInteger callCount = new AtomicInteger();
+
+    @Test
+    public void findsModuleOnceOnly() throws Exception {
+        assertSame(revision, cache.get(resolvers, id, false, returns(revision)));
+        assertSame(revision, cache.get(resolvers, id, false, returns(revision)));
+
+        assertThat(callCount.get(), equalTo(1));
+        assertThat(cache.getHitCount(), equalTo(1));
+        assertThat(cache.getMissCount(), equalTo(1));
+    }
+
+    @Test
+    public void keepsSeparateEntriesForDifferentResolversAndOptions() throws Exception {
+        List<DependencyResolver> otherResolvers = toList((DependencyResolver) fileSystemResolver("other"));
+
+        cache.get(resolvers, id, false, returns(revision));
+        cache.get(otherResolvers, id, false, returns(revision));
+        cache.get(resolvers, id, true, returns(revision));
+        cache.get(resolvers, ModuleRevisionId.newInstance("org", "a", "1.1"), false, returns(revision));
+
+        assertThat(callCount.get(), equalTo(4));
+    }
+
+    @Test
+    public void sharesEntriesBetweenResolversForTheSameRepository() throws Exception {
+        List<DependencyResolver> repo1 = toList((DependencyResolver) fileSystemResolver("repo"));
+        List<DependencyResolver> repo2 = toList((DependencyResolver) fileSystemResolver("repo"));
+        List<DependencyResolver> otherRepo = toList((DependencyResolver) fileSystemResolver("other"));
+
+        assertSame(revision, cache.get(repo1, id, false, returns(revision)));
+        assertSame(revision, cache.get(repo2, id, false, returns(revision)));
+        cache.get(otherRepo, id, false, returns(revision));
+
+        assertThat(callCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void doesNotCacheMissingModule() throws Exception {
+        assertNull(cache.get(resolvers, id, false, returns(null)));
+        assertSame(revision, cache.get(resolvers, id, false, returns(revision)));
+
+        assertThat(callCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void doesNotCacheFailure() throws Exception {
+        final ParseException failure = new ParseException("broken", 0);
+        try {
+            cache.get(resolvers, id, false, new Callable<ResolvedModuleRevision>() {
+                public ResolvedModuleRevision call() throws Exception {
+                    throw failure;
+                }
+            });
+            fail();
+        } catch (ParseException e) {
+            assertSame(failure, e);
+        }
+
+        assertSame(revision, cache.get(resolvers, id, false, returns(revision)));
+    }
+
+    @Test
+    public void removesEntry() throws Exception {
+        cache.get(resolvers, id, false, returns(revision));
+        cache.remove(resolvers, id, false);
+        cache.get(resolvers, id, false, returns(revision));
+
+        assertThat(callCount.get(), equalTo(2));
+    }
+
+    @Test
+    public void concurrentLookupsOfSameModuleWaitForFirstLookup() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<ResolvedModuleRevision> slowAction = new Callable<ResolvedModuleRevision>() {
+            public ResolvedModuleRevision call() throws Exception {
+                callCount.incrementAndGet();
+                started.countDown();
+                release.await();
+                return revision;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<ResolvedModuleRevision> lookup = new Callable<ResolvedModuleRevision>() {
+                public ResolvedModuleRevision call() throws Exception {
+                    return cache.get(resolvers, id, false, slowAction);
+                }
+            };
+            Future<ResolvedModuleRevision> first = executor.submit(lookup);
+            started.await();
+            List<Future<ResolvedModuleRevision>> results = toList(first, executor.submit(lookup),
+                    executor.submit(lookup), executor.submit(lookup));
+            release.countDown();
+            for (Future<ResolvedModuleRevision> result : results) {
+                assertSame(revision, result.get());
+            }
+        } finally {
+            release.countDown();
+            ThreadUtils.shutdown(executor);
+        }
+
+        assertThat(callCount.get(), equalTo(1));
+    }
+
+    private FileSystemResolver fileSystemResolver(String dir) {
+        FileSystemResolver resolver = new FileSystemResolver();
+        resolver.addIvyPattern(dir + "/[module]/ivy-[revision].xml");
+        resolver.addArtifactPattern(dir + "/[module]/[artifact]-[revision].[ext]");
+        return resolver;
+    }
+
+    private Callable<ResolvedModuleRevision> returns(final ResolvedModuleRevision result) {
+        return new Callable<ResolvedModuleRevision>() {
+            public ResolvedModuleRevision call() throws Exception {
+                callCount.incrementAndGet();
+                return result;
+            }
+        };
+    }
+}
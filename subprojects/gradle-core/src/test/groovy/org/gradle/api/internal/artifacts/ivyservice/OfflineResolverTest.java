@@ -0,0 +1,117 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.GradleException;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+public class OfflineResolverTest {
+    private File cacheDir;
+    private LocalModuleIndex index;
+    private OfflineResolver resolver;
+
+    @Before
+    public void setUp() {
+        cacheDir = HelperUtil.makeNewTestDir();
+        addFile("org.a/a/ivy-1.0.xml");
+        addFile("org.a/a/ivy-1.0.xml.original");
+        addFile("org.a/a/ivydata-1.0.properties");
+        addFile("org.a/a/jars/a-1.0.jar");
+        addFile("org.a/a/ivy-1.1.xml");
+        addFile("org.a/b/ivy-2.0.xml");
+        addFile("org.a/b/branch1/ivy-2.1.xml");
+        addFile("org.c/c/jars/c-3.0.jar");
+        index = new LocalModuleIndex(cacheDir);
+        resolver = new OfflineResolver(index);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void indexesTheRevisionsOfEachModuleInTheCache() {
+        assertThat(index.getRevisions("org.a", "a"), equalTo(toSortedSet("1.0", "1.1")));
+        assertThat(index.getRevisions("org.a", "b"), equalTo(toSortedSet("2.0", "2.1")));
+        assertThat(index.getRevisions("org.c", "c").isEmpty(), equalTo(true));
+        assertThat(index.getRevisions("org.unknown", "a").isEmpty(), equalTo(true));
+        assertThat(index.getModuleCount(), equalTo(2));
+        assertThat(index.getRevisionCount(), equalTo(4));
+
+        assertTrue(index.contains("org.a", "a", "1.1"));
+        assertFalse(index.contains("org.a", "a", "1.2"));
+    }
+
+    @Test
+    public void indexIsEmptyWhenCacheDirDoesNotExist() {
+        LocalModuleIndex index = new LocalModuleIndex(new File(cacheDir, "unknown"));
+        assertThat(index.getModuleCount(), equalTo(0));
+        assertThat(index.getRevisions("org.a", "a").isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void acceptsCachedRevision() {
+        resolver.checkCached(ModuleRevisionId.newInstance("org.a", "a", "1.0"), false);
+        resolver.checkCached(ModuleRevisionId.newInstance("org.a", "b", "2.1"), false);
+    }
+
+    @Test
+    public void acceptsDynamicRevisionOfCachedModule() {
+        resolver.checkCached(ModuleRevisionId.newInstance("org.a", "a", "latest.integration"), true);
+    }
+
+    @Test
+    public void failsForRevisionWhichIsNotCached() {
+        try {
+            resolver.checkCached(ModuleRevisionId.newInstance("org.a", "a", "1.2"), false);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), equalTo(String.format(
+                    "Could not resolve org.a:a:1.2 offline: this revision is not in the dependency cache %s. Cached revisions: 1.0, 1.1.",
+                    cacheDir)));
+        }
+    }
+
+    @Test
+    public void failsForModuleWhichIsNotCached() {
+        try {
+            resolver.checkCached(ModuleRevisionId.newInstance("org.c", "c", "latest.integration"), true);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), equalTo(String.format(
+                    "Could not resolve org.c:c:latest.integration offline: no revision of this module is in the dependency cache %s.",
+                    cacheDir)));
+        }
+    }
+
+    private void addFile(String path) {
+        File file = new File(cacheDir, path);
+        file.getParentFile().mkdirs();
+        GFileUtils.writeStringToFile(file, "content");
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ResolverLockTest {
+    private final ResolverLock lock = new ResolverLock();
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void bindsResolversWhenOwnerChanges() {
+        lock.acquire("a", bind("a"));
+        lock.release();
+        lock.acquire("a", bind("a"));
+        lock.release();
+        lock.acquire("b", bind("b"));
+        lock.release();
+        lock.acquire("a", bind("a"));
+        lock.release();
+
+        assertThat(events, equalTo(toList("bind a", "bind b", "bind a")));
+    }
+
+    @Test
+    public void allowsHoldersWithSameOwnerAtTheSameTime() throws Exception {
+        lock.acquire("a", bind("a"));
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                lock.acquire("a", bind("a"));
+                acquired.countDown();
+                lock.release();
+            }
+        };
+        thread.start();
+
+        assertTrue(acquired.await(10, TimeUnit.SECONDS));
+        lock.release();
+        thread.join();
+        assertThat(events, equalTo(toList("bind a")));
+    }
+
+    @Test
+    public void holderWithOtherOwnerWaitsUntilLockIsReleased() throws Exception {
+        lock.acquire("a", bind("a"));
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                lock.acquire("b", bind("b"));
+                lock.release();
+            }
+        };
+        thread.start();
+
+        Thread.sleep(100);
+        events.add("release a");
+        lock.release();
+        thread.join();
+
+        assertThat(events, equalTo(toList("bind a", "release a", "bind b")));
+    }
+
+    private Runnable bind(final String owner) {
+        return new Runnable() {
+            public void run() {
+                events.add("bind " + owner);
+            }
+        };
+    }
+}
@@ -2,12 +2,15 @@ package org.gradle.api.internal.file;
 
 import org.apache.tools.ant.filters.HeadFilter
 import org.apache.tools.ant.filters.StripJavaComments
+import org.gradle.api.InvalidUserDataException
 import org.gradle.util.HelperUtil
 import org.hamcrest.Matchers
 import org.junit.Before
 import org.junit.Test
 import static org.junit.Assert.*
 
+import java.nio.charset.Charset
+
 public class CopySpecImplTest {
 
     private CopySpecImpl spec;
@@ -83,13 +86,13 @@ public class CopySpecImplTest {
 
     @Test public void testNoArgFilter() {
         spec.filter(StripJavaComments)
-        assertThat(spec.filterChain.getLastFilter(), Matchers.instanceOf(StripJavaComments))
+        assertThat(spec.filterChain.transform(new StringReader('')), Matchers.instanceOf(StripJavaComments))
     }
 
     @Test public void testArgFilter() {
         spec.filter(HeadFilter, lines:15, skip:2)
 
-        org.apache.tools.ant.filters.HeadFilter filter = spec.filterChain.getLastFilter()
+        org.apache.tools.ant.filters.HeadFilter filter = spec.filterChain.transform(new StringReader(''))
         assertThat(filter, Matchers.instanceOf(HeadFilter))
         assertEquals(15, filter.lines)
         assertEquals(2, filter.skip)
@@ -99,8 +102,35 @@ public class CopySpecImplTest {
         spec.filter(StripJavaComments)
         spec.filter(HeadFilter, lines:15, skip:2)
         
-        assertThat(spec.filterChain.getLastFilter(), Matchers.instanceOf(org.apache.tools.ant.filters.HeadFilter))
-        assertThat(spec.filterChain.getLastFilter().in, Matchers.instanceOf(org.apache.tools.ant.filters.StripJavaComments))
+        Reader filter = spec.filterChain.transform(new StringReader(''))
+        assertThat(filter, Matchers.instanceOf(org.apache.tools.ant.filters.HeadFilter))
+        assertThat(filter.in, Matchers.instanceOf(org.apache.tools.ant.filters.StripJavaComments))
+    }
+
+    @Test public void testInvalidFilter() {
+        try {
+            spec.filter(HeadFilter, unknown:15)
+            fail()
+        } catch (InvalidUserDataException e) {
+            assertFalse(spec.filterChain.hasFilters())
+        }
+    }
+
+    @Test public void testFilteringCharset() {
+        spec.filteringCharset('UTF-16')
+        assertEquals(Charset.forName('UTF-16'), spec.filterChain.charset)
+    }
+
+    @Test public void testChildSpecInheritsFiltersAndCharsetOfParent() {
+        spec.filteringCharset('UTF-16')
+        spec.filter { "parent $it" as String }
+        CopySpecImpl child = spec.from('child') {
+            filter { "child $it" as String }
+        }
+
+        assertEquals(Charset.forName('UTF-16'), child.filterChain.charset)
+        assertEquals("child parent line" + System.getProperty('line.separator'),
+                child.filterChain.transform(new StringReader('line')).text)
     }
 
 
@@ -33,9 +33,14 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 
 
 public class CopyVisitorTest {
@@ -105,14 +110,98 @@ public class CopyVisitorTest {
         assertTrue(visitor.needsCopy(sourceFile, destFile));
     }
 
+    @Test public void incrementalCopySkipsUpToDateFiles() throws IOException {
+        File sourceFile = getResource("testfiles/rootfile.txt");
+        File destFile = new File(testDir, sourceFile.getName());
+        File stateFile = new File(testDir, "state.bin");
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        visitor = new CopyVisitor(testDir, null, null, new FilterChain(), state, null);
+        visitor.visitFile(file(sourceFile, new RelativePath(true, sourceFile.getName())));
+        state.save();
+
+        assertTrue(destFile.exists());
+        assertTrue(visitor.getDidWork());
+        assertEquals(1, state.getCopiedCount());
+
+        state = new IncrementalCopyState(stateFile);
+        visitor = new CopyVisitor(testDir, null, null, new FilterChain(), state, null);
+        visitor.visitFile(file(sourceFile, new RelativePath(true, sourceFile.getName())));
+
+        assertFalse(visitor.getDidWork());
+        assertEquals(1, state.getSkippedCount());
+    }
+
+    @Test public void incrementalCopyAlwaysCopiesFilteredFiles() throws IOException {
+        File sourceFile = getResource("testfiles/rootfile.txt");
+        File destFile = new File(testDir, sourceFile.getName());
+        File stateFile = new File(testDir, "state.bin");
+        FilterChain filters = new FilterChain();
+        filters.addLineFilter(new Closure(this) {
+            public Object call(Object[] args) {
+                return args[0];
+            }
+        });
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        visitor = new CopyVisitor(testDir, null, null, filters, state, null);
+        visitor.visitFile(file(sourceFile, new RelativePath(true, sourceFile.getName())));
+        state.save();
+
+        assertTrue(destFile.exists());
+        assertEquals(1, state.getCopiedCount());
+
+        state = new IncrementalCopyState(stateFile);
+        visitor = new CopyVisitor(testDir, null, null, filters, state, null);
+        visitor.visitFile(file(sourceFile, new RelativePath(true, sourceFile.getName())));
+
+        assertTrue(visitor.getDidWork());
+        assertEquals(1, state.getCopiedCount());
+        assertEquals(0, state.getSkippedCount());
+
+        state.save();
+        state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(sourceFile, destFile));
+    }
+
+    @Test public void copiesUnfilteredFilesUsingWorkerPool() throws IOException {
+        File srcDir = new File(testDir, "src");
+        File destDir = new File(testDir, "dest");
+        srcDir.mkdirs();
+        for (int i = 0; i < 20; i++) {
+            FileUtils.writeStringToFile(new File(srcDir, "file" + i + ".txt"), "content " + i);
+        }
+
+        CopyWorkerPool workerPool = new CopyWorkerPool(4);
+        visitor = new CopyVisitor(destDir, null, null, new FilterChain(), null, workerPool);
+        RelativePath subDirPath = new RelativePath(false, "sub");
+        for (int i = 0; i < 20; i++) {
+            File source = new File(srcDir, "file" + i + ".txt");
+            visitor.visitFile(file(source, new RelativePath(true, subDirPath, source.getName())));
+        }
+        workerPool.stop();
+        workerPool.rethrowFailure();
+
+        assertTrue(visitor.getDidWork());
+        for (int i = 0; i < 20; i++) {
+            File dest = new File(destDir, "sub/file" + i + ".txt");
+            assertEquals("content " + i, FileUtils.readFileToString(dest));
+            assertEquals(new File(srcDir, dest.getName()).lastModified(), dest.lastModified());
+        }
+    }
+
     @Test public void testFilter() throws IOException {
         FilterChain filters = new FilterChain();
-        ReplaceTokens filter = new ReplaceTokens(filters.getLastFilter());
-        filters.addFilter(filter);
-        ReplaceTokens.Token token = new ReplaceTokens.Token();
-        token.setKey("MAGIC");
-        token.setValue("42");
-        filter.addConfiguredToken(token);
+        filters.addFilter(new Transformer<Reader>() {
+            public Reader transform(Reader original) {
+                ReplaceTokens filter = new ReplaceTokens(original);
+                ReplaceTokens.Token token = new ReplaceTokens.Token();
+                token.setKey("MAGIC");
+                token.setValue("42");
+                filter.addConfiguredToken(token);
+                return filter;
+            }
+        });
 
         visitor = new CopyVisitor(testDir, null, null, filters);
 
@@ -126,6 +215,41 @@ public class CopyVisitorTest {
         assertTrue(reader.readLine().startsWith("The magic number is 42"));
     }
 
+    @Test public void copiesFilteredFilesOnVisitingThreadWhenUsingWorkerPool() throws IOException {
+        File srcDir = new File(testDir, "src");
+        File destDir = new File(testDir, "dest");
+        srcDir.mkdirs();
+        for (int i = 0; i < 20; i++) {
+            FileUtils.writeStringToFile(new File(srcDir, "file" + i + ".txt"), "line " + i + "\nother", "UTF-8");
+        }
+        FilterChain filters = new FilterChain();
+        filters.setCharset(Charset.forName("UTF-8"));
+        final List<Thread> filterThreads = new ArrayList<Thread>();
+        filters.addLineFilter(new Closure(this) {
+            public Object call(Object[] args) {
+                filterThreads.add(Thread.currentThread());
+                return "[" + args[0] + "]";
+            }
+        });
+
+        CopyWorkerPool workerPool = new CopyWorkerPool(4);
+        visitor = new CopyVisitor(destDir, null, null, filters, null, workerPool);
+        for (int i = 0; i < 20; i++) {
+            File source = new File(srcDir, "file" + i + ".txt");
+            visitor.visitFile(file(source, new RelativePath(true, source.getName())));
+        }
+        workerPool.stop();
+        workerPool.rethrowFailure();
+
+        String separator = System.getProperty("line.separator");
+        for (int i = 0; i < 20; i++) {
+            assertEquals("[line " + i + "]" + separator + "[other]" + separator,
+                    FileUtils.readFileToString(new File(destDir, "file" + i + ".txt"), "UTF-8"));
+        }
+        assertThat(filterThreads.size(), equalTo(40));
+        assertThat(new HashSet<Thread>(filterThreads), equalTo(Collections.singleton(Thread.currentThread())));
+    }
+
     @Test public void testGetTargetPlain() {
         visitor = new CopyVisitor(testDir, null, null, new FilterChain());
         visitor.visitDir(file(sourceDir, new RelativePath(false)));
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CopyWorkerPoolTest {
+    @Test
+    public void executesAllCopiesBeforeStopping() {
+        final AtomicInteger count = new AtomicInteger();
+        CopyWorkerPool pool = new CopyWorkerPool(3);
+        for (int i = 0; i < 100; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    count.incrementAndGet();
+                }
+            });
+        }
+        pool.stop();
+        pool.rethrowFailure();
+
+        assertThat(count.get(), equalTo(100));
+    }
+
+    @Test
+    public void executesCopiesConcurrently() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        CopyWorkerPool pool = new CopyWorkerPool(2);
+        for (int i = 0; i < 2; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        pool.stop();
+    }
+
+    @Test
+    public void rethrowsFirstFailureAndSkipsRemainingCopies() {
+        final RuntimeException failure = new RuntimeException("broken");
+        final AtomicInteger count = new AtomicInteger();
+        CopyWorkerPool pool = new CopyWorkerPool(1);
+        pool.execute(new Runnable() {
+            public void run() {
+                throw failure;
+            }
+        });
+        pool.stop();
+
+        try {
+            pool.rethrowFailure();
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure));
+        }
+        try {
+            pool.execute(new Runnable() {
+                public void run() {
+                    count.incrementAndGet();
+                }
+            });
+            fail();
+        } catch (RuntimeException e) {
+            assertThat(e, sameInstance(failure));
+        }
+        assertThat(count.get(), equalTo(0));
+    }
+}
@@ -15,63 +15,136 @@
  */
 package org.gradle.api.internal.file;
 
-import java.io.Reader;
-import java.io.IOException;
-import java.io.StringReader;
+import groovy.lang.Closure;
+import org.apache.tools.ant.filters.HeadFilter;
+import org.apache.tools.ant.filters.StripJavaComments;
+import org.gradle.api.GradleException;
+import org.gradle.api.Transformer;
+import org.gradle.util.GUtil;
 import org.junit.Test;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+
 public class FilterChainTest {
+    private final String separator = System.getProperty("line.separator");
 
-    @Test public void testSetInput() throws IOException {
+    @Test public void testTransformWithNoFilters() throws IOException {
         String test1 = "Testing1";
-        String test2 = "something else";
         FilterChain chain = new FilterChain();
-        chain.setInputSource(new StringReader(test1));
-        assertThat(readToString(chain), equalTo(test1));
+        assertThat(readToString(chain.transform(new StringReader(test1))), equalTo(test1));
+    }
 
-        chain.setInputSource(new StringReader(test2));
-        assertThat(readToString(chain), equalTo(test2));        
+    @Test public void testCreatesNewFiltersForEachTransform() throws IOException {
+        FilterChain chain = new FilterChain();
+        chain.addFilter(new Transformer<Reader>() {
+            public Reader transform(Reader original) {
+                return new HeadFilter(original);
+            }
+        });
+        Reader filter1 = chain.transform(new StringReader("one"));
+        Reader filter2 = chain.transform(new StringReader("two"));
+
+        assertThat(filter1, not(sameInstance(filter2)));
+        assertThat(readToString(filter2), equalTo("two"));
+        assertThat(readToString(filter1), equalTo("one"));
     }
 
-    @Test public void testMultipleChains() {
-        FilterChain chain1 = new FilterChain();
-        FilterChain chain2 = new FilterChain();
-        FilterChain chain3 = new FilterChain();
+    @Test public void testAddFilterByType() throws IOException {
+        FilterChain chain = new FilterChain();
+        chain.addFilter(HeadFilter.class, GUtil.map("lines", 1));
 
-        chain2.setInputSource(chain1);
-        chain3.setInputSource(chain2);
+        assertThat(readToString(chain.transform(new StringReader("one\ntwo\n"))), equalTo("one\n"));
+    }
 
-        assertThat(chain3.findFirstFilterChain(), equalTo(chain1));
+    @Test public void testAddFilterByTypeFailsForInvalidProperty() {
+        FilterChain chain = new FilterChain();
+        try {
+            chain.addFilter(HeadFilter.class, GUtil.map("unknown", 1));
+            fail();
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        assertFalse(chain.hasFilters());
     }
 
+    @Test public void testAddFilterByTypeFailsForTypeWithNoReaderConstructor() {
+        FilterChain chain = new FilterChain();
+        try {
+            chain.addFilter(NoReaderConstructorFilter.class, null);
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getMessage(), containsString(NoReaderConstructorFilter.class.getName()));
+        }
+    }
 
-    @Test public void testSingleChain() {
-        FilterChain chain1 = new FilterChain();
+    @Test public void testFusesConsecutiveLineFilters() throws IOException {
+        FilterChain chain = new FilterChain();
+        chain.addLineFilter(append("a"));
+        chain.addLineFilter(append("b"));
+        chain.addFilter(StripJavaComments.class, null);
+        chain.addLineFilter(append("c"));
+
+        assertThat(chain.getFilterCount(), equalTo(3));
+        assertThat(readToString(chain.transform(new StringReader("x\ny"))),
+                equalTo("xab" + "c" + separator + "yab" + "c" + separator));
+    }
+
+    @Test public void testAppliesParentFiltersFirst() throws IOException {
+        FilterChain parent = new FilterChain();
+        FilterChain child = new FilterChain();
+        child.setParent(parent);
+        parent.addLineFilter(append("parent"));
+        child.addLineFilter(append("child"));
 
-        assertThat(chain1.findFirstFilterChain(), equalTo(chain1));
+        assertThat(readToString(child.transform(new StringReader("x"))), equalTo("xparentchild" + separator));
     }
 
     @Test public void testHasFilterSingle() {
         FilterChain chain1 = new FilterChain();
         assertFalse(chain1.hasFilters());
 
-        chain1.addFilter(new StringReader(""));
+        chain1.addLineFilter(append(""));
         assertTrue(chain1.hasFilters());
     }
 
     @Test public void testHasFilterMultiple() {
         FilterChain chain1 = new FilterChain();
         FilterChain chain2 = new FilterChain();
-        chain2.setInputSource(chain1);
+        chain2.setParent(chain1);
 
         assertFalse(chain2.hasFilters());
 
-        chain1.addFilter(new StringReader(""));
+        chain1.addLineFilter(append(""));
         assertTrue(chain2.hasFilters());
     }
 
+    @Test public void testUsesCharsetOfParentByDefault() {
+        FilterChain chain1 = new FilterChain();
+        FilterChain chain2 = new FilterChain();
+        chain2.setParent(chain1);
+
+        assertThat(chain2.getCharset(), equalTo(Charset.defaultCharset()));
+
+        chain1.setCharset(Charset.forName("UTF-16"));
+        assertThat(chain2.getCharset(), equalTo(Charset.forName("UTF-16")));
+
+        chain2.setCharset(Charset.forName("ISO-8859-1"));
+        assertThat(chain2.getCharset(), equalTo(Charset.forName("ISO-8859-1")));
+    }
+
+    private Closure append(final String suffix) {
+        return new Closure(this) {
+            public Object call(Object[] args) {
+                return args[0] + suffix;
+            }
+        };
+    }
+
     private String readToString(Reader filter) throws IOException {
         StringBuilder result = new StringBuilder();
         int nextChar = 0;
@@ -83,4 +156,10 @@ public class FilterChainTest {
         }
         return result.toString();
     }
+
+    public static class NoReaderConstructorFilter extends java.io.FilterReader {
+        public NoReaderConstructorFilter() {
+            super(new StringReader(""));
+        }
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.toList;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.security.MessageDigest;
+
+public class IncrementalCopyStateTest {
+    private File testDir;
+    private File stateFile;
+    private File source;
+    private File destDir;
+    private File dest;
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        stateFile = new File(testDir, "state/copy.bin");
+        source = new File(testDir, "src/file.txt");
+        destDir = new File(testDir, "dest");
+        dest = new File(destDir, "file.txt");
+        writeFile(source, "content");
+        writeFile(dest, "content");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void fileIsNotUpToDateWhenNotPreviouslyCopied() {
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(source, dest));
+    }
+
+    @Test
+    public void fileIsUpToDateWhenSourceAndDestinationAreUnchanged() {
+        copy();
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertTrue(state.isUpToDate(source, dest));
+        assertThat(state.getSkippedCount(), equalTo(1));
+    }
+
+    @Test
+    public void fileIsUpToDateWhenOnlyTheSourceTimestampHasChanged() {
+        copy();
+        source.setLastModified(source.lastModified() + 10000);
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertTrue(state.isUpToDate(source, dest));
+    }
+
+    @Test
+    public void fileIsNotUpToDateWhenSourceContentHasChanged() {
+        copy();
+        long lastModified = source.lastModified();
+        writeFile(source, "CONTENT");
+        source.setLastModified(lastModified + 10000);
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(source, dest));
+    }
+
+    @Test
+    public void fileIsNotUpToDateWhenDestinationHasChangedOrBeenDeleted() {
+        copy();
+        writeFile(dest, "modified");
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(source, dest));
+
+        dest.delete();
+        assertFalse(state.isUpToDate(source, dest));
+    }
+
+    @Test
+    public void fileIsNotUpToDateWhenCopiedFromAnotherSource() {
+        copy();
+        File otherSource = new File(testDir, "src/other.txt");
+        writeFile(otherSource, "content");
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(otherSource, dest));
+    }
+
+    @Test
+    public void deletesFilesWhichWereNotProducedByThisCopy() {
+        copy();
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        state.deleteStaleFiles(toList(destDir));
+        state.save();
+
+        assertFalse(dest.exists());
+        assertThat(state.getDeletedCount(), equalTo(1));
+        assertFalse(new IncrementalCopyState(stateFile).isUpToDate(source, dest));
+    }
+
+    @Test
+    public void deletesDirectoriesLeftEmptyByStaleFiles() {
+        File nestedDest = new File(destDir, "a/b/file.txt");
+        File otherDest = new File(destDir, "a/other.txt");
+        writeFile(nestedDest, "content");
+        writeFile(otherDest, "content");
+        copy(nestedDest, otherDest);
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertTrue(state.isUpToDate(source, otherDest));
+        state.deleteStaleFiles(toList(destDir));
+
+        assertFalse(nestedDest.exists());
+        assertFalse(nestedDest.getParentFile().exists());
+        assertTrue(otherDest.exists());
+    }
+
+    @Test
+    public void doesNotDeleteDestinationDirectoryWhenItIsLeftEmpty() {
+        copy();
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        state.deleteStaleFiles(toList(destDir));
+
+        assertFalse(dest.exists());
+        assertTrue(destDir.isDirectory());
+    }
+
+    @Test
+    public void fileIsUpToDateWhenCopiedWithHashCalculatedByDigester() {
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        MessageDigest digester = state.getDigester();
+        digester.update(GFileUtils.readFileToString(source).getBytes());
+        state.copied(source, dest, digester.digest());
+        state.save();
+
+        source.setLastModified(source.lastModified() + 10000);
+        assertTrue(new IncrementalCopyState(stateFile).isUpToDate(source, dest));
+    }
+
+    @Test
+    public void fileCopiedWithoutHashIsNeverUpToDate() {
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        state.copied(source, dest, null);
+        state.save();
+
+        assertFalse(new IncrementalCopyState(stateFile).isUpToDate(source, dest));
+    }
+
+    @Test
+    public void doesNotDeleteStaleFilesWhichHaveBeenModified() {
+        copy();
+        writeFile(dest, "modified");
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        state.deleteStaleFiles(toList(destDir));
+
+        assertTrue(dest.exists());
+        assertThat(state.getDeletedCount(), equalTo(0));
+    }
+
+    @Test
+    public void doesNotDeleteFilesWhichAreUpToDate() {
+        copy();
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertTrue(state.isUpToDate(source, dest));
+        state.deleteStaleFiles(toList(destDir));
+
+        assertTrue(dest.exists());
+    }
+
+    @Test
+    public void discardsStateFileWithUnknownFormat() {
+        writeFile(stateFile, "not a state file");
+
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        assertFalse(state.isUpToDate(source, dest));
+    }
+
+    private void copy() {
+        copy(dest);
+    }
+
+    private void copy(File... dests) {
+        IncrementalCopyState state = new IncrementalCopyState(stateFile);
+        for (File file : dests) {
+            state.copied(source, file);
+        }
+        assertThat(state.getCopiedCount(), equalTo(dests.length));
+        state.save();
+    }
+
+    private void writeFile(File file, String content) {
+        file.getParentFile().mkdirs();
+        GFileUtils.writeStringToFile(file, content);
+    }
+}
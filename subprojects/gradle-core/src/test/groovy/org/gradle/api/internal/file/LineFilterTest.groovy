@@ -27,6 +27,28 @@ public class LineFilterTest {
         assertThat(lines.next(), startsWith("3 - three"))
     }
 
+    @Test public void testAppliesEachClosureInTurn() {
+        Reader input = new StringReader("one\rtwo")
+        LineFilter filter = new LineFilter(input, { "<$it>" as String }, { it.toUpperCase() } as Closure)
+
+        assertThat(filter.text.readLines(), equalTo(["<ONE>", "<TWO>"]))
+    }
+
+    @Test public void testBulkReadOfLongLines() {
+        String line = 'x' * 20000
+        Reader input = new StringReader("$line\n$line")
+        LineFilter filter = new LineFilter(input) { it.reverse() }
+
+        assertThat(filter.text.readLines(), equalTo([line, line]))
+    }
+
+    @Test public void testEmptyLines() {
+        Reader input = new StringReader("\n\r\n\na")
+        LineFilter filter = new LineFilter(input) { "[$it]" as String }
+
+        assertThat(filter.text.readLines(), equalTo(["[]", "[]", "[]", "[a]"]))
+    }
+
     private String getResults(Reader filter) {
         StringBuilder result = new StringBuilder()
         int nextChar = 0;
@@ -35,6 +35,7 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RunWith(JMock.class)
@@ -391,6 +392,124 @@ public class AnnotationProcessingTaskFactoryTest {
         task.execute();
     }
 
+    @Test
+    public void skipsTaskWhenInputAndOutputFilesAreUnchanged() {
+        final Runnable action = context.mock(Runnable.class);
+        File inputFile = new File(testDir, "input.txt");
+        TaskWithInputAndOutputFiles task = new TaskWithInputAndOutputFiles(action, inputFile, new File(testDir, "output.txt"));
+        // Creating the task's project cleans the test directory
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectTaskCreated(task);
+
+        context.checking(new Expectations() {{
+            one(action).run();
+        }});
+        task.execute();
+        assertTrue(task.getDidWork());
+
+        task.execute();
+        assertFalse(task.getDidWork());
+    }
+
+    @Test
+    public void executesTaskWhenInputFilesHaveChanged() {
+        final Runnable action = context.mock(Runnable.class);
+        File inputFile = new File(testDir, "input.txt");
+        TaskWithInputAndOutputFiles task = new TaskWithInputAndOutputFiles(action, inputFile, new File(testDir, "output.txt"));
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectTaskCreated(task);
+
+        context.checking(new Expectations() {{
+            exactly(2).of(action).run();
+        }});
+        task.execute();
+        GFileUtils.writeStringToFile(inputFile, "changed input");
+        task.execute();
+        assertTrue(task.getDidWork());
+    }
+
+    @Test
+    public void executesTaskWhichHasActionsNotDeclaredByItsType() {
+        final Runnable action = context.mock(Runnable.class);
+        final Runnable extraAction = context.mock(Runnable.class, "extraAction");
+        File inputFile = new File(testDir, "input.txt");
+        TaskWithInputAndOutputFiles task = new TaskWithInputAndOutputFiles(action, inputFile, new File(testDir, "output.txt"));
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectTaskCreated(task);
+        task.doLast(new Action<Task>() {
+            public void execute(Task task) {
+                extraAction.run();
+            }
+        });
+
+        context.checking(new Expectations() {{
+            exactly(2).of(action).run();
+            exactly(2).of(extraAction).run();
+        }});
+        task.execute();
+        task.execute();
+        assertTrue(task.getDidWork());
+    }
+
+    @Test
+    public void skipsTaskWhenInputAndOutputFilesAndOtherPropertiesAreUnchanged() {
+        final Runnable action = context.mock(Runnable.class);
+        File inputFile = new File(testDir, "input.txt");
+        TaskWithInputAndOutputFilesAndOption task = new TaskWithInputAndOutputFilesAndOption(action, inputFile,
+                new File(testDir, "output.txt"));
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectTaskCreated(task);
+
+        context.checking(new Expectations() {{
+            one(action).run();
+        }});
+        task.execute();
+        task.execute();
+        assertFalse(task.getDidWork());
+    }
+
+    @Test
+    public void executesTaskWhenOtherPropertiesHaveChanged() {
+        final Runnable action = context.mock(Runnable.class);
+        File inputFile = new File(testDir, "input.txt");
+        TaskWithInputAndOutputFilesAndOption task = new TaskWithInputAndOutputFilesAndOption(action, inputFile,
+                new File(testDir, "output.txt"));
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectTaskCreated(task);
+
+        context.checking(new Expectations() {{
+            exactly(2).of(action).run();
+        }});
+        task.execute();
+        task.setOption("changed");
+        task.execute();
+        assertTrue(task.getDidWork());
+    }
+
+    @Test
+    public void resolvesInputFilesRelativeToProjectDirWhenCheckingUpToDate() {
+        final Runnable action = context.mock(Runnable.class);
+        TaskWithInputPathsAndOutputFile task = new TaskWithInputPathsAndOutputFile(action, toList((Object) "input.txt"),
+                new File(testDir, "output.txt"));
+        GFileUtils.writeStringToFile(task.getProject().file("input.txt"), "input");
+        expectTaskCreated(task);
+
+        context.checking(new Expectations() {{
+            one(action).run();
+        }});
+        task.execute();
+        task.execute();
+        assertFalse(task.getDidWork());
+    }
+
+    @Test
+    public void doesNotSkipTaskWithOnlyOutputFiles() {
+        final TaskWithOutputFile task = new TaskWithOutputFile(new File(testDir, "output.txt"));
+        expectTaskCreated(task);
+
+        assertThat(task.getActions().size(), equalTo(2));
+    }
+
     private void assertValidationFails(TaskInternal task, String expectedErrorMessage) {
         try {
             task.execute();
@@ -519,6 +638,76 @@ public class AnnotationProcessingTaskFactoryTest {
         }
     }
 
+    public static class TaskWithInputAndOutputFiles extends TestTask {
+        final File inputFile;
+        final File outputFile;
+
+        public TaskWithInputAndOutputFiles(Runnable action, File inputFile, File outputFile) {
+            super(action);
+            this.inputFile = inputFile;
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public void doStuff() {
+            super.doStuff();
+            GFileUtils.writeStringToFile(outputFile, "output");
+        }
+
+        @InputFile
+        public File getInputFile() {
+            return inputFile;
+        }
+
+        @OutputFile
+        public File getOutputFile() {
+            return outputFile;
+        }
+    }
+
+    public static class TaskWithInputAndOutputFilesAndOption extends TaskWithInputAndOutputFiles {
+        String option = "value";
+
+        public TaskWithInputAndOutputFilesAndOption(Runnable action, File inputFile, File outputFile) {
+            super(action, inputFile, outputFile);
+        }
+
+        public String getOption() {
+            return option;
+        }
+
+        public void setOption(String option) {
+            this.option = option;
+        }
+    }
+
+    public static class TaskWithInputPathsAndOutputFile extends TestTask {
+        final List<Object> inputPaths;
+        final File outputFile;
+
+        public TaskWithInputPathsAndOutputFile(Runnable action, List<Object> inputPaths, File outputFile) {
+            super(action);
+            this.inputPaths = inputPaths;
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public void doStuff() {
+            super.doStuff();
+            GFileUtils.writeStringToFile(outputFile, "output");
+        }
+
+        @InputFiles
+        public List<Object> getInputPaths() {
+            return inputPaths;
+        }
+
+        @OutputFile
+        public File getOutputFile() {
+            return outputFile;
+        }
+    }
+
     public static class TaskWithInputFiles extends DefaultTask {
         Iterable<File> input;
 
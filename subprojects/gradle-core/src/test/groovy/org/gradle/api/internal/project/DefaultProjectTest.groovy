@@ -34,6 +34,9 @@ import org.gradle.api.internal.file.PathResolvingFileCollection
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider
 import org.gradle.api.internal.plugins.DefaultConvention
 import org.gradle.api.internal.tasks.TaskContainerInternal
+import org.gradle.api.internal.tasks.TaskIndex
+import org.gradle.execution.FileFingerprinter
+import org.gradle.execution.TaskHistoryStores
 import org.gradle.api.logging.LogLevel
 import org.gradle.api.logging.StandardOutputLogging
 import org.gradle.api.plugins.Convention
@@ -168,6 +171,9 @@ class DefaultProjectTest {
             allowing(serviceRegistryMock).get(AntBuilderFactory); will(returnValue(antBuilderFactoryMock))
             allowing(serviceRegistryMock).get(ProjectPluginsContainer); will(returnValue(projectPluginsHandlerMock))
             allowing(serviceRegistryMock).get(ScriptHandler); will(returnValue(scriptHandlerMock))
+            allowing(serviceRegistryMock).get(TaskIndex); will(returnValue(new TaskIndex()))
+            allowing(serviceRegistryMock).get(FileFingerprinter); will(returnValue(new FileFingerprinter()))
+            allowing(serviceRegistryMock).get(TaskHistoryStores); will(returnValue(new TaskHistoryStores()))
             allowing(serviceRegistryMock).get(ScriptClassLoaderProvider); will(returnValue(context.mock(ScriptClassLoaderProvider)))
         }
 
@@ -15,12 +15,22 @@
  */
 package org.gradle.api.internal.project;
 
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor;
+import org.apache.ivy.core.settings.IvySettings;
+import org.apache.ivy.plugins.resolver.DependencyResolver;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Module;
+import org.gradle.api.artifacts.ResolvedConfiguration;
 import org.gradle.api.artifacts.dsl.*;
+import org.gradle.api.artifacts.repositories.InternalRepository;
 import org.gradle.api.initialization.dsl.ScriptHandler;
 import org.gradle.api.internal.artifacts.ConfigurationContainerFactory;
 import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvider;
+import org.gradle.api.internal.artifacts.configurations.ResolverProvider;
 import org.gradle.api.internal.artifacts.dsl.DefaultArtifactHandler;
 import org.gradle.api.internal.artifacts.dsl.PublishArtifactFactory;
+import org.gradle.api.internal.artifacts.ivyservice.*;
 import org.gradle.api.internal.artifacts.dsl.dependencies.DefaultDependencyHandler;
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.initialization.DefaultScriptHandler;
@@ -32,14 +42,24 @@ import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.plugins.Convention;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.configuration.ProjectEvaluator;
+import org.gradle.execution.FileFingerprinter;
+import org.gradle.execution.TaskHistoryStores;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
 import static org.hamcrest.Matchers.*;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JMock;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
 @RunWith(JMock.class)
 public class DefaultServiceRegistryFactoryTest {
     private final JUnit4Mockery context = new JUnit4Mockery();
@@ -187,6 +207,31 @@ public class DefaultServiceRegistryFactoryTest {
         assertThat(registry.get(ScriptClassLoaderProvider.class), sameInstance((Object) registry.get(ScriptHandler.class)));
     }
 
+    @Test
+    public void buildProvidesAFileFingerprinter() {
+        context.checking(new Expectations() {{
+            allowing(gradle).getGradleUserHomeDir();
+            will(returnValue(new File("gradleUserHome")));
+        }});
+
+        ServiceRegistry registry = factory.createForBuild(gradle);
+
+        assertThat(registry.get(FileFingerprinter.class), notNullValue());
+        assertThat(registry.get(FileFingerprinter.class), sameInstance(registry.get(FileFingerprinter.class)));
+        assertThat(registry.get(FileFingerprinter.class), not(sameInstance(factory.createForBuild(gradle).get(
+                FileFingerprinter.class))));
+    }
+
+    @Test
+    public void buildProvidesTaskHistoryStores() {
+        ServiceRegistry registry = factory.createForBuild(gradle);
+
+        assertThat(registry.get(TaskHistoryStores.class), notNullValue());
+        assertThat(registry.get(TaskHistoryStores.class), sameInstance(registry.get(TaskHistoryStores.class)));
+        assertThat(registry.get(TaskHistoryStores.class), not(sameInstance(factory.createForBuild(gradle).get(
+                TaskHistoryStores.class))));
+    }
+
     @Test
     public void projectRegistryThrowsExceptionForUnknownService() {
         try {
@@ -207,6 +252,85 @@ public class DefaultServiceRegistryFactoryTest {
         }
     }
 
+    @Test
+    public void projectDependencyMetaDataProviderAllowsIvyInstanceToBeReused() {
+        final DependencyMetaDataProvider[] metaDataProvider = new DependencyMetaDataProvider[1];
+        final InternalRepository internalRepository = context.mock(InternalRepository.class);
+        final File gradleUserHome = new File("gradleUserHome");
+
+        context.checking(new Expectations() {{
+            RepositoryHandler repositoryHandler = context.mock(RepositoryHandler.class);
+
+            one(repositoryHandlerFactory).createRepositoryHandler(with(notNullValue(Convention.class)));
+            will(returnValue(repositoryHandler));
+
+            one(configurationContainerFactory).createConfigurationContainer(with(sameInstance(repositoryHandler)), with(
+                    notNullValue(DependencyMetaDataProvider.class)));
+            will(new CustomAction("capture meta-data provider") {
+                public Object invoke(Invocation invocation) {
+                    metaDataProvider[0] = (DependencyMetaDataProvider) invocation.getParameter(1);
+                    return configurationHandler;
+                }
+            });
+
+            allowing(project).getGradle();
+            will(returnValue(gradle));
+
+            allowing(gradle).getInternalRepository();
+            will(returnValue(internalRepository));
+
+            allowing(gradle).getGradleUserHomeDir();
+            will(returnValue(gradleUserHome));
+        }});
+
+        factory.createForProject(project).get(ConfigurationHandler.class);
+
+        Map<String, ModuleDescriptor> clientModuleRegistry = metaDataProvider[0].getClientModuleRegistry();
+        assertThat(metaDataProvider[0].getClientModuleRegistry(), sameInstance(clientModuleRegistry));
+
+        final ResolverProvider resolverProvider = context.mock(ResolverProvider.class);
+        final List<DependencyResolver> resolvers = WrapUtil.toList(context.mock(DependencyResolver.class));
+        final SettingsConverter settingsConverter = context.mock(SettingsConverter.class);
+        final IvyFactory ivyFactory = context.mock(IvyFactory.class);
+        final ModuleDescriptorConverter moduleDescriptorConverter = context.mock(ModuleDescriptorConverter.class);
+        final IvyDependencyResolver dependencyResolver = context.mock(IvyDependencyResolver.class);
+        final Configuration configuration = context.mock(Configuration.class);
+        final IvySettings ivySettings = new IvySettings();
+        final Ivy ivy = Ivy.newInstance(ivySettings);
+        final ModuleDescriptor moduleDescriptor = HelperUtil.createModuleDescriptor(WrapUtil.toSet("conf"));
+
+        context.checking(new Expectations() {{
+            allowing(resolverProvider).getResolvers();
+            will(returnValue(resolvers));
+
+            one(settingsConverter).convertForResolve(with(equalTo(resolvers)), with(equalTo(gradleUserHome)),
+                    with(sameInstance((DependencyResolver) internalRepository)), with(any(Map.class)));
+            will(returnValue(ivySettings));
+
+            one(ivyFactory).createIvy(ivySettings);
+            will(returnValue(ivy));
+
+            allowing(moduleDescriptorConverter).convertForResolve(with(sameInstance(configuration)),
+                    with(any(Module.class)), with(any(Map.class)), with(sameInstance(ivySettings)));
+            will(returnValue(moduleDescriptor));
+
+            allowing(dependencyResolver).resolve(configuration, ivy, moduleDescriptor);
+            will(returnValue(context.mock(ResolvedConfiguration.class)));
+        }});
+
+        DefaultIvyService ivyService = new DefaultIvyService(metaDataProvider[0], resolverProvider);
+        ivyService.setSettingsConverter(settingsConverter);
+        ivyService.setIvyFactory(ivyFactory);
+        ivyService.setModuleDescriptorConverter(moduleDescriptorConverter);
+        ivyService.setDependencyResolver(dependencyResolver);
+
+        ivyService.resolve(configuration);
+        ivyService.resolve(configuration);
+
+        assertThat(ivyService.getIvyCreatedCount(), equalTo(1));
+        assertThat(ivyService.getIvyReusedCount(), equalTo(1));
+    }
+
     private void expectConfigurationHandlerCreated() {
         context.checking(new Expectations() {{
             RepositoryHandler repositoryHandler = context.mock(RepositoryHandler.class);
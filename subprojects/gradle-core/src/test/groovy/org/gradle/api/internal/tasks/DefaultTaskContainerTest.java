@@ -21,6 +21,8 @@ import org.gradle.api.tasks.TaskContainer;
 import org.gradle.api.internal.project.ITaskFactory;
 import org.gradle.util.GUtil;
 import org.gradle.util.HelperUtil;
+import org.gradle.util.TestClosure;
+import static org.gradle.util.WrapUtil.*;
 import static org.hamcrest.Matchers.*;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JMock;
@@ -30,6 +32,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.Map;
+import java.util.Set;
 
 @RunWith(JMock.class)
 public class DefaultTaskContainerTest {
@@ -37,7 +40,8 @@ public class DefaultTaskContainerTest {
     private final ITaskFactory taskFactory = context.mock(ITaskFactory.class);
     private final Project project = context.mock(Project.class, "<project>");
     private int taskCount;
-    private final DefaultTaskContainer container = new DefaultTaskContainer(project, taskFactory);
+    private final TaskIndex taskIndex = new TaskIndex();
+    private final DefaultTaskContainer container = new DefaultTaskContainer(project, taskFactory, taskIndex);
 
     @Test
     public void addsTaskWithMap() {
@@ -149,6 +153,34 @@ public class DefaultTaskContainerTest {
         assertThat(container.getByName("task"), sameInstance(newTask));
     }
 
+    @Test
+    public void addsTasksToIndexAndRemovesReplacedTasks() {
+        Task task = addTask("task");
+        assertThat(taskIndex.findTasksByName("task", toSet(project)), equalTo(toSet(task)));
+
+        final Task newTask = task("task");
+        context.checking(new Expectations() {{
+            one(taskFactory).createTask(project, GUtil.map(Task.TASK_NAME, "task"));
+            will(returnValue(newTask));
+        }});
+
+        container.replace("task");
+        assertThat(taskIndex.findTasksByName("task", toSet(project)), equalTo(toSet(newTask)));
+    }
+
+    @Test
+    public void indexAppliesRulesWhenLookingUpTaskByName() {
+        container.addRule("rule", HelperUtil.toClosure(new TestClosure() {
+            public Object call(Object name) {
+                return addTask(name.toString());
+            }
+        }));
+
+        Set<Task> tasks = taskIndex.getTasksByName("ruleTask", toSet(project));
+        assertThat(tasks.size(), equalTo(1));
+        assertThat(tasks, equalTo(toSet(container.getByName("ruleTask"))));
+    }
+
     @Test
     public void getByNameFailsForUnknownTask() {
         try {
@@ -259,6 +291,8 @@ public class DefaultTaskContainerTest {
         context.checking(new Expectations(){{
             allowing(task).getName();
             will(returnValue(name));
+            allowing(task).getProject();
+            will(returnValue(project));
         }});
         return task;
     }
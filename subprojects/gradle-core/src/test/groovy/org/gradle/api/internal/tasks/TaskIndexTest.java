@@ -0,0 +1,92 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks;
+
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.TaskContainer;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(JMock.class)
+public class TaskIndexTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+    private final Project project = context.mock(Project.class, "<project>");
+    private final Project otherProject = context.mock(Project.class, "<other-project>");
+    private final TaskIndex index = new TaskIndex();
+    private int taskCount;
+
+    @Test
+    public void findsTasksWithNameInGivenProjects() {
+        Task task1 = task("task", project);
+        Task task2 = task("task", otherProject);
+        task("other", project);
+
+        assertThat(index.getTasksByName("task", toSet(project)), equalTo(toSet(task1)));
+        assertThat(index.getTasksByName("task", toSet(project, otherProject)), equalTo(toSet(task1, task2)));
+        assertThat(index.getTasksByName("unknown", toSet(project, otherProject)).isEmpty(), equalTo(true));
+        assertThat(index.getTaskNames(), equalTo(toSet("task", "other")));
+    }
+
+    @Test
+    public void removedTasksAreNoLongerFound() {
+        Task task1 = task("task", project);
+        Task task2 = task("task", otherProject);
+
+        index.remove(task1);
+        assertThat(index.getTasksByName("task", toSet(project, otherProject)), equalTo(toSet(task2)));
+
+        index.remove(task2);
+        assertThat(index.getTasksByName("task", toSet(project, otherProject)).isEmpty(), equalTo(true));
+        assertThat(index.getTaskNames().isEmpty(), equalTo(true));
+    }
+
+    @Test
+    public void appliesRulesOfContainersInGivenProjects() {
+        final TaskContainer container = context.mock(TaskContainer.class, "<container>");
+        final TaskContainer otherContainer = context.mock(TaskContainer.class, "<other-container>");
+        index.ruleAdded(project, container);
+        index.ruleAdded(otherProject, otherContainer);
+        final Task task = task("ruleTask", project);
+
+        context.checking(new Expectations() {{
+            one(container).findByName("ruleTask");
+            will(returnValue(task));
+        }});
+
+        assertThat(index.getTasksByName("ruleTask", toSet(project)), equalTo(toSet(task)));
+        assertThat(index.findTasksByName("ruleTask", toSet(project)), equalTo(toSet(task)));
+    }
+
+    private Task task(final String name, final Project project) {
+        final Task task = context.mock(Task.class, "[task" + ++taskCount + "]");
+        context.checking(new Expectations() {{
+            allowing(task).getName();
+            will(returnValue(name));
+            allowing(task).getProject();
+            will(returnValue(project));
+        }});
+        index.add(task);
+        return task;
+    }
+}
@@ -184,7 +184,7 @@ public abstract class AbstractTaskTest {
         final StandardOutputCapture standardOutputCaptureMock = context.mock(StandardOutputCapture.class);
         getTask().setStandardOutputCapture(standardOutputCaptureMock);
         context.checking(new Expectations() {{
-            one(outputMockHandler).writeHistory(true);
+            one(outputMockHandler).writeHistory(with(equal(true)), with(any(Long.class)));
             one(standardOutputCaptureMock).start(); inSequence(captureOutput); will(returnValue(standardOutputCaptureMock));
             one(standardOutputCaptureMock).stop(); inSequence(captureOutput); will(returnValue(standardOutputCaptureMock));
         }});
@@ -218,7 +218,7 @@ public abstract class AbstractTaskTest {
         final StandardOutputCapture standardOutputCaptureMock = context.mock(StandardOutputCapture.class);
         getTask().setStandardOutputCapture(standardOutputCaptureMock);
         context.checking(new Expectations() {{
-            one(outputMockHandler).writeHistory(false);
+            one(outputMockHandler).writeHistory(with(equal(false)), with(any(Long.class)));
             one(standardOutputCaptureMock).start(); inSequence(captureOutput); will(returnValue(standardOutputCaptureMock));
             one(standardOutputCaptureMock).stop(); inSequence(captureOutput); will(returnValue(standardOutputCaptureMock));
         }});
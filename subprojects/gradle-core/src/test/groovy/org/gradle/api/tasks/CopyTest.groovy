@@ -44,6 +44,24 @@ public class CopyTest extends AbstractTaskTest {
         copyTask.copy()
     }
     
+    @Test public void usesStateFileInBuildDirWhenIncremental() {
+        File stateFile = new File(copyTask.project.buildDir, "${Copy.STATE_DIR_NAME}/${copyTask.name}.bin")
+
+        context.checking {
+            one(action).setIncremental(true)
+            one(action).from('src')
+            one(action).into('dest')
+            one(action).setStateFile(stateFile)
+            one(action).execute()
+            one(action).getDidWork()
+        }
+
+        copyTask.incremental = true
+        copyTask.from('src')
+        copyTask.into('dest')
+        copyTask.copy()
+    }
+
     @Test public void usesConventionValuesForDestDirWhenNotSpecified() {
         copyTask.conventionMapping.destinationDir = { new File('dest') }
 
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.tasks.testing;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class TestClassBalancerTest {
+    private File resultsDir;
+    private TestClassBalancer balancer;
+
+    @Before
+    public void setUp() {
+        resultsDir = HelperUtil.makeNewTestDir();
+        balancer = new TestClassBalancer(resultsDir);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void distributesClassesWithNoPreviousResultsEvenly() {
+        List<List<String>> forks = balancer.balance(WrapUtil.toSet("a/ATest.class", "b/BTest.class", "c/CTest.class",
+                "d/DTest.class"), 2);
+
+        assertThat(forks, equalTo(WrapUtil.toList(WrapUtil.toList("a/ATest.class", "c/CTest.class"), WrapUtil.toList(
+                "b/BTest.class", "d/DTest.class"))));
+    }
+
+    @Test
+    public void balancesClassesByPreviousDuration() {
+        writeResult("org.gradle.SlowTest", "10.5");
+        writeResult("org.gradle.MediumTest", "6");
+        writeResult("org.gradle.FastTest", "4");
+        writeResult("org.gradle.QuickTest", "0.5");
+
+        List<List<String>> forks = balancer.balance(WrapUtil.toSet("org/gradle/SlowTest.class",
+                "org/gradle/MediumTest.class", "org/gradle/FastTest.class", "org/gradle/QuickTest.class"), 2);
+
+        assertThat(forks, equalTo(WrapUtil.toList(WrapUtil.toList("org/gradle/SlowTest.class"), WrapUtil.toList(
+                "org/gradle/MediumTest.class", "org/gradle/FastTest.class", "org/gradle/QuickTest.class"))));
+    }
+
+    @Test
+    public void usesAverageDurationForClassesWithNoPreviousResult() {
+        writeResult("org.gradle.SlowTest", "9");
+        writeResult("org.gradle.FastTest", "1");
+
+        assertThat(balancer.getPreviousDuration("org/gradle/SlowTest.class"), equalTo(9.0));
+        assertThat(balancer.getPreviousDuration("org/gradle/NewTest.class"), nullValue());
+
+        List<List<String>> forks = balancer.balance(WrapUtil.toSet("org/gradle/SlowTest.class",
+                "org/gradle/FastTest.class", "org/gradle/NewTest.class"), 2);
+
+        assertThat(forks, equalTo(WrapUtil.toList(WrapUtil.toList("org/gradle/SlowTest.class"), WrapUtil.toList(
+                "org/gradle/NewTest.class", "org/gradle/FastTest.class"))));
+    }
+
+    @Test
+    public void ignoresUnreadableResults() {
+        GFileUtils.writeStringToFile(new File(resultsDir, "TEST-org.gradle.BrokenTest.xml"), "<testsuite");
+
+        assertThat(balancer.getPreviousDuration("org/gradle/BrokenTest.class"), nullValue());
+    }
+
+    @Test
+    public void createsNoMoreForksThanClasses() {
+        List<List<String>> forks = balancer.balance(WrapUtil.toSet("a/ATest.class", "b/BTest.class"), 4);
+
+        assertThat(forks.size(), equalTo(2));
+    }
+
+    private void writeResult(String className, String time) {
+        GFileUtils.writeStringToFile(new File(resultsDir, "TEST-" + className + ".xml"), String.format(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>%n<testsuite errors=\"0\" failures=\"0\" name=\"%s\" tests=\"1\" time=\"%s\">%n<testcase name=\"test\" time=\"%s\"/>%n</testsuite>%n",
+                className, time, time));
+    }
+}
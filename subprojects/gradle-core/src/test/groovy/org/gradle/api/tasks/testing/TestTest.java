@@ -96,6 +96,7 @@ public class TestTest extends AbstractConventionTaskTest {
         assertEquals(WrapUtil.toLinkedSet(), test.getIncludes());
         assertEquals(WrapUtil.toLinkedSet(), test.getExcludes());
         assert test.isStopAtFailuresOrErrors();
+        assertEquals(1, test.getMaxParallelForks());
     }
 
     @org.junit.Test
@@ -112,6 +113,29 @@ public class TestTest extends AbstractConventionTaskTest {
         test.execute();
     }
 
+    @org.junit.Test
+    public void testExecuteWithParallelForks() {
+        setUpMocks(test);
+        setExistingDirsFilter();
+        test.setMaxParallelForks(2);
+        final Set<String> testClassNames = WrapUtil.toSet("test/HumanTest.class", "test/CarTest.class", "test/BikeTest.class");
+        context.checking(new Expectations() {{
+            one(testFrameworkMock).prepare(getProject(), test);
+            one(testFrameworkMock).getTestClassNames();will(returnValue(testClassNames));
+            one(testFrameworkMock).executeForks(getProject(), test, WrapUtil.toList(
+                    WrapUtil.toList("test/BikeTest.class", "test/HumanTest.class"),
+                    WrapUtil.toList("test/CarTest.class")));
+            one(testFrameworkMock).report(getProject(), test);
+        }});
+
+        test.execute();
+    }
+
+    @org.junit.Test(expected = IllegalArgumentException.class)
+    public void testCannotSetMaxParallelForksBelowOne() {
+        test.setMaxParallelForks(0);
+    }
+
     @org.junit.Test
     public void testExecuteWithoutReporting() {
         setUpMocks(test);
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.testing.execution;
+
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import org.gradle.util.WrapUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class TestClassDetectionCacheTest {
+    private File testDir;
+    private File cacheFile;
+    private File classFile;
+    private TestClassInfo info = new TestClassInfo("org/gradle/SomeTest", "org/gradle/AbstractTest", true, false,
+            WrapUtil.toList("org/gradle/SomeTest$Inner"));
+
+    @Before
+    public void setUp() {
+        testDir = HelperUtil.makeNewTestDir();
+        cacheFile = new File(testDir, "cache/classes.bin");
+        classFile = new File(testDir, "SomeTest.class");
+        GFileUtils.writeStringToFile(classFile, "content");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void returnsNullForUnknownClassFile() {
+        TestClassDetectionCache cache = new TestClassDetectionCache(cacheFile);
+
+        assertThat(cache.get(classFile), nullValue());
+        assertThat(cache.get(classFile, cache.hash("content".getBytes())), nullValue());
+    }
+
+    @Test
+    public void returnsCachedDetailsOfUnchangedClassFileFromPreviousBuild() {
+        TestClassDetectionCache cache = new TestClassDetectionCache(cacheFile);
+        cache.put(classFile, cache.hash("content".getBytes()), info);
+        cache.save();
+
+        cache = new TestClassDetectionCache(cacheFile);
+        TestClassInfo cachedInfo = cache.get(classFile);
+
+        assertThat(cachedInfo.getClassName(), equalTo("org/gradle/SomeTest"));
+        assertThat(cachedInfo.getSuperClassName(), equalTo("org/gradle/AbstractTest"));
+        assertTrue(cachedInfo.isTest());
+        assertFalse(cachedInfo.isAbstract());
+        assertThat(cachedInfo.getInnerClassNames(), equalTo(WrapUtil.toList("org/gradle/SomeTest$Inner")));
+    }
+
+    @Test
+    public void usesHashWhenClassFileTimestampHasChanged() {
+        TestClassDetectionCache cache = new TestClassDetectionCache(cacheFile);
+        cache.put(classFile, cache.hash("content".getBytes()), info);
+        cache.save();
+        assertTrue(classFile.setLastModified(classFile.lastModified() - 10000));
+
+        cache = new TestClassDetectionCache(cacheFile);
+        assertThat(cache.get(classFile), nullValue());
+        assertThat(cache.get(classFile, cache.hash("changed".getBytes())), nullValue());
+        assertThat(cache.get(classFile, cache.hash("content".getBytes())), notNullValue());
+        assertThat(cache.get(classFile), notNullValue());
+    }
+
+    @Test
+    public void discardsEntriesNotUsedSinceLoaded() {
+        TestClassDetectionCache cache = new TestClassDetectionCache(cacheFile);
+        cache.put(classFile, cache.hash("content".getBytes()), info);
+        cache.save();
+
+        new TestClassDetectionCache(cacheFile).save();
+
+        assertThat(new TestClassDetectionCache(cacheFile).get(classFile), nullValue());
+    }
+
+    @Test
+    public void cachesClassWithNoSuperClass() {
+        TestClassDetectionCache cache = new TestClassDetectionCache(cacheFile);
+        cache.put(classFile, cache.hash("content".getBytes()), new TestClassInfo("java/lang/Object", null, false,
+                false, Collections.<String>emptyList()));
+        cache.save();
+
+        assertThat(new TestClassDetectionCache(cacheFile).get(classFile).getSuperClassName(), nullValue());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.project.ImportsReader;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.groovy.scripts.*;
+import org.gradle.initialization.DefaultProjectDescriptor;
+import org.gradle.initialization.DefaultProjectDescriptorRegistry;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.*;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class BuildScriptPrecompilerTest {
+    private final List<String> compiled = Collections.synchronizedList(new ArrayList<String>());
+    private final ClassLoader classLoader = new ClassLoader() {
+    };
+    private final DefaultProjectDescriptorRegistry registry = new DefaultProjectDescriptorRegistry();
+    private final BuildScriptPrecompiler precompiler = new BuildScriptPrecompiler(new ImportsReader(),
+            new TestScriptCompilerFactory(), 4);
+    private File rootDir;
+    private DefaultProjectDescriptor rootProject;
+
+    @Before
+    public void setUp() {
+        rootDir = HelperUtil.makeNewTestDir();
+        rootProject = project(null, "root", "<root>");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void compilesEachDistinctBuildScriptOnce() {
+        project(rootProject, "a", "<child>");
+        project(rootProject, "b", "<child>");
+        project(rootProject, "c", null);
+
+        precompiler.precompile(registry.getAllProjects(), rootDir, classLoader);
+
+        assertThat(compiled.size(), equalTo(6));
+        assertThat(compiledScripts(), equalTo(toSet(
+                "<root>: BuildScriptClasspathScriptTransformer",
+                "<root>: BuildScriptTransformer",
+                "<child>: BuildScriptClasspathScriptTransformer",
+                "<child>: BuildScriptTransformer",
+                ": BuildScriptClasspathScriptTransformer",
+                ": BuildScriptTransformer")));
+    }
+
+    @Test
+    public void compilesOnlyClasspathPartOfScriptWhenProjectOrAncestorDeclaresClasspath() {
+        rootProject = project(null, "root", "buildscript { }");
+        DefaultProjectDescriptor child = project(rootProject, "a", "<child>");
+        project(child, "b", "<grand-child>");
+
+        precompiler.precompile(registry.getAllProjects(), rootDir, classLoader);
+
+        assertThat(compiled.size(), equalTo(3));
+        assertThat(compiledScripts(), equalTo(toSet(
+                "buildscript { }: BuildScriptClasspathScriptTransformer",
+                "<child>: BuildScriptClasspathScriptTransformer",
+                "<grand-child>: BuildScriptClasspathScriptTransformer")));
+    }
+
+    @Test
+    public void ignoresCompilationFailures() {
+        project(rootProject, "a", "<broken>");
+        project(rootProject, "b", "<child>");
+
+        precompiler.precompile(registry.getAllProjects(), rootDir, classLoader);
+
+        assertThat(compiledScripts(), equalTo(toSet(
+                "<root>: BuildScriptClasspathScriptTransformer",
+                "<root>: BuildScriptTransformer",
+                "<child>: BuildScriptClasspathScriptTransformer",
+                "<child>: BuildScriptTransformer")));
+    }
+
+    @Test
+    public void doesNothingWhenThereIsOnlyOneDistinctBuildScript() {
+        project(rootProject, "a", "<root>");
+
+        precompiler.precompile(registry.getAllProjects(), rootDir, classLoader);
+
+        assertTrue(compiled.isEmpty());
+    }
+
+    private Set<String> compiledScripts() {
+        return new HashSet<String>(compiled);
+    }
+
+    private DefaultProjectDescriptor project(DefaultProjectDescriptor parent, String name, String buildScript) {
+        File projectDir = parent == null ? rootDir : new File(rootDir, name);
+        if (buildScript != null) {
+            GFileUtils.writeStringToFile(new File(projectDir, "build.gradle"), buildScript);
+        }
+        return new DefaultProjectDescriptor(parent, name, projectDir, registry);
+    }
+
+    private class TestScriptCompilerFactory implements ScriptCompilerFactory {
+        public ScriptCompiler createCompiler(final ScriptSource source) {
+            return new ScriptCompiler() {
+                private Transformer transformer;
+
+                public ScriptCompiler setClassloader(ClassLoader classloader) {
+                    assertThat(classloader, sameInstance(classLoader));
+                    return this;
+                }
+
+                public ScriptCompiler setTransformer(Transformer transformer) {
+                    this.transformer = transformer;
+                    return this;
+                }
+
+                public <T extends Script> ScriptRunner<T> compile(Class<T> scriptType) {
+                    throw new UnsupportedOperationException();
+                }
+
+                public void precompile(Class<? extends Script> scriptType) {
+                    assertThat(scriptType, equalTo((Object) ProjectScript.class));
+                    String text = source.getText().trim();
+                    if (text.equals("<broken>")) {
+                        throw new GradleException("broken");
+                    }
+                    compiled.add(text + ": " + transformer.getClass().getSimpleName());
+                }
+            };
+        }
+    }
+}
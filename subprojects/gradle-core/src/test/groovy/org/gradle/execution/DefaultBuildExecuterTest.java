@@ -18,6 +18,7 @@ package org.gradle.execution;
 import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskIndex;
 import org.gradle.api.specs.Spec;
 import static org.gradle.util.Matchers.*;
 import static org.gradle.util.WrapUtil.*;
@@ -39,6 +40,7 @@ public class DefaultBuildExecuterTest {
     private final GradleInternal gradle = context.mock(GradleInternal.class);
     private final TaskExecuter taskExecuter = context.mock(TaskExecuter.class);
     private final ProjectInternal project = context.mock(ProjectInternal.class);
+    private final TaskIndex taskIndex = new TaskIndex();
 
     @Before
     public void setup() {
@@ -47,6 +49,10 @@ public class DefaultBuildExecuterTest {
             will(returnValue(taskExecuter));
             allowing(gradle).getDefaultProject();
             will(returnValue(project));
+            allowing(gradle).getTaskIndex();
+            will(returnValue(taskIndex));
+            allowing(project).getAllprojects();
+            will(returnValue(toSet(project)));
         }});
     }
     
@@ -82,14 +88,18 @@ public class DefaultBuildExecuterTest {
     private void checkNameFilterApplied(DefaultBuildExecuter executer) {
         final BuildExecuter delegate = context.mock(BuildExecuter.class);
         executer.setDelegate(delegate);
+        final Task task = context.mock(Task.class);
 
         context.checking(new Expectations(){{
-            one(project).getTasksByName("b", true);
-            will(returnValue(toSet(context.mock(Task.class))));
+            allowing(task).getName();
+            will(returnValue("b"));
+            allowing(task).getProject();
+            will(returnValue(project));
             one(taskExecuter).useFilter(with(notNullValue(Spec.class)));
             one(delegate).select(gradle);
         }});
 
+        taskIndex.add(task);
         executer.select(gradle);
     }
 }
@@ -15,9 +15,9 @@
  */
 package org.gradle.execution;
 
-import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.Task;
-import org.gradle.util.GFileUtils;
 import org.gradle.util.HelperUtil;
 import static org.hamcrest.Matchers.equalTo;
 import org.jmock.Expectations;
@@ -36,10 +36,10 @@ public class DefaultOutputHistoryReaderTest {
     private Task taskStub = context.mock(Task.class);
     
     private DefaultOutputHistoryReader outputHistoryReader = new DefaultOutputHistoryReader();
-    private Project projectStub = context.mock(Project.class);
+    private ProjectInternal projectStub = context.mock(ProjectInternal.class);
+    private GradleInternal gradleStub = context.mock(GradleInternal.class);
+    private TaskHistoryStores taskHistoryStores = new TaskHistoryStores();
     private static final String TASK_PATH = ":someProjectPath:someTaskName";
-    private static final String CONVERTED_TASK_PATH = TASK_PATH.replace(":", "/");
-    private static final String HISTORY_FILE_PATH = OutputHistoryWriter.HISTORY_DIR_NAME + "/" + CONVERTED_TASK_PATH;
     private File historyDir = HelperUtil.makeNewTestDir();
 
     @Before
@@ -51,24 +51,36 @@ public class DefaultOutputHistoryReaderTest {
             will(returnValue(projectStub));
             allowing(projectStub).getBuildDir();
             will(returnValue(historyDir));
+            allowing(projectStub).getGradle();
+            will(returnValue(gradleStub));
+            allowing(gradleStub).getTaskHistoryStores();
+            will(returnValue(taskHistoryStores));
         }});
     }
 
     @After
     public void tearDown() {
+        taskHistoryStores.close();
         HelperUtil.deleteTestDir();
     }
 
     @org.junit.Test
     public void testReadHistoryWithExistingHistoryFile() {
-        File historyFile = new File(historyDir, HISTORY_FILE_PATH);
         long timestamp = System.currentTimeMillis();
-        GFileUtils.writeStringToFile(historyFile, "" + timestamp);
+        taskHistoryStores.forBuildDir(historyDir).put(new TaskHistory(TASK_PATH, timestamp, 1L, true, true, null, null));
         OutputHistory outputHistory = outputHistoryReader.readHistory(taskStub);
         assertThat(outputHistory.wasCreatedSuccessfully(), equalTo(true));
         assertThat(outputHistory.getLastModified(), equalTo(timestamp));
     }
 
+    @org.junit.Test
+    public void testReadHistoryWithFailedExecution() {
+        taskHistoryStores.forBuildDir(historyDir).put(new TaskHistory(TASK_PATH, 100L, 1L, false, true, null, null));
+        OutputHistory outputHistory = outputHistoryReader.readHistory(taskStub);
+        assertThat(outputHistory.wasCreatedSuccessfully(), equalTo(false));
+        assertThat(outputHistory.getLastModified(), equalTo(null));
+    }
+
     @org.junit.Test
     public void testReadHistoryWithNonExistingHistoryFile() {
         OutputHistory outputHistory = outputHistoryReader.readHistory(taskStub);
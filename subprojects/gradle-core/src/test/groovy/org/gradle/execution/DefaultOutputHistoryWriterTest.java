@@ -15,8 +15,8 @@
  */
 package org.gradle.execution;
 
-import org.apache.commons.io.FileUtils;
-import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.Task;
 import org.gradle.util.HelperUtil;
 import static org.hamcrest.Matchers.*;
@@ -27,7 +27,6 @@ import static org.junit.Assert.assertThat;
 import org.junit.Before;
 
 import java.io.File;
-import java.io.IOException;
 
 /**
  * @author Hans Dockter
@@ -38,10 +37,10 @@ public class DefaultOutputHistoryWriterTest {
     private File historyDir = HelperUtil.makeNewTestDir();
     private DefaultOutputHistoryWriter outputHistoryWriter = new DefaultOutputHistoryWriter();
     private Task taskStub = context.mock(Task.class);
-    private Project projectStub = context.mock(Project.class);
+    private ProjectInternal projectStub = context.mock(ProjectInternal.class);
+    private GradleInternal gradleStub = context.mock(GradleInternal.class);
+    private TaskHistoryStores taskHistoryStores = new TaskHistoryStores();
     private static final String TASK_PATH = ":someProjectPath:someTaskName";
-    private static final String CONVERTED_TASK_PATH = TASK_PATH.replace(":", "/");
-    private static final String HISTORY_FILE_PATH = OutputHistoryWriter.HISTORY_DIR_NAME + "/" + CONVERTED_TASK_PATH;
 
     @Before
     public void setUp() {
@@ -52,37 +51,56 @@ public class DefaultOutputHistoryWriterTest {
             will(returnValue(projectStub));
             allowing(projectStub).getBuildDir();
             will(returnValue(historyDir));
+            allowing(projectStub).getGradle();
+            will(returnValue(gradleStub));
+            allowing(gradleStub).getTaskHistoryStores();
+            will(returnValue(taskHistoryStores));
         }});   
     }
     
     @After
     public void tearDown() {
+        taskHistoryStores.close();
         HelperUtil.deleteTestDir();
     }
 
     @org.junit.Test
-    public void shouldHaveHistoryFileWhenTaskSuccessfullyExecuted() throws IOException {
+    public void shouldHaveSuccessfulHistoryWhenTaskSuccessfullyExecuted() {
         long timestampLowerLimit = System.currentTimeMillis();
-        outputHistoryWriter.taskSuccessfullyExecuted(taskStub);
-        File historyFile = new File(historyDir, HISTORY_FILE_PATH);
-        assertThat(historyFile.isFile(), equalTo(true));
-        long timestamp = Long.parseLong(FileUtils.readFileToString(historyFile));
-        assertThat(timestamp, greaterThanOrEqualTo(timestampLowerLimit));
-        assertThat(timestamp, lessThanOrEqualTo(System.currentTimeMillis()));
+        expectDidWork(true);
+        outputHistoryWriter.taskSuccessfullyExecuted(taskStub, 12L, null, null);
+        assertThat(new File(historyDir, TaskHistoryStore.STORE_FILE_NAME).isFile(), equalTo(true));
+        TaskHistory history = taskHistoryStores.forBuildDir(historyDir).get(TASK_PATH);
+        assertThat(history.isSuccessful(), equalTo(true));
+        assertThat(history.isDidWork(), equalTo(true));
+        assertThat(history.getDuration(), equalTo(12L));
+        assertThat(history.getTimestamp(), greaterThanOrEqualTo(timestampLowerLimit));
+        assertThat(history.getTimestamp(), lessThanOrEqualTo(System.currentTimeMillis()));
     }
 
     @org.junit.Test
-    public void shouldHaveNoHistoryFileWhenTaskFailed() {
-        outputHistoryWriter.taskFailed(taskStub);
-        File historyFile = new File(historyDir, HISTORY_FILE_PATH);
-        assertThat(historyFile.exists(), equalTo(false));
+    public void shouldKeepPreviousTimestampWhenTaskDidNoWork() {
+        taskHistoryStores.forBuildDir(historyDir).put(new TaskHistory(TASK_PATH, 100L, 1L, true, true, null, null));
+        expectDidWork(false);
+        outputHistoryWriter.taskSuccessfullyExecuted(taskStub, 12L, null, null);
+        TaskHistory history = taskHistoryStores.forBuildDir(historyDir).get(TASK_PATH);
+        assertThat(history.isSuccessful(), equalTo(true));
+        assertThat(history.isDidWork(), equalTo(false));
+        assertThat(history.getTimestamp(), equalTo(100L));
     }
 
     @org.junit.Test
-    public void shouldDeleteExisitingHistoryFileWhenTaskFailed() throws IOException {
-        File historyFile = new File(historyDir, HISTORY_FILE_PATH);
-        FileUtils.touch(historyFile);
-        outputHistoryWriter.taskFailed(taskStub);
-        assertThat(historyFile.exists(), equalTo(false));
+    public void shouldHaveUnsuccessfulHistoryWhenTaskFailed() {
+        taskHistoryStores.forBuildDir(historyDir).put(new TaskHistory(TASK_PATH, 100L, 1L, true, true, null, null));
+        expectDidWork(true);
+        outputHistoryWriter.taskFailed(taskStub, 12L);
+        assertThat(taskHistoryStores.forBuildDir(historyDir).get(TASK_PATH).isSuccessful(), equalTo(false));
+    }
+
+    private void expectDidWork(final boolean didWork) {
+        context.checking(new Expectations() {{
+            allowing(taskStub).getDidWork();
+            will(returnValue(didWork));
+        }});
     }
 }
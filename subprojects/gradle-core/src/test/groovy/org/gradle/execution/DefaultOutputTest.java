@@ -16,13 +16,24 @@
 package org.gradle.execution;
 
 import org.gradle.api.Task;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.toList;
 import org.hamcrest.Matchers;
 import static org.hamcrest.Matchers.equalTo;
 import org.jmock.Expectations;
 import org.jmock.integration.junit4.JUnit4Mockery;
-import static org.junit.Assert.assertThat;
+import org.junit.After;
+import org.junit.Before;
+import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.io.File;
+import java.util.Map;
+import java.util.TreeMap;
+
 /**
  * @author Hans Dockter
  */
@@ -30,6 +41,21 @@ public class DefaultOutputTest {
     private JUnit4Mockery context = new JUnit4Mockery();
     private Task taskStub = context.mock(Task.class);
     private DefaultOutputHandler outputHandler = new DefaultOutputHandler(taskStub);
+    private final File testDir = HelperUtil.makeNewTestDir();
+    private final File inputFile = new File(testDir, "input.txt");
+    private final File outputFile = new File(testDir, "output.txt");
+    private final Map<String, Object> inputProperties = new TreeMap<String, Object>();
+    private final FileFingerprinter fingerprinter = new FileFingerprinter();
+
+    @Before
+    public void setUp() {
+        outputHandler.setFingerprinter(fingerprinter);
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
 
     @Test
     public void init() {
@@ -62,10 +88,10 @@ public class DefaultOutputTest {
         outputHandler.setOutputHistoryWriter(outputHistoryWriterMock);
 
         context.checking(new Expectations() {{
-            one(outputHistoryWriterMock).taskSuccessfullyExecuted(taskStub);
+            one(outputHistoryWriterMock).taskSuccessfullyExecuted(taskStub, 10L, null, null);
         }});
 
-        outputHandler.writeHistory(true);
+        outputHandler.writeHistory(true, 10L);
     }
 
     @Test
@@ -76,10 +102,10 @@ public class DefaultOutputTest {
         outputHandler.setOutputHistoryWriter(outputHistoryWriterMock);
 
         context.checking(new Expectations() {{
-            one(outputHistoryWriterMock).taskFailed(taskStub);
+            one(outputHistoryWriterMock).taskFailed(taskStub, 10L);
         }});
 
-        outputHandler.writeHistory(false);
+        outputHandler.writeHistory(false, 10L);
     }
 
     @Test
@@ -90,10 +116,10 @@ public class DefaultOutputTest {
         outputHandler.setOutputHistoryWriter(outputHistoryWriterMock);
 
         context.checking(new Expectations() {{
-            one(outputHistoryWriterMock).taskFailed(taskStub);
+            one(outputHistoryWriterMock).taskFailed(taskStub, 10L);
         }});
 
-        outputHandler.writeHistory(true);
+        outputHandler.writeHistory(true, 10L);
     }
 
     @Test
@@ -104,11 +130,152 @@ public class DefaultOutputTest {
         outputHandler.setOutputHistoryWriter(outputHistoryWriterMock);
 
         context.checking(new Expectations() {{
-            one(outputHistoryWriterMock).taskFailed(taskStub);
+            one(outputHistoryWriterMock).taskFailed(taskStub, 10L);
+        }});
+
+        outputHandler.writeHistory(false, 10L);
+    }
+
+    @Test
+    public void isNotUpToDateWhenTaskDeclaresNoFiles() {
+        assertFalse(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void usesFileFingerprinterOfTheBuildByDefault() {
+        final ProjectInternal project = context.mock(ProjectInternal.class);
+        final GradleInternal gradle = context.mock(GradleInternal.class);
+        final FileFingerprinter buildFingerprinter = new FileFingerprinter();
+        context.checking(new Expectations() {{
+            allowing(taskStub).getProject();
+            will(returnValue(project));
+            allowing(project).getGradle();
+            will(returnValue(gradle));
+            allowing(gradle).getFileFingerprinter();
+            will(returnValue(buildFingerprinter));
         }});
 
-        outputHandler.writeHistory(false);
+        assertThat(new DefaultOutputHandler(taskStub).getFingerprinter(), Matchers.sameInstance(buildFingerprinter));
+    }
+
+    @Test
+    public void setTaskFilesEnablesHistory() {
+        outputHandler.setTaskFiles(taskFiles());
+        assertThat(outputHandler.getHasOutput(), equalTo(true));
+    }
+
+    @Test
+    public void isUpToDateWhenInputAndOutputFilesAreUnchanged() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        expectHistory(new DefaultOutputHistory(true, 100L, inputFingerprint(),
+                fingerprinter.fingerprint(toList(outputFile))));
+        outputHandler.setTaskFiles(taskFiles());
+
+        assertTrue(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void isNotUpToDateWhenInputFilesHaveChanged() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        expectHistory(new DefaultOutputHistory(true, 100L, inputFingerprint(),
+                fingerprinter.fingerprint(toList(outputFile))));
+        outputHandler.setTaskFiles(taskFiles());
+        GFileUtils.writeStringToFile(inputFile, "changed");
+
+        assertFalse(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void isNotUpToDateWhenInputPropertiesHaveChanged() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        inputProperties.put("option", "value");
+        expectHistory(new DefaultOutputHistory(true, 100L, inputFingerprint(),
+                fingerprinter.fingerprint(toList(outputFile))));
+        outputHandler.setTaskFiles(taskFiles());
+        inputProperties.put("option", "changed");
+
+        assertFalse(outputHandler.isUpToDate());
     }
 
-    
+    @Test
+    public void isNotUpToDateWhenInputPropertyHasValueWhichCannotBeCompared() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        inputProperties.put("option", new Object());
+        expectHistory(new DefaultOutputHistory(true, 100L, fingerprinter.fingerprint(toList(inputFile)),
+                fingerprinter.fingerprint(toList(outputFile))));
+        outputHandler.setTaskFiles(taskFiles());
+
+        assertFalse(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void isNotUpToDateWhenOutputFilesHaveBeenRemoved() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        expectHistory(new DefaultOutputHistory(true, 100L, inputFingerprint(),
+                fingerprinter.fingerprint(toList(outputFile))));
+        outputHandler.setTaskFiles(taskFiles());
+        outputFile.delete();
+
+        assertFalse(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void isNotUpToDateWhenThereIsNoSuccessfulHistory() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        expectHistory(new DefaultOutputHistory());
+        outputHandler.setTaskFiles(taskFiles());
+
+        assertFalse(outputHandler.isUpToDate());
+    }
+
+    @Test
+    public void writeHistoryRecordsFingerprintsOfTaskFiles() {
+        GFileUtils.writeStringToFile(inputFile, "input");
+        GFileUtils.writeStringToFile(outputFile, "output");
+        final OutputHistoryWriter outputHistoryWriterMock = context.mock(OutputHistoryWriter.class);
+        outputHandler.setTaskFiles(taskFiles());
+        outputHandler.setOutputHistoryWriter(outputHistoryWriterMock);
+
+        context.checking(new Expectations() {{
+            one(outputHistoryWriterMock).taskSuccessfullyExecuted(with(Matchers.sameInstance(taskStub)),
+                    with(equal(10L)), with(equal(inputFingerprint())),
+                    with(equal(fingerprinter.fingerprint(toList(outputFile)))));
+        }});
+
+        outputHandler.writeHistory(true, 10L);
+    }
+
+    private void expectHistory(final OutputHistory history) {
+        final OutputHistoryReader outputHistoryReaderStub = context.mock(OutputHistoryReader.class);
+        outputHandler.setOutputHistoryReader(outputHistoryReaderStub);
+        context.checking(new Expectations() {{
+            allowing(outputHistoryReaderStub).readHistory(taskStub);
+            will(returnValue(history));
+        }});
+    }
+
+    private byte[] inputFingerprint() {
+        return fingerprinter.fingerprint(toList(inputFile), inputProperties);
+    }
+
+    private TaskFiles taskFiles() {
+        return new TaskFiles() {
+            public Iterable<File> getInputFiles() {
+                return toList(inputFile);
+            }
+
+            public Iterable<File> getOutputFiles() {
+                return toList(outputFile);
+            }
+
+            public Map<String, Object> getInputProperties() {
+                return inputProperties;
+            }
+        };
+    }
 }
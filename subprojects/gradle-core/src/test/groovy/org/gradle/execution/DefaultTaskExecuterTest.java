@@ -36,7 +36,10 @@ import org.junit.runner.RunWith;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Hans Dockter
@@ -48,7 +51,7 @@ public class DefaultTaskExecuterTest {
     TaskExecuter taskExecuter;
     ProjectInternal root;
     JUnit4Mockery context = new JUnit4Mockery();
-    List<Task> executedTasks = new ArrayList<Task>();
+    List<Task> executedTasks = Collections.synchronizedList(new ArrayList<Task>());
 
     @Before
     public void setUp() {
@@ -370,6 +373,133 @@ public class DefaultTaskExecuterTest {
         assertThat(taskExecuter.getAllTasks(), equalTo(toList(b, c)));
     }
     
+    @Test
+    public void testParallelExecutionExecutesTasksAfterTheirDependencies() {
+        taskExecuter = new DefaultTaskExecuter(4);
+        Task a = createTask("a");
+        Task b = createTask("b", a);
+        Task c = createTask("c", a);
+        Task d = createTask("d", b, c);
+
+        taskExecuter.execute(toList(d));
+
+        assertThat(executedTasks.size(), equalTo(4));
+        assertThat(executedTasks.get(0), sameInstance(a));
+        assertThat(executedTasks.get(3), sameInstance(d));
+    }
+
+    @Test
+    public void testParallelExecutionExecutesIndependentTasksConcurrently() {
+        taskExecuter = new DefaultTaskExecuter(2);
+        final CountDownLatch latch = new CountDownLatch(2);
+        TaskAction waitForOtherTask = new TaskAction() {
+            public void execute(Task task) {
+                latch.countDown();
+                try {
+                    assertTrue(latch.await(20, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        Task a = createTask("a");
+        a.doLast(waitForOtherTask);
+        Task b = createTask("b");
+        b.doLast(waitForOtherTask);
+
+        taskExecuter.execute(toList(a, b));
+
+        assertThat(executedTasks.size(), equalTo(2));
+    }
+
+    @Test
+    public void testParallelExecutionDoesNotStartFurtherTasksAfterFailure() {
+        taskExecuter = new DefaultTaskExecuter(2);
+        final RuntimeException failure = new RuntimeException();
+        Task a = createTask("a");
+        a.doLast(new TaskAction() {
+            public void execute(Task task) {
+                throw failure;
+            }
+        });
+        Task b = createTask("b", a);
+
+        try {
+            taskExecuter.execute(toList(b));
+            fail();
+        } catch (GradleScriptException e) {
+            assertThat(e.getCause(), sameInstance((Throwable) failure));
+        }
+
+        assertThat(executedTasks, equalTo(toList(a)));
+        assertFalse(b.getExecuted());
+    }
+
+    @Test
+    public void testParallelExecutionRestoresInterruptAfterRunningTasksFinish() {
+        taskExecuter = new DefaultTaskExecuter(2);
+        final Thread executingThread = Thread.currentThread();
+        Task a = createTask("a");
+        a.doLast(new TaskAction() {
+            public void execute(Task task) {
+                executingThread.interrupt();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+
+        try {
+            taskExecuter.execute(toList(a));
+            fail();
+        } catch (GradleException e) {
+            assertThat(e.getCause(), instanceOf(InterruptedException.class));
+        }
+
+        assertTrue(Thread.interrupted());
+        assertThat(executedTasks, equalTo(toList(a)));
+    }
+
+    @Test
+    public void testParallelExecutionExecutesEachGroupOfTasksAfterThePreviousGroups() {
+        taskExecuter = new DefaultTaskExecuter(4);
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        Task clean = createTask("clean");
+        clean.doLast(new TaskAction() {
+            public void execute(Task task) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                events.add("clean finished");
+            }
+        });
+        TaskAction recordStart = new TaskAction() {
+            public void execute(Task task) {
+                events.add(task.getName() + " started");
+            }
+        };
+        Task compile = createTask("compileJava");
+        compile.doFirst(recordStart);
+        Task javadoc = createTask("javadoc");
+        javadoc.doFirst(recordStart);
+        Task jar = createTask("jar", compile);
+        jar.doFirst(recordStart);
+        Task build = createTask("build", jar, javadoc);
+        build.doFirst(recordStart);
+
+        taskExecuter.addTasks(toList(clean));
+        taskExecuter.addTasks(toList(build));
+        taskExecuter.execute();
+
+        assertThat(events.size(), equalTo(5));
+        assertThat(events.get(0), equalTo("clean finished"));
+        assertThat(executedTasks.get(0), sameInstance(clean));
+    }
+
     private Task createTask(String name, final Task... dependsOn) {
         final TaskInternal task = new DefaultTask(root, name);
         task.dependsOn((Object[]) dependsOn);
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.changedetection.digest.DigestObjectFactory;
+import org.gradle.api.changedetection.digest.FileDigestCache;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.HelperUtil;
+import static org.gradle.util.WrapUtil.toList;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class FileFingerprinterTest {
+    private final File testDir = HelperUtil.makeNewTestDir();
+    private final FileFingerprinter fingerprinter = new FileFingerprinter();
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void fingerprintIsStableForUnchangedFiles() {
+        File file = file("a.txt", "content");
+        assertThat(fingerprinter.fingerprint(toList(file)), equalTo(fingerprinter.fingerprint(toList(file))));
+    }
+
+    @Test
+    public void fingerprintChangesWhenFileContentChanges() {
+        File file = file("a.txt", "content");
+        byte[] original = fingerprinter.fingerprint(toList(file));
+        GFileUtils.writeStringToFile(file, "changed content");
+
+        assertFalse(Arrays.equals(original, fingerprinter.fingerprint(toList(file))));
+    }
+
+    @Test
+    public void fingerprintDoesNotChangeWhenFileIsTouched() {
+        File file = file("a.txt", "content");
+        byte[] original = fingerprinter.fingerprint(toList(file));
+        file.setLastModified(file.lastModified() - 10000);
+
+        assertThat(fingerprinter.fingerprint(toList(file)), equalTo(original));
+    }
+
+    @Test
+    public void fingerprintChangesWhenRecentlyModifiedFileChangesWithoutChangingItsLengthOrTimestamp() {
+        File file = file("a.txt", "content");
+        long lastModified = file.lastModified();
+        byte[] original = fingerprinter.fingerprint(toList(file));
+        GFileUtils.writeStringToFile(file, "CONTENT");
+        file.setLastModified(lastModified);
+
+        assertFalse(Arrays.equals(original, fingerprinter.fingerprint(toList(file))));
+    }
+
+    @Test
+    public void fingerprintIncludesDirectoryContents() {
+        File dir = new File(testDir, "dir");
+        file("dir/a.txt", "content");
+        byte[] original = fingerprinter.fingerprint(toList(dir));
+
+        file("dir/sub/b.txt", "content");
+        byte[] withAddedFile = fingerprinter.fingerprint(toList(dir));
+        assertFalse(Arrays.equals(original, withAddedFile));
+
+        new File(dir, "sub/b.txt").delete();
+        assertThat(fingerprinter.fingerprint(toList(dir)), equalTo(original));
+    }
+
+    @Test
+    public void fingerprintDistinguishesMissingFileFromEmptyFile() {
+        File file = new File(testDir, "a.txt");
+        byte[] missing = fingerprinter.fingerprint(toList(file));
+        file("a.txt", "");
+
+        assertFalse(Arrays.equals(missing, fingerprinter.fingerprint(toList(file))));
+    }
+
+    @Test
+    public void fingerprintIncludesPropertyValues() {
+        File file = file("a.txt", "content");
+        Map<String, Object> properties = new TreeMap<String, Object>();
+        properties.put("string", "value");
+        properties.put("list", toList(1, 2));
+        properties.put("file", new File("a.txt"));
+        properties.put("none", null);
+        byte[] original = fingerprinter.fingerprint(toList(file), properties);
+        assertThat(fingerprinter.fingerprint(toList(file), properties), equalTo(original));
+        assertFalse(Arrays.equals(original, fingerprinter.fingerprint(toList(file))));
+
+        properties.put("list", toList(1, 3));
+        assertFalse(Arrays.equals(original, fingerprinter.fingerprint(toList(file), properties)));
+    }
+
+    @Test
+    public void fingerprintDistinguishesPropertyValuesOfDifferentTypes() {
+        File file = file("a.txt", "content");
+        Map<String, Object> properties = new TreeMap<String, Object>();
+        properties.put("value", "1");
+        byte[] stringValue = fingerprinter.fingerprint(toList(file), properties);
+        properties.put("value", 1);
+
+        assertFalse(Arrays.equals(stringValue, fingerprinter.fingerprint(toList(file), properties)));
+    }
+
+    @Test
+    public void cannotFingerprintPropertyValuesOfOtherTypes() {
+        Map<String, Object> properties = new TreeMap<String, Object>();
+        properties.put("value", toList(new Object()));
+
+        assertThat(fingerprinter.fingerprint(toList(file("a.txt", "content")), properties), nullValue());
+    }
+
+    @Test
+    public void laterFingerprinterReusesSavedHashesOfUnchangedFiles() {
+        File cacheFile = new File(testDir, "cache/hashes.bin");
+        File file = file("a.txt", "content");
+        file.setLastModified(file.lastModified() - 10000);
+        FileFingerprinter first = new FileFingerprinter(cacheFile);
+        byte[] original = first.fingerprint(toList(file));
+        first.buildFinished(HelperUtil.createBuildResult(null));
+
+        FileDigestCache cache = DigestObjectFactory.createFileDigestCache(cacheFile, 10);
+        assertThat(new FileFingerprinter(cache).fingerprint(toList(file)), equalTo(original));
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(0L));
+    }
+
+    @Test
+    public void laterFingerprinterRehashesFilesWhoseLengthChanged() {
+        File cacheFile = new File(testDir, "cache/hashes.bin");
+        File file = file("a.txt", "content");
+        long lastModified = file.lastModified() - 10000;
+        file.setLastModified(lastModified);
+        FileFingerprinter first = new FileFingerprinter(cacheFile);
+        byte[] original = first.fingerprint(toList(file));
+        first.save();
+
+        GFileUtils.writeStringToFile(file, "changed content");
+        file.setLastModified(lastModified);
+        assertFalse(Arrays.equals(original, new FileFingerprinter(cacheFile).fingerprint(toList(file))));
+    }
+
+    private File file(String path, String content) {
+        File file = new File(testDir, path);
+        file.getParentFile().mkdirs();
+        GFileUtils.writeStringToFile(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.util.HelperUtil;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+public class TaskHistoryStoreTest {
+    private final File buildDir = HelperUtil.makeNewTestDir();
+    private final File storeFile = new File(buildDir, TaskHistoryStore.STORE_FILE_NAME);
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void returnsNullForUnknownTask() {
+        assertThat(new TaskHistoryStore(storeFile).get(":a"), nullValue());
+    }
+
+    @Test
+    public void loadsPersistedHistory() {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        store.put(new TaskHistory(":a", 100L, 5L, true, false, new byte[]{1, 2}, new byte[]{3}));
+        store.close();
+
+        TaskHistory history = new TaskHistoryStore(storeFile).get(":a");
+        assertThat(history.getTaskPath(), equalTo(":a"));
+        assertThat(history.getTimestamp(), equalTo(100L));
+        assertThat(history.getDuration(), equalTo(5L));
+        assertTrue(history.isSuccessful());
+        assertFalse(history.isDidWork());
+        assertThat(history.getInputFingerprint(), equalTo(new byte[]{1, 2}));
+        assertThat(history.getOutputFingerprint(), equalTo(new byte[]{3}));
+    }
+
+    @Test
+    public void laterRecordReplacesEarlierRecord() {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+        store.put(new TaskHistory(":a", 200L, 5L, false, true, null, null));
+        assertThat(store.get(":a").getTimestamp(), equalTo(200L));
+        store.close();
+
+        assertThat(new TaskHistoryStore(storeFile).get(":a").getTimestamp(), equalTo(200L));
+    }
+
+    @Test
+    public void compactsSupersededRecordsOnClose() {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        for (int i = 0; i < 100; i++) {
+            store.put(new TaskHistory(":a", i, 5L, true, true, null, null));
+        }
+        long uncompactedLength = storeFile.length();
+        store.close();
+
+        assertThat(storeFile.length(), lessThan(uncompactedLength));
+        assertThat(new TaskHistoryStore(storeFile).get(":a").getTimestamp(), equalTo(99L));
+    }
+
+    @Test
+    public void discardsHistoryWhenFileIsDeleted() {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+        assertTrue(storeFile.delete());
+
+        store.put(new TaskHistory(":b", 100L, 5L, true, true, null, null));
+        assertThat(store.get(":a"), nullValue());
+        store.close();
+
+        TaskHistoryStore reloaded = new TaskHistoryStore(storeFile);
+        assertThat(reloaded.get(":a"), nullValue());
+        assertThat(reloaded.get(":b"), notNullValue());
+    }
+
+    @Test
+    public void recoversFileReplacedByIncompleteCompaction() {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+        store.close();
+        assertTrue(storeFile.renameTo(new File(buildDir, TaskHistoryStore.STORE_FILE_NAME + ".bak")));
+
+        assertThat(new TaskHistoryStore(storeFile).get(":a"), notNullValue());
+    }
+
+    @Test
+    public void discardsIncompleteTrailingRecord() throws Exception {
+        TaskHistoryStore store = new TaskHistoryStore(storeFile);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+        store.put(new TaskHistory(":b", 100L, 5L, true, true, null, null));
+        store.close();
+
+        RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+        file.setLength(file.length() - 3);
+        file.close();
+
+        store = new TaskHistoryStore(storeFile);
+        assertThat(store.get(":a"), notNullValue());
+        assertThat(store.get(":b"), nullValue());
+        store.put(new TaskHistory(":c", 100L, 5L, true, true, null, null));
+        store.close();
+
+        assertThat(new TaskHistoryStore(storeFile).get(":c"), notNullValue());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.util.HelperUtil;
+import static org.hamcrest.Matchers.*;
+import org.junit.After;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.io.File;
+
+public class TaskHistoryStoresTest {
+    private final File buildDir = HelperUtil.makeNewTestDir();
+    private final TaskHistoryStores stores = new TaskHistoryStores();
+
+    @After
+    public void tearDown() {
+        stores.close();
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void returnsTheSameStoreForABuildDir() {
+        assertThat(stores.forBuildDir(buildDir), sameInstance(stores.forBuildDir(buildDir)));
+        assertThat(stores.forBuildDir(buildDir), not(sameInstance(stores.forBuildDir(new File(buildDir, "other")))));
+    }
+
+    @Test
+    public void eachBuildHasItsOwnStores() {
+        TaskHistoryStores otherStores = new TaskHistoryStores();
+        TaskHistoryStore store = stores.forBuildDir(buildDir);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+
+        otherStores.forBuildDir(buildDir).close();
+
+        assertThat(otherStores.forBuildDir(buildDir), not(sameInstance(store)));
+        assertThat(store.get(":a"), notNullValue());
+        otherStores.close();
+    }
+
+    @Test
+    public void closesStoresWhenBuildFinishes() {
+        TaskHistoryStore store = stores.forBuildDir(buildDir);
+        store.put(new TaskHistory(":a", 100L, 5L, true, true, null, null));
+
+        stores.buildFinished(HelperUtil.createBuildResult(null));
+
+        assertThat(stores.forBuildDir(buildDir), not(sameInstance(store)));
+        assertThat(stores.forBuildDir(buildDir).get(":a").getTimestamp(), equalTo(100L));
+    }
+}
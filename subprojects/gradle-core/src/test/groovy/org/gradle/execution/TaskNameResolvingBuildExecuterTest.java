@@ -15,9 +15,11 @@
  */
 package org.gradle.execution;
 
+import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.tasks.TaskIndex;
 import org.gradle.api.tasks.TaskContainer;
 import static org.gradle.util.WrapUtil.*;
 import static org.hamcrest.Matchers.*;
@@ -41,6 +43,7 @@ public class TaskNameResolvingBuildExecuterTest {
     private final TaskContainer taskContainer = context.mock(TaskContainer.class, "[projecTasks]");
     private final TaskContainer subProjectTaskContainer = context.mock(TaskContainer.class, "[subProjectTasks]");
     private final TaskExecuter taskExecuter = context.mock(TaskExecuter.class);
+    private final TaskIndex taskIndex = new TaskIndex();
     private int counter;
 
     @Before
@@ -50,6 +53,8 @@ public class TaskNameResolvingBuildExecuterTest {
             will(returnValue(project));
             allowing(gradle).getTaskGraph();
             will(returnValue(taskExecuter));
+            allowing(gradle).getTaskIndex();
+            will(returnValue(taskIndex));
             allowing(project).getTasks();
             will(returnValue(taskContainer));
             allowing(project).getAllprojects();
@@ -62,11 +67,10 @@ public class TaskNameResolvingBuildExecuterTest {
     @Test
     public void selectsAllTasksWithTheProvidedNameInCurrentProjectAndSubprojects() {
         final Task task1 = task("name");
-        final Task task2 = task("name");
+        final Task task2 = task("name", subProject);
+        task("name", context.mock(ProjectInternal.class, "[otherProject]"));
 
         context.checking(new Expectations() {{
-            one(project).getTasksByName("name", true);
-            will(returnValue(toSet(task1, task2)));
             one(taskExecuter).addTasks(toSet(task1, task2));
         }});
 
@@ -91,28 +95,27 @@ public class TaskNameResolvingBuildExecuterTest {
 
     private void assertMatches(final String pattern, String matches, String... otherNames) {
         final Task task1 = task(matches);
-        final Task task2 = task(matches);
+        final Task task2 = task(matches, subProject);
         final Set<Task> tasks = new HashSet<Task>();
+        tasks.add(task1);
         tasks.add(task2);
         for (String name : otherNames) {
-            tasks.add(task(name));
+            tasks.add(task(name, subProject));
         }
-        tasks.add(task("."));
-        tasks.add(task("other"));
+        tasks.add(task(".", subProject));
+        tasks.add(task("other", subProject));
 
         context.checking(new Expectations() {{
-            one(project).getTasksByName(pattern, true);
-            will(returnValue(toSet()));
-            one(taskContainer).getAll();
-            will(returnValue(toSet(task1)));
-            one(subProjectTaskContainer).getAll();
-            will(returnValue(tasks));
             one(taskExecuter).addTasks(toSet(task1, task2));
         }});
 
         TaskNameResolvingBuildExecuter executer = new TaskNameResolvingBuildExecuter(toList(pattern));
         executer.select(gradle);
         assertThat(executer.getDisplayName(), equalTo(String.format("primary task '%s'", matches)));
+
+        for (Task task : tasks) {
+            taskIndex.remove(task);
+        }
     }
     
     @Test
@@ -154,17 +157,9 @@ public class TaskNameResolvingBuildExecuterTest {
 
     @Test
     public void failsWhenProvidedNameIsAmbiguous() {
-        final Task task1 = task("someTask");
-        final Task task2 = task("someTasks");
-
-        context.checking(new Expectations() {{
-            one(project).getTasksByName("soTa", true);
-            will(returnValue(toSet()));
-            one(taskContainer).getAll();
-            will(returnValue(toSet(task1)));
-            one(subProjectTaskContainer).getAll();
-            will(returnValue(toSet(task2)));
-        }});
+        task("someTask");
+        task("someTasks", subProject);
+        task("someTaskOfOtherProject", context.mock(ProjectInternal.class, "[otherProject]"));
 
         TaskNameResolvingBuildExecuter executer = new TaskNameResolvingBuildExecuter(toList("soTa"));
         try {
@@ -177,19 +172,10 @@ public class TaskNameResolvingBuildExecuterTest {
 
     @Test
     public void reportsTyposInTaskName() {
-        final Task task1 = task("someTask");
-        final Task task2 = task("someTasks");
-        final Task task3 = task("sometask");
-        final Task task4 = task("other");
-
-        context.checking(new Expectations() {{
-            one(project).getTasksByName("ssomeTask", true);
-            will(returnValue(toSet()));
-            one(taskContainer).getAll();
-            will(returnValue(toSet(task1, task2)));
-            one(subProjectTaskContainer).getAll();
-            will(returnValue(toSet(task3, task4)));
-        }});
+        task("someTask");
+        task("someTasks");
+        task("sometask", subProject);
+        task("other", subProject);
 
         TaskNameResolvingBuildExecuter executer = new TaskNameResolvingBuildExecuter(toList("ssomeTask"));
         try {
@@ -203,11 +189,9 @@ public class TaskNameResolvingBuildExecuterTest {
     @Test
     public void executesAllSelectedTasks() {
         final Task task1 = task("name");
-        final Task task2 = task("name");
+        final Task task2 = task("name", subProject);
 
         context.checking(new Expectations() {{
-            one(project).getTasksByName("name", true);
-            will(returnValue(toSet(task1, task2)));
             one(taskExecuter).addTasks(toSet(task1, task2));
             one(taskExecuter).execute();
         }});
@@ -223,11 +207,6 @@ public class TaskNameResolvingBuildExecuterTest {
         final Task task2 = task("name2");
 
         context.checking(new Expectations() {{
-            one(project).getTasksByName("name1", true);
-            will(returnValue(toSet(task1)));
-            one(project).getTasksByName("name2", true);
-            will(returnValue(toSet(task2)));
-
             Sequence sequence = context.sequence("tasks");
 
             one(taskExecuter).addTasks(toSet(task1));
@@ -248,17 +227,8 @@ public class TaskNameResolvingBuildExecuterTest {
 
     @Test
     public void failsWhenUnknownTaskNameIsProvided() {
-        final Task task1 = task("t1");
-        final Task task2 = task("t2");
-
-        context.checking(new Expectations() {{
-            one(project).getTasksByName("b3", true);
-            will(returnValue(toSet()));
-            one(taskContainer).getAll();
-            will(returnValue(toSet(task1, task2)));
-            one(subProjectTaskContainer).getAll();
-            will(returnValue(toSet()));
-        }});
+        task("t1");
+        task("t2");
 
         BuildExecuter executer = new TaskNameResolvingBuildExecuter(toList("b3"));
         try {
@@ -285,12 +255,19 @@ public class TaskNameResolvingBuildExecuterTest {
         }
     }
 
-    private Task task(final String name) {
+    private Task task(String name) {
+        return task(name, project);
+    }
+
+    private Task task(final String name, final Project project) {
         final Task task = context.mock(Task.class, "task" + counter++ + "_" + name);
         context.checking(new Expectations(){{
             allowing(task).getName();
             will(returnValue(name));
+            allowing(task).getProject();
+            will(returnValue(project));
         }});
+        taskIndex.add(task);
         return task;
     }
 
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.external.junit;
+
+import org.gradle.util.HelperUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+public class JUnitDetectorTest {
+    private File testClassesDir;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        testClassesDir = classFile(JUnitDetectorTest.class).getParentFile().getParentFile().getParentFile().getParentFile().getParentFile();
+        cacheFile = new File(HelperUtil.makeNewTestDir(), "cache.bin");
+    }
+
+    @After
+    public void tearDown() {
+        HelperUtil.deleteTestDir();
+    }
+
+    @Test
+    public void detectsTestClass() throws URISyntaxException {
+        JUnitDetector detector = new JUnitDetector(testClassesDir, Collections.<File>emptyList());
+
+        assertTrue(detector.processPossibleTestClass(classFile(JUnitDetectorTest.class)));
+        assertFalse(detector.processPossibleTestClass(classFile(HelperUtil.class)));
+
+        assertThat(detector.getTestClassNames(), equalTo(Collections.singleton("org/gradle/external/junit/JUnitDetectorTest.class")));
+    }
+
+    @Test
+    public void readsEachClassFileOnce() throws URISyntaxException {
+        JUnitDetector detector = new JUnitDetector(testClassesDir, Collections.<File>emptyList());
+
+        assertTrue(detector.processPossibleTestClass(classFile(JUnitDetectorTest.class)));
+        assertTrue(detector.processPossibleTestClass(classFile(JUnitDetectorTest.class)));
+
+        assertThat(detector.getReadCount(), equalTo(1));
+    }
+
+    @Test
+    public void reusesCachedDetailsOfUnchangedClassFiles() throws URISyntaxException {
+        JUnitDetector detector = new JUnitDetector(testClassesDir, Collections.<File>emptyList(), cacheFile);
+        assertTrue(detector.processPossibleTestClass(classFile(JUnitDetectorTest.class)));
+        assertFalse(detector.processPossibleTestClass(classFile(HelperUtil.class)));
+        detector.saveCache();
+        assertThat(detector.getReadCount(), equalTo(2));
+        assertTrue(cacheFile.isFile());
+
+        detector = new JUnitDetector(testClassesDir, Collections.<File>emptyList(), cacheFile);
+        assertTrue(detector.processPossibleTestClass(classFile(JUnitDetectorTest.class)));
+        assertFalse(detector.processPossibleTestClass(classFile(HelperUtil.class)));
+
+        assertThat(detector.getReadCount(), equalTo(0));
+        assertThat(detector.getTestClassNames(), equalTo(Collections.singleton("org/gradle/external/junit/JUnitDetectorTest.class")));
+    }
+
+    private File classFile(Class<?> type) throws URISyntaxException {
+        return new File(type.getResource(type.getSimpleName() + ".class").toURI());
+    }
+}
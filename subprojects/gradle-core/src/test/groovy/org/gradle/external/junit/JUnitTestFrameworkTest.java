@@ -27,9 +27,12 @@ import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.ProjectPluginsContainer;
 import org.gradle.api.AntBuilder;
+import org.gradle.util.WrapUtil;
 import org.hamcrest.Matchers;
 import static junit.framework.Assert.*;
 
+import java.util.List;
+
 /**
  * @author Tom Eyckmans
  */
@@ -110,6 +113,27 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
         jUnitTestFramework.execute(projectMock, testMock, null, null);
     }
 
+    @org.junit.Test
+    public void testExecuteForks()
+    {
+        setMocks();
+
+        final List<List<String>> forkIncludes = WrapUtil.toList(WrapUtil.toList("a/ATest.class"), WrapUtil.toList("b/BTest.class"));
+        context.checking(new Expectations() {{
+            one(testMock).getTestClassesDir();will(returnValue(testClassesDir));
+            one(testMock).getClasspath();will(returnValue(null));
+            one(testMock).getTestResultsDir();will(returnValue(testResultsDir));
+            one(projectMock).getAnt();will(returnValue(antBuilderMock));
+            one(antJUnitExecuteMock).execute(
+                testClassesDir, null, testResultsDir, forkIncludes,
+                jUnitOptionsMock,
+                antBuilderMock
+            );
+        }});
+
+        jUnitTestFramework.executeForks(projectMock, testMock, forkIncludes);
+    }
+
     @org.junit.Test
     public void testReport()
     {
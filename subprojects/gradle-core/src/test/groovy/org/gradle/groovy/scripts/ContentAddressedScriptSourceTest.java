@@ -0,0 +1,95 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts;
+
+import org.gradle.util.HashUtil;
+import static org.hamcrest.Matchers.*;
+import org.jmock.Expectations;
+import org.jmock.integration.junit4.JMock;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+@RunWith(JMock.class)
+public class ContentAddressedScriptSourceTest {
+    private final JUnit4Mockery context = new JUnit4Mockery();
+
+    @Test
+    public void usesHashOfContentInPlaceOfLocationId() {
+        ScriptSource source = new ContentAddressedScriptSource(source("build_gradle_1234", "<text>"));
+        String expectedName = "build_gradle_" + HashUtil.createHash("<text>");
+        assertThat(source.getClassName(), equalTo(expectedName));
+        assertThat(source.getFileName(), equalTo(expectedName));
+        assertThat(source.getText(), equalTo("<text>"));
+    }
+
+    @Test
+    public void scriptsWithSameContentHaveSameClassName() {
+        ScriptSource source1 = new ContentAddressedScriptSource(source("build_gradle_1234", "<text>"));
+        ScriptSource source2 = new ContentAddressedScriptSource(source("build_gradle_5678", "<text>"));
+        ScriptSource source3 = new ContentAddressedScriptSource(source("build_gradle_1234", "<other text>"));
+        assertThat(source1.getClassName(), equalTo(source2.getClassName()));
+        assertThat(source1.getClassName(), not(equalTo(source3.getClassName())));
+    }
+
+    @Test
+    public void appendsHashWhenClassNameHasNoId() {
+        ScriptSource source = new ContentAddressedScriptSource(source("script", "<text>"));
+        assertThat(source.getClassName(), equalTo("script_" + HashUtil.createHash("<text>")));
+    }
+
+    @Test
+    public void staticClassNameIsSameAsClassNameOfContentAddressedSource() {
+        ScriptSource source = source("build_gradle_1234", "<text>");
+        assertThat(ContentAddressedScriptSource.getClassName(source), equalTo(
+                new ContentAddressedScriptSource(source).getClassName()));
+        ScriptSource contentAddressed = new ContentAddressedScriptSource(source);
+        assertThat(ContentAddressedScriptSource.getClassName(contentAddressed), equalTo(
+                contentAddressed.getClassName()));
+    }
+
+    @Test
+    public void delegatesDescriptionAndSourceFileToOriginalSource() {
+        final ScriptSource original = source("build_gradle_1234", "<text>");
+        final File sourceFile = new File("build.gradle");
+        context.checking(new Expectations() {{
+            allowing(original).getDisplayName();
+            will(returnValue("<display-name>"));
+            allowing(original).getSourceFile();
+            will(returnValue(sourceFile));
+        }});
+
+        ContentAddressedScriptSource source = new ContentAddressedScriptSource(original);
+        assertThat(source.getDisplayName(), equalTo("<display-name>"));
+        assertThat(source.getSourceFile(), sameInstance(sourceFile));
+        assertThat(source.getSource(), sameInstance(original));
+    }
+
+    private ScriptSource source(final String className, final String text) {
+        final ScriptSource source = context.mock(ScriptSource.class, className + text);
+        context.checking(new Expectations() {{
+            allowing(source).getClassName();
+            will(returnValue(className));
+            allowing(source).getText();
+            will(returnValue(text));
+        }});
+        return source;
+    }
+}
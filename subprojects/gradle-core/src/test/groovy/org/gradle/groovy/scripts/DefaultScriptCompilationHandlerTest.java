@@ -28,6 +28,7 @@ import org.codehaus.groovy.control.SourceUnit;
 import org.gradle.api.GradleScriptException;
 import org.gradle.api.InputStreamClassLoader;
 import org.gradle.api.internal.artifacts.dsl.AbstractScriptTransformer;
+import org.gradle.util.GFileUtils;
 import org.gradle.util.HelperUtil;
 import org.gradle.util.WrapUtil;
 import static org.hamcrest.Matchers.*;
@@ -126,7 +127,8 @@ public class DefaultScriptCompilationHandlerTest {
     @Test
     public void testWriteToCache() {
         context.checking(new Expectations() {{
-            one(cachePropertiesHandlerMock).writeProperties(scriptSource, scriptCacheDir, expectedProperties);
+            one(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
             one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
             will(returnValue(CachePropertiesHandler.CacheState.VALID));
         }});
@@ -147,7 +149,8 @@ public class DefaultScriptCompilationHandlerTest {
         context.checking(new Expectations() {{
             one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
             will(returnValue(CachePropertiesHandler.CacheState.VALID));
-            one(cachePropertiesHandlerMock).writeProperties(scriptSource, scriptCacheDir, expectedProperties);
+            one(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
         }});
 
         scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
@@ -167,7 +170,8 @@ public class DefaultScriptCompilationHandlerTest {
         context.checking(new Expectations() {{
             one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
             will(returnValue(CachePropertiesHandler.CacheState.VALID));
-            one(cachePropertiesHandlerMock).writeProperties(scriptSource, scriptCacheDir, expectedProperties);
+            one(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
         }});
 
         scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
@@ -179,6 +183,74 @@ public class DefaultScriptCompilationHandlerTest {
         assertThat(script, is(expectedScriptClass));
     }
 
+    @Test
+    public void testLoadFromCacheReusesLoadedClass() {
+        context.checking(new Expectations() {{
+            one(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
+            one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
+            will(returnValue(CachePropertiesHandler.CacheState.VALID));
+        }});
+        scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
+
+        Script script1 = scriptCompilationHandler.loadFromCache(scriptSource, classLoader, scriptCacheDir,
+                expectedScriptClass);
+        Script script2 = scriptCompilationHandler.loadFromCache(scriptSource, classLoader, scriptCacheDir,
+                expectedScriptClass);
+        assertNotSame(script1, script2);
+        assertSame(script1.getClass(), script2.getClass());
+    }
+
+    @Test
+    public void testWriteToCacheKeepsValidCacheWrittenConcurrently() {
+        context.checking(new Expectations() {{
+            exactly(2).of(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
+            allowing(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
+            will(returnValue(CachePropertiesHandler.CacheState.VALID));
+        }});
+        scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
+        long lastModified = cachedFile.lastModified();
+
+        scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
+
+        checkScriptClassesInCache();
+        assertThat(cachedFile.lastModified(), equalTo(lastModified));
+        assertThat(scriptCacheDir.getParentFile().list(), equalTo(new String[]{scriptCacheDir.getName()}));
+    }
+
+    @Test
+    public void testWriteToCacheReplacesInvalidCache() {
+        context.checking(new Expectations() {{
+            exactly(2).of(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
+            one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
+            will(returnValue(CachePropertiesHandler.CacheState.INVALID));
+        }});
+        scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
+        File staleFile = new File(scriptCacheDir, "stale.class");
+        GFileUtils.writeStringToFile(staleFile, "stale");
+
+        scriptCompilationHandler.writeToCache(scriptSource, classLoader, scriptCacheDir, null, expectedScriptClass);
+
+        checkScriptClassesInCache();
+        assertFalse(staleFile.exists());
+        assertThat(scriptCacheDir.getParentFile().list(), equalTo(new String[]{scriptCacheDir.getName()}));
+    }
+
+    @Test
+    public void testIsCachedWhenCacheIsValid() {
+        context.checking(new Expectations() {{
+            one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
+            will(returnValue(CachePropertiesHandler.CacheState.VALID));
+            one(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
+            will(returnValue(CachePropertiesHandler.CacheState.INVALID));
+        }});
+
+        assertTrue(scriptCompilationHandler.isCached(scriptSource, scriptCacheDir));
+        assertFalse(scriptCompilationHandler.isCached(scriptSource, scriptCacheDir));
+    }
+
     @Test
     public void testCreateScriptOnTheFly() {
         Script script = scriptCompilationHandler.createScriptOnTheFly(scriptSource, classLoader, null,
@@ -222,7 +294,8 @@ public class DefaultScriptCompilationHandlerTest {
     @Test
     public void testLoadFromCacheWhenNotAssignableToBaseClass() {
         context.checking(new Expectations() {{
-            one(cachePropertiesHandlerMock).writeProperties(scriptSource, scriptCacheDir, expectedProperties);
+            one(cachePropertiesHandlerMock).writeProperties(with(same(scriptSource)), with(any(File.class)),
+                    with(equal(expectedProperties)));
             allowing(cachePropertiesHandlerMock).getCacheState(scriptSource, scriptCacheDir, expectedProperties);
             will(returnValue(CachePropertiesHandler.CacheState.VALID));
         }});
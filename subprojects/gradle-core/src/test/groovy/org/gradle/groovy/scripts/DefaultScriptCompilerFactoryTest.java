@@ -18,6 +18,10 @@ package org.gradle.groovy.scripts;
 
 import org.gradle.CacheUsage;
 import org.gradle.util.GFileUtils;
+import org.gradle.util.HashUtil;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
 import org.gradle.util.HelperUtil;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
@@ -71,7 +75,8 @@ public class DefaultScriptCompilerFactoryTest {
         File testDir = HelperUtil.makeNewTestDir("projectdir");
         testScriptFile = new File(testDir, "script/mybuild.craidle");
         cacheDir = new File(testDir, "cache");
-        expectedScriptCacheDir = new File(cacheDir, "scriptCache/<class-name>/NoTransformer");
+        expectedScriptCacheDir = new File(cacheDir, String.format("scriptCache/<class-name>_%s/NoTransformer_Script",
+                HashUtil.createHash(TEST_SCRIPT_TEXT)));
         expectedScript = context.mock(Script.class);
         expectedScriptRunner = context.mock(ScriptRunner.class);
         scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.ON, cacheDir, scriptRunnerFactoryMock);
@@ -82,6 +87,8 @@ public class DefaultScriptCompilerFactoryTest {
             will(returnValue("[script source]"));
             allowing(source).getClassName();
             will(returnValue("<class-name>"));
+            allowing(source).getText();
+            will(returnValue(TEST_SCRIPT_TEXT));
         }});
 
         originalClassLoader = Thread.currentThread().getContextClassLoader();
@@ -101,16 +108,15 @@ public class DefaultScriptCompilerFactoryTest {
                 allowing(source).getSourceFile();
                 will(returnValue(testScriptFile));
 
-                one(scriptCompilationHandlerMock).loadFromCache(source, testClassLoader, expectedScriptCacheDir, expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
                 will(returnValue(null));
 
-                one(scriptCompilationHandlerMock).writeToCache(
-                        source,
-                        testClassLoader, expectedScriptCacheDir,
-                        null,
-                        expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).writeToCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(aNull(Transformer.class)), with(equal(expectedScriptBaseClass)));
 
-                one(scriptCompilationHandlerMock).loadFromCache(source, testClassLoader, expectedScriptCacheDir, expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
                 will(returnValue(expectedScript));
 
                 one(expectedScript).setScriptSource(source);
@@ -131,7 +137,8 @@ public class DefaultScriptCompilerFactoryTest {
                 allowing(source).getSourceFile();
                 will(returnValue(testScriptFile));
 
-                one(scriptCompilationHandlerMock).loadFromCache(source, testClassLoader, expectedScriptCacheDir, expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
                 will(returnValue(expectedScript));
 
                 one(expectedScript).setScriptSource(source);
@@ -152,13 +159,11 @@ public class DefaultScriptCompilerFactoryTest {
                 allowing(source).getSourceFile();
                 will(returnValue(testScriptFile));
 
-                one(scriptCompilationHandlerMock).writeToCache(
-                        source,
-                        testClassLoader, expectedScriptCacheDir,
-                        null,
-                        expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).writeToCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(aNull(Transformer.class)), with(equal(expectedScriptBaseClass)));
 
-                one(scriptCompilationHandlerMock).loadFromCache(source, testClassLoader, expectedScriptCacheDir, expectedScriptBaseClass);
+                one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
                 will(returnValue(expectedScript));
 
                 one(expectedScript).setScriptSource(source);
@@ -207,11 +212,8 @@ public class DefaultScriptCompilerFactoryTest {
             allowing(source).getSourceFile();
             will(returnValue(testScriptFile));
 
-            one(scriptCompilationHandlerMock).loadFromCache(
-                    source,
-                    classLoader,
-                    expectedScriptCacheDir, 
-                    expectedScriptBaseClass);
+            one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(classLoader)),
+                        with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
             will(returnValue(expectedScript));
 
             one(expectedScript).setScriptSource(source);
@@ -228,17 +230,14 @@ public class DefaultScriptCompilerFactoryTest {
         createBuildScriptFile();
 
         final Transformer transformer = context.mock(Transformer.class);
-        final File expectedCacheDir = new File(expectedScriptCacheDir.getParentFile(), transformer.getClass().getSimpleName());
+        final File expectedCacheDir = new File(expectedScriptCacheDir.getParentFile(), transformer.getClass().getSimpleName() + "_Script");
 
         context.checking(new Expectations(){{
             allowing(source).getSourceFile();
             will(returnValue(testScriptFile));
 
-            one(scriptCompilationHandlerMock).loadFromCache(
-                    source,
-                    testClassLoader,
-                    expectedCacheDir,
-                    expectedScriptBaseClass);
+            one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                        with(equal(expectedCacheDir)), with(equal(expectedScriptBaseClass)));
             will(returnValue(expectedScript));
 
             one(expectedScript).setScriptSource(source);
@@ -250,6 +249,83 @@ public class DefaultScriptCompilerFactoryTest {
         assertSame(expectedScriptRunner, scriptProcessor.createCompiler(source).setTransformer(transformer).compile(expectedScriptBaseClass));
     }
     
+    @Test
+    public void testPrecompileWritesScriptToCacheWhenNotCached() {
+        context.checking(new Expectations() {{
+            one(scriptCompilationHandlerMock).isCached(with(contentAddressed(source)),
+                    with(equal(expectedScriptCacheDir)));
+            will(returnValue(false));
+
+            one(scriptCompilationHandlerMock).writeToCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                    with(equal(expectedScriptCacheDir)), with(aNull(Transformer.class)),
+                    with(equal(expectedScriptBaseClass)));
+        }});
+
+        scriptProcessor.createCompiler(source).precompile(expectedScriptBaseClass);
+    }
+
+    @Test
+    public void testPrecompileDoesNothingWhenScriptIsCached() {
+        context.checking(new Expectations() {{
+            one(scriptCompilationHandlerMock).isCached(with(contentAddressed(source)),
+                    with(equal(expectedScriptCacheDir)));
+            will(returnValue(true));
+        }});
+
+        scriptProcessor.createCompiler(source).precompile(expectedScriptBaseClass);
+    }
+
+    @Test
+    public void testPrecompileDoesNothingWhenCacheIsNotInUse() {
+        scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.OFF, cacheDir, scriptRunnerFactoryMock);
+        scriptProcessor.createCompiler(source).precompile(expectedScriptBaseClass);
+
+        scriptProcessor = new DefaultScriptCompilerFactory(scriptCompilationHandlerMock, CacheUsage.REBUILD, cacheDir, scriptRunnerFactoryMock);
+        scriptProcessor.createCompiler(source).precompile(expectedScriptBaseClass);
+    }
+
+    @Test
+    public void testScriptsWithSameContentShareCacheDir() {
+        final ScriptSource otherSource = context.mock(ScriptSource.class, "otherSource");
+
+        context.checking(new Expectations(){{
+            allowing(otherSource).getClassName();
+            will(returnValue("<class-name>_<other-id>"));
+            allowing(otherSource).getText();
+            will(returnValue(TEST_SCRIPT_TEXT));
+
+            one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(source)), with(same(testClassLoader)),
+                    with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
+            will(returnValue(expectedScript));
+            one(scriptCompilationHandlerMock).loadFromCache(with(contentAddressed(otherSource)),
+                    with(same(testClassLoader)),
+                    with(equal(expectedScriptCacheDir)), with(equal(expectedScriptBaseClass)));
+            will(returnValue(expectedScript));
+
+            one(expectedScript).setScriptSource(source);
+            one(expectedScript).setScriptSource(otherSource);
+
+            exactly(2).of(scriptRunnerFactoryMock).create(expectedScript);
+            will(returnValue(expectedScriptRunner));
+        }});
+
+        scriptProcessor.createCompiler(source).compile(expectedScriptBaseClass);
+        scriptProcessor.createCompiler(otherSource).compile(expectedScriptBaseClass);
+    }
+
+    private Matcher<ScriptSource> contentAddressed(final ScriptSource source) {
+        return new BaseMatcher<ScriptSource>() {
+            public boolean matches(Object o) {
+                return o instanceof ContentAddressedScriptSource
+                        && ((ContentAddressedScriptSource) o).getSource() == source;
+            }
+
+            public void describeTo(Description description) {
+                description.appendText("a content addressed source for ").appendValue(source);
+            }
+        };
+    }
+
     private void createBuildScriptFile() {
         GFileUtils.writeStringToFile(testScriptFile, TEST_SCRIPT_TEXT);
     }
@@ -21,8 +21,6 @@ import static org.hamcrest.Matchers.*
 import org.junit.runner.RunWith
 import org.junit.Test
 import org.junit.Before
-import org.gradle.groovy.scripts.FileScriptSource
-import org.gradle.groovy.scripts.ScriptSource
 
 /**
  * @author Hans Dockter
@@ -47,9 +45,6 @@ class CacheProjectIntegrationTest {
         projectDir.mkdirs()
         userHomeDir = dist.getTestDir().file("user")
         buildFile = projectDir.file('build.gradle')
-        ScriptSource source = new FileScriptSource("build file", buildFile)
-        propertiesFile = userHomeDir.file("scriptCache/$source.className/BuildScriptTransformer/cache.properties")
-        classFile = userHomeDir.file("scriptCache/$source.className/BuildScriptTransformer/${source.className}.class")
     }
     
     @Test
@@ -85,10 +80,29 @@ class CacheProjectIntegrationTest {
     private def testBuild(String taskName, String expected) {
         executer.inDirectory(projectDir).withArguments("--gradle-user-home", userHomeDir.getAbsolutePath()).withTasks(taskName).withQuietLogging().run()
         assertEquals(expected, projectDir.file(TEST_FILE).text)
+        locateCacheFiles()
         classFile.assertIsFile()
         propertiesFile.assertIsFile()
     }
 
+    // The cache directory is named after the content of the script, so use the most recently compiled build script
+    private def locateCacheFiles() {
+        List<File> classFiles = []
+        userHomeDir.file('scriptCache').eachDir {File classDir ->
+            if (classDir.name.startsWith('build_gradle_')) {
+                classDir.eachDir {File dir ->
+                    if (dir.name.startsWith('BuildScriptTransformer_')) {
+                        classFiles << new File(dir, "${classDir.name}.class")
+                    }
+                }
+            }
+        }
+        assertFalse(classFiles.isEmpty())
+        File latest = classFiles.max {File file -> file.lastModified()}
+        classFile = new TestFile(latest)
+        propertiesFile = new TestFile(latest.parentFile, 'cache.properties')
+    }
+
     // We once ran into a cache problem under windows, which was not reproducible with small build scripts. Therefore we
     // create a larger one here.
     def createLargeBuildScript() {
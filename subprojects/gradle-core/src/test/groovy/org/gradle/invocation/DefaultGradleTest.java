@@ -27,6 +27,9 @@ import org.gradle.api.internal.project.DefaultProjectRegistry;
 import org.gradle.api.internal.project.ServiceRegistry;
 import org.gradle.api.internal.project.ServiceRegistryFactory;
 import org.gradle.api.internal.project.StandardOutputRedirector;
+import org.gradle.api.internal.tasks.TaskIndex;
+import org.gradle.execution.FileFingerprinter;
+import org.gradle.execution.TaskHistoryStores;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.execution.DefaultTaskExecuter;
 import org.gradle.util.GradleVersion;
@@ -54,6 +57,8 @@ public class DefaultGradleTest {
     private final ServiceRegistryFactory serviceRegistryFactoryMock = context.mock(ServiceRegistryFactory.class);
     private final ServiceRegistry serviceRegistryMock = context.mock(ServiceRegistry.class);
     private final StandardOutputRedirector standardOutputRedirectorMock = context.mock(StandardOutputRedirector.class);
+    private final FileFingerprinter fileFingerprinter = new FileFingerprinter();
+    private final TaskHistoryStores taskHistoryStores = new TaskHistoryStores();
     private DefaultGradle gradle;
 
     @Before
@@ -65,6 +70,12 @@ public class DefaultGradleTest {
             will(returnValue(scriptHandlerMock));
             allowing(serviceRegistryMock).get(ScriptClassLoaderProvider.class);
             will(returnValue(context.mock(ScriptClassLoaderProvider.class)));
+            allowing(serviceRegistryMock).get(TaskIndex.class);
+            will(returnValue(new TaskIndex()));
+            allowing(serviceRegistryMock).get(FileFingerprinter.class);
+            will(returnValue(fileFingerprinter));
+            allowing(serviceRegistryMock).get(TaskHistoryStores.class);
+            will(returnValue(taskHistoryStores));
         }});
         gradle = new DefaultGradle(parameter, null, serviceRegistryFactoryMock, standardOutputRedirectorMock);
     }
@@ -93,6 +104,16 @@ public class DefaultGradleTest {
         assertTrue(gradle.getTaskGraph().getClass().equals(DefaultTaskExecuter.class));
     }
 
+    @Test
+    public void usesFileFingerprinterFromBuildServices() {
+        assertThat(gradle.getFileFingerprinter(), sameInstance(fileFingerprinter));
+    }
+
+    @Test
+    public void usesTaskHistoryStoresFromBuildServices() {
+        assertThat(gradle.getTaskHistoryStores(), sameInstance(taskHistoryStores));
+    }
+
     @Test
     public void createsAPluginRegistry() {
         assertTrue(gradle.getPluginRegistry().getClass().equals(DefaultPluginRegistry.class));
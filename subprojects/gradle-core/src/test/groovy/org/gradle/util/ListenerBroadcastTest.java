@@ -18,6 +18,8 @@ package org.gradle.util;
 import org.jmock.integration.junit4.JUnit4Mockery;
 import org.jmock.integration.junit4.JMock;
 import org.jmock.Expectations;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 import org.junit.Test;
@@ -75,6 +77,62 @@ public class ListenerBroadcastTest {
         broadcast.getSource().event1("param");
     }
 
+    @Test
+    public void listenerIsNotifiedOnceWhenAddedTwice() {
+        final TestListener listener = context.mock(TestListener.class);
+
+        context.checking(new Expectations() {{
+            one(listener).event1("param");
+        }});
+
+        broadcast.add(listener);
+        broadcast.add(listener);
+
+        broadcast.getSource().event1("param");
+    }
+
+    @Test
+    public void listenerAddedDuringBroadcastIsNotNotifiedOfCurrentEvent() {
+        final TestListener listener1 = context.mock(TestListener.class, "listener1");
+        final TestListener listener2 = context.mock(TestListener.class, "listener2");
+
+        context.checking(new Expectations() {{
+            one(listener1).event1("param");
+            will(new CustomAction("add listener") {
+                public Object invoke(Invocation invocation) {
+                    broadcast.add(listener2);
+                    return null;
+                }
+            });
+            one(listener1).event1("other");
+            one(listener2).event1("other");
+        }});
+
+        broadcast.add(listener1);
+
+        broadcast.getSource().event1("param");
+        broadcast.getSource().event1("other");
+    }
+
+    @Test
+    public void broadcastsMethodsWithPrimitiveParametersAndReturnValues() {
+        ListenerBroadcast<PrimitiveListener> broadcast = new ListenerBroadcast<PrimitiveListener>(PrimitiveListener.class);
+        final PrimitiveListener listener = context.mock(PrimitiveListener.class);
+        final TestClosure testClosure = context.mock(TestClosure.class);
+
+        context.checking(new Expectations() {{
+            one(listener).event(12L, 1.5, true);
+            will(returnValue(4));
+            one(testClosure).call(12L);
+            will(returnValue("ignore me"));
+        }});
+
+        broadcast.add(listener);
+        broadcast.add("event", toClosure(testClosure));
+
+        assertThat(broadcast.getSource().event(12L, 1.5, true), equalTo(0));
+    }
+
     @Test
     public void canUseClosureForSingleEventMethod() {
         final TestClosure testClosure = context.mock(TestClosure.class);
@@ -164,4 +222,8 @@ public class ListenerBroadcastTest {
 
         void event2(int value, String other);
     }
+
+    public interface PrimitiveListener {
+        int event(long value, double other, boolean flag);
+    }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2009 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.util;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URL;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal HTTP server for tests, which serves GET requests for a fixed set of resources, optionally honouring
+ * range requests. It records the requests it receives and the maximum number of requests it handled at the same
+ * time.
+ */
+public class TestHttpServer {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-");
+
+    private final Map<String, byte[]> resources = Collections.synchronizedMap(new HashMap<String, byte[]>());
+    private final Map<String, String> errors = Collections.synchronizedMap(new HashMap<String, String>());
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+    private boolean supportsRanges = true;
+    private long responseDelay;
+    private int activeRequests;
+    private int maxActiveRequests;
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0);
+        acceptThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        final Socket socket = serverSocket.accept();
+                        new Thread(new Runnable() {
+                            public void run() {
+                                handle(socket);
+                            }
+                        }).start();
+                    }
+                } catch (IOException e) {
+                    // Stopped
+                }
+            }
+        });
+        acceptThread.start();
+    }
+
+    public void stop() throws Exception {
+        serverSocket.close();
+        acceptThread.join();
+    }
+
+    public URL getUrl(String path) throws IOException {
+        return new URL(String.format("http://localhost:%d/%s", serverSocket.getLocalPort(), path));
+    }
+
+    public void addResource(String path, byte[] content) {
+        resources.put("/" + path, content);
+    }
+
+    public void addResource(String path, String content) {
+        try {
+            addResource(path, content.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Responds to requests for the given resource with the given error status, such as "500 Internal Server Error".
+     */
+    public void addError(String path, String status) {
+        errors.put("/" + path, status);
+    }
+
+    public void setSupportsRanges(boolean supportsRanges) {
+        this.supportsRanges = supportsRanges;
+    }
+
+    public void setResponseDelay(long responseDelay) {
+        this.responseDelay = responseDelay;
+    }
+
+    /**
+     * Returns the requests received, as "path" or "path range" strings.
+     */
+    public List<String> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<String>(requests);
+        }
+    }
+
+    public synchronized int getMaxActiveRequests() {
+        return maxActiveRequests;
+    }
+
+    private void handle(Socket socket) {
+        synchronized (this) {
+            activeRequests++;
+            maxActiveRequests = Math.max(maxActiveRequests, activeRequests);
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "US-ASCII"));
+            String[] requestLine = reader.readLine().split(" ");
+            String path = requestLine[1];
+            String range = null;
+            String header;
+            while ((header = reader.readLine()) != null && header.length() > 0) {
+                if (header.toLowerCase().startsWith("range:")) {
+                    range = header.substring("range:".length()).trim();
+                }
+            }
+            requests.add(range == null ? path : path + " " + range);
+            if (responseDelay > 0) {
+                Thread.sleep(responseDelay);
+            }
+
+            OutputStream outstr = new BufferedOutputStream(socket.getOutputStream());
+            byte[] content = resources.get(path);
+            String error = errors.get(path);
+            if (error != null) {
+                writeHeaders(outstr, error, 0);
+            } else if (content == null) {
+                writeHeaders(outstr, "404 Not Found", 0);
+            } else {
+                int offset = 0;
+                Matcher matcher = range == null ? null : RANGE.matcher(range);
+                if (supportsRanges && matcher != null && matcher.matches()) {
+                    offset = Integer.parseInt(matcher.group(1));
+                }
+                if (offset > content.length) {
+                    writeHeaders(outstr, "416 Requested Range Not Satisfiable", 0);
+                } else {
+                    writeHeaders(outstr, offset > 0 ? "206 Partial Content" : "200 OK", content.length - offset);
+                    outstr.write(content, offset, content.length - offset);
+                }
+            }
+            outstr.flush();
+            socket.close();
+        } catch (SocketException e) {
+            // Client has gone away
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            synchronized (this) {
+                activeRequests--;
+            }
+        }
+    }
+
+    private void writeHeaders(OutputStream outstr, String status, int contentLength) throws IOException {
+        String headers = String.format("HTTP/1.0 %s\r\nContent-Length: %d\r\nConnection: close\r\n\r\n", status,
+                contentLength);
+        outstr.write(headers.getBytes("US-ASCII"));
+    }
+}